@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schemas and records shared by the transformer benchmarks.
+ * Shapes: flat, nested record, arrays of 5 and 50 elements, date/time heavy and a wide 200-column row.
+ */
+public final class BenchmarkData {
+  public static final String FLAT = "flat";
+  public static final String NESTED = "nested";
+  public static final String ARRAY_5 = "array_5";
+  public static final String ARRAY_50 = "array_50";
+  public static final String DATE_TIME = "date_time";
+  public static final String WIDE = "wide_200";
+
+  private static final int WIDE_COLUMNS = 200;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Returns schema of the shape with types supported by the Sheets sink.
+   *
+   * @param shape name of the shape
+   * @return record schema
+   */
+  public static Schema sinkSchema(String shape) {
+    List<Schema.Field> fields = new ArrayList<>();
+    switch (shape) {
+      case FLAT:
+        addFlatFields(fields);
+        fields.add(Schema.Field.of("ratio", Schema.of(Schema.Type.FLOAT)));
+        fields.add(Schema.Field.of("count", Schema.of(Schema.Type.INT)));
+        break;
+      case NESTED:
+        addFlatFields(fields);
+        fields.add(Schema.Field.of("address", Schema.recordOf("address",
+          Schema.Field.of("street", Schema.of(Schema.Type.STRING)),
+          Schema.Field.of("zip", Schema.of(Schema.Type.INT)),
+          Schema.Field.of("latitude", Schema.of(Schema.Type.DOUBLE)))));
+        break;
+      case ARRAY_5:
+      case ARRAY_50:
+        fields.add(Schema.Field.of("id", Schema.of(Schema.Type.STRING)));
+        fields.add(Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+        fields.add(Schema.Field.of("scores", Schema.arrayOf(Schema.of(Schema.Type.DOUBLE))));
+        break;
+      case DATE_TIME:
+        for (int i = 0; i < 4; i++) {
+          fields.add(Schema.Field.of("date" + i, Schema.of(Schema.LogicalType.DATE)));
+        }
+        for (int i = 0; i < 3; i++) {
+          fields.add(Schema.Field.of("timestamp" + i, Schema.of(Schema.LogicalType.TIMESTAMP_MICROS)));
+          fields.add(Schema.Field.of("time" + i, Schema.of(Schema.LogicalType.TIME_MICROS)));
+        }
+        break;
+      case WIDE:
+        addWideFields(fields);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown shape '%s'.", shape));
+    }
+    return Schema.recordOf("benchmark", fields);
+  }
+
+  /**
+   * Returns schema of the shape with types supported by the Sheets source. Arrays are not supported by the source.
+   *
+   * @param shape name of the shape
+   * @return record schema
+   */
+  public static Schema sourceSchema(String shape) {
+    List<Schema.Field> fields = new ArrayList<>();
+    switch (shape) {
+      case FLAT:
+        addFlatFields(fields);
+        break;
+      case NESTED:
+        addFlatFields(fields);
+        fields.add(Schema.Field.of("address", Schema.recordOf("address",
+          Schema.Field.of("street", Schema.of(Schema.Type.STRING)),
+          Schema.Field.of("latitude", Schema.of(Schema.Type.DOUBLE)))));
+        break;
+      case DATE_TIME:
+        for (int i = 0; i < 5; i++) {
+          fields.add(Schema.Field.of("date" + i, Schema.of(Schema.LogicalType.DATE)));
+          fields.add(Schema.Field.of("timestamp" + i, Schema.of(Schema.LogicalType.TIMESTAMP_MILLIS)));
+        }
+        break;
+      case WIDE:
+        addWideFields(fields);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown shape '%s'.", shape));
+    }
+    return Schema.recordOf("benchmark", fields);
+  }
+
+  /**
+   * Builds a record with generated values.
+   *
+   * @param schema record schema
+   * @param shape name of the shape, defines the length of arrays
+   * @param seed value that makes records different
+   * @return record
+   */
+  public static StructuredRecord record(Schema schema, String shape, int seed) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : schema.getFields()) {
+      builder.set(field.getName(), value(field.getSchema(), shape, seed));
+    }
+    return builder.build();
+  }
+
+  private static Object value(Schema schema, String shape, int seed) {
+    Schema.LogicalType logicalType = schema.getLogicalType();
+    if (logicalType != null) {
+      switch (logicalType) {
+        case DATE:
+          return 18000 + seed % 1000;
+        case TIMESTAMP_MICROS:
+          return 1_580_000_000_000_000L + seed * 1_000_000L;
+        case TIMESTAMP_MILLIS:
+          return 1_580_000_000_000L + seed * 1_000L;
+        case TIME_MICROS:
+          return (seed % 86_400) * 1_000_000L;
+        default:
+          throw new IllegalArgumentException(String.format("Unsupported logical type '%s'.", logicalType));
+      }
+    }
+    switch (schema.getType()) {
+      case STRING:
+        return "value-" + seed;
+      case INT:
+        return seed;
+      case LONG:
+        return (long) seed * 31;
+      case FLOAT:
+        return seed / 3f;
+      case DOUBLE:
+        return seed / 7d;
+      case BOOLEAN:
+        return seed % 2 == 0;
+      case RECORD:
+        return record(schema, shape, seed);
+      case ARRAY:
+        int length = ARRAY_50.equals(shape) ? 50 : 5;
+        List<Object> values = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+          values.add(value(schema.getComponentSchema(), shape, seed + i));
+        }
+        return values;
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported type '%s'.", schema.getType()));
+    }
+  }
+
+  private static void addFlatFields(List<Schema.Field> fields) {
+    fields.add(Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+    fields.add(Schema.Field.of("amount", Schema.of(Schema.Type.DOUBLE)));
+    fields.add(Schema.Field.of("active", Schema.of(Schema.Type.BOOLEAN)));
+    fields.add(Schema.Field.of("duration", Schema.of(Schema.Type.LONG)));
+  }
+
+  private static void addWideFields(List<Schema.Field> fields) {
+    for (int i = 0; i < WIDE_COLUMNS; i++) {
+      Schema.Type type = i % 2 == 0 ? Schema.Type.STRING : Schema.Type.DOUBLE;
+      fields.add(Schema.Field.of("column" + i, Schema.of(type)));
+    }
+  }
+}
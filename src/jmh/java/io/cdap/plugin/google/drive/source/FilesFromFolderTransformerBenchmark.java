@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import io.cdap.plugin.google.drive.source.utils.BodyFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link FilesFromFolderTransformer#transform(FileFromFolder, Schema)}, which is called for each file
+ * or file partition read by the Drive source.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilesFromFolderTransformerBenchmark {
+
+  @Param({"bytes", "string"})
+  public String bodyFormat;
+
+  @Param({"1024", "1048576"})
+  public int bodySize;
+
+  @Param({"minimal", "full"})
+  public String metadata;
+
+  private Schema schema;
+  private FileFromFolder fileFromFolder;
+
+  @Setup
+  public void setup() {
+    List<String> fields = new ArrayList<>(Arrays.asList(SchemaBuilder.ID_FIELD_NAME, SchemaBuilder.NAME_FIELD_NAME));
+    if ("full".equals(metadata)) {
+      fields.addAll(Arrays.asList(SchemaBuilder.MIME_TYPE_FIELD_NAME, SchemaBuilder.SIZE_FIELD_NAME,
+                                  SchemaBuilder.MD_5_CHECKSUM_FIELD_NAME, SchemaBuilder.CREATED_TIME_FIELD_NAME,
+                                  SchemaBuilder.MODIFIED_TIME_FIELD_NAME, SchemaBuilder.PARENTS_FIELD_NAME,
+                                  SchemaBuilder.PROPERTIES_FIELD_NAME,
+                                  SchemaBuilder.IMAGE_METADATA_NAME_PREFIX + SchemaBuilder.IMAGE_WIDTH_FIELD_NAME,
+                                  SchemaBuilder.IMAGE_METADATA_NAME_PREFIX + SchemaBuilder.IMAGE_HEIGHT_FIELD_NAME,
+                                  SchemaBuilder.IMAGE_METADATA_LOCATION_FIELD_NAME_PREFIX
+                                    + SchemaBuilder.IMAGE_LATITUDE_FIELD_NAME));
+    }
+    schema = SchemaBuilder.buildSchema(fields, BodyFormat.fromValue(bodyFormat));
+
+    byte[] content = new byte[bodySize];
+    Arrays.fill(content, (byte) 'a');
+    File file = new File()
+      .setId("1a2b3c4d5e")
+      .setName("benchmark.txt")
+      .setMimeType("text/plain")
+      .setSize((long) bodySize)
+      .setMd5Checksum("0cc175b9c0f1b6a831c399e269772661")
+      .setCreatedTime(new DateTime(1_580_000_000_000L))
+      .setModifiedTime(new DateTime(1_590_000_000_000L))
+      .setParents(Collections.singletonList("parent"))
+      .setProperties(Collections.singletonMap("key", "value"))
+      .setImageMediaMetadata(new File.ImageMediaMetadata()
+                               .setWidth(640)
+                               .setHeight(480)
+                               .setLocation(new File.ImageMediaMetadata.Location().setLatitude(0.5)));
+    fileFromFolder = new FileFromFolder(content, 0L, file);
+  }
+
+  @Benchmark
+  public StructuredRecord transform() {
+    return FilesFromFolderTransformer.transform(fileFromFolder, schema);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.sheets.sink;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.common.BenchmarkData;
+import io.cdap.plugin.google.sheets.sink.utils.FlatteredRowsRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link StructuredRecordToFlatteredRowsRecordTransformer#transform(StructuredRecord)},
+ * which is called for each record written by the Sheets sink.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredRecordToFlatteredRowsRecordTransformerBenchmark {
+  private static final int RECORDS = 64;
+
+  @Param({BenchmarkData.FLAT, BenchmarkData.NESTED, BenchmarkData.ARRAY_5, BenchmarkData.ARRAY_50,
+    BenchmarkData.DATE_TIME, BenchmarkData.WIDE})
+  public String shape;
+
+  private StructuredRecordToFlatteredRowsRecordTransformer transformer;
+  private StructuredRecord[] records;
+  private int index;
+
+  @Setup
+  public void setup() {
+    transformer = new StructuredRecordToFlatteredRowsRecordTransformer("", "", "spreadsheet", "sheet", false);
+    Schema schema = BenchmarkData.sinkSchema(shape);
+    records = new StructuredRecord[RECORDS];
+    for (int i = 0; i < RECORDS; i++) {
+      records[i] = BenchmarkData.record(schema, shape, i);
+    }
+  }
+
+  @Benchmark
+  public FlatteredRowsRecord transform() {
+    index = (index + 1) % RECORDS;
+    return transformer.transform(records[index]);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.sheets.source;
+
+import com.google.api.services.sheets.v4.model.CellData;
+import com.google.api.services.sheets.v4.model.ExtendedValue;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.common.BenchmarkData;
+import io.cdap.plugin.google.sheets.source.utils.ComplexMultiValueColumn;
+import io.cdap.plugin.google.sheets.source.utils.MultipleRowRecord;
+import io.cdap.plugin.google.sheets.source.utils.RowRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the per-record path of the Sheets source: {@link MultipleRowRecord#getRowRecord(int)} followed by
+ * {@link SheetTransformer#transform}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SheetTransformerBenchmark {
+  private static final int ROWS = 100;
+
+  @Param({BenchmarkData.FLAT, BenchmarkData.NESTED, BenchmarkData.DATE_TIME, BenchmarkData.WIDE})
+  public String shape;
+
+  private Schema schema;
+  private MultipleRowRecord multipleRowRecord;
+  private RowRecord[] rowRecords;
+  private int index;
+
+  @Setup
+  public void setup() {
+    schema = BenchmarkData.sourceSchema(shape);
+    multipleRowRecord = new MultipleRowRecord("spreadsheet", "sheet", Collections.emptyMap(),
+                                              toColumns(schema), Collections.emptyList());
+    rowRecords = new RowRecord[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      rowRecords[i] = multipleRowRecord.getRowRecord(i);
+    }
+  }
+
+  @Benchmark
+  public RowRecord getRowRecord() {
+    index = (index + 1) % ROWS;
+    return multipleRowRecord.getRowRecord(index);
+  }
+
+  @Benchmark
+  public StructuredRecord transform() {
+    index = (index + 1) % ROWS;
+    return SheetTransformer.transform(rowRecords[index], schema, false, null, false, null, null);
+  }
+
+  @Benchmark
+  public StructuredRecord getRowRecordAndTransform() {
+    index = (index + 1) % ROWS;
+    return SheetTransformer.transform(multipleRowRecord.getRowRecord(index), schema, false, null, false, null, null);
+  }
+
+  private static Map<String, ComplexMultiValueColumn> toColumns(Schema recordSchema) {
+    Map<String, ComplexMultiValueColumn> columns = new HashMap<>();
+    for (Schema.Field field : recordSchema.getFields()) {
+      Schema fieldSchema = field.getSchema();
+      if (fieldSchema.getType() == Schema.Type.RECORD) {
+        columns.put(field.getName(), new ComplexMultiValueColumn(toColumns(fieldSchema)));
+      } else {
+        List<CellData> cells = new ArrayList<>(ROWS);
+        for (int row = 0; row < ROWS; row++) {
+          cells.add(toCell(fieldSchema, row));
+        }
+        columns.put(field.getName(), new ComplexMultiValueColumn(cells));
+      }
+    }
+    return columns;
+  }
+
+  private static CellData toCell(Schema schema, int row) {
+    Schema.LogicalType logicalType = schema.getLogicalType();
+    if (logicalType == Schema.LogicalType.DATE) {
+      return new CellData().setUserEnteredValue(new ExtendedValue().setNumberValue(43000d + row))
+        .setFormattedValue(Integer.toString(43000 + row));
+    }
+    if (logicalType == Schema.LogicalType.TIMESTAMP_MILLIS) {
+      return new CellData().setUserEnteredValue(new ExtendedValue().setNumberValue(43000.25 + row))
+        .setFormattedValue(Double.toString(43000.25 + row));
+    }
+    switch (schema.getType()) {
+      case LONG:
+        return new CellData().setUserEnteredValue(new ExtendedValue().setNumberValue(0.125 * row))
+          .setFormattedValue(Double.toString(0.125 * row));
+      case BOOLEAN:
+        return new CellData().setEffectiveValue(new ExtendedValue().setBoolValue(row % 2 == 0))
+          .setFormattedValue(row % 2 == 0 ? "TRUE" : "FALSE");
+      case DOUBLE:
+        return new CellData().setEffectiveValue(new ExtendedValue().setNumberValue(row / 7d))
+          .setFormattedValue(Double.toString(row / 7d));
+      default:
+        return new CellData().setEffectiveValue(new ExtendedValue().setStringValue("value-" + row))
+          .setFormattedValue("value-" + row);
+    }
+  }
+}
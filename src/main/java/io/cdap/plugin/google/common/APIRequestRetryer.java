@@ -17,6 +17,7 @@
 package io.cdap.plugin.google.common;
 
 import com.github.rholder.retry.Attempt;
+import com.github.rholder.retry.AttemptTimeLimiter;
 import com.github.rholder.retry.RetryListener;
 import com.github.rholder.retry.Retryer;
 import com.github.rholder.retry.RetryerBuilder;
@@ -32,7 +33,9 @@ import org.slf4j.LoggerFactory;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * Utility class that provides retry capabilities for API calls.
@@ -57,6 +60,7 @@ public abstract class APIRequestRetryer {
   protected static final String TOO_MANY_REQUESTS_MESSAGE = "Too Many Requests";
   protected static final String LIMIT_RATE_EXCEEDED_MESSAGE = "Rate Limit Exceeded";
   protected static final String FORBIDDEN_STATUS_MESSAGE = "Forbidden";
+  private static final ThreadLocal<Integer> CURRENT_ATTEMPT = new ThreadLocal<>();
 
   /**
    * Returns the Retryer.
@@ -66,9 +70,31 @@ public abstract class APIRequestRetryer {
    * @return The Retryer
    */
   public static <T> Retryer<T> getRetryer(String operationDescription) {
+    return getRetryer(operationDescription, null);
+  }
+
+  /**
+   * Returns the Retryer which reports results of attempts to the throttling controller.
+   * Each attempt waits for the backoff window of the controller to close, so throttling seen by one caller
+   * delays all callers that share the controller.
+   *
+   * @param operationDescription the operation description is provided
+   * @param throttlingController the throttling controller of used credentials, null to not coordinate backoff
+   * @param <T>
+   * @return The Retryer
+   */
+  public static <T> Retryer<T> getRetryer(String operationDescription,
+                                          @Nullable ThrottlingController throttlingController) {
     RetryListener listener = new RetryListener() {
       @Override
       public <V> void onRetry(Attempt<V> attempt) {
+        if (throttlingController != null) {
+          if (attempt.hasResult()) {
+            throttlingController.onSuccess();
+          } else if (isThrottlingError(attempt.getExceptionCause())) {
+            throttlingController.onThrottle(attempt.getExceptionCause());
+          }
+        }
         if (attempt.hasException()) {
           Throwable exceptionCause = attempt.getExceptionCause();
           if (exceptionCause instanceof GoogleJsonResponseException
@@ -92,15 +118,40 @@ public abstract class APIRequestRetryer {
         }
       }
     };
-    return RetryerBuilder.<T>newBuilder()
+    WaitStrategy waitStrategy = WaitStrategies.join(
+      new TrueExponentialWaitStrategy(1000, TimeUnit.SECONDS.toMillis(MAX_RETRY_WAIT)),
+      WaitStrategies.randomWait(MAX_RETRY_JITTER_WAIT, TimeUnit.MILLISECONDS));
+    RetryerBuilder<T> retryerBuilder = RetryerBuilder.<T>newBuilder()
       .retryIfException(APIRequestRetryer::checkThrowable)
       .retryIfExceptionOfType(SocketTimeoutException.class)
-      .withWaitStrategy(WaitStrategies.join(
-        new TrueExponentialWaitStrategy(1000, TimeUnit.SECONDS.toMillis(MAX_RETRY_WAIT)),
-        WaitStrategies.randomWait(MAX_RETRY_JITTER_WAIT, TimeUnit.MILLISECONDS)))
       .withStopStrategy(StopStrategies.stopAfterAttempt(MAX_RETRY_COUNT))
       .withRetryListener(listener)
-      .build();
+      .withAttemptTimeLimiter(new AttemptTrackingTimeLimiter<>(throttlingController));
+    if (throttlingController != null) {
+      retryerBuilder.withWaitStrategy(attempt -> Math.max(waitStrategy.computeSleepTime(attempt),
+                                                          throttlingController.getRemainingBackoffMillis()));
+    } else {
+      retryerBuilder.withWaitStrategy(waitStrategy);
+    }
+    return retryerBuilder.build();
+  }
+
+  /**
+   * Checks whether the error means that the quota was exceeded.
+   *
+   * @param t the error
+   * @return true for 'Too Many Requests' and 'Rate Limit Exceeded' errors
+   */
+  public static boolean isThrottlingError(Throwable t) {
+    if (t instanceof GoogleJsonResponseException) {
+      GoogleJsonResponseException e = (GoogleJsonResponseException) t;
+      return e.getDetails() != null && (isTooManyRequestsError(e) || isRateLimitError(e));
+    }
+    if (t instanceof HttpResponseException) {
+      HttpResponseException e = (HttpResponseException) t;
+      return e.getStatusCode() == TOO_MANY_REQUESTS_CODE || isRateLimitError(e);
+    }
+    return false;
   }
 
   private static boolean checkThrowable(Throwable t) {
@@ -152,6 +203,49 @@ public abstract class APIRequestRetryer {
     return e.getStatusCode() == BACKEND_ERROR_CODE;
   }
 
+  /**
+   * Returns the number of the attempt which is executed by the current thread.
+   *
+   * @return attempt number starting from 1, 0 when the thread is not in a retryer call
+   */
+  public static int getCurrentAttempt() {
+    Integer attempt = CURRENT_ATTEMPT.get();
+    return attempt == null ? 0 : attempt;
+  }
+
+  /**
+   * Exposes the attempt number to the called code and waits for the shared backoff window before each attempt.
+   * A new instance is created for each retryer, so it counts attempts of a single call.
+   *
+   * @param <V> type of the result.
+   */
+  private static class AttemptTrackingTimeLimiter<V> implements AttemptTimeLimiter<V> {
+    private final ThrottlingController throttlingController;
+    private int attempts;
+
+    AttemptTrackingTimeLimiter(@Nullable ThrottlingController throttlingController) {
+      this.throttlingController = throttlingController;
+    }
+
+    @Override
+    public V call(Callable<V> callable) throws Exception {
+      if (throttlingController != null) {
+        throttlingController.awaitBackoff();
+      }
+      Integer outerAttempt = CURRENT_ATTEMPT.get();
+      CURRENT_ATTEMPT.set(++attempts);
+      try {
+        return callable.call();
+      } finally {
+        if (outerAttempt == null) {
+          CURRENT_ATTEMPT.remove();
+        } else {
+          CURRENT_ATTEMPT.set(outerAttempt);
+        }
+      }
+    }
+  }
+
   /**
    * Default exponential strategy {@link com.github.rholder.retry.WaitStrategies.ExceptionWaitStrategy} starts
    * from multiplier 2 instead of 1.
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semaphore-like limiter of parallel API calls. The number of available permits follows the concurrency factor of
+ * {@link ThrottlingController}: it shrinks when calls are throttled and grows back to the maximum while calls succeed.
+ */
+public class AdaptiveConcurrencyLimiter {
+  private static final long RECHECK_INTERVAL_MILLIS = 100;
+
+  private final ThrottlingController throttlingController;
+  private final int maxConcurrency;
+  private int permitsInUse;
+
+  /**
+   * Constructor for AdaptiveConcurrencyLimiter object.
+   *
+   * @param throttlingController controller of the credentials used by callers
+   * @param maxConcurrency maximal number of parallel calls
+   */
+  public AdaptiveConcurrencyLimiter(ThrottlingController throttlingController, int maxConcurrency) {
+    this.throttlingController = throttlingController;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Acquires a permit if one is available at the moment.
+   *
+   * @return true if the permit was acquired
+   */
+  public synchronized boolean tryAcquire() {
+    if (permitsInUse < getConcurrencyLimit()) {
+      permitsInUse++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Acquires a permit waiting up to the timeout.
+   *
+   * @param timeout maximal time to wait
+   * @param unit time unit of the timeout
+   * @return true if the permit was acquired
+   * @throws InterruptedException if the thread was interrupted
+   */
+  public synchronized boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+    while (!tryAcquire()) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      // limit can grow without release, so recheck periodically
+      wait(Math.min(remaining, RECHECK_INTERVAL_MILLIS));
+    }
+    return true;
+  }
+
+  /**
+   * Releases the acquired permit.
+   */
+  public synchronized void release() {
+    permitsInUse--;
+    notifyAll();
+  }
+
+  public int getConcurrencyLimit() {
+    return throttlingController.getConcurrencyLimit(maxConcurrency);
+  }
+}
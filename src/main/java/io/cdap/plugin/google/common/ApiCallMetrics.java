@@ -0,0 +1,321 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.common.base.Strings;
+import io.cdap.cdap.api.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Statistics of Google API calls of one plugin stage, collected per {@link ApiOperation}.
+ * Calls are recorded by the clients in the worker JVM; the stage reports them to CDAP with {@link #flush(Metrics)}.
+ * Calls made by the driver, such as listing and split planning, are flushed when the run is prepared and finished.
+ * Statistics of the stage are shared while they are acquired by the stage or by any of its clients and are dropped
+ * with the last {@link #release()}, which reports the calls that were not flushed yet.
+ * Metric names are 'api.[operation].[measure]', for example 'api.files.get.calls' or
+ * 'api.spreadsheets.batchUpdate.latency.le.250ms'. Latency histogram buckets are not cumulative: each call is
+ * counted in exactly one bucket.
+ */
+public final class ApiCallMetrics {
+  private static final String METRIC_PREFIX = "api.";
+  private static final String DEFAULT_STAGE = "default";
+  static final long[] LATENCY_BUCKETS_MILLIS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+  static final long FLUSH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+  // guarded by the class lock, as are references and metrics of the instances
+  private static final Map<String, ApiCallMetrics> INSTANCES = new HashMap<>();
+
+  private final Map<ApiOperation, OperationMetrics> operations;
+  @Nullable
+  private final String stage;
+  private volatile long lastFlush = System.currentTimeMillis();
+  private int references;
+  @Nullable
+  private Metrics metrics;
+
+  private ApiCallMetrics(@Nullable String stage) {
+    Map<ApiOperation, OperationMetrics> operationMetrics = new EnumMap<>(ApiOperation.class);
+    for (ApiOperation operation : ApiOperation.values()) {
+      operationMetrics.put(operation, new OperationMetrics(operation));
+    }
+    this.operations = Collections.unmodifiableMap(operationMetrics);
+    this.stage = stage;
+  }
+
+  /**
+   * Acquires statistics of the stage. Each call must be paired with {@link #release()}.
+   *
+   * @param referenceName reference name of the stage
+   * @param metrics metrics of the stage which receive the calls left at the last release, null for clients
+   * @return shared statistics of the stage
+   */
+  public static synchronized ApiCallMetrics acquire(String referenceName, @Nullable Metrics metrics) {
+    ApiCallMetrics callMetrics =
+      INSTANCES.computeIfAbsent(Strings.isNullOrEmpty(referenceName) ? DEFAULT_STAGE : referenceName,
+                                ApiCallMetrics::new);
+    callMetrics.references++;
+    if (callMetrics.metrics == null) {
+      callMetrics.metrics = metrics;
+    }
+    return callMetrics;
+  }
+
+  /**
+   * Acquires statistics of the stage for a client. Each call must be paired with {@link #release()}.
+   *
+   * @param referenceName reference name of the stage
+   * @return shared statistics of the stage
+   */
+  public static ApiCallMetrics acquire(String referenceName) {
+    return acquire(referenceName, null);
+  }
+
+  /**
+   * Returns statistics which are not shared, for example to summarize the calls of a single client.
+   *
+   * @return new statistics
+   */
+  public static ApiCallMetrics newInstance() {
+    return new ApiCallMetrics(null);
+  }
+
+  /**
+   * Releases statistics acquired by {@link #acquire}. The last release reports calls which were not flushed yet to
+   * the metrics of the stage and drops the statistics, so the next run of the stage starts with new ones.
+   */
+  public void release() {
+    Metrics stageMetrics;
+    synchronized (ApiCallMetrics.class) {
+      if (references == 0) {
+        return;
+      }
+      references--;
+      if (references > 0) {
+        return;
+      }
+      INSTANCES.remove(stage, this);
+      stageMetrics = metrics;
+    }
+    if (stageMetrics != null) {
+      flush(stageMetrics);
+    }
+  }
+
+  public OperationMetrics get(ApiOperation operation) {
+    return operations.get(operation);
+  }
+
+  /**
+   * Reports values collected since the previous flush if {@link #FLUSH_INTERVAL_MILLIS} passed.
+   *
+   * @param metrics metrics of the stage
+   */
+  public void flushIfDue(Metrics metrics) {
+    if (System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MILLIS) {
+      flush(metrics);
+    }
+  }
+
+  /**
+   * Reports values collected since the previous flush.
+   *
+   * @param metrics metrics of the stage
+   */
+  public synchronized void flush(Metrics metrics) {
+    lastFlush = System.currentTimeMillis();
+    for (OperationMetrics operationMetrics : operations.values()) {
+      operationMetrics.flush(metrics);
+    }
+  }
+
+  /**
+   * Returns whether any operation was called.
+   *
+   * @return true if there were calls
+   */
+  public boolean hasCalls() {
+    return operations.values().stream().anyMatch(o -> o.getCalls() > 0);
+  }
+
+  /**
+   * Returns human readable statistics of operations that were called.
+   *
+   * @return summary of calls
+   */
+  public String getSummary() {
+    List<String> summaries = new ArrayList<>();
+    for (OperationMetrics operationMetrics : operations.values()) {
+      if (operationMetrics.getCalls() > 0) {
+        summaries.add(operationMetrics.toString());
+      }
+    }
+    return summaries.isEmpty() ? "no API calls" : String.join("; ", summaries);
+  }
+
+  /**
+   * Counters of single operation.
+   */
+  public static final class OperationMetrics {
+    private static final int CALLS = 0;
+    private static final int FAILURES = 1;
+    private static final int RETRIES = 2;
+    private static final int THROTTLES = 3;
+    private static final int REQUEST_BYTES = 4;
+    private static final int RESPONSE_BYTES = 5;
+    private static final int LATENCY_MILLIS = 6;
+    private static final int FIRST_BUCKET = 7;
+
+    private final ApiOperation operation;
+    private final String[] names;
+    private final LongAdder[] values;
+    private final long[] reported;
+
+    OperationMetrics(ApiOperation operation) {
+      this.operation = operation;
+      String prefix = METRIC_PREFIX + operation.getValue() + ".";
+      List<String> metricNames = new ArrayList<>();
+      metricNames.add(prefix + "calls");
+      metricNames.add(prefix + "failures");
+      metricNames.add(prefix + "retries");
+      metricNames.add(prefix + "throttles");
+      metricNames.add(prefix + "request.bytes");
+      metricNames.add(prefix + "response.bytes");
+      metricNames.add(prefix + "latency.ms");
+      for (long bound : LATENCY_BUCKETS_MILLIS) {
+        metricNames.add(String.format("%slatency.le.%dms", prefix, bound));
+      }
+      long lastBound = LATENCY_BUCKETS_MILLIS[LATENCY_BUCKETS_MILLIS.length - 1];
+      metricNames.add(String.format("%slatency.gt.%dms", prefix, lastBound));
+      this.names = metricNames.toArray(new String[0]);
+      this.values = new LongAdder[names.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = new LongAdder();
+      }
+      this.reported = new long[names.length];
+    }
+
+    /**
+     * Records one attempt of the operation.
+     *
+     * @param latencyMillis time from sending of the request till the response was read
+     * @param requestBytes size of the request content
+     * @param responseBytes size of the response content
+     * @param failed whether the attempt ended with an error
+     * @param throttled whether the error means exceeded quota
+     * @param retry whether the attempt is a retry of a failed one
+     */
+    public void record(long latencyMillis, long requestBytes, long responseBytes, boolean failed, boolean throttled,
+                       boolean retry) {
+      values[CALLS].increment();
+      if (failed) {
+        values[FAILURES].increment();
+      }
+      if (throttled) {
+        values[THROTTLES].increment();
+      }
+      if (retry) {
+        values[RETRIES].increment();
+      }
+      values[REQUEST_BYTES].add(Math.max(0, requestBytes));
+      values[RESPONSE_BYTES].add(Math.max(0, responseBytes));
+      values[LATENCY_MILLIS].add(latencyMillis);
+      int bucket = 0;
+      while (bucket < LATENCY_BUCKETS_MILLIS.length && latencyMillis > LATENCY_BUCKETS_MILLIS[bucket]) {
+        bucket++;
+      }
+      values[FIRST_BUCKET + bucket].increment();
+    }
+
+    public long getCalls() {
+      return values[CALLS].sum();
+    }
+
+    public long getFailures() {
+      return values[FAILURES].sum();
+    }
+
+    public long getRetries() {
+      return values[RETRIES].sum();
+    }
+
+    public long getThrottles() {
+      return values[THROTTLES].sum();
+    }
+
+    public long getRequestBytes() {
+      return values[REQUEST_BYTES].sum();
+    }
+
+    public long getResponseBytes() {
+      return values[RESPONSE_BYTES].sum();
+    }
+
+    /**
+     * Returns upper bound of the latency bucket which contains the percentile.
+     *
+     * @param percentile value from 0 to 1
+     * @return latency in milliseconds, -1 for the last unbounded bucket
+     */
+    public long getLatencyPercentileBound(double percentile) {
+      long calls = getCalls();
+      long threshold = (long) Math.ceil(calls * percentile);
+      long count = 0;
+      for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+        count += values[FIRST_BUCKET + i].sum();
+        if (count >= threshold) {
+          return LATENCY_BUCKETS_MILLIS[i];
+        }
+      }
+      return -1;
+    }
+
+    private void flush(Metrics metrics) {
+      for (int i = 0; i < names.length; i++) {
+        long current = values[i].sum();
+        long delta = current - reported[i];
+        reported[i] = current;
+        while (delta > 0) {
+          int chunk = (int) Math.min(Integer.MAX_VALUE, delta);
+          metrics.count(names[i], chunk);
+          delta -= chunk;
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      long calls = getCalls();
+      long p50 = getLatencyPercentileBound(0.5);
+      long p95 = getLatencyPercentileBound(0.95);
+      return String.format("%s: calls '%d', failures '%d', retries '%d', throttles '%d', avg latency '%d' ms, " +
+                             "p50 <= '%s', p95 <= '%s', request bytes '%d', response bytes '%d'",
+                           operation.getValue(), calls, getFailures(), getRetries(), getThrottles(),
+                           calls == 0 ? 0 : values[LATENCY_MILLIS].sum() / calls,
+                           p50 < 0 ? "inf" : p50 + " ms", p95 < 0 ? "inf" : p95 + " ms",
+                           getRequestBytes(), getResponseBytes());
+    }
+  }
+}
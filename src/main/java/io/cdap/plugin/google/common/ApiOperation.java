@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+/**
+ * Google Drive and Google Sheets API operations which are tracked by {@link ApiCallMetrics}.
+ */
+public enum ApiOperation {
+  FILES_LIST("files.list"),
+  FILES_GET("files.get"),
+  FILES_EXPORT("files.export"),
+  FILES_DOWNLOAD("files.download"),
+  FILES_CREATE("files.create"),
+  FILES_UPDATE("files.update"),
+  CHANGES_GET_START_PAGE_TOKEN("changes.getStartPageToken"),
+  CHANGES_LIST("changes.list"),
+  SPREADSHEETS_GET("spreadsheets.get"),
+  SPREADSHEETS_CREATE("spreadsheets.create"),
+  SPREADSHEETS_BATCH_UPDATE("spreadsheets.batchUpdate");
+
+  private final String value;
+
+  ApiOperation(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+}
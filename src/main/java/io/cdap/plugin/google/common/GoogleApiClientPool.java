@@ -0,0 +1,386 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * JVM-scoped registry of Google API clients.
+ * All {@link Drive} and {@link Sheets} instances are built over the single shared {@link NetHttpTransport}, so TLS
+ * trust store loading happens once per JVM and connections are kept alive between splits.
+ * Clients are keyed by authentication identity and scopes ({@link ClientKey}) and are reference counted.
+ * Released clients are kept idle for {@link #IDLE_TIMEOUT_MILLIS} to be reused by the next split of the same task.
+ * Endpoints of the APIs can be replaced with the {@link #ROOT_URL_PROPERTY} system property, e.g. to run the clients
+ * against a local test server.
+ */
+public final class GoogleApiClientPool {
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleApiClientPool.class);
+  public static final String ROOT_URL_PROPERTY = "cdap.google.api.root.url";
+  static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final GoogleApiClientPool INSTANCE = new GoogleApiClientPool();
+
+  private final Map<ClientKey, PooledClients> clients = new HashMap<>();
+  private NetHttpTransport httpTransport;
+  private long createdClients;
+  private long reusedClients;
+  private long evictedClients;
+
+  private GoogleApiClientPool() {
+  }
+
+  public static GoogleApiClientPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the transport shared by all clients of this JVM.
+   *
+   * @return shared {@link NetHttpTransport}
+   */
+  public synchronized NetHttpTransport getHttpTransport() {
+    if (httpTransport == null) {
+      try {
+        httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+      } catch (Exception e) {
+        throw new RuntimeException("There was issue during communicating with Google Drive API.", e);
+      }
+    }
+    return httpTransport;
+  }
+
+  /**
+   * Acquires the {@link Drive} client for the key. Each call must be paired with {@link #release(ClientKey)}.
+   * A new client is built outside of the pool lock, so acquirers of other keys are not blocked by it.
+   *
+   * @param key identity of the client
+   * @param factory builds a new client if there is no pooled one
+   * @return shared {@link Drive} client
+   * @throws IOException on issues with credentials reading
+   */
+  public Drive acquireDrive(ClientKey key, ClientFactory<Drive> factory) throws IOException {
+    PooledClients pooledClients;
+    synchronized (this) {
+      evictIdleClients();
+      pooledClients = clients.get(key);
+      if (pooledClients == null) {
+        pooledClients = new PooledClients();
+        clients.put(key, pooledClients);
+        createdClients++;
+      } else {
+        reusedClients++;
+      }
+      // the reference keeps the clients from eviction while the client is built
+      pooledClients.references++;
+    }
+    boolean acquired = false;
+    try {
+      Drive drive = pooledClients.drive.get(factory);
+      acquired = true;
+      return drive;
+    } finally {
+      if (!acquired) {
+        release(key);
+      }
+    }
+  }
+
+  /**
+   * Returns the {@link Sheets} client for the key that was previously acquired with {@link #acquireDrive}.
+   * Sheets client shares the reference of the Drive client and is built on first request, outside of the pool lock.
+   *
+   * @param key identity of the client
+   * @param factory builds a new client if there is no pooled one
+   * @return shared {@link Sheets} client
+   * @throws IOException on issues with credentials reading
+   */
+  public Sheets getSheets(ClientKey key, ClientFactory<Sheets> factory) throws IOException {
+    PooledClients pooledClients;
+    synchronized (this) {
+      pooledClients = clients.get(key);
+      if (pooledClients == null || pooledClients.references == 0) {
+        throw new IllegalStateException(String.format("Client '%s' was not acquired.", key));
+      }
+    }
+    return pooledClients.sheets.get(factory);
+  }
+
+  /**
+   * Releases the client acquired by {@link #acquireDrive}.
+   *
+   * @param key identity of the client
+   */
+  public synchronized void release(ClientKey key) {
+    PooledClients pooledClients = clients.get(key);
+    if (pooledClients == null || pooledClients.references == 0) {
+      LOG.warn("Attempt to release client '{}' which is not acquired.", key);
+      return;
+    }
+    pooledClients.references--;
+    if (pooledClients.references == 0) {
+      pooledClients.idleSince = System.currentTimeMillis();
+    }
+    evictIdleClients();
+  }
+
+  /**
+   * Returns current statistics of the pool.
+   *
+   * @return pool statistics
+   */
+  public synchronized PoolStats getStats() {
+    int activeClients = 0;
+    int activeReferences = 0;
+    for (PooledClients pooledClients : clients.values()) {
+      if (pooledClients.references > 0) {
+        activeClients++;
+        activeReferences += pooledClients.references;
+      }
+    }
+    return new PoolStats(activeClients, clients.size() - activeClients, activeReferences, createdClients,
+                         reusedClients, evictedClients);
+  }
+
+  private void evictIdleClients() {
+    long now = System.currentTimeMillis();
+    Iterator<PooledClients> iterator = clients.values().iterator();
+    while (iterator.hasNext()) {
+      PooledClients pooledClients = iterator.next();
+      if (pooledClients.references == 0 && now - pooledClients.idleSince > IDLE_TIMEOUT_MILLIS) {
+        iterator.remove();
+        evictedClients++;
+      }
+    }
+  }
+
+  /**
+   * Builds a new API client.
+   *
+   * @param <T> type of the client.
+   */
+  public interface ClientFactory<T> {
+    T create() throws IOException;
+  }
+
+  /**
+   * Clients which share the same identity.
+   */
+  private static class PooledClients {
+    private final LazyClient<Drive> drive = new LazyClient<>();
+    private final LazyClient<Sheets> sheets = new LazyClient<>();
+    // guarded by the pool lock
+    private int references;
+    private long idleSince;
+  }
+
+  /**
+   * Client which is built by the first caller, the callers of the same key wait for it.
+   * A client which failed to be built is built again by the next caller.
+   *
+   * @param <T> type of the client.
+   */
+  private static class LazyClient<T> {
+    private T client;
+
+    synchronized T get(ClientFactory<T> factory) throws IOException {
+      if (client == null) {
+        client = factory.create();
+      }
+      return client;
+    }
+  }
+
+  /**
+   * Identity of the client: authentication properties and scopes.
+   * Secrets are kept only as a hash.
+   */
+  public static final class ClientKey {
+    private final AuthType authType;
+    private final String credentialHash;
+    private final String scopes;
+    private final String rootUrl;
+
+    private ClientKey(AuthType authType, String credentialHash, String scopes, @Nullable String rootUrl) {
+      this.authType = authType;
+      this.credentialHash = credentialHash;
+      this.scopes = scopes;
+      this.rootUrl = rootUrl;
+    }
+
+    /**
+     * Returns the key for the config and scopes.
+     *
+     * @param config the google auth base config
+     * @param scopes required scopes
+     * @return client key
+     */
+    public static ClientKey of(GoogleAuthBaseConfig config, List<String> scopes) {
+      AuthType authType = config.getAuthType();
+      List<String> identity = new ArrayList<>();
+      switch (authType) {
+        case OAUTH2:
+          OAuthMethod oAuthMethod = config.getOAuthMethod();
+          identity.add(oAuthMethod.name());
+          if (OAuthMethod.ACCESS_TOKEN.equals(oAuthMethod)) {
+            identity.add(Strings.nullToEmpty(config.getAccessToken()));
+          } else {
+            identity.add(Strings.nullToEmpty(config.getClientId()));
+            identity.add(Strings.nullToEmpty(config.getClientSecret()));
+            identity.add(Strings.nullToEmpty(config.getRefreshToken()));
+          }
+          break;
+        case SERVICE_ACCOUNT:
+          if (Boolean.TRUE.equals(config.isServiceAccountJson())) {
+            identity.add(Strings.nullToEmpty(config.getServiceAccountJson()));
+          } else if (Boolean.TRUE.equals(config.isServiceAccountFilePath())) {
+            identity.add(Strings.nullToEmpty(config.getServiceAccountFilePath()));
+          }
+          break;
+        default:
+          throw new IllegalStateException(
+            String.format("Untreated value '%s' for authentication type.", authType));
+      }
+      Hasher hasher = Hashing.sha256().newHasher();
+      for (String part : identity) {
+        hasher.putString(part, StandardCharsets.UTF_8).putChar('\u0000');
+      }
+      return new ClientKey(authType, hasher.hash().toString(), Joiner.on(' ').join(new TreeSet<>(scopes)),
+                           Strings.emptyToNull(System.getProperty(ROOT_URL_PROPERTY)));
+    }
+
+    public AuthType getAuthType() {
+      return authType;
+    }
+
+    public String getCredentialHash() {
+      return credentialHash;
+    }
+
+    public String getScopes() {
+      return scopes;
+    }
+
+    /**
+     * Returns root URL which replaces the default endpoints of Google APIs.
+     *
+     * @return root URL or null for default endpoints
+     */
+    @Nullable
+    public String getRootUrl() {
+      return rootUrl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ClientKey clientKey = (ClientKey) o;
+      return authType == clientKey.authType &&
+        credentialHash.equals(clientKey.credentialHash) &&
+        scopes.equals(clientKey.scopes) &&
+        Objects.equals(rootUrl, clientKey.rootUrl);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(authType, credentialHash, scopes, rootUrl);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s:%s:[%s]", authType, credentialHash.substring(0, 8), scopes);
+    }
+  }
+
+  /**
+   * Snapshot of pool statistics.
+   */
+  public static final class PoolStats {
+    private final int activeClients;
+    private final int idleClients;
+    private final int activeReferences;
+    private final long createdClients;
+    private final long reusedClients;
+    private final long evictedClients;
+
+    PoolStats(int activeClients, int idleClients, int activeReferences, long createdClients, long reusedClients,
+              long evictedClients) {
+      this.activeClients = activeClients;
+      this.idleClients = idleClients;
+      this.activeReferences = activeReferences;
+      this.createdClients = createdClients;
+      this.reusedClients = reusedClients;
+      this.evictedClients = evictedClients;
+    }
+
+    public int getActiveClients() {
+      return activeClients;
+    }
+
+    public int getIdleClients() {
+      return idleClients;
+    }
+
+    public int getActiveReferences() {
+      return activeReferences;
+    }
+
+    public long getCreatedClients() {
+      return createdClients;
+    }
+
+    public long getReusedClients() {
+      return reusedClients;
+    }
+
+    public long getEvictedClients() {
+      return evictedClients;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("active clients: '%d', idle clients: '%d', active references: '%d', created: '%d', " +
+                             "reused: '%d', evicted: '%d'", activeClients, idleClients, activeReferences,
+                           createdClients, reusedClients, evictedClients);
+    }
+  }
+}
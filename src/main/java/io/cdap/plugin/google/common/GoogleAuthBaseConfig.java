@@ -59,6 +59,10 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
   public static final String OAUTH_METHOD = "oAuthMethod";
   public static final String FILE_IDENTIFIER = "fileIdentifier";
   public static final String IDENTIFIER_TYPE = "identifierType";
+  public static final String USER_READ_REQUESTS_QUOTA = "userReadRequestsQuota";
+  public static final String USER_WRITE_REQUESTS_QUOTA = "userWriteRequestsQuota";
+  public static final String PROJECT_READ_REQUESTS_QUOTA = "projectReadRequestsQuota";
+  public static final String PROJECT_WRITE_REQUESTS_QUOTA = "projectWriteRequestsQuota";
 
   private static final String IS_SET_FAILURE_MESSAGE_PATTERN = "'%s' property is empty or macro is not available.";
 
@@ -150,6 +154,34 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
     + "then the File Identifier would be “16npTpL3ozkAzB5kLQ-oQD3IlTZhnnh2w1”.")
   private String fileIdentifier;
 
+  @Nullable
+  @Macro
+  @Name(USER_READ_REQUESTS_QUOTA)
+  @Description("Maximum number of read requests per 100 seconds sent on behalf of the user. " +
+    "The limit is applied in each worker separately. Empty value means no limit.")
+  private Integer userReadRequestsQuota;
+
+  @Nullable
+  @Macro
+  @Name(USER_WRITE_REQUESTS_QUOTA)
+  @Description("Maximum number of write requests per 100 seconds sent on behalf of the user. " +
+    "The limit is applied in each worker separately. Empty value means no limit.")
+  private Integer userWriteRequestsQuota;
+
+  @Nullable
+  @Macro
+  @Name(PROJECT_READ_REQUESTS_QUOTA)
+  @Description("Maximum number of read requests per 100 seconds sent by all users of the worker. " +
+    "Empty value means no limit.")
+  private Integer projectReadRequestsQuota;
+
+  @Nullable
+  @Macro
+  @Name(PROJECT_WRITE_REQUESTS_QUOTA)
+  @Description("Maximum number of write requests per 100 seconds sent by all users of the worker. " +
+    "Empty value means no limit.")
+  private Integer projectWriteRequestsQuota;
+
   /**
    * Returns the ValidationResult.
    *
@@ -159,6 +191,10 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
   public ValidationResult validate(FailureCollector collector) {
     IdUtils.validateReferenceName(referenceName, collector);
     checkIfDirectoryOrFileIdentifierExists(collector);
+    validateQuota(collector, userReadRequestsQuota, USER_READ_REQUESTS_QUOTA);
+    validateQuota(collector, userWriteRequestsQuota, USER_WRITE_REQUESTS_QUOTA);
+    validateQuota(collector, projectReadRequestsQuota, PROJECT_READ_REQUESTS_QUOTA);
+    validateQuota(collector, projectWriteRequestsQuota, PROJECT_WRITE_REQUESTS_QUOTA);
     ValidationResult validationResult = new ValidationResult();
     if (validateAuthType(collector)) {
       AuthType authType = getAuthType();
@@ -176,9 +212,7 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
           return validationResult;
       }
       if (propertiesAreValid) {
-        try {
-          GoogleDriveClient client = new GoogleDriveClient(this);
-
+        try (GoogleDriveClient client = new GoogleDriveClient(this)) {
           // check directory or file access
           if (isDirectoryOrFileAccessible(collector, client)) {
             validationResult.setDirectoryOrFileAccessible(true);
@@ -209,6 +243,14 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
     return false;
   }
 
+  private void validateQuota(FailureCollector collector, @Nullable Integer quota, String propertyName) {
+    if (!containsMacro(propertyName) && quota != null && quota <= 0) {
+      collector.addFailure(String.format("'%s' must be greater than 0.", propertyName),
+                           "Set a positive value or leave the property empty.")
+        .withConfigProperty(propertyName);
+    }
+  }
+
   private boolean validateOAuth2Properties(FailureCollector collector) {
     if (OAuthMethod.REFRESH_TOKEN.equals(getOAuthMethod())) {
       return checkPropertyIsSet(collector, clientId, CLIENT_ID, CLIENT_ID_LABEL)
@@ -354,6 +396,42 @@ public abstract class GoogleAuthBaseConfig extends PluginConfig {
     this.fileIdentifier = fileIdentifier;
   }
 
+  public void setUserReadRequestsQuota(Integer userReadRequestsQuota) {
+    this.userReadRequestsQuota = userReadRequestsQuota;
+  }
+
+  public void setUserWriteRequestsQuota(Integer userWriteRequestsQuota) {
+    this.userWriteRequestsQuota = userWriteRequestsQuota;
+  }
+
+  public void setProjectReadRequestsQuota(Integer projectReadRequestsQuota) {
+    this.projectReadRequestsQuota = projectReadRequestsQuota;
+  }
+
+  public void setProjectWriteRequestsQuota(Integer projectWriteRequestsQuota) {
+    this.projectWriteRequestsQuota = projectWriteRequestsQuota;
+  }
+
+  @Nullable
+  public Integer getUserReadRequestsQuota() {
+    return userReadRequestsQuota;
+  }
+
+  @Nullable
+  public Integer getUserWriteRequestsQuota() {
+    return userWriteRequestsQuota;
+  }
+
+  @Nullable
+  public Integer getProjectReadRequestsQuota() {
+    return projectReadRequestsQuota;
+  }
+
+  @Nullable
+  public Integer getProjectWriteRequestsQuota() {
+    return projectWriteRequestsQuota;
+  }
+
   public void setClientId(String clientId) {
     this.clientId = clientId;
   }
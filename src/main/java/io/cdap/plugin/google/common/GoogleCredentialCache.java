@@ -0,0 +1,375 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.auth.oauth2.CredentialRefreshListener;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JVM-scoped cache of OAuth2 and service account credentials.
+ * Credentials are keyed by {@link GoogleApiClientPool.ClientKey}, so all readers and writers with the same identity
+ * and scopes share one access token instead of exchanging their own. A background thread refreshes tokens of recently
+ * used credentials before they expire, which keeps the token endpoint out of the request path. A credential is used
+ * each time a request authenticated with it is sent, so a long-lived pooled client keeps its credential cached.
+ */
+public final class GoogleCredentialCache {
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleCredentialCache.class);
+  static final long REFRESH_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  static final long REFRESH_CHECK_PERIOD_SECONDS = 30;
+  static final long UNUSED_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+  private static final GoogleCredentialCache INSTANCE = new GoogleCredentialCache();
+
+  private final Map<GoogleApiClientPool.ClientKey, CachedCredential> credentials = new HashMap<>();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+  private final AtomicLong tokenRefreshes = new AtomicLong();
+  private final AtomicLong proactiveRefreshes = new AtomicLong();
+  private final AtomicLong failedRefreshes = new AtomicLong();
+  private final CredentialRefreshListener refreshListener = new CountingRefreshListener();
+  private ScheduledExecutorService refresher;
+
+  private GoogleCredentialCache() {
+  }
+
+  public static GoogleCredentialCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the cached OAuth2 credential for the key or builds a new one.
+   * The factory should register {@link #getRefreshListener()} to have refreshes counted.
+   *
+   * @param key identity of the credential
+   * @param factory builds a new credential if there is no cached one
+   * @return shared {@link Credential}
+   * @throws IOException on issues with credential building
+   */
+  public Credential getOAuth2Credential(GoogleApiClientPool.ClientKey key,
+                                        CredentialFactory<Credential> factory) throws IOException {
+    return (Credential) getCredential(key, () -> new OAuth2CachedCredential(factory.create())).value;
+  }
+
+  /**
+   * Returns the cached service account credential for the key or builds a new one.
+   *
+   * @param key identity of the credential
+   * @param factory builds a new credential if there is no cached one
+   * @return shared {@link GoogleCredentials}
+   * @throws IOException on issues with credential reading
+   */
+  public GoogleCredentials getServiceAccountCredential(GoogleApiClientPool.ClientKey key,
+                                                       CredentialFactory<GoogleCredentials> factory)
+    throws IOException {
+    return (GoogleCredentials) getCredential(key, () -> {
+      GoogleCredentials googleCredentials = factory.create();
+      googleCredentials.addChangeListener(credentials -> tokenRefreshes.incrementAndGet());
+      return new ServiceAccountCachedCredential(googleCredentials);
+    }).value;
+  }
+
+  /**
+   * Wraps the initializer of requests authenticated with the cached credential of the key, so each sent request
+   * marks the credential as used. A credential dropped as unused is cached again when its client sends a request.
+   *
+   * @param key identity of the credential
+   * @param delegate credential initializer
+   * @return tracking {@link HttpRequestInitializer}
+   */
+  public HttpRequestInitializer trackAccess(GoogleApiClientPool.ClientKey key, HttpRequestInitializer delegate) {
+    CachedCredential cachedCredential;
+    synchronized (this) {
+      cachedCredential = credentials.get(key);
+    }
+    if (cachedCredential == null) {
+      return delegate;
+    }
+    return request -> {
+      delegate.initialize(request);
+      HttpExecuteInterceptor interceptor = request.getInterceptor();
+      request.setInterceptor(trackedRequest -> {
+        touch(key, cachedCredential);
+        if (interceptor != null) {
+          interceptor.intercept(trackedRequest);
+        }
+      });
+    };
+  }
+
+  private void touch(GoogleApiClientPool.ClientKey key, CachedCredential cachedCredential) {
+    cachedCredential.lastAccess = System.currentTimeMillis();
+    if (cachedCredential.dropped) {
+      synchronized (this) {
+        if (cachedCredential.dropped) {
+          credentials.putIfAbsent(key, cachedCredential);
+          cachedCredential.dropped = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the listener which counts token refreshes of OAuth2 credentials.
+   *
+   * @return refresh listener
+   */
+  public CredentialRefreshListener getRefreshListener() {
+    return refreshListener;
+  }
+
+  /**
+   * Returns current statistics of the cache.
+   *
+   * @return cache statistics
+   */
+  public CacheStats getStats() {
+    int size;
+    synchronized (this) {
+      size = credentials.size();
+    }
+    return new CacheStats(size, cacheHits.get(), cacheMisses.get(), tokenRefreshes.get(), proactiveRefreshes.get(),
+                          failedRefreshes.get());
+  }
+
+  private synchronized CachedCredential getCredential(GoogleApiClientPool.ClientKey key,
+                                                      CredentialFactory<CachedCredential> factory)
+    throws IOException {
+    CachedCredential cachedCredential = credentials.get(key);
+    if (cachedCredential == null) {
+      cachedCredential = factory.create();
+      credentials.put(key, cachedCredential);
+      cacheMisses.incrementAndGet();
+      startRefresher();
+    } else {
+      cacheHits.incrementAndGet();
+    }
+    cachedCredential.lastAccess = System.currentTimeMillis();
+    return cachedCredential;
+  }
+
+  private void startRefresher() {
+    if (refresher == null) {
+      refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "google-credential-refresher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      refresher.scheduleWithFixedDelay(this::refreshExpiringCredentials, REFRESH_CHECK_PERIOD_SECONDS,
+                                       REFRESH_CHECK_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Refreshes tokens which expire within {@link #REFRESH_MARGIN_MILLIS} and drops credentials which were not
+   * requested for {@link #UNUSED_TIMEOUT_MILLIS}.
+   */
+  void refreshExpiringCredentials() {
+    refreshExpiringCredentials(System.currentTimeMillis());
+  }
+
+  void refreshExpiringCredentials(long now) {
+    List<CachedCredential> toCheck = new ArrayList<>();
+    synchronized (this) {
+      Iterator<CachedCredential> iterator = credentials.values().iterator();
+      while (iterator.hasNext()) {
+        CachedCredential cachedCredential = iterator.next();
+        if (now - cachedCredential.lastAccess > UNUSED_TIMEOUT_MILLIS) {
+          cachedCredential.dropped = true;
+          iterator.remove();
+        } else {
+          toCheck.add(cachedCredential);
+        }
+      }
+    }
+    // refresh outside of the cache lock, credentials are thread-safe on their own
+    for (CachedCredential cachedCredential : toCheck) {
+      try {
+        if (cachedCredential.refreshIfExpiring(now)) {
+          proactiveRefreshes.incrementAndGet();
+        }
+      } catch (Exception e) {
+        failedRefreshes.incrementAndGet();
+        LOG.warn("Proactive refresh of Google credential failed, token will be refreshed on next request.", e);
+      }
+    }
+  }
+
+  /**
+   * Builds a new credential.
+   *
+   * @param <T> type of the credential.
+   */
+  public interface CredentialFactory<T> {
+    T create() throws IOException;
+  }
+
+  /**
+   * Cached credential with the time of last request.
+   */
+  private abstract static class CachedCredential {
+    private final Object value;
+    private volatile long lastAccess;
+    // true if the credential was dropped from the cache as unused
+    private volatile boolean dropped;
+
+    CachedCredential(Object value) {
+      this.value = value;
+    }
+
+    /**
+     * Refreshes the token if it was already issued and expires soon.
+     *
+     * @param now current time in milliseconds
+     * @return true if token was refreshed
+     * @throws IOException on refresh failure
+     */
+    abstract boolean refreshIfExpiring(long now) throws IOException;
+  }
+
+  /**
+   * OAuth2 credential built with client secrets and refresh token.
+   */
+  private static class OAuth2CachedCredential extends CachedCredential {
+    private final Credential credential;
+
+    OAuth2CachedCredential(Credential credential) {
+      super(credential);
+      this.credential = credential;
+    }
+
+    @Override
+    boolean refreshIfExpiring(long now) throws IOException {
+      Long expiresInSeconds = credential.getExpiresInSeconds();
+      if (credential.getRefreshToken() == null || expiresInSeconds == null
+        || TimeUnit.SECONDS.toMillis(expiresInSeconds) > REFRESH_MARGIN_MILLIS) {
+        return false;
+      }
+      return credential.refreshToken();
+    }
+  }
+
+  /**
+   * Service account or application default credential.
+   */
+  private static class ServiceAccountCachedCredential extends CachedCredential {
+    private final GoogleCredentials credential;
+
+    ServiceAccountCachedCredential(GoogleCredentials credential) {
+      super(credential);
+      this.credential = credential;
+    }
+
+    @Override
+    boolean refreshIfExpiring(long now) throws IOException {
+      AccessToken accessToken = credential.getAccessToken();
+      if (accessToken == null || accessToken.getExpirationTime() == null
+        || accessToken.getExpirationTime().getTime() - now > REFRESH_MARGIN_MILLIS) {
+        return false;
+      }
+      credential.refresh();
+      return true;
+    }
+  }
+
+  /**
+   * Counts token responses of OAuth2 credentials.
+   */
+  private class CountingRefreshListener implements CredentialRefreshListener {
+
+    @Override
+    public void onTokenResponse(Credential credential, TokenResponse tokenResponse) {
+      tokenRefreshes.incrementAndGet();
+    }
+
+    @Override
+    public void onTokenErrorResponse(Credential credential, TokenErrorResponse tokenErrorResponse) {
+      failedRefreshes.incrementAndGet();
+    }
+  }
+
+  /**
+   * Snapshot of cache statistics.
+   */
+  public static final class CacheStats {
+    private final int size;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long tokenRefreshes;
+    private final long proactiveRefreshes;
+    private final long failedRefreshes;
+
+    CacheStats(int size, long cacheHits, long cacheMisses, long tokenRefreshes, long proactiveRefreshes,
+               long failedRefreshes) {
+      this.size = size;
+      this.cacheHits = cacheHits;
+      this.cacheMisses = cacheMisses;
+      this.tokenRefreshes = tokenRefreshes;
+      this.proactiveRefreshes = proactiveRefreshes;
+      this.failedRefreshes = failedRefreshes;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public long getCacheHits() {
+      return cacheHits;
+    }
+
+    public long getCacheMisses() {
+      return cacheMisses;
+    }
+
+    public long getTokenRefreshes() {
+      return tokenRefreshes;
+    }
+
+    public long getProactiveRefreshes() {
+      return proactiveRefreshes;
+    }
+
+    public long getFailedRefreshes() {
+      return failedRefreshes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("cached credentials: '%d', hits: '%d', misses: '%d', token refreshes: '%d', " +
+                             "proactive refreshes: '%d', failed refreshes: '%d'", size, cacheHits, cacheMisses,
+                           tokenRefreshes, proactiveRefreshes, failedRefreshes);
+    }
+  }
+}
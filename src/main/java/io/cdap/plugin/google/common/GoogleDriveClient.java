@@ -16,9 +16,13 @@
 
 package io.cdap.plugin.google.common;
 
+import com.github.rholder.retry.Retryer;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
@@ -27,25 +31,46 @@ import com.google.api.services.drive.DriveScopes;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.common.base.Strings;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import javax.annotation.Nullable;
 
 /**
  * Base client for working with Google Drive API.
+ * Underlying API clients are taken from {@link GoogleApiClientPool} and must be returned with {@link #close()}.
  *
  * @param <C> configuration.
  */
-public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
+public class GoogleDriveClient<C extends GoogleAuthBaseConfig> implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleDriveClient.class);
   private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
   protected final Drive service;
   protected final C config;
+  protected final GoogleApiClientPool.ClientKey clientKey;
+  protected final ThrottlingController throttlingController;
+  protected final ApiCallMetrics callMetrics;
+  // calls of this client only, the stage statistics are shared by all clients of the stage
+  private final ApiCallMetrics clientCallMetrics = ApiCallMetrics.newInstance();
   protected NetHttpTransport httpTransport;
+  private boolean closed;
+  @Nullable
+  private volatile LongConsumer downloadListener;
 
   /**
    * Constructor for GoogleDriveClient object.
@@ -55,12 +80,14 @@ public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
    */
   public GoogleDriveClient(C config) throws IOException {
     this.config = config;
-    try {
-      httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-    } catch (Exception e) {
-      throw new RuntimeException("There was issue during communicating with Google Drive API.", e);
-    }
-    this.service = getDriveClient();
+    GoogleApiClientPool clientPool = GoogleApiClientPool.getInstance();
+    this.httpTransport = clientPool.getHttpTransport();
+    this.clientKey = GoogleApiClientPool.ClientKey.of(config, getRequiredScopes());
+    this.throttlingController = ThrottlingController.getInstance(clientKey);
+    this.service = clientPool.acquireDrive(clientKey, this::getDriveClient);
+    this.callMetrics = ApiCallMetrics.acquire(config.getReferenceName());
+    // quotas apply while the client is open
+    QuotaRateLimiter.getInstance().addQuotas(clientKey, config);
   }
 
   /**
@@ -69,28 +96,53 @@ public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
    * @throws IOException on issues with service account file reading.
    */
   protected Drive getDriveClient() throws IOException {
-    Drive drive;
+    Drive.Builder builder = new Drive.Builder(httpTransport, JSON_FACTORY, getRequestInitializer());
+    if (clientKey.getRootUrl() != null) {
+      builder.setRootUrl(clientKey.getRootUrl());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the request initializer which authenticates requests based on the authentication type
+   * and keeps them within configured quotas.
+   * @return {@link HttpRequestInitializer} for API clients.
+   * @throws IOException on issues with service account file reading.
+   */
+  protected HttpRequestInitializer getRequestInitializer() throws IOException {
+    HttpRequestInitializer credential;
     AuthType authType = config.getAuthType();
     switch (authType) {
       case OAUTH2:
-        drive = new Drive.Builder(httpTransport, JSON_FACTORY, getOAuth2Credential()).build();
+        credential = getOAuth2Credential();
         break;
       case SERVICE_ACCOUNT:
-        drive =
-            new Drive.Builder(httpTransport, JSON_FACTORY, getServiceAccountCredential()).build();
+        credential = getServiceAccountCredential();
         break;
       default:
         throw new IllegalStateException(
             String.format("Untreated value '%s' for authentication type.", authType));
     }
-    return drive;
+    return QuotaRateLimiter.getInstance().wrap(clientKey,
+                                               GoogleCredentialCache.getInstance().trackAccess(clientKey, credential));
+  }
+
+  /**
+   * Returns OAuth2 credential shared by all clients with the same identity and scopes.
+   *
+   * @return cached {@link Credential}
+   * @throws IOException on issues with credential building
+   */
+  protected Credential getOAuth2Credential() throws IOException {
+    return GoogleCredentialCache.getInstance().getOAuth2Credential(clientKey, this::createOAuth2Credential);
   }
 
-  protected Credential getOAuth2Credential() {
+  private Credential createOAuth2Credential() {
     GoogleCredential credential;
     GoogleCredential.Builder builder = new GoogleCredential.Builder()
       .setTransport(httpTransport)
-      .setJsonFactory(JSON_FACTORY);
+      .setJsonFactory(JSON_FACTORY)
+      .addRefreshListener(GoogleCredentialCache.getInstance().getRefreshListener());
     if (OAuthMethod.ACCESS_TOKEN.equals(config.getOAuthMethod())) {
       credential = builder.build();
       credential.createScoped(getRequiredScopes()).setAccessToken(config.getAccessToken());
@@ -102,7 +154,18 @@ public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
     return credential;
   }
 
+  /**
+   * Returns service account credential shared by all clients with the same identity and scopes.
+   *
+   * @return adapter for cached {@link GoogleCredentials}
+   * @throws IOException on issues with service account file reading
+   */
   protected HttpCredentialsAdapter getServiceAccountCredential() throws IOException {
+    return new HttpCredentialsAdapter(
+      GoogleCredentialCache.getInstance().getServiceAccountCredential(clientKey, this::createServiceAccountCredential));
+  }
+
+  private GoogleCredentials createServiceAccountCredential() throws IOException {
     GoogleCredentials googleCredentials;
     List<String> scopes = getRequiredScopes();
     if (Boolean.TRUE.equals(config.isServiceAccountJson())) {
@@ -111,14 +174,29 @@ public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
       googleCredentials = GoogleCredentials.fromStream(jsonInputStream).createScoped(scopes);
     } else if (Boolean.TRUE.equals(config.isServiceAccountFilePath()) && !Strings.isNullOrEmpty(
         config.getServiceAccountFilePath())) {
-      googleCredentials =
-          GoogleCredentials.fromStream(
-              new FileInputStream(config.getServiceAccountFilePath())).createScoped(scopes);
+      try (InputStream fileInputStream = new FileInputStream(config.getServiceAccountFilePath())) {
+        googleCredentials = GoogleCredentials.fromStream(fileInputStream).createScoped(scopes);
+      }
     } else {
       googleCredentials =
           GoogleCredentials.getApplicationDefault().createScoped(scopes);
     }
-    return new HttpCredentialsAdapter(googleCredentials);
+    return googleCredentials;
+  }
+
+  /**
+   * Returns the Retryer which shares backoff with all clients that use the same credentials.
+   *
+   * @param operationDescription the operation description is provided
+   * @param <T>
+   * @return The Retryer
+   */
+  protected <T> Retryer<T> getRetryer(String operationDescription) {
+    return APIRequestRetryer.getRetryer(operationDescription, throttlingController);
+  }
+
+  public ThrottlingController getThrottlingController() {
+    return throttlingController;
   }
 
   protected List<String> getRequiredScopes() {
@@ -126,10 +204,193 @@ public class GoogleDriveClient<C extends GoogleAuthBaseConfig> {
   }
 
   public void isFolderAccessible(String folderId) throws IOException {
-    service.files().get(folderId).setSupportsAllDrives(true).execute();
+    execute(ApiOperation.FILES_GET, service.files().get(folderId).setSupportsAllDrives(true));
   }
 
   public void isFileAccessible(String fileId) throws IOException {
-    service.files().get(fileId).setSupportsAllDrives(true).execute();
+    execute(ApiOperation.FILES_GET, service.files().get(fileId).setSupportsAllDrives(true));
+  }
+
+  /**
+   * Executes the request and records its latency, size and result in {@link ApiCallMetrics}.
+   *
+   * @param operation the API operation of the request
+   * @param request the request
+   * @param <T> type of the response
+   * @return parsed response
+   * @throws IOException on request failure
+   */
+  protected <T> T execute(ApiOperation operation, AbstractGoogleClientRequest<T> request) throws IOException {
+    long requestBytes = getContentLength(request);
+    long startTime = System.nanoTime();
+    CountingInputStream responseStream = null;
+    Throwable failure = null;
+    try {
+      HttpResponse response = request.executeUnparsed();
+      InputStream content = response.getContent();
+      if (content == null) {
+        return null;
+      }
+      responseStream = new CountingInputStream(content);
+      return response.getRequest().getParser()
+        .parseAndClose(responseStream, response.getContentCharset(), request.getResponseClass());
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      recordCall(operation, startTime, requestBytes, responseStream == null ? 0 : responseStream.getCount(), failure);
+    }
+  }
+
+  /**
+   * Downloads media content of the request to the stream and records the call in {@link ApiCallMetrics}.
+   *
+   * @param operation the API operation of the request
+   * @param request media download of the request, e.g. executeMediaAndDownloadTo method reference
+   * @param outputStream stream to write content to
+   * @throws IOException on request failure
+   */
+  protected void download(ApiOperation operation, MediaRequest request, OutputStream outputStream)
+    throws IOException {
+    long startTime = System.nanoTime();
+    CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+    LongConsumer listener = downloadListener;
+    Throwable failure = null;
+    try {
+      request.downloadTo(listener == null ? countingStream : new NotifyingOutputStream(countingStream, listener));
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      recordCall(operation, startTime, 0, countingStream.getCount(), failure);
+    }
+  }
+
+  /**
+   * Opens media content of the request as a stream. The call is recorded in {@link ApiCallMetrics} when the
+   * stream is closed, with the number of bytes read from it.
+   *
+   * @param operation the API operation of the request
+   * @param request media request, e.g. executeMediaAsInputStream method reference
+   * @return stream of the content, must be closed by the caller
+   * @throws IOException on request failure
+   */
+  protected InputStream openMedia(ApiOperation operation, MediaStreamRequest request) throws IOException {
+    long startTime = System.nanoTime();
+    InputStream content;
+    try {
+      content = request.open();
+    } catch (IOException | RuntimeException e) {
+      recordCall(operation, startTime, 0, 0, e);
+      throw e;
+    }
+    CountingInputStream countingStream = new CountingInputStream(content);
+    return new FilterInputStream(countingStream) {
+      private boolean recorded;
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          if (!recorded) {
+            recorded = true;
+            recordCall(operation, startTime, 0, countingStream.getCount(), null);
+          }
+        }
+      }
+    };
+  }
+
+  private void recordCall(ApiOperation operation, long startTime, long requestBytes, long responseBytes,
+                          @Nullable Throwable failure) {
+    long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    boolean throttled = failure != null && APIRequestRetryer.isThrottlingError(failure);
+    boolean retry = APIRequestRetryer.getCurrentAttempt() > 1;
+    callMetrics.get(operation).record(latencyMillis, requestBytes, responseBytes, failure != null, throttled, retry);
+    clientCallMetrics.get(operation).record(latencyMillis, requestBytes, responseBytes, failure != null, throttled,
+                                            retry);
+  }
+
+  private static long getContentLength(AbstractGoogleClientRequest<?> request) {
+    HttpContent content = request.getHttpContent();
+    if (content == null) {
+      return 0;
+    }
+    try {
+      return Math.max(0, content.getLength());
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  public ApiCallMetrics getCallMetrics() {
+    return callMetrics;
+  }
+
+  /**
+   * Sets the listener which is notified about the number of bytes of each piece of downloaded media content,
+   * as the content is received. The listener is called from all threads which download with this client.
+   *
+   * @param downloadListener the listener, null to stop notifications
+   */
+  public void setDownloadListener(@Nullable LongConsumer downloadListener) {
+    this.downloadListener = downloadListener;
+  }
+
+  /**
+   * Output stream which notifies the listener about written bytes.
+   */
+  private static class NotifyingOutputStream extends FilterOutputStream {
+    private final LongConsumer listener;
+
+    private NotifyingOutputStream(OutputStream outputStream, LongConsumer listener) {
+      super(outputStream);
+      this.listener = listener;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      listener.accept(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      listener.accept(len);
+    }
+  }
+
+  /**
+   * Media download of API request.
+   */
+  protected interface MediaRequest {
+    void downloadTo(OutputStream outputStream) throws IOException;
+  }
+
+  /**
+   * Media stream of API request.
+   */
+  protected interface MediaStreamRequest {
+    InputStream open() throws IOException;
+  }
+
+  /**
+   * Returns the pooled API clients. The client must not be used after closing.
+   */
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      GoogleApiClientPool.getInstance().release(clientKey);
+      QuotaRateLimiter.getInstance().removeQuotas(clientKey, config);
+      // calls made after the stage was finished are reported here if this client was the last one of the stage
+      callMetrics.release();
+      if (clientCallMetrics.hasCalls()) {
+        LOG.info("Google API calls of {} for stage '{}': {}", getClass().getSimpleName(), config.getReferenceName(),
+                 clientCallMetrics.getSummary());
+      }
+    }
   }
 }
@@ -25,11 +25,25 @@ import com.google.common.base.Strings;
 import io.cdap.plugin.google.common.utils.DateRange;
 import io.cdap.plugin.google.common.utils.ExportedType;
 import io.cdap.plugin.google.common.utils.ModifiedDateRangeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 /**
  * Base Google Drive Class with files search functionality.
@@ -37,6 +51,8 @@ import java.util.concurrent.ExecutionException;
  * @param <C> configuration.
  */
 public class GoogleDriveFilteringClient<C extends GoogleFilteringSourceConfig> extends GoogleDriveClient<C> {
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleDriveFilteringClient.class);
+
   public static final String MODIFIED_TIME_TERM = "modifiedTime";
   public static final String DRIVE_FOLDER_MIME = "application/vnd.google-apps.folder";
   public static final String DRIVE_DOCS_MIME_PREFIX = "application/vnd.google-apps.";
@@ -45,6 +61,19 @@ public class GoogleDriveFilteringClient<C extends GoogleFilteringSourceConfig> e
   public static final String DRIVE_DRAWINGS_MIME = "application/vnd.google-apps.drawing";
   public static final String DRIVE_PRESENTATIONS_MIME = "application/vnd.google-apps.presentation";
   public static final String DRIVE_APPS_SCRIPTS_MIME = "application/vnd.google-apps.script";
+  public static final String DRIVE_SHORTCUT_MIME = "application/vnd.google-apps.shortcut";
+
+  // maximum page size supported by files.list
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  // only id and size are used to build splits by default
+  private static final String FILE_SUMMARY_FIELDS = "id, size";
+
+  private static final String SHORTCUT_DETAILS_FIELD = "shortcutDetails";
+  private static final String SUBFOLDER_FIELDS = "id, mimeType, shortcutDetails(targetId, targetMimeType)";
+
+  // number of folders listed in parallel by recursive listing
+  private static final int LISTING_THREADS = 8;
 
   public GoogleDriveFilteringClient(C config) throws IOException {
     super(config);
@@ -64,47 +93,261 @@ public class GoogleDriveFilteringClient<C extends GoogleFilteringSourceConfig> e
    */
   public List<File> getFilesSummary(List<ExportedType> exportedTypes, int filesNumber)
       throws ExecutionException, RetryException {
-    Retryer<List<File>> filesSummaryRetryer = APIRequestRetryer.getRetryer(
-      String.format("Get files summary, files: '%d'.", filesNumber));
-    return filesSummaryRetryer.call(() -> {
-      List<File> files = new ArrayList<>();
-      String nextToken = "";
-      int retrievedFiles = 0;
-      int actualFilesNumber = filesNumber;
-      if (IdentifierType.FILE_IDENTIFIER.equals(config.getIdentifierType())) {
-        files.add(service.files().get(config.getFileIdentifier()).setSupportsAllDrives(true).execute());
+    if (IdentifierType.FILE_IDENTIFIER.equals(config.getIdentifierType())) {
+      Retryer<List<File>> filesSummaryRetryer = getRetryer(
+        String.format("Get files summary, files: '%d'.", filesNumber));
+      return filesSummaryRetryer.call(() -> {
+        List<File> files = new ArrayList<>();
+        files.add(execute(ApiOperation.FILES_GET,
+                          service.files().get(config.getFileIdentifier())
+                            .setFields(getFileSummaryFields()).setSupportsAllDrives(true)));
         return files;
+      });
+    }
+    return getFilesSummaryOfGroups(Collections.singletonList(exportedTypes), filesNumber);
+  }
+
+  /**
+   * Returns the list of files of several groups of exported types. Each group is requested by a separate query,
+   * queries of all groups are run in parallel.
+   * @param exportedTypeGroups the groups of exported types are provided with
+   * @param filesNumber the number of files is provided, 0 means all files
+   * @return The list of file
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  protected List<File> getFilesSummaryOfGroups(List<List<ExportedType>> exportedTypeGroups, int filesNumber)
+    throws ExecutionException, RetryException {
+    if (config.isRecursive()) {
+      List<File> files = new ArrayList<>();
+      visitFilesRecursively(exportedTypeGroups, filesNumber, files::addAll);
+      return filesNumber <= 0 || files.size() <= filesNumber ? files : files.subList(0, filesNumber);
+    }
+    List<Callable<List<File>>> listings = new ArrayList<>();
+    for (List<ExportedType> exportedTypes : exportedTypeGroups) {
+      String query = generateFilter(config.getDirectoryIdentifier(), exportedTypes);
+      listings.add(() -> listFiles(query, getFileSummaryFields(), filesNumber));
+    }
+    List<File> files = new ArrayList<>();
+    for (List<File> groupFiles : runInParallel(listings)) {
+      files.addAll(groupFiles);
+    }
+    return filesNumber <= 0 || files.size() <= filesNumber ? files : files.subList(0, filesNumber);
+  }
+
+  /**
+   * Returns the partial response mask for files returned by {@link #getFilesSummary(List, int)}.
+   * @return The fields mask
+   */
+  protected String getFileSummaryFields() {
+    return FILE_SUMMARY_FIELDS;
+  }
+
+  /**
+   * Lists files of several groups of exported types like {@link #getFilesSummaryOfGroups(List, int)}, but passes each
+   * page of files to the consumer as soon as it is received, so the whole listing is never held in memory.
+   * Pages of queries run in parallel are passed one at a time.
+   * @param exportedTypeGroups the groups of exported types are provided with
+   * @param pageConsumer the consumer of file pages is provided
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  protected void visitFilesSummaryOfGroups(List<List<ExportedType>> exportedTypeGroups,
+                                           Consumer<List<File>> pageConsumer)
+    throws ExecutionException, RetryException {
+    if (config.isRecursive()) {
+      visitFilesRecursively(exportedTypeGroups, 0, pageConsumer);
+      return;
+    }
+    Consumer<List<File>> synchronizedConsumer = synchronize(pageConsumer);
+    List<Callable<Void>> listings = new ArrayList<>();
+    for (List<ExportedType> exportedTypes : exportedTypeGroups) {
+      String query = generateFilter(config.getDirectoryIdentifier(), exportedTypes);
+      listings.add(() -> {
+        listFiles(query, getFileSummaryFields(), 0, synchronizedConsumer);
+        return null;
+      });
+    }
+    runInParallel(listings);
+  }
+
+  private static Consumer<List<File>> synchronize(Consumer<List<File>> pageConsumer) {
+    Object lock = new Object();
+    return page -> {
+      synchronized (lock) {
+        pageConsumer.accept(page);
+      }
+    };
+  }
+
+  /**
+   * Lists files of the directory and its subfolders breadth-first. Folders of each level are listed in parallel.
+   * Each folder is visited once, even if it is reachable by several paths or via shortcuts, and each file is passed
+   * to the consumer once.
+   */
+  private void visitFilesRecursively(List<List<ExportedType>> exportedTypeGroups, int filesNumber,
+                                     Consumer<List<File>> pageConsumer) throws ExecutionException, RetryException {
+    long startTime = System.nanoTime();
+    Integer maxDepth = config.getMaxDepth();
+    Set<String> visitedFolders = new HashSet<>();
+    Set<String> fileIds = new HashSet<>();
+    AtomicInteger listedFiles = new AtomicInteger();
+    Consumer<List<File>> uniqueFilesConsumer = synchronize(page -> {
+      List<File> uniqueFiles = new ArrayList<>(page.size());
+      for (File file : page) {
+        if (fileIds.add(file.getId())) {
+          uniqueFiles.add(file);
+        }
+      }
+      listedFiles.addAndGet(uniqueFiles.size());
+      pageConsumer.accept(uniqueFiles);
+    });
+    List<String> level = Collections.singletonList(config.getDirectoryIdentifier());
+    visitedFolders.add(config.getDirectoryIdentifier());
+    for (int depth = 0; !level.isEmpty() && (filesNumber <= 0 || listedFiles.get() < filesNumber); depth++) {
+      boolean withSubfolders = maxDepth == null || depth < maxDepth;
+      List<Callable<List<String>>> listings = new ArrayList<>();
+      for (String folderId : level) {
+        listings.add(() -> listFolder(folderId, exportedTypeGroups, filesNumber, withSubfolders, uniqueFilesConsumer));
+      }
+      List<String> nextLevel = new ArrayList<>();
+      for (List<String> subfolderIds : runInParallel(listings)) {
+        for (String subfolderId : subfolderIds) {
+          if (visitedFolders.add(subfolderId)) {
+            nextLevel.add(subfolderId);
+          }
+        }
       }
-      Drive.Files.List request = service.files().list()
+      level = nextLevel;
+    }
+    LOG.info("Listed {} files in {} folders of '{}' in {} ms.", listedFiles.get(), visitedFolders.size(),
+             config.getDirectoryIdentifier(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+  }
+
+  // passes files of the folder to the consumer and returns ids of its subfolders
+  private List<String> listFolder(String folderId, List<List<ExportedType>> exportedTypeGroups, int filesNumber,
+                                  boolean withSubfolders, Consumer<List<File>> pageConsumer)
+    throws ExecutionException, RetryException {
+    for (List<ExportedType> exportedTypes : exportedTypeGroups) {
+      listFiles(generateFilter(folderId, exportedTypes), getFileSummaryFields(), filesNumber, pageConsumer);
+    }
+    List<String> subfolderIds = new ArrayList<>();
+    if (withSubfolders) {
+      String query = String.format("'%s' in parents and (mimeType = '%s' or mimeType = '%s') and trashed = false",
+                                   folderId, DRIVE_FOLDER_MIME, DRIVE_SHORTCUT_MIME);
+      for (File subfolder : listFiles(query, SUBFOLDER_FIELDS, 0)) {
+        String subfolderId = DRIVE_SHORTCUT_MIME.equals(subfolder.getMimeType()) ?
+          getShortcutFolderId(subfolder) : subfolder.getId();
+        if (subfolderId != null) {
+          subfolderIds.add(subfolderId);
+        }
+      }
+    }
+    return subfolderIds;
+  }
+
+  /**
+   * Returns the id of the folder the shortcut points to or null for shortcuts to files.
+   * Shortcut details are read as generic JSON to not depend on the version of Drive API model.
+   */
+  @Nullable
+  private static String getShortcutFolderId(File shortcut) {
+    Object details = shortcut.get(SHORTCUT_DETAILS_FIELD);
+    if (details instanceof Map && DRIVE_FOLDER_MIME.equals(((Map<?, ?>) details).get("targetMimeType"))) {
+      return (String) ((Map<?, ?>) details).get("targetId");
+    }
+    return null;
+  }
+
+  /**
+   * Lists files matching the query page by page. Every page is requested with its own retryer starting from
+   * the token of the last received page, so a failure doesn't restart the listing from the first page.
+   */
+  private List<File> listFiles(String query, String fields, int filesNumber)
+    throws ExecutionException, RetryException {
+    List<File> files = new ArrayList<>();
+    listFiles(query, fields, filesNumber, files::addAll);
+    return filesNumber <= 0 || files.size() <= filesNumber ? files : files.subList(0, filesNumber);
+  }
+
+  private void listFiles(String query, String fields, int filesNumber, Consumer<List<File>> pageConsumer)
+    throws ExecutionException, RetryException {
+    Drive.Files.List request;
+    try {
+      request = service.files().list()
         .setSupportsAllDrives(true)
         .setIncludeItemsFromAllDrives(true)
-        .setQ(generateFilter(exportedTypes))
-        .setFields("nextPageToken, files(id, size)");
-      if (actualFilesNumber > 0) {
-        request.setPageSize(actualFilesNumber);
-      } else {
-        actualFilesNumber = 0;
+        .setQ(query)
+        .setFields(String.format("nextPageToken, files(%s)", fields))
+        .setPageSize(filesNumber > 0 ? Math.min(filesNumber, MAX_PAGE_SIZE) : MAX_PAGE_SIZE);
+    } catch (IOException e) {
+      throw new ExecutionException(e);
+    }
+    Retryer<FileList> pageRetryer = getRetryer(String.format("Get files page, query: '%s'.", query));
+    int listedFiles = 0;
+    String nextToken = "";
+    while (nextToken != null && (filesNumber <= 0 || listedFiles < filesNumber)) {
+      FileList result = pageRetryer.call(() -> execute(ApiOperation.FILES_LIST, request));
+      pageConsumer.accept(result.getFiles());
+      listedFiles += result.getFiles().size();
+      nextToken = result.getNextPageToken();
+      request.setPageToken(nextToken);
+    }
+  }
+
+  /**
+   * Runs the API calls on a bounded pool and returns their results in the order of the calls.
+   * @param listings the calls are provided with
+   * @return The list of results
+   * @throws ExecutionException if there was an error of the call execution
+   * @throws RetryException if there was an error of the call retry
+   */
+  public static <T> List<T> runInParallel(List<Callable<T>> listings) throws ExecutionException, RetryException {
+    if (listings.isEmpty()) {
+      return Collections.emptyList();
+    }
+    if (listings.size() == 1) {
+      try {
+        return Collections.singletonList(listings.get(0).call());
+      } catch (ExecutionException | RetryException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new ExecutionException(e);
       }
-      while (nextToken != null && (actualFilesNumber == 0 || retrievedFiles < actualFilesNumber)) {
-        FileList result = request.execute();
-        files.addAll(result.getFiles());
-        nextToken = result.getNextPageToken();
-        request.setPageToken(nextToken);
-        retrievedFiles += result.size();
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(listings.size(), LISTING_THREADS));
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (Callable<T> listing : listings) {
+        futures.add(executor.submit(listing));
       }
-      return actualFilesNumber == 0 || files.size() <= actualFilesNumber ?
-          files :
-          files.subList(0, actualFilesNumber);
-
-    });
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutionException("Files listing was interrupted.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RetryException) {
+        throw (RetryException) e.getCause();
+      }
+      if (e.getCause() instanceof ExecutionException) {
+        throw (ExecutionException) e.getCause();
+      }
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
   }
 
-  private String generateFilter(List<ExportedType> exportedTypes) throws InterruptedException {
+  private String generateFilter(String folderId, List<ExportedType> exportedTypes) {
     StringBuilder sb = new StringBuilder();
 
     // prepare parent
     sb.append("'");
-    sb.append(config.getDirectoryIdentifier());
+    sb.append(folderId);
     sb.append("' in parents");
 
     // prepare query for non folders
@@ -17,6 +17,7 @@
 package io.cdap.plugin.google.common;
 
 import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.google.common.exceptions.InvalidPropertyTypeException;
@@ -33,11 +34,14 @@ public class GoogleFilteringSourceConfig extends GoogleAuthBaseConfig {
   public static final String MODIFICATION_DATE_RANGE = "modificationDateRange";
   public static final String START_DATE = "startDate";
   public static final String END_DATE = "endDate";
+  public static final String RECURSIVE = "recursive";
+  public static final String MAX_DEPTH = "maxDepth";
 
   public static final String MODIFICATION_DATE_RANGE_LABEL = "Modification date range";
   public static final String START_DATE_LABEL = "Start date";
   public static final String END_DATE_LABEL = "End date";
   public static final String FILE_TYPES_TO_PULL_LABEL = "File types to pull";
+  public static final String MAX_DEPTH_LABEL = "Maximum depth";
 
   private static final String IS_VALID_FAILURE_MESSAGE_PATTERN = "'%s' property has invalid value %s.";
 
@@ -68,6 +72,20 @@ public class GoogleFilteringSourceConfig extends GoogleAuthBaseConfig {
     "RFC3339 (https://tools.ietf.org/html/rfc3339) format, default timezone is UTC, e.g., 2012-06-04T12:00:00-08:00.")
   protected String endDate;
 
+  @Nullable
+  @Name(RECURSIVE)
+  @Description("Whether files should be also pulled from subfolders of the selected directory. \n" +
+    "Subfolders and shortcuts to folders are listed in parallel level by level, each folder is visited once.")
+  @Macro
+  protected Boolean recursive;
+
+  @Nullable
+  @Name(MAX_DEPTH)
+  @Description("Maximum depth of subfolders to pull files from when recursive listing is enabled. \n" +
+    "0 means only the selected directory, empty value means no limit.")
+  @Macro
+  protected Integer maxDepth;
+
   public GoogleFilteringSourceConfig(String referenceName) {
     super();
   }
@@ -95,6 +113,10 @@ public class GoogleFilteringSourceConfig extends GoogleAuthBaseConfig {
                              END_DATE_LABEL);
       }
     }
+    if (!containsMacro(MAX_DEPTH) && maxDepth != null && maxDepth < 0) {
+      collector.addFailure(String.format("%s '%d' must be 0 or greater.", MAX_DEPTH_LABEL, maxDepth), null)
+        .withConfigProperty(MAX_DEPTH);
+    }
     return validationResult;
   }
 
@@ -142,4 +164,13 @@ public class GoogleFilteringSourceConfig extends GoogleAuthBaseConfig {
   public String getEndDate() {
     return endDate;
   }
+
+  public boolean isRecursive() {
+    return Boolean.TRUE.equals(recursive);
+  }
+
+  @Nullable
+  public Integer getMaxDepth() {
+    return maxDepth;
+  }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpMethods;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Client-side limiter that keeps Google API requests under the configured quotas.
+ * Quotas are defined as requests per {@link #QUOTA_INTERVAL_SECONDS} seconds, the same unit Google API Console
+ * uses. There are separate token buckets for read (GET) and write requests, both per user (authentication identity)
+ * and per project (all identities of the JVM). Every HTTP request, including retries, takes a permit from the user
+ * and the project bucket of its kind before it is sent.
+ * Quotas are added by each client when it is created and removed when it is closed. A bucket exists only while
+ * a client with a quota for it is open, and when open clients have different quotas for the same bucket the lowest
+ * of them applies, so quotas of finished pipelines don't limit the next ones.
+ */
+public final class QuotaRateLimiter {
+  private static final Logger LOG = LoggerFactory.getLogger(QuotaRateLimiter.class);
+  public static final int QUOTA_INTERVAL_SECONDS = 100;
+  private static final String PROJECT_KEY = "project";
+  private static final long WAIT_LOG_THRESHOLD_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  private static final QuotaRateLimiter INSTANCE = new QuotaRateLimiter();
+
+  private final Map<String, Bucket> readBuckets = new ConcurrentHashMap<>();
+  private final Map<String, Bucket> writeBuckets = new ConcurrentHashMap<>();
+  private final AtomicLong limitedRequests = new AtomicLong();
+  private final AtomicLong waitMicros = new AtomicLong();
+
+  private QuotaRateLimiter() {
+  }
+
+  public static QuotaRateLimiter getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Adds quotas from the config to the buckets of the identity and of the project. Each call must be paired with
+   * {@link #removeQuotas} of the same config. Empty quotas and quotas which are not positive are not applied, the
+   * latter are reported by config validation.
+   *
+   * @param key identity of the client
+   * @param config the google auth base config
+   */
+  public synchronized void addQuotas(GoogleApiClientPool.ClientKey key, GoogleAuthBaseConfig config) {
+    String userKey = key.getCredentialHash();
+    addQuota(readBuckets, userKey, config.getUserReadRequestsQuota());
+    addQuota(writeBuckets, userKey, config.getUserWriteRequestsQuota());
+    addQuota(readBuckets, PROJECT_KEY, config.getProjectReadRequestsQuota());
+    addQuota(writeBuckets, PROJECT_KEY, config.getProjectWriteRequestsQuota());
+  }
+
+  /**
+   * Removes quotas added by {@link #addQuotas}. A bucket without quotas is removed, otherwise the lowest of the
+   * remaining quotas applies.
+   *
+   * @param key identity of the client
+   * @param config the google auth base config
+   */
+  public synchronized void removeQuotas(GoogleApiClientPool.ClientKey key, GoogleAuthBaseConfig config) {
+    String userKey = key.getCredentialHash();
+    removeQuota(readBuckets, userKey, config.getUserReadRequestsQuota());
+    removeQuota(writeBuckets, userKey, config.getUserWriteRequestsQuota());
+    removeQuota(readBuckets, PROJECT_KEY, config.getProjectReadRequestsQuota());
+    removeQuota(writeBuckets, PROJECT_KEY, config.getProjectWriteRequestsQuota());
+  }
+
+  /**
+   * Wraps the initializer, so all requests of the client pass through the limiter.
+   *
+   * @param key identity of the client
+   * @param delegate credential initializer
+   * @return limited {@link HttpRequestInitializer}
+   */
+  public HttpRequestInitializer wrap(GoogleApiClientPool.ClientKey key, HttpRequestInitializer delegate) {
+    String userKey = key.getCredentialHash();
+    return request -> {
+      delegate.initialize(request);
+      HttpExecuteInterceptor interceptor = request.getInterceptor();
+      request.setInterceptor(limitedRequest -> {
+        acquire(userKey, limitedRequest);
+        if (interceptor != null) {
+          interceptor.intercept(limitedRequest);
+        }
+      });
+    };
+  }
+
+  public long getLimitedRequests() {
+    return limitedRequests.get();
+  }
+
+  public long getWaitMillis() {
+    return TimeUnit.MICROSECONDS.toMillis(waitMicros.get());
+  }
+
+  private void acquire(String userKey, HttpRequest request) {
+    Map<String, Bucket> buckets = HttpMethods.GET.equals(request.getRequestMethod()) ? readBuckets : writeBuckets;
+    double waitSeconds = acquire(buckets.get(userKey)) + acquire(buckets.get(PROJECT_KEY));
+    if (waitSeconds > 0) {
+      long waitedMicros = (long) (waitSeconds * TimeUnit.SECONDS.toMicros(1));
+      limitedRequests.incrementAndGet();
+      waitMicros.addAndGet(waitedMicros);
+      if (TimeUnit.MICROSECONDS.toMillis(waitedMicros) > WAIT_LOG_THRESHOLD_MILLIS) {
+        LOG.debug("Request '{} {}' was delayed for {} ms to stay within quota.", request.getRequestMethod(),
+                  request.getUrl().getRawPath(), TimeUnit.MICROSECONDS.toMillis(waitedMicros));
+      }
+    }
+  }
+
+  private static double acquire(@Nullable Bucket bucket) {
+    return bucket == null ? 0 : bucket.rateLimiter.acquire();
+  }
+
+  /**
+   * Returns the rate of the read bucket of the identity.
+   *
+   * @param key identity of the client
+   * @return permits per second or 0 if reads of the identity are not limited
+   */
+  double getUserReadRate(GoogleApiClientPool.ClientKey key) {
+    Bucket bucket = readBuckets.get(key.getCredentialHash());
+    return bucket == null ? 0 : bucket.rateLimiter.getRate();
+  }
+
+  private static void addQuota(Map<String, Bucket> buckets, String key, @Nullable Integer quota) {
+    if (quota == null || quota <= 0) {
+      return;
+    }
+    Bucket bucket = buckets.get(key);
+    if (bucket == null) {
+      buckets.put(key, new Bucket(quota));
+      return;
+    }
+    if (quota < bucket.quotas.firstKey()) {
+      LOG.info("Quota of {} requests per {} seconds is lower than the quota configured by another stage, " +
+                 "it applies to all stages sharing the bucket.", quota, QUOTA_INTERVAL_SECONDS);
+    }
+    bucket.quotas.merge(quota, 1, Integer::sum);
+    bucket.updateRate();
+  }
+
+  private static void removeQuota(Map<String, Bucket> buckets, String key, @Nullable Integer quota) {
+    if (quota == null || quota <= 0) {
+      return;
+    }
+    Bucket bucket = buckets.get(key);
+    if (bucket == null || !bucket.quotas.containsKey(quota)) {
+      LOG.warn("Attempt to remove quota of {} requests which was not added.", quota);
+      return;
+    }
+    bucket.quotas.computeIfPresent(quota, (q, clients) -> clients == 1 ? null : clients - 1);
+    if (bucket.quotas.isEmpty()) {
+      buckets.remove(key);
+    } else {
+      bucket.updateRate();
+    }
+  }
+
+  /**
+   * Token bucket with the numbers of open clients per quota, the lowest quota sets the rate.
+   */
+  private static final class Bucket {
+    private final TreeMap<Integer, Integer> quotas = new TreeMap<>();
+    private final RateLimiter rateLimiter;
+
+    private Bucket(int quota) {
+      quotas.put(quota, 1);
+      rateLimiter = RateLimiter.create(getPermitsPerSecond(quota));
+    }
+
+    private void updateRate() {
+      double permitsPerSecond = getPermitsPerSecond(quotas.firstKey());
+      if (permitsPerSecond != rateLimiter.getRate()) {
+        rateLimiter.setRate(permitsPerSecond);
+      }
+    }
+
+    private static double getPermitsPerSecond(int quota) {
+      return (double) quota / QUOTA_INTERVAL_SECONDS;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.common.base.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Coordinates reaction to throttling of all callers that use the same credentials.
+ * <p>
+ * Throttling signals come from {@link APIRequestRetryer}. On each signal the controller opens one backoff window
+ * which is shared by all in-flight callers: the length is taken from 'Retry-After' header when the server sends it,
+ * otherwise it grows exponentially with consecutive throttling signals.
+ * <p>
+ * The controller also keeps a concurrency factor adjusted with additive-increase/multiplicative-decrease:
+ * each successful call adds {@link #FACTOR_INCREMENT}, each backoff window halves the factor. Consumers scale their
+ * maximal concurrency with it through {@link AdaptiveConcurrencyLimiter}.
+ */
+public final class ThrottlingController {
+  private static final Logger LOG = LoggerFactory.getLogger(ThrottlingController.class);
+  static final double FACTOR_INCREMENT = 0.02;
+  static final double FACTOR_DECREASE = 0.5;
+  static final double MIN_FACTOR = 0.05;
+  static final long INITIAL_BACKOFF_MILLIS = 1000;
+  static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(64);
+  private static final int MAX_BACKOFF_JITTER_MILLIS = 500;
+
+  private static final Map<String, ThrottlingController> CONTROLLERS = new ConcurrentHashMap<>();
+
+  private double concurrencyFactor = 1.0;
+  private long backoffUntilMillis;
+  private int consecutiveThrottles;
+  private long throttleSignals;
+
+  ThrottlingController() {
+  }
+
+  /**
+   * Returns the controller shared by all clients with the same credentials.
+   *
+   * @param key identity of the client
+   * @return shared controller
+   */
+  public static ThrottlingController getInstance(GoogleApiClientPool.ClientKey key) {
+    return CONTROLLERS.computeIfAbsent(key.getCredentialHash(), k -> new ThrottlingController());
+  }
+
+  /**
+   * Registers a successful call.
+   */
+  public synchronized void onSuccess() {
+    consecutiveThrottles = 0;
+    concurrencyFactor = Math.min(1.0, concurrencyFactor + FACTOR_INCREMENT);
+  }
+
+  /**
+   * Registers a throttled call and opens the shared backoff window.
+   * The concurrency factor is decreased once per window, so a burst of throttled in-flight calls does not
+   * collapse it to the minimum.
+   *
+   * @param throttlingError error returned by the server
+   */
+  public synchronized void onThrottle(Throwable throttlingError) {
+    throttleSignals++;
+    long now = System.currentTimeMillis();
+    if (now >= backoffUntilMillis) {
+      concurrencyFactor = Math.max(MIN_FACTOR, concurrencyFactor * FACTOR_DECREASE);
+    }
+    Long retryAfterMillis = getRetryAfterMillis(throttlingError, now);
+    long backoffMillis;
+    if (retryAfterMillis != null) {
+      backoffMillis = retryAfterMillis;
+    } else {
+      backoffMillis = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(consecutiveThrottles, 16))
+        + ThreadLocalRandom.current().nextInt(MAX_BACKOFF_JITTER_MILLIS);
+    }
+    consecutiveThrottles++;
+    backoffUntilMillis = Math.max(backoffUntilMillis, now + backoffMillis);
+    LOG.debug("Throttling signal received, backoff for '{}' ms, concurrency factor '{}'.",
+              backoffUntilMillis - now, concurrencyFactor);
+  }
+
+  /**
+   * Blocks the caller until the shared backoff window is over.
+   *
+   * @throws InterruptedException if the thread was interrupted
+   */
+  public void awaitBackoff() throws InterruptedException {
+    long remaining;
+    while ((remaining = getRemainingBackoffMillis()) > 0) {
+      TimeUnit.MILLISECONDS.sleep(remaining);
+    }
+  }
+
+  public synchronized long getRemainingBackoffMillis() {
+    return Math.max(0, backoffUntilMillis - System.currentTimeMillis());
+  }
+
+  public synchronized double getConcurrencyFactor() {
+    return concurrencyFactor;
+  }
+
+  public synchronized long getThrottleSignals() {
+    return throttleSignals;
+  }
+
+  /**
+   * Returns concurrency limit for the consumer scaled with the current factor.
+   *
+   * @param maxConcurrency maximal concurrency of the consumer
+   * @return current concurrency limit, at least 1
+   */
+  public synchronized int getConcurrencyLimit(int maxConcurrency) {
+    return Math.max(1, (int) Math.round(maxConcurrency * concurrencyFactor));
+  }
+
+  @Nullable
+  private static Long getRetryAfterMillis(Throwable throttlingError, long now) {
+    if (!(throttlingError instanceof HttpResponseException)) {
+      return null;
+    }
+    HttpHeaders headers = ((HttpResponseException) throttlingError).getHeaders();
+    String retryAfter = headers == null ? null : headers.getRetryAfter();
+    if (Strings.isNullOrEmpty(retryAfter)) {
+      return null;
+    }
+    retryAfter = retryAfter.trim();
+    try {
+      return Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter)));
+    } catch (NumberFormatException e) {
+      // value is not delay-seconds, try HTTP-date
+    }
+    try {
+      long retryAt = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return Math.min(MAX_BACKOFF_MILLIS, Math.max(0, retryAt - now));
+    } catch (DateTimeParseException e) {
+      LOG.debug("Unable to parse 'Retry-After' header value '{}'.", retryAfter);
+      return null;
+    }
+  }
+}
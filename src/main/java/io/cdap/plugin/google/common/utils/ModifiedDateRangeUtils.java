@@ -47,10 +47,8 @@ public class ModifiedDateRangeUtils {
    * @param startDate The start date  with
    * @param endDate The end date
    * @return The instance of DateRange
-   * @throws InterruptedException if there was an error getting the column information for the data
    */
-  public static DateRange getDataRange(ModifiedDateRangeType modifiedDateRangeType, String startDate, String endDate)
-    throws InterruptedException {
+  public static DateRange getDataRange(ModifiedDateRangeType modifiedDateRangeType, String startDate, String endDate) {
     ZoneId zoneId = ZoneId.systemDefault();
     ZonedDateTime now = ZonedDateTime.now();
     switch (modifiedDateRangeType) {
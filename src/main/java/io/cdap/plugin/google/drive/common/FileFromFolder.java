@@ -18,6 +18,8 @@ package io.cdap.plugin.google.drive.common;
 
 import com.google.api.services.drive.model.File;
 
+import javax.annotation.Nullable;
+
 /**
  * Representation for file can be written to Google Drive system.
  */
@@ -25,6 +27,8 @@ public class FileFromFolder {
   private final byte[] content;
   private final long offset;
   private final File file;
+  @Nullable
+  private final String entryName;
 
   /**
    * Constructor for FileFromFolder object.
@@ -33,9 +37,21 @@ public class FileFromFolder {
    * @param file the file is provided
    */
   public FileFromFolder(byte[] content, long offset, File file) {
+    this(content, offset, file, null);
+  }
+
+  /**
+   * Constructor for FileFromFolder object which content was read from an archive entry.
+   * @param content the content is provided with
+   * @param offset the offset in the entry is provided with
+   * @param file the file is provided with
+   * @param entryName the name of the archive entry, null if the content wasn't read from an archive
+   */
+  public FileFromFolder(byte[] content, long offset, File file, @Nullable String entryName) {
     this.content = content;
     this.offset = offset;
     this.file = file;
+    this.entryName = entryName;
   }
 
   /**
@@ -47,6 +63,7 @@ public class FileFromFolder {
     this.content = content;
     this.file = file;
     this.offset = 0L;
+    this.entryName = null;
   }
 
   public byte[] getContent() {
@@ -60,4 +77,9 @@ public class FileFromFolder {
   public File getFile() {
     return file;
   }
+
+  @Nullable
+  public String getEntryName() {
+    return entryName;
+  }
 }
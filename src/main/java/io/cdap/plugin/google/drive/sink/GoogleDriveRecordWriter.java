@@ -58,6 +58,6 @@ public class GoogleDriveRecordWriter extends RecordWriter<NullWritable, FileFrom
 
   @Override
   public void close(TaskAttemptContext taskAttemptContext) {
-    //no-op
+    driveSinkClient.close();
   }
 }
@@ -20,7 +20,7 @@ import com.github.rholder.retry.RetryException;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.api.services.drive.DriveScopes;
 import com.google.api.services.drive.model.File;
-import io.cdap.plugin.google.common.APIRequestRetryer;
+import io.cdap.plugin.google.common.ApiOperation;
 import io.cdap.plugin.google.common.GoogleDriveClient;
 import io.cdap.plugin.google.drive.common.FileFromFolder;
 
@@ -46,7 +46,7 @@ public class GoogleDriveSinkClient extends GoogleDriveClient<GoogleDriveSinkConf
    * @throws RetryException if there was an error getting the column information for the retry
    */
   public void createFile(FileFromFolder fileFromFolder) throws ExecutionException, RetryException {
-    APIRequestRetryer.getRetryer(String.format("Creating of file with name '%s'.", fileFromFolder.getFile().getName()))
+    getRetryer(String.format("Creating of file with name '%s'.", fileFromFolder.getFile().getName()))
       .call(() -> {
         String folderId = config.getDirectoryIdentifier();
 
@@ -57,7 +57,7 @@ public class GoogleDriveSinkClient extends GoogleDriveClient<GoogleDriveSinkConf
         fileToWrite.setParents(Collections.singletonList(folderId));
         ByteArrayContent fileContent = new ByteArrayContent(fileFromFolder.getFile().getMimeType(),
           fileFromFolder.getContent());
-        service.files().create(fileToWrite, fileContent).setSupportsAllDrives(true).execute();
+        execute(ApiOperation.FILES_CREATE, service.files().create(fileToWrite, fileContent).setSupportsAllDrives(true));
         return null;
       });
   }
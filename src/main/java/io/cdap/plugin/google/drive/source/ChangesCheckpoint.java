@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Page token of Google Drive changes log stored in a file of any Hadoop supported file system.
+ */
+public class ChangesCheckpoint {
+  private final Path path;
+  private final Configuration conf;
+
+  public ChangesCheckpoint(String location, Configuration conf) {
+    this.path = new Path(location);
+    this.conf = conf;
+  }
+
+  /**
+   * Returns the stored page token.
+   * @return The page token or null if nothing was stored yet
+   * @throws IOException on issues with file reading
+   */
+  @Nullable
+  public String read() throws IOException {
+    FileSystem fileSystem = path.getFileSystem(conf);
+    if (!fileSystem.exists(path)) {
+      return null;
+    }
+    try (InputStream inputStream = fileSystem.open(path)) {
+      String pageToken = new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8).trim();
+      return Strings.emptyToNull(pageToken);
+    }
+  }
+
+  /**
+   * Stores the page token. The token is written to a temporary file first, so a failed write keeps the
+   * previous token.
+   * @param pageToken the page token is provided
+   * @throws IOException on issues with file writing
+   */
+  public void write(String pageToken) throws IOException {
+    FileSystem fileSystem = path.getFileSystem(conf);
+    Path temporaryPath = new Path(path.getParent(), "." + path.getName() + ".tmp");
+    try (OutputStream outputStream = fileSystem.create(temporaryPath, true)) {
+      outputStream.write(pageToken.getBytes(StandardCharsets.UTF_8));
+    }
+    if (fileSystem.exists(path) && !fileSystem.delete(path, false)) {
+      throw new IOException(String.format("Failed to replace changes checkpoint '%s'.", path));
+    }
+    if (!fileSystem.rename(temporaryPath, path)) {
+      throw new IOException(String.format("Failed to store changes checkpoint '%s'.", path));
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.drive.source.utils.ContentFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Parses records from file content while it is read, so the whole content is never held in memory.
+ * Values are converted to the types of the content schema fields, names of the content are converted to valid
+ * field names the same way when the schema is inferred and when records are parsed.
+ */
+public abstract class ContentParser {
+  static final int SAMPLE_RECORDS_NUMBER = 100;
+  private static final String CONTENT_RECORD_NAME = "content";
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+  private static final Pattern INVALID_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9_]");
+  private static final Pattern LONG_VALUE = Pattern.compile("-?\\d{1,18}");
+  private static final Pattern DOUBLE_VALUE = Pattern.compile("-?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+
+  protected final BufferedReader reader;
+  protected final Schema contentSchema;
+  private long recordNumber;
+
+  protected ContentParser(InputStream content, Schema contentSchema) throws IOException {
+    this.reader = newReader(content);
+    this.contentSchema = contentSchema;
+  }
+
+  // skips the byte order mark which some tools write at the start of UTF-8 content, so it isn't read as part of
+  // the first column name
+  static BufferedReader newReader(InputStream content) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+    reader.mark(1);
+    if (reader.read() != BYTE_ORDER_MARK) {
+      reader.reset();
+    }
+    return reader;
+  }
+
+  /**
+   * Returns the parser of the content.
+   * @param contentFormat the format of the content is provided with
+   * @param content the content is provided with
+   * @param contentSchema the schema of parsed values is provided
+   * @return The ContentParser
+   * @throws IOException on issues with content reading
+   */
+  public static ContentParser create(ContentFormat contentFormat, InputStream content, Schema contentSchema)
+    throws IOException {
+    switch (contentFormat) {
+      case CSV:
+        return new CsvContentParser(content, contentSchema);
+      case JSON_LINES:
+        return new JsonLinesContentParser(content, contentSchema);
+      default:
+        throw new IllegalStateException(String.format("Untreated value '%s' for content format.", contentFormat));
+    }
+  }
+
+  /**
+   * Infers the schema from the first records of the content, all inferred fields are nullable.
+   * A field is boolean, long or double if all its sampled values are of that type, otherwise it is string.
+   * @param contentFormat the format of the content is provided with
+   * @param content the content is provided
+   * @return The inferred content schema
+   * @throws IOException on issues with content reading or parsing
+   */
+  public static Schema inferSchema(ContentFormat contentFormat, InputStream content) throws IOException {
+    Map<String, Schema.Type> fieldTypes = new LinkedHashMap<>();
+    switch (contentFormat) {
+      case CSV:
+        CsvContentParser.sample(newReader(content), fieldTypes);
+        break;
+      case JSON_LINES:
+        JsonLinesContentParser.sample(newReader(content), fieldTypes);
+        break;
+      default:
+        throw new IllegalStateException(String.format("Untreated value '%s' for content format.", contentFormat));
+    }
+    if (fieldTypes.isEmpty()) {
+      throw new IOException("No fields were found in sampled content.");
+    }
+    List<Schema.Field> fields = new ArrayList<>();
+    for (Map.Entry<String, Schema.Type> fieldType : fieldTypes.entrySet()) {
+      Schema.Type type = fieldType.getValue() == Schema.Type.NULL ? Schema.Type.STRING : fieldType.getValue();
+      fields.add(Schema.Field.of(fieldType.getKey(), Schema.nullableOf(Schema.of(type))));
+    }
+    return Schema.recordOf(CONTENT_RECORD_NAME, fields);
+  }
+
+  /**
+   * Returns true if values of the type can be parsed from content.
+   * @param schema the field schema is provided
+   * @return true for boolean, int, long, float, double and string types, which may be nullable
+   */
+  public static boolean isSupportedType(Schema schema) {
+    switch (schema.getNonNullable().getType()) {
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Parses the next record.
+   * @return The values keyed by field names or null at the end of content
+   * @throws IOException on issues with content reading or parsing
+   */
+  @Nullable
+  public Map<String, Object> next() throws IOException {
+    recordNumber++;
+    return parseNext();
+  }
+
+  @Nullable
+  protected abstract Map<String, Object> parseNext() throws IOException;
+
+  /**
+   * Returns the number of the current record, used in error messages.
+   * @return The number of the record starting from 1
+   */
+  public long getRecordNumber() {
+    return recordNumber;
+  }
+
+  static String toFieldName(String name) {
+    String fieldName = INVALID_NAME_CHARACTERS.matcher(name.trim()).replaceAll("_");
+    if (fieldName.isEmpty() || Character.isDigit(fieldName.charAt(0))) {
+      return "_" + fieldName;
+    }
+    return fieldName;
+  }
+
+  // the narrowest type of the value, NULL for absent values
+  static Schema.Type getValueType(@Nullable String value) {
+    if (value == null) {
+      return Schema.Type.NULL;
+    }
+    if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+      return Schema.Type.BOOLEAN;
+    }
+    if (LONG_VALUE.matcher(value).matches()) {
+      return Schema.Type.LONG;
+    }
+    if (DOUBLE_VALUE.matcher(value).matches()) {
+      return Schema.Type.DOUBLE;
+    }
+    return Schema.Type.STRING;
+  }
+
+  static void mergeType(Map<String, Schema.Type> fieldTypes, String fieldName, Schema.Type valueType) {
+    Schema.Type current = fieldTypes.get(fieldName);
+    if (current == null || current == Schema.Type.NULL) {
+      fieldTypes.put(fieldName, valueType);
+    } else if (valueType != Schema.Type.NULL && valueType != current) {
+      boolean numeric = (current == Schema.Type.LONG || current == Schema.Type.DOUBLE)
+        && (valueType == Schema.Type.LONG || valueType == Schema.Type.DOUBLE);
+      fieldTypes.put(fieldName, numeric ? Schema.Type.DOUBLE : Schema.Type.STRING);
+    }
+  }
+
+  /**
+   * Converts the text value to the type of the field.
+   * @param field the field is provided with
+   * @param value the value, null if it is absent
+   * @return The converted value
+   * @throws IOException if the value can't be converted
+   */
+  @Nullable
+  protected Object convert(Schema.Field field, @Nullable String value) throws IOException {
+    if (value == null) {
+      if (!field.getSchema().isNullable()) {
+        throw new IOException(String.format("Record %d has no value of non-nullable field '%s'.", recordNumber,
+                                            field.getName()));
+      }
+      return null;
+    }
+    Schema.Type type = field.getSchema().getNonNullable().getType();
+    try {
+      switch (type) {
+        case BOOLEAN:
+          if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("not a boolean");
+          }
+          return Boolean.parseBoolean(value);
+        case INT:
+          return Integer.parseInt(value.trim());
+        case LONG:
+          return Long.parseLong(value.trim());
+        case FLOAT:
+          return Float.parseFloat(value.trim());
+        case DOUBLE:
+          return Double.parseDouble(value.trim());
+        default:
+          return value;
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IOException(String.format("Value '%s' of field '%s' in record %d can't be converted to %s.",
+                                          value, field.getName(), recordNumber, type), e);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Parser of comma separated values. The first row is the header, columns are matched with schema fields by
+ * their names. Values may be quoted with double quotes, quoted values may contain commas, line breaks and doubled
+ * quotes. Empty unquoted values are absent, blank lines are skipped.
+ */
+public class CsvContentParser extends ContentParser {
+  private static final char SEPARATOR = ',';
+  private static final char QUOTE = '"';
+
+  // field of each column, null if the column is not in the schema
+  private final List<Schema.Field> columnFields = new ArrayList<>();
+
+  CsvContentParser(InputStream content, Schema contentSchema) throws IOException {
+    super(content, contentSchema);
+    List<String> header = readRow(reader);
+    for (String name : toFieldNames(header == null ? Collections.<String>emptyList() : header)) {
+      columnFields.add(contentSchema.getField(name));
+    }
+  }
+
+  @Nullable
+  @Override
+  protected Map<String, Object> parseNext() throws IOException {
+    List<String> row = readNonBlankRow(reader);
+    if (row == null) {
+      return null;
+    }
+    Map<String, Object> values = new HashMap<>();
+    for (int i = 0; i < Math.min(row.size(), columnFields.size()); i++) {
+      Schema.Field field = columnFields.get(i);
+      if (field != null) {
+        values.put(field.getName(), convert(field, row.get(i)));
+      }
+    }
+    for (Schema.Field field : contentSchema.getFields()) {
+      if (!values.containsKey(field.getName())) {
+        values.put(field.getName(), convert(field, null));
+      }
+    }
+    return values;
+  }
+
+  static void sample(BufferedReader reader, Map<String, Schema.Type> fieldTypes) throws IOException {
+    List<String> header = readRow(reader);
+    if (header == null) {
+      return;
+    }
+    List<String> names = toFieldNames(header);
+    for (String name : names) {
+      fieldTypes.put(name, Schema.Type.NULL);
+    }
+    List<String> row = readNonBlankRow(reader);
+    for (int i = 0; i < SAMPLE_RECORDS_NUMBER && row != null; i++, row = readNonBlankRow(reader)) {
+      for (int j = 0; j < Math.min(row.size(), names.size()); j++) {
+        mergeType(fieldTypes, names.get(j), getValueType(row.get(j)));
+      }
+    }
+  }
+
+  // duplicated names get a numeric suffix, so each column has its own field
+  private static List<String> toFieldNames(List<String> header) {
+    List<String> names = new ArrayList<>();
+    Set<String> usedNames = new HashSet<>();
+    for (String column : header) {
+      String name = toFieldName(column == null ? "" : column);
+      String uniqueName = name;
+      for (int suffix = 2; !usedNames.add(uniqueName); suffix++) {
+        uniqueName = name + "_" + suffix;
+      }
+      names.add(uniqueName);
+    }
+    return names;
+  }
+
+  @Nullable
+  private static List<String> readNonBlankRow(BufferedReader reader) throws IOException {
+    List<String> row = readRow(reader);
+    while (row != null && row.size() == 1 && row.get(0) == null) {
+      row = readRow(reader);
+    }
+    return row;
+  }
+
+  // returns null at the end of content
+  @Nullable
+  static List<String> readRow(BufferedReader reader) throws IOException {
+    List<String> row = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    boolean quoted = false;
+    boolean wasQuoted = false;
+    int c = reader.read();
+    if (c == -1) {
+      return null;
+    }
+    for (; c != -1; c = reader.read()) {
+      if (quoted) {
+        if (c != QUOTE) {
+          value.append((char) c);
+        } else if (peek(reader) == QUOTE) {
+          value.append(QUOTE);
+          reader.read();
+        } else {
+          quoted = false;
+        }
+      } else if (c == QUOTE) {
+        quoted = true;
+        wasQuoted = true;
+      } else if (c == SEPARATOR) {
+        row.add(toValue(value, wasQuoted));
+        value.setLength(0);
+        wasQuoted = false;
+      } else if (c == '\n') {
+        break;
+      } else if (c == '\r') {
+        if (peek(reader) == '\n') {
+          reader.read();
+        }
+        break;
+      } else {
+        value.append((char) c);
+      }
+    }
+    row.add(toValue(value, wasQuoted));
+    return row;
+  }
+
+  private static int peek(BufferedReader reader) throws IOException {
+    reader.mark(1);
+    int next = reader.read();
+    reader.reset();
+    return next;
+  }
+
+  @Nullable
+  private static String toValue(StringBuilder value, boolean wasQuoted) {
+    return value.length() == 0 && !wasQuoted ? null : value.toString();
+  }
+}
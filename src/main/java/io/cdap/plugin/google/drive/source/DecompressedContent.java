@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import io.cdap.plugin.google.drive.source.utils.Decompression;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Decompresses downloaded content while it is streamed, so memory usage is bounded by the read buffers.
+ * Content consists of entries: each file of a zip archive is a separate entry with its name, other content is
+ * a single entry without name.
+ */
+public class DecompressedContent implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+  private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+
+  private final CountingInputStream compressedContent;
+  private final Decompression decompression;
+  @Nullable
+  private final ZipInputStream zipContent;
+  private InputStream entryContent;
+  private String entryName;
+  private boolean singleEntryRead;
+
+  private DecompressedContent(CountingInputStream compressedContent, Decompression decompression,
+                              @Nullable ZipInputStream zipContent) {
+    this.compressedContent = compressedContent;
+    this.decompression = decompression;
+    this.zipContent = zipContent;
+  }
+
+  /**
+   * Wraps the content with the decompression, "auto" decompression is resolved by leading bytes of the content.
+   * @param content the downloaded content is provided with
+   * @param decompression the decompression is provided
+   * @return The DecompressedContent, which closes the downloaded content
+   * @throws IOException on issues with content reading
+   */
+  public static DecompressedContent open(InputStream content, Decompression decompression) throws IOException {
+    CountingInputStream compressedContent = new CountingInputStream(content);
+    PushbackInputStream pushbackContent = new PushbackInputStream(compressedContent, ZIP_MAGIC.length);
+    Decompression resolved = decompression == Decompression.AUTO ? detect(pushbackContent) : decompression;
+    switch (resolved) {
+      case GZIP:
+        return new DecompressedContent(compressedContent, resolved, null)
+          .withSingleEntry(new GZIPInputStream(pushbackContent, BUFFER_SIZE));
+      case DEFLATE:
+        return new DecompressedContent(compressedContent, resolved, null)
+          .withSingleEntry(new InflaterInputStream(pushbackContent));
+      case ZIP:
+        return new DecompressedContent(compressedContent, resolved, new ZipInputStream(pushbackContent));
+      default:
+        return new DecompressedContent(compressedContent, resolved, null).withSingleEntry(pushbackContent);
+    }
+  }
+
+  private static Decompression detect(PushbackInputStream content) throws IOException {
+    byte[] header = new byte[ZIP_MAGIC.length];
+    int read = ByteStreams.read(content, header, 0, header.length);
+    content.unread(header, 0, read);
+    if (startsWith(header, read, GZIP_MAGIC)) {
+      return Decompression.GZIP;
+    }
+    if (startsWith(header, read, ZIP_MAGIC)) {
+      return Decompression.ZIP;
+    }
+    return Decompression.NONE;
+  }
+
+  private static boolean startsWith(byte[] header, int length, byte[] magic) {
+    if (length < magic.length) {
+      return false;
+    }
+    for (int i = 0; i < magic.length; i++) {
+      if (header[i] != magic[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private DecompressedContent withSingleEntry(InputStream content) {
+    this.entryContent = content;
+    return this;
+  }
+
+  /**
+   * Moves to the next entry, the rest of the current entry is skipped.
+   * @return true if there is the next entry
+   * @throws IOException on issues with content reading or decompression
+   */
+  public boolean nextEntry() throws IOException {
+    if (zipContent == null) {
+      if (singleEntryRead) {
+        return false;
+      }
+      singleEntryRead = true;
+      return true;
+    }
+    ZipEntry entry = zipContent.getNextEntry();
+    while (entry != null && entry.isDirectory()) {
+      entry = zipContent.getNextEntry();
+    }
+    if (entry == null) {
+      return false;
+    }
+    entryName = entry.getName();
+    entryContent = zipContent;
+    return true;
+  }
+
+  /**
+   * Returns the decompressed content of the current entry, the stream ends with the entry.
+   * @return The entry content
+   */
+  public InputStream getEntryContent() {
+    return entryContent;
+  }
+
+  /**
+   * Returns the name of the current entry.
+   * @return The name of the zip entry or null if the content is not an archive
+   */
+  @Nullable
+  public String getEntryName() {
+    return entryName;
+  }
+
+  public Decompression getDecompression() {
+    return decompression;
+  }
+
+  /**
+   * Returns the number of downloaded bytes consumed by the decompression, the progress of reading is measured by
+   * this number since the size of decompressed content is unknown.
+   * @return The number of compressed bytes read
+   */
+  public long getCompressedBytesRead() {
+    return compressedContent.getCount();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (zipContent != null) {
+      zipContent.close();
+    } else {
+      entryContent.close();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Progress of the download of a split, counts bytes as they are received, so a slow download can be told from
+ * a stuck one. Bytes may be received by several threads when the content is downloaded in ranges.
+ */
+public class DownloadProgress implements LongConsumer {
+  private static final long NOT_RECEIVED = -1L;
+
+  private final long expectedLength;
+  private final AtomicLong bytesReceived = new AtomicLong();
+  private final AtomicLong firstByteTime = new AtomicLong(NOT_RECEIVED);
+  private volatile long startTime;
+  private volatile boolean completed;
+
+  /**
+   * Counters of split downloads, published for each task. Counters are summed up over splits and tasks, so they hold
+   * totals only: the average time to first byte and the throughput are derived from them.
+   */
+  public enum Counters {
+    DOWNLOADS,
+    BYTES_RECEIVED,
+    TIME_TO_FIRST_BYTE_NANOS,
+    DOWNLOAD_NANOS
+  }
+
+  public DownloadProgress(long expectedLength) {
+    this.expectedLength = expectedLength;
+  }
+
+  public void start() {
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Counts received bytes.
+   * @param bytes the number of bytes received
+   */
+  @Override
+  public void accept(long bytes) {
+    if (bytes > 0 && firstByteTime.get() == NOT_RECEIVED) {
+      firstByteTime.compareAndSet(NOT_RECEIVED, System.nanoTime());
+    }
+    bytesReceived.addAndGet(bytes);
+  }
+
+  public void complete() {
+    completed = true;
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  /**
+   * Returns the share of expected bytes received so far. The expected length of files in Google formats is an
+   * estimate, so the progress doesn't exceed 1 until the download completes.
+   * @return The progress between 0 and 1
+   */
+  public float getProgress() {
+    if (completed) {
+      return 1.0f;
+    }
+    if (expectedLength <= 0) {
+      return 0.0f;
+    }
+    return Math.min(1.0f, (float) bytesReceived.get() / expectedLength);
+  }
+
+  /**
+   * Adds the download, its received bytes, time to first byte and duration to the task counters.
+   * @param context the task attempt context is provided
+   */
+  public void publishCounters(TaskAttemptContext context) {
+    long now = System.nanoTime();
+    increment(context, Counters.DOWNLOADS, 1L);
+    increment(context, Counters.BYTES_RECEIVED, bytesReceived.get());
+    long firstByte = firstByteTime.get();
+    // a download without content waits for the whole response
+    increment(context, Counters.TIME_TO_FIRST_BYTE_NANOS, (firstByte == NOT_RECEIVED ? now : firstByte) - startTime);
+    increment(context, Counters.DOWNLOAD_NANOS, now - startTime);
+  }
+
+  private static void increment(TaskAttemptContext context, Counters counterName, long value) {
+    // contexts created outside of a running job may not provide counters
+    Counter counter = context.getCounter(counterName);
+    if (counter != null) {
+      counter.increment(value);
+    }
+  }
+}
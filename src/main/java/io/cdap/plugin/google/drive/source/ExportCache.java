@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Cache of exported content of files in Google formats in a local directory, shared by all tasks on the host.
+ * Entries are keyed by file id, modification time and export format, so a changed file is exported again.
+ * The cache size is bounded, least recently used entries are evicted first.
+ * The cache only saves export calls: its failures are logged and the content is exported as without the cache.
+ * Exports may contain private documents, so the directory and the entries are accessible only by their owner on
+ * file systems which support POSIX permissions.
+ */
+public class ExportCache {
+  private static final Logger LOG = LoggerFactory.getLogger(ExportCache.class);
+  private static final String ENTRY_SUFFIX = ".export";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final String POSIX_ATTRIBUTE_VIEW = "posix";
+  private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+  private static final Set<PosixFilePermission> ENTRY_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+  private final Path directory;
+  private final long maxSize;
+  private final boolean posix;
+
+  public ExportCache(String directory, long maxSize) {
+    this.directory = Paths.get(directory);
+    this.maxSize = maxSize;
+    this.posix = this.directory.getFileSystem().supportedFileAttributeViews().contains(POSIX_ATTRIBUTE_VIEW);
+  }
+
+  /**
+   * Returns the cached export of the file and marks it as recently used.
+   * @param file the file metadata, contains at least id and modification time
+   * @param exportFormat the export MIME type is provided
+   * @return The exported content or null if it isn't cached
+   */
+  @Nullable
+  public byte[] read(File file, String exportFormat) {
+    Path entry = getEntry(file, exportFormat);
+    if (entry == null) {
+      return null;
+    }
+    try {
+      byte[] content = Files.readAllBytes(entry);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      return content;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOG.warn("Failed to read cached export of file '{}'.", file.getId(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Puts the export of the file to the cache and evicts least recently used entries if the cache is full.
+   * @param file the file metadata, contains at least id and modification time
+   * @param exportFormat the export MIME type is provided with
+   * @param content the exported content is provided
+   */
+  public void write(File file, String exportFormat, byte[] content) {
+    Path entry = getEntry(file, exportFormat);
+    if (entry == null || content.length > maxSize) {
+      return;
+    }
+    // the entry appears atomically, so tasks never read a partially written export
+    Path temporaryEntry = directory.resolve(entry.getFileName() + "." + UUID.randomUUID() + TEMPORARY_SUFFIX);
+    try {
+      createDirectory();
+      if (posix) {
+        Files.createFile(temporaryEntry, PosixFilePermissions.asFileAttribute(ENTRY_PERMISSIONS));
+      }
+      Files.write(temporaryEntry, content);
+      Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      evict();
+    } catch (IOException e) {
+      LOG.warn("Failed to cache export of file '{}'.", file.getId(), e);
+      try {
+        Files.deleteIfExists(temporaryEntry);
+      } catch (IOException deleteException) {
+        LOG.debug("Failed to delete temporary export '{}'.", temporaryEntry, deleteException);
+      }
+    }
+  }
+
+  // parent directories are created with default permissions, only the cache directory is restricted
+  private void createDirectory() throws IOException {
+    if (Files.isDirectory(directory)) {
+      return;
+    }
+    Path parent = directory.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try {
+      if (posix) {
+        Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+      } else {
+        Files.createDirectory(directory);
+      }
+    } catch (FileAlreadyExistsException e) {
+      // created by another task
+    }
+  }
+
+  // files without modification time can't be checked for changes, so they are not cached
+  @Nullable
+  private Path getEntry(File file, String exportFormat) {
+    if (file.getModifiedTime() == null) {
+      return null;
+    }
+    String key = String.join("|", file.getId(), String.valueOf(file.getModifiedTime().getValue()), exportFormat);
+    return directory.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + ENTRY_SUFFIX);
+  }
+
+  private void evict() throws IOException {
+    List<Path> entries = new ArrayList<>();
+    List<BasicFileAttributes> attributes = new ArrayList<>();
+    long size = 0L;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+      for (Path entry : stream) {
+        try {
+          BasicFileAttributes entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class);
+          entries.add(entry);
+          attributes.add(entryAttributes);
+          size += entryAttributes.size();
+        } catch (NoSuchFileException e) {
+          // evicted by another task
+        }
+      }
+    }
+    if (size <= maxSize) {
+      return;
+    }
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < entries.size(); i++) {
+      order.add(i);
+    }
+    order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+    for (int i : order) {
+      if (size <= maxSize) {
+        break;
+      }
+      Files.deleteIfExists(entries.get(i));
+      size -= attributes.get(i).size();
+    }
+  }
+
+  long getSize() throws IOException {
+    long size = 0L;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+      for (Path entry : stream) {
+        size += Files.size(entry);
+      }
+    }
+    return size;
+  }
+}
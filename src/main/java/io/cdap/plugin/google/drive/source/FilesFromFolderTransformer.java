@@ -50,30 +50,44 @@ public class FilesFromFolderTransformer {
         }
       } else if (name.equals(SchemaBuilder.OFFSET_FIELD_NAME)) {
         builder.set(SchemaBuilder.OFFSET_FIELD_NAME, fileFromFolder.getOffset());
+      } else if (name.equals(SchemaBuilder.ENTRY_NAME_FIELD_NAME)) {
+        builder.set(SchemaBuilder.ENTRY_NAME_FIELD_NAME, fileFromFolder.getEntryName());
       } else {
-        if (name.equals(SchemaBuilder.IMAGE_METADATA_FIELD_NAME)) {
-          File.ImageMediaMetadata imageMediaMetadata = file.getImageMediaMetadata();
-          if (imageMediaMetadata != null) {
-            builder.set(field.getName(),
-                        parseSubSchema(field.getSchema().getNonNullable(), imageMediaMetadata));
-          }
-        } else if (name.equals(SchemaBuilder.VIDEO_METADATA_FIELD_NAME)) {
-          File.VideoMediaMetadata videoMediaMetadata = file.getVideoMediaMetadata();
-          if (videoMediaMetadata != null) {
-            builder.set(field.getName(),
-                        parseSubSchema(field.getSchema().getNonNullable(), videoMediaMetadata));
-          }
-        } else if (Schema.LogicalType.TIMESTAMP_MILLIS.equals(field.getSchema().getLogicalType())) {
-          DateTime dateTime = (DateTime) file.get(name);
-          builder.setTimestamp(name, ZonedDateTime.parse(dateTime.toStringRfc3339()));
-        } else {
-          builder.set(name, file.get(name));
-        }
+        setFileProperty(builder, field, file);
       }
     }
     return builder.build();
   }
 
+  /**
+   * Sets the record field from the file metadata property of the same name.
+   *
+   * @param builder the record builder is provided with
+   * @param field the field of file metadata property is provided with
+   * @param file the file is provided
+   */
+  public static void setFileProperty(StructuredRecord.Builder builder, Schema.Field field, File file) {
+    String name = field.getName();
+    if (name.equals(SchemaBuilder.IMAGE_METADATA_FIELD_NAME)) {
+      File.ImageMediaMetadata imageMediaMetadata = file.getImageMediaMetadata();
+      if (imageMediaMetadata != null) {
+        builder.set(field.getName(),
+                    parseSubSchema(field.getSchema().getNonNullable(), imageMediaMetadata));
+      }
+    } else if (name.equals(SchemaBuilder.VIDEO_METADATA_FIELD_NAME)) {
+      File.VideoMediaMetadata videoMediaMetadata = file.getVideoMediaMetadata();
+      if (videoMediaMetadata != null) {
+        builder.set(field.getName(),
+                    parseSubSchema(field.getSchema().getNonNullable(), videoMediaMetadata));
+      }
+    } else if (Schema.LogicalType.TIMESTAMP_MILLIS.equals(field.getSchema().getLogicalType())) {
+      DateTime dateTime = (DateTime) file.get(name);
+      builder.setTimestamp(name, ZonedDateTime.parse(dateTime.toStringRfc3339()));
+    } else {
+      builder.set(name, file.get(name));
+    }
+  }
+
   private static StructuredRecord parseSubSchema(Schema subSchema, GenericJson info) {
     StructuredRecord.Builder subBuilder = StructuredRecord.builder(subSchema);
     for (Schema.Field field : subSchema.getFields()) {
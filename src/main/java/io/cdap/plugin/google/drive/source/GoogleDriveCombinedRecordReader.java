@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.github.rholder.retry.RetryException;
+import com.google.api.services.drive.model.File;
+import io.cdap.plugin.google.common.AdaptiveConcurrencyLimiter;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * RecordReader implementation, which reads {@link FileFromFolder} wrappers of the files of
+ * {@link GoogleDriveCombinedSplit}.
+ * Files are downloaded in parallel ahead of the returned record, records keep the order of files in the split.
+ * The number of parallel downloads is limited by {@link AdaptiveConcurrencyLimiter}: it decreases when Drive API
+ * throttles requests and grows back while requests succeed.
+ */
+public class GoogleDriveCombinedRecordReader extends RecordReader<NullWritable, FileFromFolder> {
+  static final int MAX_FETCH_THREADS = 8;
+
+  private GoogleDriveSourceClient googleDriveSourceClient;
+  private OrderedFetchQueue<FileFromFolder> fetchedFiles;
+  private int filesNumber;
+  private int readFilesNumber;
+  private FileFromFolder currentFile;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    Configuration conf = taskAttemptContext.getConfiguration();
+    GoogleDriveSourceConfig googleDriveSourceConfig =
+      GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
+    googleDriveSourceClient = new GoogleDriveSourceClient(googleDriveSourceConfig);
+    AdaptiveConcurrencyLimiter fetchLimiter =
+      new AdaptiveConcurrencyLimiter(googleDriveSourceClient.getThrottlingController(), MAX_FETCH_THREADS);
+
+    List<File> files = ((GoogleDriveCombinedSplit) inputSplit).getFiles();
+    List<Callable<FileFromFolder>> fetches = files.stream().map(this::getFetch).collect(Collectors.toList());
+    fetchedFiles = new OrderedFetchQueue<>(fetchLimiter, MAX_FETCH_THREADS, fetches.iterator());
+    filesNumber = files.size();
+    readFilesNumber = 0;
+  }
+
+  private Callable<FileFromFolder> getFetch(File file) {
+    return () -> {
+      try {
+        return googleDriveSourceClient.getFilePartition(file, null, null);
+      } catch (ExecutionException | RetryException e) {
+        throw new RuntimeException("Exception during file reading.", e);
+      }
+    };
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException, InterruptedException {
+    currentFile = fetchedFiles.next();
+    if (currentFile == null) {
+      return false;
+    }
+    readFilesNumber++;
+    return true;
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return null;
+  }
+
+  @Override
+  public FileFromFolder getCurrentValue() {
+    return currentFile;
+  }
+
+  @Override
+  public float getProgress() {
+    return filesNumber == 0 ? 1.0f : (float) readFilesNumber / filesNumber;
+  }
+
+  @Override
+  public void close() {
+    if (fetchedFiles != null) {
+      fetchedFiles.close();
+    }
+    if (googleDriveSourceClient != null) {
+      googleDriveSourceClient.close();
+    }
+  }
+}
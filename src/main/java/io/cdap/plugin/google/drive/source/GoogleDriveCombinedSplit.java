@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.File;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A split used for mapreduce which combines small files, each of them is read entirely.
+ * Splits planned by {@link SplitPlanner} keep the metadata serialized until the split itself is serialized.
+ */
+public class GoogleDriveCombinedSplit extends InputSplit implements Writable {
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+  private List<File> files;
+  private List<PlannedFile> plannedFiles;
+
+  @SuppressWarnings("unused")
+  public GoogleDriveCombinedSplit() {
+    // For serialization
+  }
+
+  public GoogleDriveCombinedSplit(List<File> files) {
+    this.files = files;
+  }
+
+  /**
+   * Returns the split of the planned files.
+   * @param plannedFiles the planned files are provided
+   * @return The GoogleDriveCombinedSplit
+   */
+  public static GoogleDriveCombinedSplit ofPlannedFiles(List<PlannedFile> plannedFiles) {
+    GoogleDriveCombinedSplit split = new GoogleDriveCombinedSplit();
+    split.plannedFiles = plannedFiles;
+    return split;
+  }
+
+  @Override
+  public void readFields(DataInput dataInput) throws IOException {
+    int filesNumber = dataInput.readInt();
+    files = new ArrayList<>(filesNumber);
+    for (int i = 0; i < filesNumber; i++) {
+      files.add(JSON_FACTORY.fromString(Text.readString(dataInput), File.class));
+    }
+    plannedFiles = null;
+  }
+
+  @Override
+  public void write(DataOutput dataOutput) throws IOException {
+    if (plannedFiles != null) {
+      dataOutput.writeInt(plannedFiles.size());
+      for (PlannedFile plannedFile : plannedFiles) {
+        Text.writeString(dataOutput, plannedFile.getMetadata());
+      }
+      return;
+    }
+    dataOutput.writeInt(files.size());
+    for (File file : files) {
+      Text.writeString(dataOutput, JSON_FACTORY.toString(file));
+    }
+  }
+
+  @Override
+  public long getLength() {
+    long length = 0L;
+    if (plannedFiles != null) {
+      for (PlannedFile plannedFile : plannedFiles) {
+        length += plannedFile.getEstimatedSize();
+      }
+      return length;
+    }
+    for (File file : files) {
+      length += GoogleDriveSplit.getEstimatedSize(file);
+    }
+    return length;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return new String[0];
+  }
+
+  /**
+   * Returns the files metadata, metadata of planned files is parsed on each call.
+   * @return The list of files
+   */
+  public List<File> getFiles() {
+    if (plannedFiles == null) {
+      return files;
+    }
+    List<File> parsedFiles = new ArrayList<>(plannedFiles.size());
+    for (PlannedFile plannedFile : plannedFiles) {
+      parsedFiles.add(plannedFile.getFile());
+    }
+    return parsedFiles;
+  }
+}
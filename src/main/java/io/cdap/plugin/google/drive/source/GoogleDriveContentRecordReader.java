@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.github.rholder.retry.RetryException;
+import com.google.api.services.drive.model.File;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import io.cdap.plugin.google.drive.source.utils.Decompression;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Base RecordReader for read modes which stream file content from Google Drive and emit several
+ * {@link FileFromFolder} records for each split.
+ */
+public abstract class GoogleDriveContentRecordReader extends RecordReader<NullWritable, FileFromFolder> {
+
+  protected GoogleDriveSourceConfig config;
+  protected GoogleDriveSplit split;
+  protected File file;
+  private GoogleDriveSourceClient googleDriveSourceClient;
+  // opened by the subclasses with openContent, openRanges and openDecompressedContent, closed with the reader
+  protected InputStream content;
+  protected ParallelRangeDownloader ranges;
+  protected DecompressedContent decompressedContent;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    Configuration conf = taskAttemptContext.getConfiguration();
+    config = GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
+    googleDriveSourceClient = new GoogleDriveSourceClient(config);
+    split = (GoogleDriveSplit) inputSplit;
+  }
+
+  /**
+   * Opens the content of the split's file, file metadata is requested if it wasn't carried by the split.
+   * @param bytesFrom the bytes from, null to read the whole file
+   * @param bytesTo the bytes to, null to read the whole file or till the end of file if bytes from is set
+   * @return The content stream, is closed with the reader
+   */
+  protected InputStream openContent(Long bytesFrom, Long bytesTo) {
+    try {
+      file = resolveFile();
+      content = googleDriveSourceClient.openFileContent(file, bytesFrom, bytesTo);
+      return content;
+    } catch (ExecutionException | RetryException e) {
+      throw new RuntimeException("Exception during file or file part reading.", e);
+    }
+  }
+
+  /**
+   * Opens the content of the whole split's file, which is decompressed while it is read if
+   * {@link #isDecompressed()}, otherwise the content is a single entry without name.
+   * @return The decompressed content, is closed with the reader
+   * @throws IOException on issues with content reading
+   */
+  protected DecompressedContent openDecompressedContent() throws IOException {
+    Decompression decompression = isDecompressed() ? config.getDecompression() : Decompression.NONE;
+    decompressedContent = DecompressedContent.open(openContent(null, null), decompression);
+    return decompressedContent;
+  }
+
+  /**
+   * Returns true if the content of the split's file is decompressed. Files in Google formats are exported,
+   * so they are never decompressed.
+   * @return true if the content is decompressed
+   */
+  protected boolean isDecompressed() {
+    return config.getDecompression() != Decompression.NONE
+      && !resolveFile().getMimeType().startsWith(GoogleDriveSourceClient.DRIVE_DOCS_MIME_PREFIX);
+  }
+
+  /**
+   * Starts the download of the byte range of the split's file by concurrent range requests.
+   * @param bytesFrom the first byte of the downloaded range
+   * @param bytesTo the last byte of the downloaded range
+   * @return The downloader of ranges of "Chunk size", is closed with the reader
+   */
+  protected ParallelRangeDownloader openRanges(long bytesFrom, long bytesTo) {
+    file = resolveFile();
+    ranges = new ParallelRangeDownloader(googleDriveSourceClient, file, bytesFrom, bytesTo, config.getChunkSize(),
+                                         config.getDownloadThreadsNumber());
+    return ranges;
+  }
+
+  /**
+   * Returns the metadata of the split's file, it is requested if it wasn't carried by the split.
+   * @return The file metadata
+   */
+  protected File resolveFile() {
+    if (file != null) {
+      return file;
+    }
+    try {
+      file = split.getFile() != null ? split.getFile() : googleDriveSourceClient.getFileMetadata(split.getFileId());
+      return file;
+    } catch (ExecutionException | RetryException e) {
+      throw new RuntimeException("Exception during file metadata reading.", e);
+    }
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (ranges != null) {
+        ranges.close();
+      }
+      // releases the inflater before the downloaded content is closed
+      if (decompressedContent != null) {
+        decompressedContent.close();
+      }
+      if (content != null) {
+        content.close();
+      }
+    } finally {
+      if (googleDriveSourceClient != null) {
+        googleDriveSourceClient.close();
+      }
+    }
+  }
+}
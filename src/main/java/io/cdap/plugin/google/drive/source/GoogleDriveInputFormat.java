@@ -18,6 +18,10 @@ package io.cdap.plugin.google.drive.source;
 
 import com.github.rholder.retry.RetryException;
 import com.google.api.services.drive.model.File;
+import io.cdap.plugin.google.common.GoogleDriveFilteringClient;
+import io.cdap.plugin.google.drive.source.utils.ContentFormat;
+import io.cdap.plugin.google.drive.source.utils.Decompression;
+import io.cdap.plugin.google.drive.source.utils.ReadMode;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -26,14 +30,18 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Input format class which generates splits for each query.
  */
 public class GoogleDriveInputFormat extends InputFormat {
+  private static final int METADATA_SPLIT_SIZE = GoogleDriveFilteringClient.MAX_PAGE_SIZE;
 
   @Override
   public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
@@ -41,27 +49,66 @@ public class GoogleDriveInputFormat extends InputFormat {
     GoogleDriveSourceConfig googleDriveSourceConfig =
       GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
 
-    GoogleDriveSourceClient client = new GoogleDriveSourceClient(googleDriveSourceConfig);
-    Long maxBodySize = googleDriveSourceConfig.getMaxPartitionSize();
+    // compressed content can be decompressed and parsed content can be parsed only from its start
+    boolean parsed = googleDriveSourceConfig.getContentFormat() != ContentFormat.NONE;
+    Long maxBodySize = googleDriveSourceConfig.getDecompression() == Decompression.NONE && !parsed ?
+      googleDriveSourceConfig.getMaxPartitionSize() : 0L;
+    String changesPageToken = conf.get(GoogleDriveInputFormatProvider.PROPERTY_CHANGES_PAGE_TOKEN);
+    String spillDirectory = conf.get(GoogleDriveInputFormatProvider.PROPERTY_SPILL_DIRECTORY);
 
-    try {
-      return getSplitsFromFiles(client.getFilesSummary(), maxBodySize);
+    // spilled metadata is read when splits are serialized, the spill directory is removed when the run finishes
+    try (GoogleDriveSourceClient client = new GoogleDriveSourceClient(googleDriveSourceConfig);
+         SplitPlanner planner = new SplitPlanner(googleDriveSourceConfig.getSplitPlanningSpillThreshold(),
+                                                 spillDirectory == null ? null : Paths.get(spillDirectory))) {
+      String skipIndexPath = googleDriveSourceConfig.getSkipIndexPath();
+      SkipIndex skipIndex = skipIndexPath == null ? null : new SkipIndex(skipIndexPath, conf).load();
+      // pages of the listing are planned as soon as they are received
+      Consumer<List<File>> pageConsumer = skipIndex == null ? planner :
+        page -> planner.accept(skipIndex.removeUnchanged(page));
+      if (changesPageToken == null) {
+        client.listFilesSummary(pageConsumer);
+      } else {
+        pageConsumer.accept(client.getChangedFiles(changesPageToken));
+      }
+      if (skipIndex != null) {
+        skipIndex.logSkipped();
+        if (changesPageToken == null) {
+          // changes don't list unchanged files, so only the full listing tells which files are gone
+          skipIndex.removeUnlisted();
+        }
+        skipIndex.writePending();
+      }
+      List<PlannedFile> files = planner.getFiles();
+      if (googleDriveSourceConfig.isMetadataOnly()) {
+        List<InputSplit> splits = getMetadataSplitsFromFiles(files);
+        planner.logSummary(splits.size());
+        return splits;
+      }
+      List<InputSplit> splits = getSplitsFromFiles(files, maxBodySize);
+      long combinedSplitSize = googleDriveSourceConfig.getCombinedSplitSize();
+      if (combinedSplitSize > 0 && googleDriveSourceConfig.getReadMode() == ReadMode.FILE && !parsed) {
+        splits = combineSmallFileSplits(splits, combinedSplitSize,
+                                        googleDriveSourceConfig.getCombinedSplitFilesNumber());
+      }
+      sortBySizeDescending(splits);
+      planner.logSummary(splits.size());
+      return splits;
     } catch (ExecutionException | RetryException e) {
       throw new RuntimeException("Failed to prepare splits.", e);
     }
   }
 
-  private List<InputSplit> getSplitsFromFiles(List<File> files, Long maxBodySize) {
+  private List<InputSplit> getSplitsFromFiles(List<PlannedFile> files, Long maxBodySize) {
     List<InputSplit> splits = new ArrayList<>();
-    for (File file : files) {
+    for (PlannedFile file : files) {
       Long fileSize = file.getSize();
       // fileSize == null for files in Google formats
       if (maxBodySize == 0L || fileSize == null || fileSize <= maxBodySize) {
-        splits.add(getSplitWithUnlimitedPartitionSize(file.getId()));
+        splits.add(getSplitWithUnlimitedPartitionSize(file));
       } else {
         long currentPoint = 0L;
         while (currentPoint < fileSize) {
-          splits.add(new GoogleDriveSplit(file.getId(), currentPoint,
+          splits.add(new GoogleDriveSplit(file, currentPoint,
                                           Math.min(fileSize, currentPoint + maxBodySize) - 1));
           currentPoint += maxBodySize;
         }
@@ -70,12 +117,103 @@ public class GoogleDriveInputFormat extends InputFormat {
     return splits;
   }
 
-  private GoogleDriveSplit getSplitWithUnlimitedPartitionSize(String fileId) {
-    return new GoogleDriveSplit(fileId);
+  // files are packed in listing order, a file which doesn't fit closes the current split
+  static List<InputSplit> combineSmallFileSplits(List<InputSplit> splits, long combinedSplitSize,
+                                                 int combinedSplitFilesNumber) {
+    List<InputSplit> combinedSplits = new ArrayList<>();
+    List<GoogleDriveSplit> currentSplits = new ArrayList<>();
+    long currentSize = 0L;
+    for (InputSplit split : splits) {
+      GoogleDriveSplit fileSplit = (GoogleDriveSplit) split;
+      // files in Google formats have no size, the size of their export is estimated
+      long fileSize = fileSplit.getLength();
+      if (!fileSplit.hasFile() || fileSplit.isPartitioned() || fileSize >= combinedSplitSize) {
+        combinedSplits.add(split);
+        continue;
+      }
+      if (!currentSplits.isEmpty() && (currentSize + fileSize > combinedSplitSize
+        || currentSplits.size() >= combinedSplitFilesNumber)) {
+        combinedSplits.add(toCombinedSplit(currentSplits));
+        currentSplits = new ArrayList<>();
+        currentSize = 0L;
+      }
+      currentSplits.add(fileSplit);
+      currentSize += fileSize;
+    }
+    if (!currentSplits.isEmpty()) {
+      combinedSplits.add(toCombinedSplit(currentSplits));
+    }
+    return combinedSplits;
+  }
+
+  private static InputSplit toCombinedSplit(List<GoogleDriveSplit> splits) {
+    if (splits.size() == 1) {
+      return splits.get(0);
+    }
+    // metadata of planned files stays serialized
+    if (splits.stream().allMatch(split -> split.getPlannedFile() != null)) {
+      List<PlannedFile> plannedFiles = new ArrayList<>(splits.size());
+      for (GoogleDriveSplit split : splits) {
+        plannedFiles.add(split.getPlannedFile());
+      }
+      return GoogleDriveCombinedSplit.ofPlannedFiles(plannedFiles);
+    }
+    List<File> files = new ArrayList<>(splits.size());
+    for (GoogleDriveSplit split : splits) {
+      files.add(split.getFile());
+    }
+    return new GoogleDriveCombinedSplit(files);
+  }
+
+  // the longest tasks start first, so a big file doesn't end up last on a single executor;
+  // the sort is stable, so partitions of a file keep their order
+  static void sortBySizeDescending(List<InputSplit> splits) {
+    splits.sort(Comparator.comparingLong(GoogleDriveInputFormat::getLength).reversed());
+  }
+
+  private static long getLength(InputSplit split) {
+    try {
+      return split.getLength();
+    } catch (IOException | InterruptedException e) {
+      throw new RuntimeException("Failed to get split length.", e);
+    }
+  }
+
+  // records are built from the listing, so each split takes a page of files
+  private List<InputSplit> getMetadataSplitsFromFiles(List<PlannedFile> files) {
+    List<InputSplit> splits = new ArrayList<>();
+    for (int from = 0; from < files.size(); from += METADATA_SPLIT_SIZE) {
+      splits.add(GoogleDriveMetadataSplit.ofPlannedFiles(
+        new ArrayList<>(files.subList(from, Math.min(files.size(), from + METADATA_SPLIT_SIZE)))));
+    }
+    return splits;
+  }
+
+  private GoogleDriveSplit getSplitWithUnlimitedPartitionSize(PlannedFile file) {
+    return new GoogleDriveSplit(file);
   }
 
   @Override
-  public RecordReader createRecordReader(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
-    return new GoogleDriveRecordReader();
+  public RecordReader createRecordReader(InputSplit inputSplit, TaskAttemptContext taskAttemptContext)
+    throws IOException {
+    if (inputSplit instanceof GoogleDriveMetadataSplit) {
+      return new GoogleDriveMetadataRecordReader();
+    }
+    if (inputSplit instanceof GoogleDriveCombinedSplit) {
+      return new GoogleDriveCombinedRecordReader();
+    }
+    GoogleDriveSourceConfig googleDriveSourceConfig =
+      GoogleDriveInputFormatProvider.extractPropertiesFromConfig(taskAttemptContext.getConfiguration());
+    if (googleDriveSourceConfig.getContentFormat() != ContentFormat.NONE) {
+      return new GoogleDriveParsingRecordReader();
+    }
+    switch (googleDriveSourceConfig.getReadMode()) {
+      case CHUNKS:
+        return new GoogleDriveStreamingRecordReader();
+      case LINES:
+        return new GoogleDriveLineRecordReader();
+      default:
+        return new GoogleDriveRecordReader();
+    }
   }
 }
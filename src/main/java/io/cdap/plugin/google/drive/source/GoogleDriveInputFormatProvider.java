@@ -21,16 +21,21 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import io.cdap.cdap.api.data.batch.InputFormatProvider;
+import io.cdap.cdap.api.data.schema.Schema;
 import org.apache.hadoop.conf.Configuration;
 
 import java.io.IOException;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * InputFormatProvider used by cdap to provide configurations to mapreduce job.
  */
 public class GoogleDriveInputFormatProvider implements InputFormatProvider {
   public static final String PROPERTY_CONFIG_JSON = "cdap.google.config";
+  public static final String PROPERTY_CHANGES_PAGE_TOKEN = "cdap.google.drive.changes.page.token";
+  public static final String PROPERTY_CONTENT_SCHEMA = "cdap.google.drive.content.schema";
+  public static final String PROPERTY_SPILL_DIRECTORY = "cdap.google.drive.spill.directory";
   public static final Gson GSON = new GsonBuilder().create();
 
   private final Map<String, String> conf;
@@ -40,9 +45,50 @@ public class GoogleDriveInputFormatProvider implements InputFormatProvider {
    * @param config the GoogleDriveSourceConfig is provided
    */
   public GoogleDriveInputFormatProvider(GoogleDriveSourceConfig config) {
-    this.conf = new ImmutableMap.Builder<String, String>()
-      .put(PROPERTY_CONFIG_JSON, GSON.toJson(config.getProperties()))
-      .build();
+    this(config, null);
+  }
+
+  /**
+   * Constructor for GoogleDriveOutputFormatProvider object which reads only files changed since the page token.
+   * @param config the GoogleDriveSourceConfig is provided
+   * @param changesPageToken the page token of the changes log, null to read all files
+   */
+  public GoogleDriveInputFormatProvider(GoogleDriveSourceConfig config, @Nullable String changesPageToken) {
+    this(config, changesPageToken, null);
+  }
+
+  /**
+   * Constructor for GoogleDriveOutputFormatProvider object which parses file content with the resolved schema.
+   * @param config the GoogleDriveSourceConfig is provided
+   * @param changesPageToken the page token of the changes log, null to read all files
+   * @param contentSchema the schema of parsed content, null if the content isn't parsed
+   */
+  public GoogleDriveInputFormatProvider(GoogleDriveSourceConfig config, @Nullable String changesPageToken,
+                                        @Nullable Schema contentSchema) {
+    this(config, changesPageToken, contentSchema, null);
+  }
+
+  /**
+   * Constructor for GoogleDriveOutputFormatProvider object which spills split planning metadata to the directory.
+   * @param config the GoogleDriveSourceConfig is provided
+   * @param changesPageToken the page token of the changes log, null to read all files
+   * @param contentSchema the schema of parsed content, null if the content isn't parsed
+   * @param spillDirectory the local directory of split planning spill files, null for the default temporary directory
+   */
+  public GoogleDriveInputFormatProvider(GoogleDriveSourceConfig config, @Nullable String changesPageToken,
+                                        @Nullable Schema contentSchema, @Nullable String spillDirectory) {
+    ImmutableMap.Builder<String, String> builder = new ImmutableMap.Builder<String, String>()
+      .put(PROPERTY_CONFIG_JSON, GSON.toJson(config.getProperties()));
+    if (changesPageToken != null) {
+      builder.put(PROPERTY_CHANGES_PAGE_TOKEN, changesPageToken);
+    }
+    if (contentSchema != null) {
+      builder.put(PROPERTY_CONTENT_SCHEMA, contentSchema.toString());
+    }
+    if (spillDirectory != null) {
+      builder.put(PROPERTY_SPILL_DIRECTORY, spillDirectory);
+    }
+    this.conf = builder.build();
   }
 
   public static GoogleDriveSourceConfig extractPropertiesFromConfig(Configuration config) throws IOException {
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * RecordReader implementation for "Lines" read mode, emits a {@link FileFromFolder} for each text line with the
+ * byte offset of the line start. Line terminators are not included in the body.
+ * As in Hadoop's LineRecordReader, a split of a partitioned file skips its leading partial line and reads past
+ * its end to complete the last line, so every line is read exactly once.
+ * Lines of decompressed content are read separately for each archive entry, offsets of its lines are offsets in the
+ * decompressed entry.
+ */
+public class GoogleDriveLineRecordReader extends GoogleDriveContentRecordReader {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+  private int bufferLength;
+  private int bufferPosition;
+
+  // the content of the file or of its current archive entry
+  private InputStream lineContent;
+  private long start;
+  // exclusive, lines which start at or before the end belong to this split
+  private long end;
+  private long position;
+  private FileFromFolder currentValue;
+  private boolean finished;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    super.initialize(inputSplit, taskAttemptContext);
+    this.start = split.isPartitioned() ? split.getBytesFrom() : 0L;
+    this.end = split.isPartitioned() ? split.getBytesTo() + 1 : Long.MAX_VALUE;
+    this.position = start;
+    this.finished = false;
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (finished) {
+      return false;
+    }
+    if (lineContent == null) {
+      if (isDecompressed()) {
+        // compressed files are not partitioned
+        openDecompressedContent();
+        if (!decompressedContent.nextEntry()) {
+          finished = true;
+          return false;
+        }
+        lineContent = decompressedContent.getEntryContent();
+      } else {
+        // the split reads till the end of the last line which may be located after the split end
+        lineContent = split.isPartitioned() ? openContent(start, null) : openContent(null, null);
+        if (start != 0) {
+          // partial line belongs to the previous split
+          readLine();
+        }
+      }
+    }
+
+    long lineStart = position;
+    byte[] lineBytes = lineStart <= end ? readLine() : null;
+    while (lineBytes == null && decompressedContent != null && decompressedContent.nextEntry()) {
+      lineContent = decompressedContent.getEntryContent();
+      position = 0L;
+      lineStart = 0L;
+      lineBytes = readLine();
+    }
+    if (lineBytes == null) {
+      finished = true;
+      currentValue = null;
+      return false;
+    }
+    currentValue = new FileFromFolder(lineBytes, lineStart, file,
+                                      decompressedContent == null ? null : decompressedContent.getEntryName());
+    return true;
+  }
+
+  // returns null at the end of stream
+  private byte[] readLine() throws IOException {
+    line.reset();
+    long consumed = 0;
+    boolean terminated = false;
+    while (!terminated) {
+      if (bufferPosition == bufferLength) {
+        bufferLength = lineContent.read(buffer);
+        bufferPosition = 0;
+        if (bufferLength <= 0) {
+          bufferLength = 0;
+          break;
+        }
+      }
+      int lineEnd = bufferPosition;
+      while (lineEnd < bufferLength && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      line.write(buffer, bufferPosition, lineEnd - bufferPosition);
+      consumed += lineEnd - bufferPosition;
+      if (lineEnd < bufferLength) {
+        terminated = true;
+        consumed++;
+        lineEnd++;
+      }
+      bufferPosition = lineEnd;
+    }
+    if (consumed == 0) {
+      return null;
+    }
+    position += consumed;
+    byte[] bytes = line.toByteArray();
+    if (bytes.length > 0 && bytes[bytes.length - 1] == '\r') {
+      return Arrays.copyOf(bytes, bytes.length - 1);
+    }
+    return bytes;
+  }
+
+  @Override
+  public FileFromFolder getCurrentValue() {
+    return currentValue;
+  }
+
+  @Override
+  public float getProgress() {
+    if (finished) {
+      return 1.0f;
+    }
+    if (decompressedContent != null) {
+      // size of the decompressed content is unknown
+      long size = file.getSize() == null ? 0L : file.getSize();
+      return size <= 0 ? 0.0f : Math.min(1.0f, (float) decompressedContent.getCompressedBytesRead() / size);
+    }
+    long length = split.isPartitioned() ? end - start : (file == null || file.getSize() == null ? 0 : file.getSize());
+    return length <= 0 ? 0.0f : Math.min(1.0f, (float) (position - start) / length);
+  }
+}
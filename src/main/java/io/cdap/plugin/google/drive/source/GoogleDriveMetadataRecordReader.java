@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.util.List;
+
+/**
+ * RecordReader implementation for metadata only mode, which emits {@link FileFromFolder} wrappers without content
+ * from metadata received with the files listing. Google Drive API is not called.
+ */
+public class GoogleDriveMetadataRecordReader extends RecordReader<NullWritable, FileFromFolder> {
+  private static final byte[] EMPTY_CONTENT = new byte[0];
+
+  private List<File> files;
+  private int index;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
+    this.files = ((GoogleDriveMetadataSplit) inputSplit).getFiles();
+    this.index = -1;
+  }
+
+  @Override
+  public boolean nextKeyValue() {
+    index++;
+    return index < files.size();
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return null;
+  }
+
+  @Override
+  public FileFromFolder getCurrentValue() {
+    return new FileFromFolder(EMPTY_CONTENT, 0L, files.get(index));
+  }
+
+  @Override
+  public float getProgress() {
+    return files.isEmpty() ? 1.0f : Math.min(1.0f, (float) (index + 1) / files.size());
+  }
+
+  @Override
+  public void close() {
+    // nothing to close
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * RecordReader implementation for parsed content, emits a {@link ParsedFileFromFolder} for each record parsed
+ * from the file content. Content is parsed while it is downloaded, compressed content is decompressed first and
+ * each archive entry is parsed separately. Files with parsed content are not partitioned.
+ */
+public class GoogleDriveParsingRecordReader extends GoogleDriveContentRecordReader {
+  private Schema contentSchema;
+  private Schema schema;
+  private ContentParser parser;
+  private FileFromFolder currentValue;
+  private boolean finished;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    super.initialize(inputSplit, taskAttemptContext);
+    Configuration conf = taskAttemptContext.getConfiguration();
+    String contentSchemaJson = conf.get(GoogleDriveInputFormatProvider.PROPERTY_CONTENT_SCHEMA);
+    contentSchema = contentSchemaJson == null ? config.getContentSchema() : Schema.parseJson(contentSchemaJson);
+    if (contentSchema == null) {
+      throw new IOException("Content schema was neither set nor inferred.");
+    }
+    schema = config.getParsedSchema(contentSchema);
+    finished = false;
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (finished) {
+      return false;
+    }
+    if (decompressedContent == null) {
+      openDecompressedContent();
+    }
+    try {
+      Map<String, Object> values = parser == null ? null : parser.next();
+      while (values == null) {
+        if (!decompressedContent.nextEntry()) {
+          finished = true;
+          currentValue = null;
+          return false;
+        }
+        parser = ContentParser.create(config.getContentFormat(), decompressedContent.getEntryContent(),
+                                      contentSchema);
+        values = parser.next();
+      }
+      currentValue = new ParsedFileFromFolder(toRecord(values), file);
+      return true;
+    } catch (IOException e) {
+      throw new IOException(String.format("Failed to parse content of file '%s'.", file.getName()), e);
+    }
+  }
+
+  private StructuredRecord toRecord(Map<String, Object> values) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : schema.getFields()) {
+      String name = field.getName();
+      if (values.containsKey(name)) {
+        builder.set(name, values.get(name));
+      } else if (name.equals(SchemaBuilder.ENTRY_NAME_FIELD_NAME)) {
+        builder.set(name, decompressedContent.getEntryName());
+      } else {
+        FilesFromFolderTransformer.setFileProperty(builder, field, file);
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public FileFromFolder getCurrentValue() {
+    return currentValue;
+  }
+
+  @Override
+  public float getProgress() {
+    if (finished) {
+      return 1.0f;
+    }
+    // size of the parsed content is unknown, files in Google formats have no size
+    long size = file == null || file.getSize() == null ? 0L : file.getSize();
+    return size <= 0 || decompressedContent == null ? 0.0f :
+      Math.min(1.0f, (float) decompressedContent.getCompressedBytesRead() / size);
+  }
+}
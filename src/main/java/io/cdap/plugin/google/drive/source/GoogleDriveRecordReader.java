@@ -17,6 +17,7 @@
 package io.cdap.plugin.google.drive.source;
 
 import com.github.rholder.retry.RetryException;
+import com.google.api.services.drive.model.File;
 import io.cdap.plugin.google.drive.common.FileFromFolder;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
@@ -24,21 +25,33 @@ import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.concurrent.ExecutionException;
 
 /**
  * RecordReader implementation, which reads {@link FileFromFolder} wrappers from Google Drive using
  * Google Drive API.
+ * Binary content larger than the chunk size can be downloaded by several concurrent range requests, which are
+ * reassembled to a single record.
+ * Received bytes are counted while the content is downloaded, the progress is reported against the split length and
+ * download counters are published when the split is read.
  */
 public class GoogleDriveRecordReader extends RecordReader<NullWritable, FileFromFolder> {
+  // the largest array that JVMs allocate
+  static final long MAX_BODY_SIZE = Integer.MAX_VALUE - 8;
 
   private GoogleDriveSourceClient googleDriveSourceClient;
   private String fileId;
+  private File file;
   private long bytesFrom;
   private long bytesTo;
   private boolean isPartitioned;
   private boolean isFileProcessed;
+  private int rangeSize;
+  private int downloadThreadsNumber;
+  private TaskAttemptContext taskAttemptContext;
+  private DownloadProgress downloadProgress;
 
   @Override
   public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
@@ -49,10 +62,16 @@ public class GoogleDriveRecordReader extends RecordReader<NullWritable, FileFrom
 
     GoogleDriveSplit split = (GoogleDriveSplit) inputSplit;
     this.fileId = split.getFileId();
+    this.file = split.getFile();
     this.bytesFrom = split.getBytesFrom();
     this.bytesTo = split.getBytesTo();
     this.isPartitioned = split.isPartitioned();
     this.isFileProcessed = false;
+    this.rangeSize = googleDriveSourceConfig.getChunkSize();
+    this.downloadThreadsNumber = googleDriveSourceConfig.getDownloadThreadsNumber();
+    this.taskAttemptContext = taskAttemptContext;
+    this.downloadProgress = new DownloadProgress(split.getLength());
+    googleDriveSourceClient.setDownloadListener(downloadProgress);
   }
 
   @Override
@@ -66,11 +85,33 @@ public class GoogleDriveRecordReader extends RecordReader<NullWritable, FileFrom
   }
 
   @Override
-  public FileFromFolder getCurrentValue() throws IOException {
+  public FileFromFolder getCurrentValue() throws IOException, InterruptedException {
     // read file and content
     isFileProcessed = true;
+    downloadProgress.start();
+    FileFromFolder fileFromFolder = readFile();
+    downloadProgress.complete();
+    downloadProgress.publishCounters(taskAttemptContext);
+    return fileFromFolder;
+  }
+
+  private FileFromFolder readFile() throws IOException, InterruptedException {
     try {
-      if (isPartitioned) {
+      long length = isPartitioned ? bytesTo - bytesFrom + 1 :
+        (file == null || file.getSize() == null ? 0L : file.getSize());
+      if (length > MAX_BODY_SIZE) {
+        throw new IOException(
+          String.format("File '%s' of %d bytes doesn't fit into a single record body of at most %d bytes, " +
+                          "set 'Maximum Partition Size' to split it or use 'Chunks' read mode.",
+                        fileId, length, MAX_BODY_SIZE));
+      }
+      if (ParallelRangeDownloader.isApplicable(file, length, rangeSize, downloadThreadsNumber)) {
+        return downloadInRanges(isPartitioned ? bytesFrom : 0L, length);
+      } else if (file != null) {
+        // metadata was received with the files listing
+        return isPartitioned ? googleDriveSourceClient.getFilePartition(file, bytesFrom, bytesTo) :
+          googleDriveSourceClient.getFilePartition(file, null, null);
+      } else if (isPartitioned) {
         return googleDriveSourceClient.getFilePartition(fileId, bytesFrom, bytesTo);
       } else {
         return googleDriveSourceClient.getFile(fileId);
@@ -80,14 +121,27 @@ public class GoogleDriveRecordReader extends RecordReader<NullWritable, FileFrom
     }
   }
 
+  private FileFromFolder downloadInRanges(long offset, long length) throws IOException, InterruptedException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream((int) length);
+    try (ParallelRangeDownloader ranges = new ParallelRangeDownloader(googleDriveSourceClient, file, offset,
+                                                                      offset + length - 1, rangeSize,
+                                                                      downloadThreadsNumber)) {
+      for (FileFromFolder range = ranges.next(); range != null; range = ranges.next()) {
+        content.write(range.getContent());
+      }
+    }
+    return new FileFromFolder(content.toByteArray(), offset, file);
+  }
+
   @Override
   public float getProgress() {
-    // progress is unknown
-    return 0.0f;
+    return downloadProgress.getProgress();
   }
 
   @Override
   public void close() {
-
+    if (googleDriveSourceClient != null) {
+      googleDriveSourceClient.close();
+    }
   }
 }
@@ -16,6 +16,8 @@
 
 package io.cdap.plugin.google.drive.source;
 
+import com.github.rholder.retry.RetryException;
+import com.google.api.services.drive.model.File;
 import com.google.common.base.Preconditions;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
@@ -27,13 +29,28 @@ import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.plugin.common.LineageRecorder;
+import io.cdap.plugin.google.common.ApiCallMetrics;
 import io.cdap.plugin.google.drive.common.FileFromFolder;
+import io.cdap.plugin.google.drive.source.utils.ContentFormat;
+import io.cdap.plugin.google.drive.source.utils.Decompression;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Batch source to read multiple files from Google Drive directory.
@@ -43,8 +60,14 @@ import java.util.stream.Collectors;
 @Description("Reads fileset from specified Google Drive directory.")
 public class GoogleDriveSource extends BatchSource<NullWritable, FileFromFolder, StructuredRecord> {
   public static final String NAME = "GoogleDrive";
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleDriveSource.class);
 
   private final GoogleDriveSourceConfig config;
+  private StageMetrics metrics;
+  private ApiCallMetrics callMetrics;
+  private ApiCallMetrics runCallMetrics;
+  private String nextChangesPageToken;
+  private Path spillDirectory;
 
   public GoogleDriveSource(GoogleDriveSourceConfig config) {
     this.config = config;
@@ -56,27 +79,194 @@ public class GoogleDriveSource extends BatchSource<NullWritable, FileFromFolder,
     config.validate(failureCollector);
     failureCollector.getOrThrowException();
 
-    pipelineConfigurer.getStageConfigurer().setOutputSchema(config.getSchema());
+    Schema schema = config.getSchema();
+    if (config.getContentFormat() != ContentFormat.NONE && config.getContentSchema() == null
+      && !config.containsMacro(GoogleDriveSourceConfig.CONTENT_FORMAT)
+      && !config.containsMacro(GoogleDriveSourceConfig.CONTENT_SCHEMA)) {
+      // inference needs access to Drive, so the schema stays without content fields if it fails
+      try {
+        Schema contentSchema = inferContentSchema();
+        if (contentSchema != null) {
+          schema = config.getParsedSchema(contentSchema);
+        }
+      } catch (Exception e) {
+        LOG.warn("Failed to infer content schema, it will be inferred when the pipeline runs.", e);
+      }
+    }
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(schema);
   }
 
   @Override
   public void prepareRun(BatchSourceContext context) {
-    FailureCollector failureCollector = context.getFailureCollector();
-    config.validate(failureCollector);
-    failureCollector.getOrThrowException();
+    // released when the run is finished, or here if the run could not be prepared
+    runCallMetrics = ApiCallMetrics.acquire(config.getReferenceName(), context.getMetrics());
+    boolean prepared = false;
+    try {
+      FailureCollector failureCollector = context.getFailureCollector();
+      config.validate(failureCollector);
+      failureCollector.getOrThrowException();
+
+      Schema contentSchema = null;
+      Schema schema = config.getSchema();
+      if (config.getContentFormat() != ContentFormat.NONE) {
+        contentSchema = config.getContentSchema();
+        if (contentSchema == null) {
+          try {
+            contentSchema = inferContentSchema();
+          } catch (IOException | ExecutionException | RetryException e) {
+            throw new RuntimeException("Failed to infer content schema.", e);
+          }
+          if (contentSchema == null) {
+            throw new IllegalArgumentException(
+              String.format("No file content to infer the schema from, set '%s'.",
+                            GoogleDriveSourceConfig.CONTENT_SCHEMA_LABEL));
+          }
+        }
+        schema = config.getParsedSchema(contentSchema);
+      }
+
+      LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
+      lineageRecorder.createExternalDataset(schema);
+      lineageRecorder.recordRead("Read", "Reading Google Drive files",
+                                 Preconditions.checkNotNull(schema.getFields()).stream()
+                                   .map(Schema.Field::getName)
+                                   .collect(Collectors.toList()));
 
-    LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
-    lineageRecorder.createExternalDataset(config.getSchema());
-    lineageRecorder.recordRead("Read", "Reading Google Drive files",
-                               Preconditions.checkNotNull(config.getSchema().getFields()).stream()
-                                 .map(Schema.Field::getName)
-                                 .collect(Collectors.toList()));
+      String changesPageToken = null;
+      String checkpointPath = config.getChangesCheckpointPath();
+      if (checkpointPath != null) {
+        try (GoogleDriveSourceClient client = new GoogleDriveSourceClient(config)) {
+          changesPageToken = new ChangesCheckpoint(checkpointPath, new Configuration()).read();
+          // taken before files are listed, so changes made during the run are read again by the next run
+          nextChangesPageToken = client.getChangesStartPageToken();
+        } catch (IOException | ExecutionException | RetryException e) {
+          throw new RuntimeException("Failed to prepare changes checkpoint.", e);
+        }
+      }
 
-    context.setInput(Input.of(config.getReferenceName(), new GoogleDriveInputFormatProvider(config)));
+      try {
+        // splits are planned on the driver, spill files stay until the splits are serialized
+        spillDirectory = Files.createTempDirectory("google-drive-splits-");
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to create split planning spill directory.", e);
+      }
+      context.setInput(Input.of(config.getReferenceName(),
+                                new GoogleDriveInputFormatProvider(config, changesPageToken, contentSchema,
+                                                                   spillDirectory.toString())));
+      // calls made while the run was prepared, worker calls are flushed by each worker
+      runCallMetrics.flush(context.getMetrics());
+      prepared = true;
+    } finally {
+      if (!prepared) {
+        runCallMetrics.release();
+        runCallMetrics = null;
+      }
+    }
+  }
+
+  // samples the first records of the first listed file, fields which clash with file properties are dropped
+  @Nullable
+  private Schema inferContentSchema() throws IOException, ExecutionException, RetryException {
+    try (GoogleDriveSourceClient client = new GoogleDriveSourceClient(config)) {
+      // only the sampled file is listed, listing of the whole folder is left to split planning
+      List<File> files = client.getFilesSummary(1);
+      if (files.isEmpty()) {
+        return null;
+      }
+      File file = files.get(0);
+      Decompression decompression = file.getMimeType().startsWith(GoogleDriveSourceClient.DRIVE_DOCS_MIME_PREFIX) ?
+        Decompression.NONE : config.getDecompression();
+      Schema inferredSchema;
+      try (DecompressedContent content =
+             DecompressedContent.open(client.openFileContent(file, null, null), decompression)) {
+        if (!content.nextEntry()) {
+          return null;
+        }
+        inferredSchema = ContentParser.inferSchema(config.getContentFormat(), content.getEntryContent());
+      }
+      List<Schema.Field> fields = new ArrayList<>();
+      for (Schema.Field field : Preconditions.checkNotNull(inferredSchema.getFields())) {
+        if (config.getFileMetadataProperties().contains(field.getName())
+          || field.getName().equals(SchemaBuilder.ENTRY_NAME_FIELD_NAME)) {
+          LOG.warn("Inferred content field '{}' clashes with the file property of the same name and is dropped.",
+                   field.getName());
+        } else {
+          fields.add(field);
+        }
+      }
+      if (fields.isEmpty()) {
+        return null;
+      }
+      LOG.info("Inferred content schema from file '{}': {}", file.getName(), inferredSchema);
+      return Schema.recordOf(inferredSchema.getRecordName(), fields);
+    }
+  }
+
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSourceContext context) {
+    super.onRunFinish(succeeded, context);
+    if (spillDirectory != null) {
+      try {
+        SplitPlanner.removeSpillDirectory(spillDirectory);
+      } catch (IOException e) {
+        LOG.warn("Failed to remove split planning spill directory '{}'.", spillDirectory, e);
+      }
+    }
+    if (succeeded && nextChangesPageToken != null) {
+      try {
+        new ChangesCheckpoint(config.getChangesCheckpointPath(), new Configuration()).write(nextChangesPageToken);
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to store changes checkpoint.", e);
+      }
+    }
+    String skipIndexPath = config.getSkipIndexPath();
+    if (skipIndexPath != null) {
+      try {
+        SkipIndex skipIndex = new SkipIndex(skipIndexPath, new Configuration());
+        if (succeeded) {
+          skipIndex.reportPendingSkipped(context.getMetrics());
+          skipIndex.commit();
+        } else {
+          skipIndex.abort();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to store skip index.", e);
+      }
+    }
+    // calls made while splits were planned
+    if (runCallMetrics != null) {
+      runCallMetrics.flush(context.getMetrics());
+      runCallMetrics.release();
+      runCallMetrics = null;
+    }
+  }
+
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    metrics = context.getMetrics();
+    callMetrics = ApiCallMetrics.acquire(config.getReferenceName(), metrics);
   }
 
   @Override
   public void transform(KeyValue<NullWritable, FileFromFolder> input, Emitter<StructuredRecord> emitter) {
-    emitter.emit(FilesFromFolderTransformer.transform(input.getValue(), config.getSchema()));
+    FileFromFolder value = input.getValue();
+    if (value instanceof ParsedFileFromFolder) {
+      emitter.emit(((ParsedFileFromFolder) value).getRecord());
+    } else {
+      emitter.emit(FilesFromFolderTransformer.transform(value, config.getSchema()));
+    }
+    callMetrics.flushIfDue(metrics);
+  }
+
+  @Override
+  public void destroy() {
+    if (callMetrics != null) {
+      callMetrics.flush(metrics);
+      // calls of clients which are closed after the stage, such as record writers, are reported by the last of them
+      callMetrics.release();
+      callMetrics = null;
+    }
+    super.destroy();
   }
 }
@@ -18,26 +18,41 @@ package io.cdap.plugin.google.drive.source;
 
 import com.github.rholder.retry.RetryException;
 import com.github.rholder.retry.Retryer;
+import com.google.api.client.util.DateTime;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.DriveScopes;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
 import com.google.api.services.drive.model.File;
-import io.cdap.plugin.google.common.APIRequestRetryer;
+import io.cdap.plugin.google.common.ApiOperation;
 import io.cdap.plugin.google.common.GoogleDriveFilteringClient;
+import io.cdap.plugin.google.common.IdentifierType;
+import io.cdap.plugin.google.common.utils.DateRange;
 import io.cdap.plugin.google.common.utils.ExportedType;
+import io.cdap.plugin.google.common.utils.ModifiedDateRangeUtils;
 import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 /**
  * Client for getting data via Google Drive API.
  */
 public class GoogleDriveSourceClient extends GoogleDriveFilteringClient<GoogleDriveSourceConfig> {
+  private static final Logger LOG = LoggerFactory.getLogger(GoogleDriveSourceClient.class);
 
   public static final String MODIFIED_TIME_TERM = "modifiedTime";
 
@@ -51,9 +66,43 @@ public class GoogleDriveSourceClient extends GoogleDriveFilteringClient<GoogleDr
   public static final String DEFAULT_APPS_SCRIPTS_EXPORT_MIME = "application/vnd.google-apps.script+json";
 
   private static final String RANGE_PATTERN = "bytes=%d-%d";
+  private static final String OPEN_RANGE_PATTERN = "bytes=%d-";
+  private static final String QUOTA_BYTES_USED_FIELD = "quotaBytesUsed";
+  private static final String DRIVE_ID_FIELD = "driveId";
+
+  private final String fileFieldsMask;
+  private final String fileSummaryFieldsMask;
+  private final String changedFileFieldsMask;
+  @Nullable
+  private final ExportCache exportCache;
+  @Nullable
+  private String directoryDriveId;
+  private boolean directoryDriveIdLoaded;
 
   public GoogleDriveSourceClient(GoogleDriveSourceConfig config) throws IOException {
     super(config);
+    String exportCacheDirectory = config.getExportCacheDirectory();
+    this.exportCache = exportCacheDirectory == null ? null :
+      new ExportCache(exportCacheDirectory, config.getExportCacheMaxSize());
+    List<String> fileMetadataProperties = config.getFileMetadataProperties();
+    this.fileFieldsMask = SchemaBuilder.buildFieldsMask(fileMetadataProperties);
+    // size is required to partition files
+    List<String> summaryProperties = new ArrayList<>(fileMetadataProperties);
+    summaryProperties.add(SchemaBuilder.SIZE_FIELD_NAME);
+    // used quota is the size hint for exports of files in Google formats
+    summaryProperties.add(QUOTA_BYTES_USED_FIELD);
+    // checksum verifies downloaded content and is compared with the skip index
+    summaryProperties.add(SchemaBuilder.MD_5_CHECKSUM_FIELD_NAME);
+    if (config.getSkipIndexPath() != null || exportCache != null) {
+      // modification time is compared with the skip index and keys the export cache for files in Google formats
+      summaryProperties.add(SchemaBuilder.MODIFIED_TIME_FIELD_NAME);
+    }
+    this.fileSummaryFieldsMask = SchemaBuilder.buildFieldsMask(summaryProperties);
+    // parents, trashed flag and modification time are required to filter changes
+    summaryProperties.add(SchemaBuilder.PARENTS_FIELD_NAME);
+    summaryProperties.add(SchemaBuilder.TRASHED_FIELD_NAME);
+    summaryProperties.add(SchemaBuilder.MODIFIED_TIME_FIELD_NAME);
+    this.changedFileFieldsMask = SchemaBuilder.buildFieldsMask(summaryProperties);
   }
 
   @Override
@@ -77,66 +126,364 @@ public class GoogleDriveSourceClient extends GoogleDriveFilteringClient<GoogleDr
    */
   public FileFromFolder getFilePartition(String fileId, Long bytesFrom, Long bytesTo)
       throws ExecutionException, RetryException {
-    Retryer<FileFromFolder> fileFromFolderRetryer = APIRequestRetryer.getRetryer(
-      String.format("File retrieving, id: '%s'.", fileId));
-    return fileFromFolderRetryer.call(() -> {
-      FileFromFolder fileFromFolder;
+    return getFilePartition(getFileMetadata(fileId), bytesFrom, bytesTo);
+  }
+
+  /**
+   * Returns the file metadata limited to the fields required by the schema.
+   * @param fileId the file id is provided with
+   * @return The file metadata
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public File getFileMetadata(String fileId) throws ExecutionException, RetryException {
+    Retryer<File> fileRetryer = getRetryer(
+      String.format("File metadata retrieving, id: '%s'.", fileId));
+    return fileRetryer.call(() -> {
+      Drive.Files.Get request = service.files().get(fileId).setFields(fileFieldsMask);
+      return execute(ApiOperation.FILES_GET, request.setSupportsAllDrives(true));
+    });
+  }
+
+  /**
+   * Returns the FileFromFolder for the file which metadata is already known, e.g. was received with the files
+   * listing, so only the content is requested.
+   * @param currentFile the file metadata, contains at least id and mime type
+   * @param bytesFrom the bytes from is provided with
+   * @param bytesTo the bytes to is provided
+   * @return The FileFromFolder
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public FileFromFolder getFilePartition(File currentFile, Long bytesFrom, Long bytesTo)
+      throws ExecutionException, RetryException {
+    String mimeType = currentFile.getMimeType();
+    String exportFormat = getExportFormat(mimeType);
+    if (exportFormat != null) {
+      return exportGoogleFormatFile(service, currentFile, exportFormat);
+    }
 
-      Drive.Files.Get request = service.files().get(fileId).setFields("*");
-      File currentFile = request.setSupportsAllDrives(true).execute();
+    long offset = bytesFrom == null ? 0L : bytesFrom;
+    if (mimeType.startsWith(DRIVE_DOCS_MIME_PREFIX)) {
+      return new FileFromFolder(new byte[]{}, offset, currentFile);
+    }
 
-      String mimeType = currentFile.getMimeType();
-      long offset = bytesFrom == null ? 0L : bytesFrom;
-      if (!mimeType.startsWith(DRIVE_DOCS_MIME_PREFIX)) {
-        OutputStream outputStream = new ByteArrayOutputStream();
-        Drive.Files.Get get = service.files().get(currentFile.getId()).setSupportsAllDrives(true);
+    boolean isPartition = bytesFrom != null && bytesTo != null;
+    byte[] content = downloadResumably(currentFile, isPartition ? bytesFrom : 0L, isPartition ? bytesTo : null);
+    return new FileFromFolder(content, offset, currentFile);
+  }
 
-        if (bytesFrom != null && bytesTo != null) {
-          get.getMediaHttpDownloader().setDirectDownloadEnabled(true);
-          get.getRequestHeaders().setRange(String.format(RANGE_PATTERN, bytesFrom, bytesTo));
+  /**
+   * Downloads the content keeping the bytes received before a dropped connection, the next attempt requests
+   * only the rest of the content with Range header. The download is resumed while each attempt receives some bytes.
+   * The content of the whole file is checked against its MD5 checksum, a mismatching content is downloaded
+   * once again.
+   */
+  private byte[] downloadResumably(File currentFile, long bytesFrom, @Nullable Long bytesTo)
+      throws ExecutionException, RetryException {
+    Retryer<Integer> fileRetryer = getRetryer(String.format("File retrieving, id: '%s'.", currentFile.getId()));
+    String expectedMd5Checksum = bytesFrom == 0L && bytesTo == null ? currentFile.getMd5Checksum() : null;
+    Long expectedLength = bytesTo != null ? Long.valueOf(bytesTo - bytesFrom + 1) : currentFile.getSize();
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    boolean isRedownloaded = false;
+    while (true) {
+      int receivedBefore = content.size();
+      try {
+        fileRetryer.call(() -> {
+          Drive.Files.Get get = service.files().get(currentFile.getId()).setSupportsAllDrives(true);
+          long position = bytesFrom + content.size();
+          if (position > 0 || bytesTo != null) {
+            get.getMediaHttpDownloader().setDirectDownloadEnabled(true);
+            get.getRequestHeaders().setRange(bytesTo == null ? String.format(OPEN_RANGE_PATTERN, position) :
+                                               String.format(RANGE_PATTERN, position, bytesTo));
+          }
+          download(ApiOperation.FILES_DOWNLOAD, get::executeMediaAndDownloadTo, content);
+          return content.size();
+        });
+      } catch (ExecutionException e) {
+        if (content.size() > receivedBefore && e.getCause() instanceof IOException) {
+          LOG.warn("Download of file '{}' was interrupted at byte {}, resuming from it: {}", currentFile.getId(),
+                   bytesFrom + content.size(), e.getCause().getMessage());
+          continue;
         }
+        throw e;
+      }
+      if (expectedLength != null && content.size() < expectedLength) {
+        // the connection was closed before the whole content was sent
+        if (content.size() == receivedBefore) {
+          throw new ExecutionException(new IOException(String.format(
+            "Download of file '%s' ended at byte %d of %d.", currentFile.getId(), content.size(), expectedLength)));
+        }
+        LOG.warn("Download of file '{}' ended prematurely at byte {}, resuming from it.", currentFile.getId(),
+                 bytesFrom + content.size());
+        continue;
+      }
+      byte[] result = content.toByteArray();
+      if (expectedMd5Checksum == null || expectedMd5Checksum.equalsIgnoreCase(getMd5Checksum(result))) {
+        return result;
+      }
+      String message = String.format("MD5 checksum of downloaded file '%s' doesn't match expected '%s'.",
+                                     currentFile.getId(), expectedMd5Checksum);
+      if (isRedownloaded) {
+        throw new ExecutionException(new IOException(message));
+      }
+      LOG.warn("{} Downloading it again.", message);
+      isRedownloaded = true;
+      content.reset();
+    }
+  }
+
+  private static String getMd5Checksum(byte[] content) {
+    return ResumableContentStream.toHex(ResumableContentStream.newMd5Digest().digest(content));
+  }
 
-        get.executeMediaAndDownloadTo(outputStream);
-        fileFromFolder =
-            new FileFromFolder(((ByteArrayOutputStream) outputStream).toByteArray(), offset, currentFile);
-      } else if (mimeType.equals(DRIVE_DOCUMENTS_MIME)) {
-        fileFromFolder = exportGoogleFormatFile(service, currentFile, config.getDocsExportingFormat());
-      } else if (mimeType.equals(DRIVE_SPREADSHEETS_MIME)) {
-        fileFromFolder = exportGoogleFormatFile(service, currentFile, config.getSheetsExportingFormat());
-      } else if (mimeType.equals(DRIVE_DRAWINGS_MIME)) {
-        fileFromFolder = exportGoogleFormatFile(service, currentFile, config.getDrawingsExportingFormat());
-      } else if (mimeType.equals(DRIVE_PRESENTATIONS_MIME)) {
-        fileFromFolder = exportGoogleFormatFile(service, currentFile, config.getPresentationsExportingFormat());
-      } else if (mimeType.equals(DRIVE_APPS_SCRIPTS_MIME)) {
-        fileFromFolder = exportGoogleFormatFile(service, currentFile, DEFAULT_APPS_SCRIPTS_EXPORT_MIME);
-      } else {
-        fileFromFolder =
-            new FileFromFolder(new byte[]{}, offset, currentFile);
+  /**
+   * Opens the content of the file or of its byte range as a stream, so it can be read in chunks without holding
+   * the whole body in memory. Files in Google formats are exported, the MIME type of the file is replaced with
+   * the export format.
+   * @param currentFile the file metadata, contains at least id and mime type
+   * @param bytesFrom the bytes from, null to read the whole file
+   * @param bytesTo the bytes to, null to read the whole file or till the end of file if bytes from is set
+   * @return The content stream, must be closed by the caller
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public InputStream openFileContent(File currentFile, Long bytesFrom, Long bytesTo)
+      throws ExecutionException, RetryException {
+    String mimeType = currentFile.getMimeType();
+    String exportFormat = getExportFormat(mimeType);
+    if (exportFormat == null && mimeType.startsWith(DRIVE_DOCS_MIME_PREFIX)) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    if (exportFormat == null) {
+      // binary content is reopened from the last received byte if the connection drops
+      Long rangeTo = bytesFrom == null ? null : bytesTo;
+      Long endPosition = rangeTo != null ? Long.valueOf(rangeTo + 1) : currentFile.getSize();
+      return new ResumableContentStream(currentFile.getId(), openBinaryContent(currentFile, bytesFrom, rangeTo),
+                                        bytesFrom == null ? 0L : bytesFrom, endPosition,
+                                        position -> reopenBinaryContent(currentFile, position, rangeTo),
+                                        bytesFrom == null ? currentFile.getMd5Checksum() : null);
+    }
+
+    if (exportCache != null) {
+      // exports are limited in size by Google Drive API, so the cached export is kept in memory
+      FileFromFolder exported = exportGoogleFormatFile(service, currentFile, exportFormat);
+      return new ByteArrayInputStream(exported.getContent());
+    }
+
+    Retryer<InputStream> streamRetryer = getRetryer(
+      String.format("File content opening, id: '%s'.", currentFile.getId()));
+    InputStream content = streamRetryer.call(() -> {
+      Drive.Files.Export export = service.files().export(currentFile.getId(), exportFormat);
+      return openMedia(ApiOperation.FILES_EXPORT, export::executeMediaAsInputStream);
+    });
+    currentFile.setMimeType(exportFormat);
+    return content;
+  }
+
+  private InputStream openBinaryContent(File currentFile, @Nullable Long bytesFrom, @Nullable Long bytesTo)
+      throws ExecutionException, RetryException {
+    Retryer<InputStream> streamRetryer = getRetryer(
+      String.format("File content opening, id: '%s'.", currentFile.getId()));
+    return streamRetryer.call(() -> {
+      Drive.Files.Get get = service.files().get(currentFile.getId()).setSupportsAllDrives(true);
+      if (bytesFrom != null && bytesTo != null) {
+        get.getRequestHeaders().setRange(String.format(RANGE_PATTERN, bytesFrom, bytesTo));
+      } else if (bytesFrom != null) {
+        get.getRequestHeaders().setRange(String.format(OPEN_RANGE_PATTERN, bytesFrom));
       }
-      return fileFromFolder;
+      return openMedia(ApiOperation.FILES_DOWNLOAD, get::executeMediaAsInputStream);
     });
   }
 
+  private InputStream reopenBinaryContent(File currentFile, long position, @Nullable Long bytesTo)
+      throws IOException {
+    Long size = currentFile.getSize();
+    if ((bytesTo != null && position > bytesTo) || (size != null && position >= size)) {
+      // the connection dropped after the last byte
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    try {
+      return openBinaryContent(currentFile, position, bytesTo);
+    } catch (ExecutionException | RetryException e) {
+      throw new IOException(String.format("Failed to resume download of file '%s'.", currentFile.getId()), e);
+    }
+  }
+
+  @Nullable
+  private String getExportFormat(String mimeType) {
+    switch (mimeType) {
+      case DRIVE_DOCUMENTS_MIME:
+        return config.getDocsExportingFormat();
+      case DRIVE_SPREADSHEETS_MIME:
+        return config.getSheetsExportingFormat();
+      case DRIVE_DRAWINGS_MIME:
+        return config.getDrawingsExportingFormat();
+      case DRIVE_PRESENTATIONS_MIME:
+        return config.getPresentationsExportingFormat();
+      case DRIVE_APPS_SCRIPTS_MIME:
+        return DEFAULT_APPS_SCRIPTS_EXPORT_MIME;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  protected String getFileSummaryFields() {
+    return fileSummaryFieldsMask;
+  }
+
   /**
    * Returns the list of file.
    * @return The list of file
    * @throws ExecutionException if there was an error getting the column information for the execution
    * @throws RetryException if there was an error getting the column information for the retry
    */
-  // We should separate binary and Google Drive formats between two requests
   public List<File> getFilesSummary() throws ExecutionException, RetryException {
+    return getFilesSummary(0);
+  }
+
+  /**
+   * Returns the list of file, listing stops as soon as the number of files is reached.
+   * @param filesNumber the number of files is provided, 0 means all files
+   * @return The list of file
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  // We should separate binary and Google Drive formats between two requests
+  public List<File> getFilesSummary(int filesNumber) throws ExecutionException, RetryException {
     List<ExportedType> exportedTypes = new ArrayList<>(config.getFileTypesToPull());
+    if (IdentifierType.FILE_IDENTIFIER.equals(config.getIdentifierType())) {
+      return getFilesSummary(exportedTypes, filesNumber);
+    }
 
     // Google API doesn't support query requests with both binary and Google formats simultaneously.
     List<List<ExportedType>> exportedTypeGroups = separateFileTypesBetweenGroups(exportedTypes);
+    exportedTypeGroups.removeIf(List::isEmpty);
+    return getFilesSummaryOfGroups(exportedTypeGroups, filesNumber);
+  }
+
+  /**
+   * Lists the same files as {@link #getFilesSummary()}, but passes each page of files to the consumer as soon as it
+   * is received, so the whole listing is never held in memory. The consumer is never called concurrently.
+   * @param pageConsumer the consumer of file pages is provided
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public void listFilesSummary(Consumer<List<File>> pageConsumer) throws ExecutionException, RetryException {
+    List<ExportedType> exportedTypes = new ArrayList<>(config.getFileTypesToPull());
+    if (IdentifierType.FILE_IDENTIFIER.equals(config.getIdentifierType())) {
+      pageConsumer.accept(getFilesSummary(exportedTypes));
+      return;
+    }
+
+    List<List<ExportedType>> exportedTypeGroups = separateFileTypesBetweenGroups(exportedTypes);
+    exportedTypeGroups.removeIf(List::isEmpty);
+    visitFilesSummaryOfGroups(exportedTypeGroups, pageConsumer);
+  }
 
-    List<File> files = new ArrayList<>();
-    for (List<ExportedType> group : exportedTypeGroups) {
-      if (!group.isEmpty()) {
-        files.addAll(getFilesSummary(group));
+  /**
+   * Returns the page token of the current position in the changes log.
+   * @return The page token
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public String getChangesStartPageToken() throws ExecutionException, RetryException {
+    String driveId = getDirectoryDriveId();
+    Retryer<String> tokenRetryer = getRetryer("Changes start page token retrieving.");
+    return tokenRetryer.call(() -> execute(ApiOperation.CHANGES_GET_START_PAGE_TOKEN,
+                                           service.changes().getStartPageToken().setSupportsAllDrives(true)
+                                             .setDriveId(driveId))
+      .getStartPageToken());
+  }
+
+  // changes of a shared drive are logged separately from changes of the user's drive
+  @Nullable
+  private String getDirectoryDriveId() throws ExecutionException, RetryException {
+    if (!directoryDriveIdLoaded) {
+      Retryer<File> directoryRetryer = getRetryer(
+        String.format("Get directory drive, directory: '%s'.", config.getDirectoryIdentifier()));
+      directoryDriveId = directoryRetryer.call(() -> execute(
+        ApiOperation.FILES_GET,
+        service.files().get(config.getDirectoryIdentifier()).setFields(DRIVE_ID_FIELD).setSupportsAllDrives(true)))
+        .getDriveId();
+      directoryDriveIdLoaded = true;
+    }
+    return directoryDriveId;
+  }
+
+  /**
+   * Returns the files of the directory changed since the page token, in the order of their last change.
+   * Files which were removed, trashed or moved out of the directory are skipped, as well as files modified out of
+   * the modification date range.
+   * @param pageToken the page token of the changes log is provided with
+   * @return The list of file
+   * @throws ExecutionException if there was an error getting the column information for the execution
+   * @throws RetryException if there was an error getting the column information for the retry
+   */
+  public List<File> getChangedFiles(String pageToken) throws ExecutionException, RetryException {
+    List<ExportedType> exportedTypes = config.getFileTypesToPull();
+    DateRange modifiedDateRange = ModifiedDateRangeUtils.getDataRange(config.getModificationDateRangeType(),
+                                                                      config.getStartDate(), config.getEndDate());
+    String driveId = getDirectoryDriveId();
+    Map<String, File> changedFiles = new LinkedHashMap<>();
+    Retryer<ChangeList> pageRetryer = getRetryer(
+      String.format("Get changes page, directory: '%s'.", config.getDirectoryIdentifier()));
+    String nextToken = pageToken;
+    while (nextToken != null) {
+      String currentToken = nextToken;
+      ChangeList result = pageRetryer.call(() -> execute(
+        ApiOperation.CHANGES_LIST,
+        service.changes().list(currentToken)
+          .setSupportsAllDrives(true)
+          .setIncludeItemsFromAllDrives(true)
+          .setDriveId(driveId)
+          .setPageSize(MAX_PAGE_SIZE)
+          .setFields(String.format("nextPageToken, newStartPageToken, changes(fileId, removed, file(%s))",
+                                   changedFileFieldsMask))));
+      for (Change change : result.getChanges()) {
+        // the last change of the file defines whether it is read
+        changedFiles.remove(change.getFileId());
+        File file = change.getFile();
+        if (!Boolean.TRUE.equals(change.getRemoved()) && file != null && isPulledChange(file, exportedTypes)
+          && isModifiedInRange(file, modifiedDateRange)) {
+          changedFiles.put(change.getFileId(), file);
+        }
       }
+      nextToken = result.getNextPageToken();
     }
-    return files;
+    return new ArrayList<>(changedFiles.values());
+  }
+
+  private boolean isPulledChange(File file, List<ExportedType> exportedTypes) {
+    if (Boolean.TRUE.equals(file.getTrashed()) || file.getParents() == null
+      || !file.getParents().contains(config.getDirectoryIdentifier())) {
+      return false;
+    }
+    String mimeType = file.getMimeType();
+    for (ExportedType exportedType : exportedTypes) {
+      if (exportedType.equals(ExportedType.BINARY) ? !mimeType.startsWith(DRIVE_DOCS_MIME_PREFIX) :
+        mimeType.equals(exportedType.getRelatedMIME())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the same bounds as the modification time terms of the listing query
+  private static boolean isModifiedInRange(File file, @Nullable DateRange modifiedDateRange) {
+    if (modifiedDateRange == null) {
+      return true;
+    }
+    if (file.getModifiedTime() == null) {
+      return false;
+    }
+    long modifiedTime = file.getModifiedTime().getValue();
+    return (modifiedDateRange.getStartDate() == null
+      || DateTime.parseRfc3339(modifiedDateRange.getStartDate()).getValue() <= modifiedTime)
+      && (modifiedDateRange.getEndDate() == null
+      || modifiedTime <= DateTime.parseRfc3339(modifiedDateRange.getEndDate()).getValue());
   }
 
   private List<List<ExportedType>> separateFileTypesBetweenGroups(List<ExportedType> exportedTypes) {
@@ -155,12 +502,22 @@ public class GoogleDriveSourceClient extends GoogleDriveFilteringClient<GoogleDr
   // Google Drive API does not support partitioning for exporting Google Docs
   private FileFromFolder exportGoogleFormatFile(Drive service, File currentFile, String exportFormat)
       throws ExecutionException, RetryException {
-    Retryer<FileFromFolder> fileFromFolderRetryer = APIRequestRetryer.getRetryer(
+    byte[] cachedContent = exportCache == null ? null : exportCache.read(currentFile, exportFormat);
+    if (cachedContent != null) {
+      currentFile.setMimeType(exportFormat);
+      currentFile.setSize((long) cachedContent.length);
+      return new FileFromFolder(cachedContent, 0L, currentFile);
+    }
+    Retryer<FileFromFolder> fileFromFolderRetryer = getRetryer(
       String.format("File exporting, id: '%s', export format: '%s'.", currentFile.getId(), exportFormat));
     return fileFromFolderRetryer.call(() -> {
       OutputStream outputStream = new ByteArrayOutputStream();
-      service.files().export(currentFile.getId(), exportFormat).executeMediaAndDownloadTo(outputStream);
+      Drive.Files.Export export = service.files().export(currentFile.getId(), exportFormat);
+      download(ApiOperation.FILES_EXPORT, export::executeMediaAndDownloadTo, outputStream);
       byte[] content = ((ByteArrayOutputStream) outputStream).toByteArray();
+      if (exportCache != null) {
+        exportCache.write(currentFile, exportFormat, content);
+      }
       currentFile.setMimeType(exportFormat);
       currentFile.setSize((long) content.length);
       return new FileFromFolder(content, 0L, currentFile);
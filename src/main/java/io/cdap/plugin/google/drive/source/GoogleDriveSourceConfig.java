@@ -24,10 +24,14 @@ import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.google.common.GoogleFilteringSourceConfig;
+import io.cdap.plugin.google.common.IdentifierType;
 import io.cdap.plugin.google.common.ValidationResult;
 import io.cdap.plugin.google.common.exceptions.InvalidPropertyTypeException;
 import io.cdap.plugin.google.common.utils.ExportedType;
 import io.cdap.plugin.google.drive.source.utils.BodyFormat;
+import io.cdap.plugin.google.drive.source.utils.ContentFormat;
+import io.cdap.plugin.google.drive.source.utils.Decompression;
+import io.cdap.plugin.google.drive.source.utils.ReadMode;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -49,10 +53,38 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
   public static final String SHEETS_EXPORTING_FORMAT = "sheetsExportingFormat";
   public static final String DRAWINGS_EXPORTING_FORMAT = "drawingsExportingFormat";
   public static final String PRESENTATIONS_EXPORTING_FORMAT = "presentationsExportingFormat";
+  public static final String READ_MODE = "readMode";
+  public static final String CHUNK_SIZE = "chunkSize";
+  public static final String DECOMPRESSION = "decompression";
+  public static final String CONTENT_FORMAT = "contentFormat";
+  public static final String CONTENT_SCHEMA = "contentSchema";
+  public static final String CHANGES_CHECKPOINT_PATH = "changesCheckpointPath";
+  public static final String SKIP_INDEX_PATH = "skipIndexPath";
+  public static final String COMBINED_SPLIT_SIZE = "combinedSplitSize";
+  public static final String DOWNLOAD_THREADS_NUMBER = "downloadThreadsNumber";
+  public static final String COMBINED_SPLIT_FILES_NUMBER = "combinedSplitFilesNumber";
+  public static final String SPLIT_PLANNING_SPILL_THRESHOLD = "splitPlanningSpillThreshold";
+  public static final String EXPORT_CACHE_DIRECTORY = "exportCacheDirectory";
+  public static final String EXPORT_CACHE_MAX_SIZE = "exportCacheMaxSize";
 
   public static final String FILE_METADATA_PROPERTIES_LABEL = "File properties";
   public static final String FILE_TYPES_TO_PULL_LABEL = "File types to pull";
   public static final String BODY_FORMAT_LABEL = "Body output format";
+  public static final String READ_MODE_LABEL = "Read mode";
+  public static final String DECOMPRESSION_LABEL = "Decompression";
+  public static final String CONTENT_FORMAT_LABEL = "Content format";
+  public static final String CONTENT_SCHEMA_LABEL = "Content schema";
+  public static final String CHANGES_CHECKPOINT_PATH_LABEL = "Changes checkpoint path";
+  public static final String COMBINED_SPLIT_SIZE_LABEL = "Combined split size";
+  public static final String DOWNLOAD_THREADS_NUMBER_LABEL = "Download threads number";
+  public static final String COMBINED_SPLIT_FILES_NUMBER_LABEL = "Combined split files number";
+  public static final String SPLIT_PLANNING_SPILL_THRESHOLD_LABEL = "Split planning spill threshold";
+  public static final String EXPORT_CACHE_MAX_SIZE_LABEL = "Export cache max size";
+
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+  public static final int DEFAULT_COMBINED_SPLIT_FILES_NUMBER = 1000;
+  public static final int DEFAULT_SPLIT_PLANNING_SPILL_THRESHOLD = 100_000;
+  public static final long DEFAULT_EXPORT_CACHE_MAX_SIZE = 1024L * 1024 * 1024;
 
   @Nullable
   @Name(FILE_METADATA_PROPERTIES)
@@ -76,10 +108,110 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
   protected String maxPartitionSize;
 
   @Name(BODY_FORMAT)
-  @Description("Output format for body of file. \"Bytes\" and \"String\" values are available.")
+  @Description("Output format for body of file. \"Bytes\" and \"String\" values are available. \n" +
+    "\"None\" value removes body and offset fields from the schema, only file metadata is read.")
   @Macro
   protected String bodyFormat;
 
+  @Nullable
+  @Name(READ_MODE)
+  @Description("How file content is turned into records. \"File\" emits a record for each file or file partition " +
+    "and keeps the whole body in memory. \"Chunks\" streams the content and emits a record for each chunk, " +
+    "so memory usage doesn't depend on file size. \"Lines\" streams the content and emits a record for each " +
+    "text line, partitions of big files are aligned to line boundaries. Default value is \"File\".")
+  @Macro
+  protected String readMode;
+
+  @Nullable
+  @Name(CHUNK_SIZE)
+  @Description("Size of the body of each record in bytes for \"Chunks\" read mode and size of each range " +
+    "requested by parallel downloads. Default value is 8 MiB.")
+  @Macro
+  protected Integer chunkSize;
+
+  @Nullable
+  @Name(DECOMPRESSION)
+  @Description("How content of binary files is decompressed while it is downloaded, applies to \"Chunks\" and " +
+    "\"Lines\" read modes. \"Gzip\", \"Deflate\" and \"Zip\" values decompress all binary files, \"Auto\" " +
+    "detects gzip and zip content by its leading bytes. Each entry of a zip archive is read separately, its name is " +
+    "set to the \"entryName\" field. Compressed files are not partitioned. Default value is \"None\".")
+  @Macro
+  protected String decompression;
+
+  @Nullable
+  @Name(CONTENT_FORMAT)
+  @Description("Format of file content which is parsed into record fields while it is downloaded. \"CSV\" reads " +
+    "comma separated values with a header row, \"JSON Lines\" reads a JSON object from each line. " +
+    "Default value \"None\" emits the content as body.")
+  @Macro
+  protected String contentFormat;
+
+  @Nullable
+  @Name(CONTENT_SCHEMA)
+  @Description("Schema of the fields parsed from file content. When not set, the schema is inferred from the " +
+    "first records of the first file, all inferred fields are nullable.")
+  @Macro
+  protected String contentSchema;
+
+  @Nullable
+  @Name(DOWNLOAD_THREADS_NUMBER)
+  @Description("Number of concurrent range requests used to download a binary file larger than the chunk size, " +
+    "applies to \"File\" and \"Chunks\" read modes. Ranges are reassembled in order. " +
+    "Default value 1 means that each file or file partition is downloaded with a single request.")
+  @Macro
+  protected Integer downloadThreadsNumber;
+
+  @Nullable
+  @Name(CHANGES_CHECKPOINT_PATH)
+  @Description("Path of the file which keeps the position in the Google Drive changes log, e.g. " +
+    "hdfs:///checkpoints/drive-source or file:///tmp/drive-source. When set, the first run reads all files and " +
+    "each next run reads only files of the directory changed since the previous successful run.")
+  @Macro
+  protected String changesCheckpointPath;
+
+  @Nullable
+  @Name(SKIP_INDEX_PATH)
+  @Description("Path of the file which keeps checksum, size and modification time of files read by previous " +
+    "runs, e.g. hdfs:///indexes/drive-source. When set, files which were not changed since the previous " +
+    "successful run are skipped.")
+  @Macro
+  protected String skipIndexPath;
+
+  @Nullable
+  @Name(COMBINED_SPLIT_SIZE)
+  @Description("Target size in bytes of splits which combine small files, applies to \"File\" read mode. " +
+    "Files smaller than this size are packed together, so each task reads many files in parallel. " +
+    "Default 0 value means that each file is read by a separate split.")
+  @Macro
+  protected Long combinedSplitSize;
+
+  @Nullable
+  @Name(COMBINED_SPLIT_FILES_NUMBER)
+  @Description("Maximum number of files in a split which combines small files. Default value is 1000.")
+  @Macro
+  protected Integer combinedSplitFilesNumber;
+
+  @Nullable
+  @Name(SPLIT_PLANNING_SPILL_THRESHOLD)
+  @Description("Number of listed files which metadata is kept in memory while splits are planned, metadata of " +
+    "further files is spilled to a local temporary file. Default value is 100000.")
+  @Macro
+  protected Integer splitPlanningSpillThreshold;
+
+  @Nullable
+  @Name(EXPORT_CACHE_DIRECTORY)
+  @Description("Local directory which keeps exported content of files in Google formats, shared by all tasks " +
+    "running on the same host. When set, a file which was not modified since it was cached is not exported again.")
+  @Macro
+  protected String exportCacheDirectory;
+
+  @Nullable
+  @Name(EXPORT_CACHE_MAX_SIZE)
+  @Description("Maximum size in bytes of the export cache directory, least recently used exports are removed " +
+    "when the cache is full. Default value is 1 GiB.")
+  @Macro
+  protected Long exportCacheMaxSize;
+
   @Name(DOCS_EXPORTING_FORMAT)
   @Description("MIME type which is used for Google Documents when converted to structured records.")
   @Macro
@@ -126,11 +258,33 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
    */
   public Schema getSchema() {
     if (schema == null) {
-      schema = SchemaBuilder.buildSchema(getFileMetadataProperties(), getBodyFormat());
+      schema = getContentFormat() == ContentFormat.NONE ?
+        SchemaBuilder.buildSchema(getFileMetadataProperties(), getBodyFormat(),
+                                  getDecompression() != Decompression.NONE) :
+        getParsedSchema(getContentSchema());
     }
     return schema;
   }
 
+  /**
+   * Returns the schema of records parsed from file content, fields of the content follow file metadata fields.
+   * @param contentSchema the schema of parsed content, null if it is not known yet
+   * @return The instance of Schema
+   */
+  public Schema getParsedSchema(@Nullable Schema contentSchema) {
+    return SchemaBuilder.buildParsedSchema(getFileMetadataProperties(), contentSchema,
+                                           getDecompression() != Decompression.NONE);
+  }
+
+  /**
+   * Returns true if the schema has no body field, so the file content is never downloaded and records
+   * are built from the files listing.
+   * @return true for metadata only mode
+   */
+  public boolean isMetadataOnly() {
+    return getContentFormat() == ContentFormat.NONE && getSchema().getField(SchemaBuilder.BODY_FIELD_NAME) == null;
+  }
+
   /**
    * Returns the ValidationResult.
    * @param collector the failure collector is provided
@@ -144,6 +298,16 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     validateBodyFormat(collector);
 
     validateFileProperties(collector);
+
+    validateReadMode(collector);
+
+    validateChangesCheckpointPath(collector);
+
+    validateCombinedSplits(collector);
+
+    validateExportCache(collector);
+
+    validateContentFormat(collector);
     return validationResult;
   }
 
@@ -172,6 +336,143 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     }
   }
 
+  private void validateReadMode(FailureCollector collector) {
+    if (!containsMacro(READ_MODE)) {
+      try {
+        getReadMode();
+      } catch (InvalidPropertyTypeException e) {
+        collector.addFailure(e.getMessage(), null).withConfigProperty(READ_MODE);
+      }
+    }
+    if (!containsMacro(CHUNK_SIZE) && chunkSize != null && chunkSize <= 0) {
+      collector.addFailure(String.format("Chunk size '%d' must be greater than 0.", chunkSize), null)
+        .withConfigProperty(CHUNK_SIZE);
+    }
+    if (!containsMacro(DOWNLOAD_THREADS_NUMBER) && downloadThreadsNumber != null && downloadThreadsNumber <= 0) {
+      collector.addFailure(String.format("%s '%d' must be greater than 0.", DOWNLOAD_THREADS_NUMBER_LABEL,
+                                         downloadThreadsNumber), null)
+        .withConfigProperty(DOWNLOAD_THREADS_NUMBER);
+    }
+    if (!containsMacro(DECOMPRESSION)) {
+      validateDecompression(collector);
+    }
+  }
+
+  private void validateDecompression(FailureCollector collector) {
+    try {
+      if (getDecompression() == Decompression.NONE) {
+        return;
+      }
+    } catch (InvalidPropertyTypeException e) {
+      collector.addFailure(e.getMessage(), null).withConfigProperty(DECOMPRESSION);
+      return;
+    }
+    if (containsMacro(READ_MODE) || containsMacro(CONTENT_FORMAT)
+      || !Strings.isNullOrEmpty(contentFormat) && !ContentFormat.NONE.getValue().equalsIgnoreCase(contentFormat)) {
+      // parsed content is streamed regardless of the read mode
+      return;
+    }
+    ReadMode mode;
+    try {
+      mode = getReadMode();
+    } catch (InvalidPropertyTypeException e) {
+      // reported by the read mode validation
+      return;
+    }
+    if (mode == ReadMode.FILE) {
+      collector.addFailure(String.format("'%s' is not supported for \"File\" read mode.", DECOMPRESSION_LABEL),
+                           "Select \"Chunks\" or \"Lines\" read mode.")
+        .withConfigProperty(DECOMPRESSION).withConfigProperty(READ_MODE);
+    }
+  }
+
+  private void validateChangesCheckpointPath(FailureCollector collector) {
+    if (containsMacro(CHANGES_CHECKPOINT_PATH) || Strings.isNullOrEmpty(changesCheckpointPath)) {
+      return;
+    }
+    if (!IdentifierType.DIRECTORY_IDENTIFIER.equals(getIdentifierType())) {
+      collector.addFailure(String.format("'%s' is supported only for directories.", CHANGES_CHECKPOINT_PATH_LABEL),
+                           null).withConfigProperty(CHANGES_CHECKPOINT_PATH);
+    } else if (!containsMacro(RECURSIVE) && isRecursive()) {
+      collector.addFailure(String.format("'%s' is not supported for recursive listing.",
+                                         CHANGES_CHECKPOINT_PATH_LABEL), "Disable recursive listing.")
+        .withConfigProperty(CHANGES_CHECKPOINT_PATH).withConfigProperty(RECURSIVE);
+    }
+    // Drive queries are evaluated only by files listing, changed files can't be matched with them
+    if (!containsMacro(FILTER) && !Strings.isNullOrEmpty(getFilter())) {
+      collector.addFailure(String.format("'%s' can't be used with a filter.", CHANGES_CHECKPOINT_PATH_LABEL),
+                           "Remove the filter or the changes checkpoint path.")
+        .withConfigProperty(CHANGES_CHECKPOINT_PATH).withConfigProperty(FILTER);
+    }
+  }
+
+  private void validateCombinedSplits(FailureCollector collector) {
+    if (!containsMacro(COMBINED_SPLIT_SIZE) && combinedSplitSize != null && combinedSplitSize < 0) {
+      collector.addFailure(String.format("%s '%d' must be 0 or greater.", COMBINED_SPLIT_SIZE_LABEL,
+                                         combinedSplitSize), null)
+        .withConfigProperty(COMBINED_SPLIT_SIZE);
+    }
+    if (!containsMacro(COMBINED_SPLIT_FILES_NUMBER) && combinedSplitFilesNumber != null
+      && combinedSplitFilesNumber <= 0) {
+      collector.addFailure(String.format("%s '%d' must be greater than 0.", COMBINED_SPLIT_FILES_NUMBER_LABEL,
+                                         combinedSplitFilesNumber), null)
+        .withConfigProperty(COMBINED_SPLIT_FILES_NUMBER);
+    }
+    if (!containsMacro(SPLIT_PLANNING_SPILL_THRESHOLD) && splitPlanningSpillThreshold != null
+      && splitPlanningSpillThreshold < 0) {
+      collector.addFailure(String.format("%s '%d' must be 0 or greater.", SPLIT_PLANNING_SPILL_THRESHOLD_LABEL,
+                                         splitPlanningSpillThreshold), null)
+        .withConfigProperty(SPLIT_PLANNING_SPILL_THRESHOLD);
+    }
+  }
+
+  private void validateExportCache(FailureCollector collector) {
+    if (!containsMacro(EXPORT_CACHE_MAX_SIZE) && exportCacheMaxSize != null && exportCacheMaxSize <= 0) {
+      collector.addFailure(String.format("%s '%d' must be greater than 0.", EXPORT_CACHE_MAX_SIZE_LABEL,
+                                         exportCacheMaxSize), null)
+        .withConfigProperty(EXPORT_CACHE_MAX_SIZE);
+    }
+  }
+
+  private void validateContentFormat(FailureCollector collector) {
+    if (containsMacro(CONTENT_FORMAT)) {
+      return;
+    }
+    try {
+      if (getContentFormat() == ContentFormat.NONE) {
+        return;
+      }
+    } catch (InvalidPropertyTypeException e) {
+      collector.addFailure(e.getMessage(), null).withConfigProperty(CONTENT_FORMAT);
+      return;
+    }
+    if (containsMacro(CONTENT_SCHEMA) || Strings.isNullOrEmpty(contentSchema)) {
+      return;
+    }
+    Schema parsedContentSchema;
+    try {
+      parsedContentSchema = getContentSchema();
+    } catch (IllegalArgumentException e) {
+      collector.addFailure(e.getMessage(), null).withConfigProperty(CONTENT_SCHEMA);
+      return;
+    }
+    for (Schema.Field field : parsedContentSchema.getFields()) {
+      if (!ContentParser.isSupportedType(field.getSchema())) {
+        collector.addFailure(
+          String.format("Field '%s' of '%s' has unsupported type '%s'.", field.getName(), CONTENT_SCHEMA_LABEL,
+                        field.getSchema().getNonNullable().getType()),
+          "Supported types are boolean, int, long, float, double and string.")
+          .withConfigProperty(CONTENT_SCHEMA);
+      }
+      if (getFileMetadataProperties().contains(field.getName())
+        || field.getName().equals(SchemaBuilder.ENTRY_NAME_FIELD_NAME)) {
+        collector.addFailure(String.format("Field '%s' of '%s' clashes with the file property of the same name.",
+                                           field.getName(), CONTENT_SCHEMA_LABEL), "Rename the field.")
+          .withConfigProperty(CONTENT_SCHEMA).withConfigProperty(FILE_METADATA_PROPERTIES);
+      }
+    }
+  }
+
   private void validateFileProperties(FailureCollector collector) {
     if (!containsMacro(FILE_METADATA_PROPERTIES) && !Strings.isNullOrEmpty(fileMetadataProperties)) {
       try {
@@ -205,6 +506,77 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     return BodyFormat.fromValue(bodyFormat);
   }
 
+  public ReadMode getReadMode() {
+    return Strings.isNullOrEmpty(readMode) ? ReadMode.FILE : ReadMode.fromValue(readMode);
+  }
+
+  public Decompression getDecompression() {
+    return Strings.isNullOrEmpty(decompression) ? Decompression.NONE : Decompression.fromValue(decompression);
+  }
+
+  public ContentFormat getContentFormat() {
+    return Strings.isNullOrEmpty(contentFormat) ? ContentFormat.NONE : ContentFormat.fromValue(contentFormat);
+  }
+
+  /**
+   * Returns the schema of fields parsed from file content.
+   * @return The content schema or null if it should be inferred
+   */
+  @Nullable
+  public Schema getContentSchema() {
+    if (Strings.isNullOrEmpty(contentSchema)) {
+      return null;
+    }
+    try {
+      Schema parsedContentSchema = Schema.parseJson(contentSchema);
+      if (parsedContentSchema.getType() != Schema.Type.RECORD) {
+        throw new IllegalArgumentException(String.format("'%s' must be a record.", CONTENT_SCHEMA_LABEL));
+      }
+      return parsedContentSchema;
+    } catch (IOException e) {
+      throw new IllegalArgumentException(String.format("Invalid '%s': %s", CONTENT_SCHEMA_LABEL, e.getMessage()), e);
+    }
+  }
+
+  public int getChunkSize() {
+    return chunkSize == null ? DEFAULT_CHUNK_SIZE : chunkSize;
+  }
+
+  public int getDownloadThreadsNumber() {
+    return downloadThreadsNumber == null ? 1 : downloadThreadsNumber;
+  }
+
+  @Nullable
+  public String getChangesCheckpointPath() {
+    return Strings.isNullOrEmpty(changesCheckpointPath) ? null : changesCheckpointPath;
+  }
+
+  @Nullable
+  public String getSkipIndexPath() {
+    return Strings.isNullOrEmpty(skipIndexPath) ? null : skipIndexPath;
+  }
+
+  public long getCombinedSplitSize() {
+    return combinedSplitSize == null ? 0L : combinedSplitSize;
+  }
+
+  public int getCombinedSplitFilesNumber() {
+    return combinedSplitFilesNumber == null ? DEFAULT_COMBINED_SPLIT_FILES_NUMBER : combinedSplitFilesNumber;
+  }
+
+  public int getSplitPlanningSpillThreshold() {
+    return splitPlanningSpillThreshold == null ? DEFAULT_SPLIT_PLANNING_SPILL_THRESHOLD : splitPlanningSpillThreshold;
+  }
+
+  @Nullable
+  public String getExportCacheDirectory() {
+    return Strings.isNullOrEmpty(exportCacheDirectory) ? null : exportCacheDirectory;
+  }
+
+  public long getExportCacheMaxSize() {
+    return exportCacheMaxSize == null ? DEFAULT_EXPORT_CACHE_MAX_SIZE : exportCacheMaxSize;
+  }
+
   public Long getMaxPartitionSize() {
     return Long.parseLong(maxPartitionSize);
   }
@@ -249,6 +621,58 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     this.maxPartitionSize = maxPartitionSize;
   }
 
+  public void setReadMode(String readMode) {
+    this.readMode = readMode;
+  }
+
+  public void setChunkSize(Integer chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public void setDecompression(String decompression) {
+    this.decompression = decompression;
+  }
+
+  public void setContentFormat(String contentFormat) {
+    this.contentFormat = contentFormat;
+  }
+
+  public void setContentSchema(String contentSchema) {
+    this.contentSchema = contentSchema;
+  }
+
+  public void setDownloadThreadsNumber(Integer downloadThreadsNumber) {
+    this.downloadThreadsNumber = downloadThreadsNumber;
+  }
+
+  public void setChangesCheckpointPath(String changesCheckpointPath) {
+    this.changesCheckpointPath = changesCheckpointPath;
+  }
+
+  public void setSkipIndexPath(String skipIndexPath) {
+    this.skipIndexPath = skipIndexPath;
+  }
+
+  public void setCombinedSplitSize(Long combinedSplitSize) {
+    this.combinedSplitSize = combinedSplitSize;
+  }
+
+  public void setCombinedSplitFilesNumber(Integer combinedSplitFilesNumber) {
+    this.combinedSplitFilesNumber = combinedSplitFilesNumber;
+  }
+
+  public void setSplitPlanningSpillThreshold(Integer splitPlanningSpillThreshold) {
+    this.splitPlanningSpillThreshold = splitPlanningSpillThreshold;
+  }
+
+  public void setExportCacheDirectory(String exportCacheDirectory) {
+    this.exportCacheDirectory = exportCacheDirectory;
+  }
+
+  public void setExportCacheMaxSize(Long exportCacheMaxSize) {
+    this.exportCacheMaxSize = exportCacheMaxSize;
+  }
+
   public void setDocsExportingFormat(String docsExportingFormat) {
     this.docsExportingFormat = docsExportingFormat;
   }
@@ -269,6 +693,14 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     this.filter = filter;
   }
 
+  public void setRecursive(Boolean recursive) {
+    this.recursive = recursive;
+  }
+
+  public void setMaxDepth(Integer maxDepth) {
+    this.maxDepth = maxDepth;
+  }
+
   public void setSchema(String schema) throws IOException {
     this.schema = Schema.parseJson(schema);
   }
@@ -312,6 +744,54 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     if (properties.has(GoogleDriveSourceConfig.BODY_FORMAT)) {
       googleDriveSourceConfig.getBodyFormat(properties.get(GoogleDriveSourceConfig.BODY_FORMAT).getAsString());
     }
+    if (properties.has(GoogleDriveSourceConfig.READ_MODE)) {
+      googleDriveSourceConfig.setReadMode(properties.get(GoogleDriveSourceConfig.READ_MODE).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.CHUNK_SIZE)) {
+      googleDriveSourceConfig.setChunkSize(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.CHUNK_SIZE).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.DECOMPRESSION)) {
+      googleDriveSourceConfig.setDecompression(properties.get(GoogleDriveSourceConfig.DECOMPRESSION).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.CONTENT_FORMAT)) {
+      googleDriveSourceConfig.setContentFormat(properties.get(GoogleDriveSourceConfig.CONTENT_FORMAT).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.CONTENT_SCHEMA)) {
+      googleDriveSourceConfig.setContentSchema(properties.get(GoogleDriveSourceConfig.CONTENT_SCHEMA).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER)) {
+      googleDriveSourceConfig.setDownloadThreadsNumber(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.CHANGES_CHECKPOINT_PATH)) {
+      googleDriveSourceConfig.setChangesCheckpointPath(
+        properties.get(GoogleDriveSourceConfig.CHANGES_CHECKPOINT_PATH).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.SKIP_INDEX_PATH)) {
+      googleDriveSourceConfig.setSkipIndexPath(
+        properties.get(GoogleDriveSourceConfig.SKIP_INDEX_PATH).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.COMBINED_SPLIT_SIZE)) {
+      googleDriveSourceConfig.setCombinedSplitSize(
+        Long.valueOf(properties.get(GoogleDriveSourceConfig.COMBINED_SPLIT_SIZE).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.COMBINED_SPLIT_FILES_NUMBER)) {
+      googleDriveSourceConfig.setCombinedSplitFilesNumber(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.COMBINED_SPLIT_FILES_NUMBER).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.SPLIT_PLANNING_SPILL_THRESHOLD)) {
+      googleDriveSourceConfig.setSplitPlanningSpillThreshold(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.SPLIT_PLANNING_SPILL_THRESHOLD).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.EXPORT_CACHE_DIRECTORY)) {
+      googleDriveSourceConfig.setExportCacheDirectory(
+        properties.get(GoogleDriveSourceConfig.EXPORT_CACHE_DIRECTORY).getAsString());
+    }
+    if (properties.has(GoogleDriveSourceConfig.EXPORT_CACHE_MAX_SIZE)) {
+      googleDriveSourceConfig.setExportCacheMaxSize(
+        Long.valueOf(properties.get(GoogleDriveSourceConfig.EXPORT_CACHE_MAX_SIZE).getAsString()));
+    }
     if (properties.has(GoogleDriveSourceConfig.DRAWINGS_EXPORTING_FORMAT)) {
       googleDriveSourceConfig.setDrawingsExportingFormat(
         properties.get(GoogleDriveSourceConfig.DRAWINGS_EXPORTING_FORMAT).getAsString());
@@ -327,6 +807,14 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
     if (properties.has(GoogleDriveSourceConfig.FILTER)) {
       googleDriveSourceConfig.setFilter(properties.get(GoogleDriveSourceConfig.FILTER).getAsString());
     }
+    if (properties.has(GoogleDriveSourceConfig.RECURSIVE)) {
+      googleDriveSourceConfig.setRecursive(
+        Boolean.valueOf(properties.get(GoogleDriveSourceConfig.RECURSIVE).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.MAX_DEPTH)) {
+      googleDriveSourceConfig.setMaxDepth(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.MAX_DEPTH).getAsString()));
+    }
     if (properties.has(GoogleDriveSourceConfig.NAME_SERVICE_ACCOUNT_TYPE)) {
       googleDriveSourceConfig.setServiceAccountType(
         properties.get(GoogleDriveSourceConfig.NAME_SERVICE_ACCOUNT_TYPE).getAsString());
@@ -378,6 +866,22 @@ public class GoogleDriveSourceConfig extends GoogleFilteringSourceConfig {
       googleDriveSourceConfig.setIdentifierType(
         properties.get(GoogleDriveSourceConfig.IDENTIFIER_TYPE).getAsString());
     }
+    if (properties.has(GoogleDriveSourceConfig.USER_READ_REQUESTS_QUOTA)) {
+      googleDriveSourceConfig.setUserReadRequestsQuota(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.USER_READ_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.USER_WRITE_REQUESTS_QUOTA)) {
+      googleDriveSourceConfig.setUserWriteRequestsQuota(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.USER_WRITE_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.PROJECT_READ_REQUESTS_QUOTA)) {
+      googleDriveSourceConfig.setProjectReadRequestsQuota(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.PROJECT_READ_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleDriveSourceConfig.PROJECT_WRITE_REQUESTS_QUOTA)) {
+      googleDriveSourceConfig.setProjectWriteRequestsQuota(
+        Integer.valueOf(properties.get(GoogleDriveSourceConfig.PROJECT_WRITE_REQUESTS_QUOTA).getAsString()));
+    }
     return googleDriveSourceConfig;
   }
 }
@@ -16,21 +16,34 @@
 
 package io.cdap.plugin.google.drive.source;
 
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.File;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.InputSplit;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import javax.annotation.Nullable;
 
 /**
  * A split used for mapreduce.
+ * Carries the file metadata received with the files listing, so readers don't need to request it again.
+ * Splits planned by {@link SplitPlanner} keep the metadata serialized until the split itself is serialized.
  */
 public class GoogleDriveSplit extends InputSplit implements Writable {
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+  // used for files in Google formats which don't report used storage quota
+  static final long DEFAULT_EXPORT_SIZE_ESTIMATE = 1024 * 1024;
+
   private String fileId;
   private long bytesFrom;
   private long bytesTo;
   private boolean isPartitioned = false;
+  private File file;
+  private PlannedFile plannedFile;
 
   @SuppressWarnings("unused")
   public GoogleDriveSplit() {
@@ -54,12 +67,46 @@ public class GoogleDriveSplit extends InputSplit implements Writable {
     this.fileId = fileId;
   }
 
+  /**
+   * Constructor for GoogleDriveSplit object for the file partition.
+   * @param file the file metadata is provided with
+   * @param bytesFrom the bytes from is provided with
+   * @param bytesTo the bytes to is provided
+   */
+  public GoogleDriveSplit(File file, Long bytesFrom, Long bytesTo) {
+    this(file.getId(), bytesFrom, bytesTo);
+    this.file = file;
+  }
+
+  public GoogleDriveSplit(File file) {
+    this(file.getId());
+    this.file = file;
+  }
+
+  /**
+   * Constructor for GoogleDriveSplit object for the partition of the planned file.
+   * @param plannedFile the planned file is provided with
+   * @param bytesFrom the bytes from is provided with
+   * @param bytesTo the bytes to is provided
+   */
+  public GoogleDriveSplit(PlannedFile plannedFile, Long bytesFrom, Long bytesTo) {
+    this(plannedFile.getId(), bytesFrom, bytesTo);
+    this.plannedFile = plannedFile;
+  }
+
+  public GoogleDriveSplit(PlannedFile plannedFile) {
+    this(plannedFile.getId());
+    this.plannedFile = plannedFile;
+  }
+
   @Override
   public void readFields(DataInput dataInput) throws IOException {
     fileId = dataInput.readUTF();
     bytesFrom = dataInput.readLong();
     bytesTo = dataInput.readLong();
     isPartitioned = dataInput.readBoolean();
+    file = dataInput.readBoolean() ? JSON_FACTORY.fromString(Text.readString(dataInput), File.class) : null;
+    plannedFile = null;
   }
 
   @Override
@@ -68,11 +115,27 @@ public class GoogleDriveSplit extends InputSplit implements Writable {
     dataOutput.writeLong(bytesFrom);
     dataOutput.writeLong(bytesTo);
     dataOutput.writeBoolean(isPartitioned);
+    String metadata = file != null ? JSON_FACTORY.toString(file) :
+      plannedFile != null ? plannedFile.getMetadata() : null;
+    dataOutput.writeBoolean(metadata != null);
+    if (metadata != null) {
+      Text.writeString(dataOutput, metadata);
+    }
   }
 
+  /**
+   * Returns the number of bytes read by the split. The size of exported files in Google formats is estimated.
+   * @return The size of the split or 0 if the split was created only with the file id
+   */
   @Override
   public long getLength() {
-    return 0;
+    if (isPartitioned) {
+      return bytesTo - bytesFrom + 1;
+    }
+    if (plannedFile != null) {
+      return plannedFile.getEstimatedSize();
+    }
+    return file == null ? 0L : getEstimatedSize(file);
   }
 
   @Override
@@ -95,4 +158,53 @@ public class GoogleDriveSplit extends InputSplit implements Writable {
   public boolean isPartitioned() {
     return isPartitioned;
   }
+
+  /**
+   * Returns the size of the file content or the estimated size of the export for files in Google formats.
+   * @param file the file metadata is provided with
+   * @return The size in bytes
+   */
+  static long getEstimatedSize(File file) {
+    if (file.getSize() != null) {
+      return file.getSize();
+    }
+    // files in Google formats have no size, their export is assumed to be as large as the quota they use
+    Long quotaBytesUsed = file.getQuotaBytesUsed();
+    return quotaBytesUsed != null && quotaBytesUsed > 0 ? quotaBytesUsed : DEFAULT_EXPORT_SIZE_ESTIMATE;
+  }
+
+  /**
+   * Returns the file metadata, metadata of a planned file is parsed on each call.
+   * @return The file metadata or null if the split was created only with the file id
+   */
+  @Nullable
+  public File getFile() {
+    return plannedFile != null ? plannedFile.getFile() : file;
+  }
+
+  // null if the split was not planned by SplitPlanner or was deserialized
+  @Nullable
+  PlannedFile getPlannedFile() {
+    return plannedFile;
+  }
+
+  /**
+   * Returns true if the split carries the file metadata.
+   * @return false if the split was created only with the file id
+   */
+  public boolean hasFile() {
+    return file != null || plannedFile != null;
+  }
+
+  /**
+   * Returns the size of the file content without parsing metadata of a planned file.
+   * @return The size in bytes or null for files in Google formats and splits created only with the file id
+   */
+  @Nullable
+  public Long getFileSize() {
+    if (plannedFile != null) {
+      return plannedFile.getSize();
+    }
+    return file == null ? null : file.getSize();
+  }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import com.google.common.io.ByteStreams;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import io.cdap.plugin.google.drive.source.utils.BodyFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * RecordReader implementation for "Chunks" read mode. Content of the file or file partition is streamed from
+ * Google Drive and each chunk of configured size is emitted as a separate {@link FileFromFolder} with its offset,
+ * so memory usage is bounded by the chunk size regardless of the file size.
+ * Binary content larger than a chunk can be downloaded by several concurrent range requests of the chunk size,
+ * chunks are emitted in order.
+ * For String body format a chunk which ends inside of a UTF-8 character is extended to the end of that character,
+ * so each chunk is decoded on its own; such content is always streamed by a single request.
+ * Decompressed content is chunked separately for each archive entry, offsets of its chunks are offsets in the
+ * decompressed entry.
+ */
+public class GoogleDriveStreamingRecordReader extends GoogleDriveContentRecordReader {
+
+  private boolean entryOpened;
+  private int chunkSize;
+  // String body is copied by the transformer, so the read buffer can be reused between records
+  private boolean stringBody;
+  private byte[] buffer;
+  private long startOffset;
+  private long position;
+  private long expectedLength;
+  private FileFromFolder currentValue;
+  private boolean finished;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
+    super.initialize(inputSplit, taskAttemptContext);
+    this.chunkSize = config.getChunkSize();
+    this.stringBody = config.getBodyFormat() == BodyFormat.STRING;
+    this.startOffset = split.isPartitioned() ? split.getBytesFrom() : 0L;
+    this.position = 0L;
+    this.finished = false;
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException, InterruptedException {
+    if (finished) {
+      return false;
+    }
+    if (content == null && ranges == null && decompressedContent == null) {
+      File splitFile = resolveFile();
+      if (split.isPartitioned()) {
+        expectedLength = split.getBytesTo() - split.getBytesFrom() + 1;
+      } else {
+        expectedLength = splitFile.getSize() == null ? 0L : splitFile.getSize();
+      }
+      if (isDecompressed()) {
+        openDecompressedContent();
+      } else if (!stringBody && ParallelRangeDownloader.isApplicable(splitFile, expectedLength, chunkSize,
+                                                                     config.getDownloadThreadsNumber())) {
+        openRanges(startOffset, startOffset + expectedLength - 1);
+      } else if (split.isPartitioned()) {
+        openContent(split.getBytesFrom(), split.getBytesTo());
+      } else {
+        openContent(null, null);
+      }
+    }
+    if (ranges != null) {
+      return nextRange();
+    }
+    if (decompressedContent != null) {
+      return nextDecompressedChunk();
+    }
+
+    byte[] chunk = readChunk(content);
+    if (chunk.length < chunkSize) {
+      finished = true;
+      // an empty file still produces one record, as in "File" read mode
+      if (chunk.length == 0 && position > 0) {
+        currentValue = null;
+        return false;
+      }
+    }
+    currentValue = new FileFromFolder(chunk, startOffset + position, file);
+    position += chunk.length;
+    return true;
+  }
+
+  private boolean nextDecompressedChunk() throws IOException {
+    while (true) {
+      if (!entryOpened) {
+        if (!decompressedContent.nextEntry()) {
+          finished = true;
+          currentValue = null;
+          return false;
+        }
+        entryOpened = true;
+        position = 0L;
+      }
+      byte[] chunk = readChunk(decompressedContent.getEntryContent());
+      if (chunk.length < chunkSize) {
+        entryOpened = false;
+        // an empty entry still produces one record
+        if (chunk.length == 0 && position > 0) {
+          continue;
+        }
+      }
+      currentValue = new FileFromFolder(chunk, position, file, decompressedContent.getEntryName());
+      position += chunk.length;
+      return true;
+    }
+  }
+
+  // returns a chunk shorter than the chunk size at the end of the stream
+  private byte[] readChunk(InputStream stream) throws IOException {
+    byte[] chunk = stringBody && buffer != null ? buffer : new byte[chunkSize];
+    int read = ByteStreams.read(stream, chunk, 0, chunkSize);
+    if (read < chunkSize) {
+      return Arrays.copyOf(chunk, read);
+    }
+    if (stringBody) {
+      buffer = chunk;
+      int missing = getMissingCharacterBytes(chunk);
+      if (missing > 0) {
+        byte[] completed = Arrays.copyOf(chunk, chunkSize + missing);
+        int completedLength = chunkSize + ByteStreams.read(stream, completed, chunkSize, missing);
+        return completedLength == completed.length ? completed : Arrays.copyOf(completed, completedLength);
+      }
+    }
+    return chunk;
+  }
+
+  /**
+   * Returns the number of bytes which are missing to complete the UTF-8 character at the end of the chunk.
+   * @param chunk the chunk of UTF-8 content is provided
+   * @return The number of missing bytes, 0 if the chunk ends with a complete or an invalid character
+   */
+  static int getMissingCharacterBytes(byte[] chunk) {
+    // a character takes up to 4 bytes, its first byte is the only one which is not a continuation byte
+    for (int i = chunk.length - 1; i >= Math.max(0, chunk.length - 4); i--) {
+      int b = chunk[i] & 0xFF;
+      if ((b & 0xC0) == 0x80) {
+        continue;
+      }
+      int characterLength;
+      if ((b & 0x80) == 0) {
+        characterLength = 1;
+      } else if ((b & 0xE0) == 0xC0) {
+        characterLength = 2;
+      } else if ((b & 0xF0) == 0xE0) {
+        characterLength = 3;
+      } else if ((b & 0xF8) == 0xF0) {
+        characterLength = 4;
+      } else {
+        return 0;
+      }
+      return Math.max(0, characterLength - (chunk.length - i));
+    }
+    return 0;
+  }
+
+  private boolean nextRange() throws IOException, InterruptedException {
+    currentValue = ranges.next();
+    if (currentValue == null) {
+      finished = true;
+      return false;
+    }
+    position += currentValue.getContent().length;
+    return true;
+  }
+
+  @Override
+  public FileFromFolder getCurrentValue() {
+    return currentValue;
+  }
+
+  @Override
+  public float getProgress() {
+    if (finished) {
+      return 1.0f;
+    }
+    if (decompressedContent != null) {
+      // size of the decompressed content is unknown
+      return expectedLength <= 0 ? 0.0f :
+        Math.min(1.0f, (float) decompressedContent.getCompressedBytesRead() / expectedLength);
+    }
+    return expectedLength <= 0 ? 0.0f : Math.min(1.0f, (float) position / expectedLength);
+  }
+}
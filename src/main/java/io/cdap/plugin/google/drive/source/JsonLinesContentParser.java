@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Parser of JSON lines, each non-blank line is a JSON object. Object members are matched with schema fields by
+ * their names, nested objects and arrays are kept as JSON strings.
+ */
+public class JsonLinesContentParser extends ContentParser {
+
+  JsonLinesContentParser(InputStream content, Schema contentSchema) throws IOException {
+    super(content, contentSchema);
+  }
+
+  @Nullable
+  @Override
+  protected Map<String, Object> parseNext() throws IOException {
+    JsonObject object = readObject(reader, getRecordNumber());
+    if (object == null) {
+      return null;
+    }
+    Map<String, String> members = new HashMap<>();
+    for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+      members.put(toFieldName(member.getKey()), toValue(member.getValue()));
+    }
+    Map<String, Object> values = new HashMap<>();
+    for (Schema.Field field : contentSchema.getFields()) {
+      values.put(field.getName(), convert(field, members.get(field.getName())));
+    }
+    return values;
+  }
+
+  static void sample(BufferedReader reader, Map<String, Schema.Type> fieldTypes) throws IOException {
+    JsonObject object = readObject(reader, 1);
+    for (int i = 1; i <= SAMPLE_RECORDS_NUMBER && object != null; i++, object = readObject(reader, i)) {
+      for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+        mergeType(fieldTypes, toFieldName(member.getKey()), getType(member.getValue()));
+      }
+    }
+  }
+
+  private static Schema.Type getType(JsonElement element) {
+    if (element.isJsonNull()) {
+      return Schema.Type.NULL;
+    }
+    if (!element.isJsonPrimitive()) {
+      return Schema.Type.STRING;
+    }
+    JsonPrimitive primitive = element.getAsJsonPrimitive();
+    if (primitive.isBoolean()) {
+      return Schema.Type.BOOLEAN;
+    }
+    if (primitive.isNumber()) {
+      return getValueType(primitive.getAsString());
+    }
+    return Schema.Type.STRING;
+  }
+
+  @Nullable
+  private static String toValue(JsonElement element) {
+    if (element.isJsonNull()) {
+      return null;
+    }
+    if (!element.isJsonPrimitive()) {
+      return element.toString();
+    }
+    return element.getAsString();
+  }
+
+  // returns null at the end of content
+  @Nullable
+  private static JsonObject readObject(BufferedReader reader, long recordNumber) throws IOException {
+    String line = reader.readLine();
+    while (line != null && line.trim().isEmpty()) {
+      line = reader.readLine();
+    }
+    if (line == null) {
+      return null;
+    }
+    try {
+      JsonElement element = GoogleDriveInputFormatProvider.GSON.fromJson(line, JsonElement.class);
+      if (element == null || !element.isJsonObject()) {
+        throw new IOException(String.format("Record %d is not a JSON object.", recordNumber));
+      }
+      return element.getAsJsonObject();
+    } catch (JsonParseException e) {
+      throw new IOException(String.format("Record %d is not a valid JSON.", recordNumber), e);
+    }
+  }
+}
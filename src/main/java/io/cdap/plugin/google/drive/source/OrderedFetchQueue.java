@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.plugin.google.common.AdaptiveConcurrencyLimiter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Runs fetches in parallel ahead of the reader and returns their results in the order of the fetches.
+ * At most the given number of results is fetched ahead, the number of parallel fetches is limited by
+ * {@link AdaptiveConcurrencyLimiter}: it decreases when the API throttles requests and grows back while requests
+ * succeed.
+ *
+ * @param <T> type of the fetched results
+ */
+public class OrderedFetchQueue<T> implements Closeable {
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final int maxFetchesAhead;
+  private final Iterator<Callable<T>> fetches;
+  private final ExecutorService fetchService;
+  private final Deque<Future<T>> results = new ArrayDeque<>();
+
+  /**
+   * Constructor for OrderedFetchQueue object.
+   * @param limiter the limiter of parallel fetches is provided with
+   * @param maxFetchesAhead the maximal number of results fetched ahead of the reader is provided with
+   * @param fetches the fetches are provided
+   */
+  public OrderedFetchQueue(AdaptiveConcurrencyLimiter limiter, int maxFetchesAhead, Iterator<Callable<T>> fetches) {
+    this.limiter = limiter;
+    this.maxFetchesAhead = maxFetchesAhead;
+    this.fetches = fetches;
+    this.fetchService = Executors.newFixedThreadPool(maxFetchesAhead);
+  }
+
+  /**
+   * Returns the result of the next fetch, waits for it if needed.
+   * @return The result or null if all fetches were returned
+   * @throws IOException if the fetch failed
+   * @throws InterruptedException if the thread was interrupted
+   */
+  @Nullable
+  public T next() throws IOException, InterruptedException {
+    submitFetches();
+    Future<T> result = results.poll();
+    if (result == null) {
+      return null;
+    }
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Exception during parallel fetching.", e.getCause());
+    }
+  }
+
+  // keeps up to the current concurrency limit of fetches in flight, at least one while fetches remain
+  private void submitFetches() throws InterruptedException {
+    while (fetches.hasNext() && results.size() < maxFetchesAhead) {
+      if (results.isEmpty()) {
+        // nothing is in flight, so wait until the limit grows back after throttling
+        while (!limiter.tryAcquire(1, TimeUnit.SECONDS)) {
+          continue;
+        }
+      } else if (!limiter.tryAcquire()) {
+        return;
+      }
+      Callable<T> fetch = fetches.next();
+      results.add(fetchService.submit(() -> {
+        try {
+          return fetch.call();
+        } finally {
+          limiter.release();
+        }
+      }));
+    }
+  }
+
+  @Override
+  public void close() {
+    fetchService.shutdownNow();
+  }
+}
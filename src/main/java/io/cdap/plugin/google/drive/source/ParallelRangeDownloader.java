@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.github.rholder.retry.RetryException;
+import com.google.api.services.drive.model.File;
+import io.cdap.plugin.google.common.AdaptiveConcurrencyLimiter;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * Downloads a byte range of a binary file as consecutive ranges requested by several concurrent HTTP Range
+ * requests, so a single reader isn't limited by the throughput of one connection.
+ * Ranges are returned in order, each of them has its offset in the file.
+ */
+public class ParallelRangeDownloader implements Closeable {
+  private final OrderedFetchQueue<FileFromFolder> ranges;
+
+  /**
+   * Constructor for ParallelRangeDownloader object.
+   * @param client the client is provided with
+   * @param file the file metadata is provided with
+   * @param bytesFrom the first byte of the downloaded range is provided with
+   * @param bytesTo the last byte of the downloaded range is provided with
+   * @param rangeSize the size of each requested range is provided with
+   * @param threadsNumber the maximal number of concurrent requests is provided
+   */
+  public ParallelRangeDownloader(GoogleDriveSourceClient client, File file, long bytesFrom, long bytesTo,
+                                 int rangeSize, int threadsNumber) {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(client.getThrottlingController(),
+                                                                        threadsNumber);
+    this.ranges = new OrderedFetchQueue<>(limiter, threadsNumber, new Iterator<Callable<FileFromFolder>>() {
+      private long nextRangeFrom = bytesFrom;
+
+      @Override
+      public boolean hasNext() {
+        return nextRangeFrom <= bytesTo;
+      }
+
+      @Override
+      public Callable<FileFromFolder> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long rangeFrom = nextRangeFrom;
+        long rangeTo = Math.min(bytesTo, rangeFrom + rangeSize - 1);
+        nextRangeFrom = rangeTo + 1;
+        return () -> {
+          try {
+            return client.getFilePartition(file, rangeFrom, rangeTo);
+          } catch (ExecutionException | RetryException e) {
+            throw new RuntimeException("Exception during file range reading.", e);
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Checks whether the content is worth downloading by ranges: the file is binary and its content is larger
+   * than a single range.
+   * @param file the file metadata is provided with
+   * @param length the length of the read content is provided with
+   * @param rangeSize the size of each requested range is provided with
+   * @param threadsNumber the maximal number of concurrent requests is provided
+   * @return true if the content should be downloaded by ranges
+   */
+  public static boolean isApplicable(@Nullable File file, long length, int rangeSize, int threadsNumber) {
+    return threadsNumber > 1 && file != null && file.getMimeType() != null
+      && !file.getMimeType().startsWith(GoogleDriveSourceClient.DRIVE_DOCS_MIME_PREFIX) && length > rangeSize;
+  }
+
+  /**
+   * Returns the next range of the content, waits for it if needed.
+   * @return The range or null if the whole content was returned
+   * @throws IOException on issues with range downloading
+   * @throws InterruptedException if the thread was interrupted
+   */
+  @Nullable
+  public FileFromFolder next() throws IOException, InterruptedException {
+    return ranges.next();
+  }
+
+  @Override
+  public void close() {
+    ranges.close();
+  }
+}
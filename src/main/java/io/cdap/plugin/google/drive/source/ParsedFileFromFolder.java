@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+
+/**
+ * Record parsed from file content, it is built by the reader since its fields depend on the content format.
+ */
+public class ParsedFileFromFolder extends FileFromFolder {
+  private static final byte[] NO_CONTENT = new byte[0];
+
+  private final StructuredRecord record;
+
+  /**
+   * Constructor for ParsedFileFromFolder object.
+   * @param record the parsed record is provided with
+   * @param file the file is provided
+   */
+  public ParsedFileFromFolder(StructuredRecord record, File file) {
+    super(NO_CONTENT, file);
+    this.record = record;
+  }
+
+  public StructuredRecord getRecord() {
+    return record;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.File;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Compact descriptor of a listed file used while splits are planned. The file metadata is kept serialized, in memory
+ * or in the spill file of {@link SplitPlanner}, and is parsed only when it is needed, so planning millions of files
+ * doesn't hold millions of metadata objects.
+ */
+public class PlannedFile {
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+  private final String id;
+  @Nullable
+  private final Long size;
+  private final long estimatedSize;
+  // null if the metadata was spilled
+  @Nullable
+  private final byte[] metadata;
+  @Nullable
+  private final SplitPlanner.SpillFile spillFile;
+  private final long spillPosition;
+  private final int spillLength;
+
+  PlannedFile(File file, byte[] metadata) {
+    this(file, metadata, null, 0L, 0);
+  }
+
+  PlannedFile(File file, SplitPlanner.SpillFile spillFile, long spillPosition, int spillLength) {
+    this(file, null, spillFile, spillPosition, spillLength);
+  }
+
+  private PlannedFile(File file, @Nullable byte[] metadata, @Nullable SplitPlanner.SpillFile spillFile,
+                      long spillPosition, int spillLength) {
+    this.id = file.getId();
+    this.size = file.getSize();
+    this.estimatedSize = GoogleDriveSplit.getEstimatedSize(file);
+    this.metadata = metadata;
+    this.spillFile = spillFile;
+    this.spillPosition = spillPosition;
+    this.spillLength = spillLength;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the size of the file content.
+   * @return The size in bytes or null for files in Google formats
+   */
+  @Nullable
+  public Long getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the size of the file content or the estimated size of the export for files in Google formats.
+   * @return The size in bytes
+   */
+  public long getEstimatedSize() {
+    return estimatedSize;
+  }
+
+  /**
+   * Returns the serialized file metadata, spilled metadata is read from the spill file.
+   * @return The file metadata in JSON
+   * @throws IOException on issues with spill file reading
+   */
+  public String getMetadata() throws IOException {
+    byte[] bytes = metadata != null ? metadata : spillFile.read(spillPosition, spillLength);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // spilled metadata is not held in memory
+  int getInMemoryMetadataLength() {
+    return metadata == null ? 0 : metadata.length;
+  }
+
+  /**
+   * Returns the file metadata parsed from its serialized form, a new object is parsed on each call.
+   * @return The file metadata
+   */
+  public File getFile() {
+    try {
+      return JSON_FACTORY.fromString(getMetadata(), File.class);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to read metadata of planned file '%s'.", id), e);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.common.io.BaseEncoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nullable;
+
+/**
+ * Stream of binary file content which reopens the content from the last received byte when the connection drops
+ * or ends before the expected end of the content, so a failure late in a big download doesn't restart it from the
+ * beginning. The content is reopened while each connection delivers some bytes. Content of the whole file is checked
+ * against its MD5 checksum at the end.
+ */
+public class ResumableContentStream extends InputStream {
+  private static final Logger LOG = LoggerFactory.getLogger(ResumableContentStream.class);
+
+  /**
+   * Opens the content starting at the position in the file.
+   */
+  public interface ContentOpener {
+    InputStream open(long position) throws IOException;
+  }
+
+  private final String fileId;
+  private final ContentOpener opener;
+  @Nullable
+  private final Long endPosition;
+  @Nullable
+  private final String expectedMd5Checksum;
+  @Nullable
+  private final MessageDigest digest;
+  private InputStream content;
+  private long position;
+  private boolean hasProgress;
+  private boolean isVerified;
+
+  /**
+   * Constructor for ResumableContentStream object.
+   * @param fileId the file id is provided with
+   * @param content the opened content is provided with
+   * @param position the position of the opened content in the file is provided with
+   * @param endPosition the position after the last byte of the content or null if it is unknown
+   * @param opener the opener of the rest of the content is provided with
+   * @param expectedMd5Checksum the checksum of the whole file or null if the content isn't checked
+   */
+  public ResumableContentStream(String fileId, InputStream content, long position, @Nullable Long endPosition,
+                                ContentOpener opener, @Nullable String expectedMd5Checksum) {
+    this.fileId = fileId;
+    this.content = content;
+    this.position = position;
+    this.endPosition = endPosition;
+    this.opener = opener;
+    this.expectedMd5Checksum = expectedMd5Checksum;
+    this.digest = expectedMd5Checksum == null ? null : newMd5Digest();
+    // the first connection is reopened once even if it fails before any byte
+    this.hasProgress = true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    int read = read(single, 0, 1);
+    return read == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    while (true) {
+      int read;
+      try {
+        read = content.read(buffer, offset, length);
+        if (read == -1 && endPosition != null && position < endPosition) {
+          throw new IOException(String.format("Content ended at byte %d of %d.", position, endPosition));
+        }
+      } catch (IOException e) {
+        if (!hasProgress) {
+          throw e;
+        }
+        resume(e);
+        continue;
+      }
+      if (read > 0) {
+        position += read;
+        hasProgress = true;
+        if (digest != null) {
+          digest.update(buffer, offset, read);
+        }
+      } else if (read == -1) {
+        verifyChecksum();
+      }
+      return read;
+    }
+  }
+
+  private void resume(IOException cause) throws IOException {
+    LOG.warn("Download of file '{}' was interrupted at byte {}, resuming from it: {}", fileId, position,
+             cause.getMessage());
+    try {
+      content.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close interrupted content of file '{}'.", fileId, e);
+    }
+    hasProgress = false;
+    content = opener.open(position);
+  }
+
+  private void verifyChecksum() throws IOException {
+    if (digest == null || isVerified) {
+      return;
+    }
+    isVerified = true;
+    String actualMd5Checksum = toHex(digest.digest());
+    if (!expectedMd5Checksum.equalsIgnoreCase(actualMd5Checksum)) {
+      throw new IOException(String.format("MD5 checksum '%s' of downloaded file '%s' doesn't match expected '%s'.",
+                                          actualMd5Checksum, fileId, expectedMd5Checksum));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    content.close();
+  }
+
+  static MessageDigest newMd5Digest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 digest is not supported.", e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    return BaseEncoding.base16().lowerCase().encode(bytes);
+  }
+}
@@ -20,8 +20,11 @@ import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.google.drive.source.utils.BodyFormat;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Util class for building pipeline schema.
@@ -40,6 +43,7 @@ public class SchemaBuilder {
 
   public static final String BODY_FIELD_NAME = "body";
   public static final String OFFSET_FIELD_NAME = "offset";
+  public static final String ENTRY_NAME_FIELD_NAME = "entryName";
   public static final String ID_FIELD_NAME = "id";
   public static final String NAME_FIELD_NAME = "name";
   public static final String MIME_TYPE_FIELD_NAME = "mimeType";
@@ -92,9 +96,25 @@ public class SchemaBuilder {
    * @return The instance of Schema
    */
   public static Schema buildSchema(List<String> fields, BodyFormat bodyFormat) {
+    return buildSchema(fields, bodyFormat, false);
+  }
+
+  /**
+   * Returns the instance of Schema.
+   * @param fields The Fields are list of fields
+   * @param bodyFormat The BodyFormat
+   * @param withEntryName true to add the name of the archive entry the body was read from
+   * @return The instance of Schema
+   */
+  public static Schema buildSchema(List<String> fields, BodyFormat bodyFormat, boolean withEntryName) {
     List<String> extendedFields = new ArrayList<>(fields);
-    extendedFields.add(BODY_FIELD_NAME);
-    extendedFields.add(OFFSET_FIELD_NAME);
+    if (bodyFormat != BodyFormat.NONE) {
+      extendedFields.add(BODY_FIELD_NAME);
+      extendedFields.add(OFFSET_FIELD_NAME);
+      if (withEntryName) {
+        extendedFields.add(ENTRY_NAME_FIELD_NAME);
+      }
+    }
     List<Schema.Field> generalFields =
       extendedFields.stream().map(f -> SchemaBuilder.getTopLevelField(f, bodyFormat))
         .filter(f -> f != null).collect(Collectors.toList());
@@ -104,6 +124,61 @@ public class SchemaBuilder {
     return Schema.recordOf(SCHEMA_ROOT_RECORD_NAME, generalFields);
   }
 
+  /**
+   * Returns the Schema of records parsed from file content.
+   * @param fields The Fields are list of fields
+   * @param contentSchema The schema of fields parsed from content, null if it is not known yet
+   * @param withEntryName true to add the name of the archive entry the record was parsed from
+   * @return The instance of Schema
+   */
+  public static Schema buildParsedSchema(List<String> fields, @Nullable Schema contentSchema, boolean withEntryName) {
+    List<Schema.Field> parsedFields = new ArrayList<>(buildSchema(fields, BodyFormat.NONE).getFields());
+    if (contentSchema != null) {
+      parsedFields.addAll(contentSchema.getFields());
+    }
+    if (withEntryName) {
+      parsedFields.add(getTopLevelField(ENTRY_NAME_FIELD_NAME, BodyFormat.NONE));
+    }
+    return Schema.recordOf(SCHEMA_ROOT_RECORD_NAME, parsedFields);
+  }
+
+  /**
+   * Returns the Drive API partial response mask that selects only the file metadata required to build records
+   * with the given fields. File id and MIME type are always requested, they are needed to fetch the content.
+   * @param fields The fields are list of file metadata properties
+   * @return The fields mask, e.g. "id,mimeType,name,imageMediaMetadata(width,location(latitude))"
+   */
+  public static String buildFieldsMask(List<String> fields) {
+    Set<String> topLevelFields = new LinkedHashSet<>();
+    topLevelFields.add(ID_FIELD_NAME);
+    topLevelFields.add(MIME_TYPE_FIELD_NAME);
+    Set<String> imageMediaFields = new LinkedHashSet<>();
+    Set<String> locationFields = new LinkedHashSet<>();
+    Set<String> videoMediaFields = new LinkedHashSet<>();
+    for (String field : fields) {
+      if (field.startsWith(IMAGE_METADATA_LOCATION_FIELD_NAME_PREFIX)) {
+        locationFields.add(field.substring(IMAGE_METADATA_LOCATION_FIELD_NAME_PREFIX.length()));
+      } else if (field.startsWith(IMAGE_METADATA_NAME_PREFIX)) {
+        imageMediaFields.add(field.substring(IMAGE_METADATA_NAME_PREFIX.length()));
+      } else if (field.startsWith(VIDEO_METADATA_NAME_PREFIX)) {
+        videoMediaFields.add(field.substring(VIDEO_METADATA_NAME_PREFIX.length()));
+      } else if (!field.equals(BODY_FIELD_NAME) && !field.equals(OFFSET_FIELD_NAME)
+        && !field.equals(ENTRY_NAME_FIELD_NAME)) {
+        topLevelFields.add(field);
+      }
+    }
+    if (!locationFields.isEmpty()) {
+      imageMediaFields.add(LOCATION_FIELD_NAME + "(" + String.join(",", locationFields) + ")");
+    }
+    if (!imageMediaFields.isEmpty()) {
+      topLevelFields.add(IMAGE_METADATA_FIELD_NAME + "(" + String.join(",", imageMediaFields) + ")");
+    }
+    if (!videoMediaFields.isEmpty()) {
+      topLevelFields.add(VIDEO_METADATA_FIELD_NAME + "(" + String.join(",", videoMediaFields) + ")");
+    }
+    return String.join(",", topLevelFields);
+  }
+
   /**
    * Returns the field of Schema.
    * @param name The name is String type
@@ -131,6 +206,7 @@ public class SchemaBuilder {
       case MD_5_CHECKSUM_FIELD_NAME:
         return Schema.Field.of(name, Schema.of(Schema.Type.STRING));
       case DESCRIPTION_FIELD_NAME:
+      case ENTRY_NAME_FIELD_NAME:
         return Schema.Field.of(name, Schema.nullableOf(Schema.of(Schema.Type.STRING)));
       case STARRED_FIELD_NAME:
       case TRASHED_FIELD_NAME:
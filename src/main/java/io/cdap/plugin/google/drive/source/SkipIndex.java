@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import com.google.common.base.Strings;
+import io.cdap.cdap.api.metrics.Metrics;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Index of files read by previous runs, keeps checksum, size and modification time of each file.
+ * Files which were not changed since they were indexed are skipped before splits are created.
+ * The index built while planning splits is written to a pending file and replaces the stored index only when
+ * the run succeeds. The pending file also keeps the numbers of files and bytes skipped by the run, so they can be
+ * reported as metrics when the run finishes.
+ */
+public class SkipIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(SkipIndex.class);
+  private static final int FORMAT_VERSION = 1;
+  private static final String PENDING_SUFFIX = ".pending";
+  static final String SKIPPED_FILES_METRIC = "skipped.files";
+  static final String SKIPPED_BYTES_METRIC = "skipped.bytes";
+
+  private final FileSystem fileSystem;
+  private final Path path;
+  private final Path pendingPath;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final Set<String> listedIds = new HashSet<>();
+  private long skippedFilesNumber;
+  private long skippedBytes;
+  private long changedFilesNumber;
+
+  public SkipIndex(String location, Configuration conf) throws IOException {
+    this.path = new Path(location);
+    this.fileSystem = path.getFileSystem(conf);
+    this.pendingPath = new Path(path.getParent(), path.getName() + PENDING_SUFFIX);
+  }
+
+  /**
+   * Reads the stored index, the index stays empty if nothing was stored yet.
+   * @return The SkipIndex
+   * @throws IOException on issues with index reading
+   */
+  public SkipIndex load() throws IOException {
+    if (!fileSystem.exists(path)) {
+      return this;
+    }
+    try (DataInputStream inputStream = new DataInputStream(new GZIPInputStream(fileSystem.open(path)))) {
+      // the numbers skipped by the run which stored the index are not reported again
+      readSkipped(inputStream, path);
+      int entriesNumber = inputStream.readInt();
+      for (int i = 0; i < entriesNumber; i++) {
+        entries.put(inputStream.readUTF(), Entry.read(inputStream));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the files which were changed since they were indexed and puts all the files to the index.
+   * May be called for each page of the listing, the numbers of skipped and changed files are summed up.
+   * @param files the listed files are provided with
+   * @return The list of changed files
+   */
+  public List<File> removeUnchanged(List<File> files) {
+    List<File> changedFiles = new ArrayList<>();
+    for (File file : files) {
+      listedIds.add(file.getId());
+      Entry current = new Entry(file.getMd5Checksum(), file.getSize(),
+                                file.getModifiedTime() == null ? null : file.getModifiedTime().getValue());
+      Entry indexed = entries.put(file.getId(), current);
+      if (indexed != null && indexed.isSameContent(current)) {
+        skippedFilesNumber++;
+        skippedBytes += file.getSize() == null ? 0 : file.getSize();
+      } else {
+        changedFiles.add(file);
+      }
+    }
+    changedFilesNumber += changedFiles.size();
+    return changedFiles;
+  }
+
+  /**
+   * Logs the numbers of skipped and changed files.
+   */
+  public void logSkipped() {
+    LOG.info("Skipped {} unchanged files of {} bytes, {} files are changed.", skippedFilesNumber, skippedBytes,
+             changedFilesNumber);
+  }
+
+  /**
+   * Removes the files which were not listed by this run, so deleted files and files moved out of the folder don't
+   * stay in the index. Must be called only when the whole folder was listed, not just the changed files.
+   */
+  public void removeUnlisted() {
+    entries.keySet().retainAll(listedIds);
+  }
+
+  /**
+   * Writes the index next to the stored one, it replaces the stored index on {@link #commit()}.
+   * @throws IOException on issues with index writing
+   */
+  public void writePending() throws IOException {
+    try (DataOutputStream outputStream =
+           new DataOutputStream(new GZIPOutputStream(fileSystem.create(pendingPath, true)))) {
+      outputStream.writeInt(FORMAT_VERSION);
+      outputStream.writeLong(skippedFilesNumber);
+      outputStream.writeLong(skippedBytes);
+      outputStream.writeInt(entries.size());
+      for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+        outputStream.writeUTF(entry.getKey());
+        entry.getValue().write(outputStream);
+      }
+    }
+  }
+
+  /**
+   * Reports the numbers of files and bytes skipped by the run, which are kept by the pending index.
+   * @param metrics the metrics of the stage are provided with
+   * @throws IOException on issues with index reading
+   */
+  public void reportPendingSkipped(Metrics metrics) throws IOException {
+    if (!fileSystem.exists(pendingPath)) {
+      return;
+    }
+    long[] skipped;
+    try (DataInputStream inputStream = new DataInputStream(new GZIPInputStream(fileSystem.open(pendingPath)))) {
+      skipped = readSkipped(inputStream, pendingPath);
+    }
+    count(metrics, SKIPPED_FILES_METRIC, skipped[0]);
+    count(metrics, SKIPPED_BYTES_METRIC, skipped[1]);
+  }
+
+  /**
+   * Replaces the stored index with the pending one, if any.
+   * @throws IOException on issues with index writing
+   */
+  public void commit() throws IOException {
+    if (!fileSystem.exists(pendingPath)) {
+      return;
+    }
+    if (fileSystem.exists(path) && !fileSystem.delete(path, false)) {
+      throw new IOException(String.format("Failed to replace skip index '%s'.", path));
+    }
+    if (!fileSystem.rename(pendingPath, path)) {
+      throw new IOException(String.format("Failed to store skip index '%s'.", path));
+    }
+  }
+
+  /**
+   * Removes the pending index, so files of the failed run are read again.
+   * @throws IOException on issues with index removing
+   */
+  public void abort() throws IOException {
+    fileSystem.delete(pendingPath, false);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private static void count(Metrics metrics, String name, long value) {
+    while (value > 0) {
+      int chunk = (int) Math.min(Integer.MAX_VALUE, value);
+      metrics.count(name, chunk);
+      value -= chunk;
+    }
+  }
+
+  // returns the numbers of skipped files and bytes
+  private static long[] readSkipped(DataInputStream inputStream, Path indexPath) throws IOException {
+    int version = inputStream.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException(String.format("Skip index '%s' has unsupported version %d.", indexPath, version));
+    }
+    return new long[]{inputStream.readLong(), inputStream.readLong()};
+  }
+
+  /**
+   * Indexed state of a single file.
+   */
+  private static class Entry {
+    private static final long ABSENT = -1L;
+
+    @Nullable
+    private final String md5Checksum;
+    @Nullable
+    private final Long size;
+    @Nullable
+    private final Long modifiedTime;
+
+    private Entry(@Nullable String md5Checksum, @Nullable Long size, @Nullable Long modifiedTime) {
+      this.md5Checksum = md5Checksum;
+      this.size = size;
+      this.modifiedTime = modifiedTime;
+    }
+
+    // files in Google formats have no checksum, their modification time is compared instead
+    private boolean isSameContent(Entry other) {
+      if (md5Checksum != null || other.md5Checksum != null) {
+        return Objects.equals(md5Checksum, other.md5Checksum) && Objects.equals(size, other.size);
+      }
+      return modifiedTime != null && modifiedTime.equals(other.modifiedTime);
+    }
+
+    private void write(DataOutputStream outputStream) throws IOException {
+      outputStream.writeUTF(Strings.nullToEmpty(md5Checksum));
+      outputStream.writeLong(size == null ? ABSENT : size);
+      outputStream.writeLong(modifiedTime == null ? ABSENT : modifiedTime);
+    }
+
+    private static Entry read(DataInputStream inputStream) throws IOException {
+      String md5Checksum = inputStream.readUTF();
+      long size = inputStream.readLong();
+      long modifiedTime = inputStream.readLong();
+      return new Entry(Strings.emptyToNull(md5Checksum), size == ABSENT ? null : size,
+                       modifiedTime == ABSENT ? null : modifiedTime);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.File;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Plans splits while files are listed. Each page of the listing is converted to {@link PlannedFile} descriptors as
+ * soon as it is received, so full metadata objects of all listed files are never held at once. Metadata of files
+ * beyond the spill threshold is written to a local temporary file while the listing goes on. Spilled metadata is not
+ * read back into memory, it is read from the spill file when each split is serialized, so the spill file outlives
+ * the planner and is removed with its directory by {@link #removeSpillDirectory(Path)} when the run finishes.
+ * Planning throughput and peak heap usage are logged.
+ */
+public class SplitPlanner implements Consumer<List<File>>, Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SplitPlanner.class);
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+  private static final int PROGRESS_LOG_INTERVAL = 100_000;
+  private static final long MIB = 1024 * 1024;
+
+  private final int spillThreshold;
+  @Nullable
+  private final Path spillDirectory;
+  private final List<PlannedFile> files = new ArrayList<>();
+  private final long startTime = System.nanoTime();
+  private SpillFile spillFile;
+  private long spilledFiles;
+  private long peakHeapUsage;
+
+  /**
+   * Constructor for SplitPlanner object which spills to the default temporary directory, the spill file is removed
+   * when the JVM exits.
+   * @param spillThreshold the number of files which metadata is kept in memory is provided
+   */
+  public SplitPlanner(int spillThreshold) {
+    this(spillThreshold, null);
+  }
+
+  /**
+   * Constructor for SplitPlanner object.
+   * @param spillThreshold the number of files which metadata is kept in memory is provided
+   * @param spillDirectory the directory of the spill file is provided, null for the default temporary directory
+   */
+  public SplitPlanner(int spillThreshold, @Nullable Path spillDirectory) {
+    this.spillThreshold = spillThreshold;
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Adds the page of listed files.
+   * @param page the files are provided
+   */
+  @Override
+  public void accept(List<File> page) {
+    try {
+      for (File file : page) {
+        add(file);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to spill metadata of listed files.", e);
+    }
+    updatePeakHeapUsage();
+  }
+
+  private void add(File file) throws IOException {
+    byte[] metadata = JSON_FACTORY.toString(file).getBytes(StandardCharsets.UTF_8);
+    if (files.size() < spillThreshold) {
+      files.add(new PlannedFile(file, metadata));
+    } else {
+      if (spillFile == null) {
+        spillFile = new SpillFile(spillDirectory);
+        LOG.info("Spilling metadata of listed files beyond {} to '{}'.", spillThreshold, spillFile.path);
+      }
+      files.add(new PlannedFile(file, spillFile, spillFile.append(metadata), metadata.length));
+      spilledFiles++;
+    }
+    if (files.size() % PROGRESS_LOG_INTERVAL == 0) {
+      LOG.info("Planned {} files, {} files/sec.", files.size(), getFilesPerSecond());
+    }
+  }
+
+  /**
+   * Returns the planned files in the order they were listed, no more files can be added. Spilled metadata stays in
+   * the spill file, so the files stay valid after the planner is closed until the spill directory is removed.
+   * @return The list of planned files
+   * @throws IOException on issues with spill file writing
+   */
+  public List<PlannedFile> getFiles() throws IOException {
+    if (spillFile != null) {
+      spillFile.finishWriting();
+    }
+    return files;
+  }
+
+  @Nullable
+  Path getSpillPath() {
+    return spillFile == null ? null : spillFile.path;
+  }
+
+  // the number of metadata bytes held in memory by the planned files
+  long getInMemoryMetadataBytes() {
+    long bytes = 0L;
+    for (PlannedFile file : files) {
+      bytes += file.getInMemoryMetadataLength();
+    }
+    return bytes;
+  }
+
+  /**
+   * Finishes writing of the spill file, the spill file is kept for the planned files.
+   * @throws IOException on issues with spill file writing
+   */
+  @Override
+  public void close() throws IOException {
+    if (spillFile != null) {
+      spillFile.finishWriting();
+    }
+  }
+
+  /**
+   * Removes the spill directory with the spill files of all planners which used it.
+   * @param spillDirectory the spill directory is provided
+   * @throws IOException on issues with spill file removing
+   */
+  public static void removeSpillDirectory(Path spillDirectory) throws IOException {
+    if (!Files.exists(spillDirectory)) {
+      return;
+    }
+    try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillDirectory)) {
+      for (Path spillFile : spillFiles) {
+        Files.deleteIfExists(spillFile);
+      }
+    }
+    Files.deleteIfExists(spillDirectory);
+  }
+
+  /**
+   * Logs the planning throughput and the peak heap usage.
+   * @param splitsNumber the number of planned splits is provided
+   */
+  public void logSummary(int splitsNumber) {
+    updatePeakHeapUsage();
+    LOG.info("Planned {} splits of {} files in {} ms, {} files/sec, {} files were spilled, peak heap usage {} MiB.",
+             splitsNumber, files.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+             getFilesPerSecond(), spilledFiles, peakHeapUsage / MIB);
+  }
+
+  private long getFilesPerSecond() {
+    long elapsedNanos = Math.max(1L, System.nanoTime() - startTime);
+    return (long) (files.size() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+  }
+
+  private void updatePeakHeapUsage() {
+    Runtime runtime = Runtime.getRuntime();
+    peakHeapUsage = Math.max(peakHeapUsage, runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  /**
+   * Local temporary file with serialized metadata of planned files. Metadata is appended while files are listed
+   * and is read by positions after the writing is finished. Each read opens the file, so no file handle is held
+   * while splits wait to be serialized.
+   */
+  static class SpillFile {
+    private final Path path;
+    private OutputStream outputStream;
+    private long size;
+
+    private SpillFile(@Nullable Path directory) throws IOException {
+      if (directory == null) {
+        path = Files.createTempFile("google-drive-splits-", ".spill");
+        path.toFile().deleteOnExit();
+      } else {
+        Files.createDirectories(directory);
+        path = Files.createTempFile(directory, "google-drive-splits-", ".spill");
+      }
+      outputStream = new BufferedOutputStream(Files.newOutputStream(path));
+    }
+
+    private long append(byte[] bytes) throws IOException {
+      long position = size;
+      outputStream.write(bytes);
+      size += bytes.length;
+      return position;
+    }
+
+    private synchronized void finishWriting() throws IOException {
+      if (outputStream != null) {
+        outputStream.close();
+        outputStream = null;
+      }
+    }
+
+    byte[] read(long position, int length) throws IOException {
+      finishWriting();
+      byte[] bytes = new byte[length];
+      try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+        file.seek(position);
+        file.readFully(bytes);
+      }
+      return bytes;
+    }
+  }
+}
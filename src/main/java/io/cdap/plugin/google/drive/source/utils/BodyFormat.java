@@ -29,7 +29,9 @@ import java.util.stream.Stream;
  */
 public enum BodyFormat {
   BYTES("bytes"),
-  STRING("string");
+  STRING("string"),
+  // no body, only file metadata is read
+  NONE("none");
 
   private final String value;
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source.utils;
+
+import io.cdap.plugin.google.common.exceptions.InvalidPropertyTypeException;
+import io.cdap.plugin.google.drive.source.GoogleDriveSourceConfig;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An enum which represent how content of binary files is decompressed while it is streamed.
+ */
+public enum Decompression {
+  // content is read as is
+  NONE("none"),
+  // gzip and zip content is detected by its leading bytes, other content is read as is
+  AUTO("auto"),
+  GZIP("gzip"),
+  // zlib wrapped deflate stream
+  DEFLATE("deflate"),
+  // each entry of the archive is read separately
+  ZIP("zip");
+
+  private final String value;
+
+  Decompression(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the Decompression.
+   *
+   * @param value the value is String type.
+   * @return The Decompression
+   */
+  public static Decompression fromValue(String value) {
+    return Stream.of(Decompression.values())
+      .filter(keyType -> keyType.getValue().equalsIgnoreCase(value))
+      .findAny()
+      .orElseThrow(() ->
+          new InvalidPropertyTypeException(GoogleDriveSourceConfig.DECOMPRESSION_LABEL, value, getAllowedValues()));
+  }
+
+  public static List<String> getAllowedValues() {
+    return Arrays.stream(Decompression.values()).map(v -> v.getValue())
+        .collect(Collectors.toList());
+  }
+}
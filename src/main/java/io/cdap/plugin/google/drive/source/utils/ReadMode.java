@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source.utils;
+
+import io.cdap.plugin.google.common.exceptions.InvalidPropertyTypeException;
+import io.cdap.plugin.google.drive.source.GoogleDriveSourceConfig;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An enum which represent how file's content is split into records.
+ */
+public enum ReadMode {
+  // one record for each file or file partition
+  FILE("file"),
+  // content is streamed, one record for each chunk
+  CHUNKS("chunks"),
+  // content is streamed, one record for each text line
+  LINES("lines");
+
+  private final String value;
+
+  ReadMode(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the ReadMode.
+   *
+   * @param value the value is String type.
+   * @return The ReadMode
+   */
+  public static ReadMode fromValue(String value) {
+    return Stream.of(ReadMode.values())
+      .filter(keyType -> keyType.getValue().equalsIgnoreCase(value))
+      .findAny()
+      .orElseThrow(() ->
+          new InvalidPropertyTypeException(GoogleDriveSourceConfig.READ_MODE_LABEL, value, getAllowedValues()));
+  }
+
+  public static List<String> getAllowedValues() {
+    return Arrays.stream(ReadMode.values()).map(v -> v.getValue())
+        .collect(Collectors.toList());
+  }
+}
@@ -20,7 +20,7 @@ import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.sheets.v4.Sheets;
-import io.cdap.plugin.google.common.AuthType;
+import io.cdap.plugin.google.common.GoogleApiClientPool;
 import io.cdap.plugin.google.common.GoogleAuthBaseConfig;
 import io.cdap.plugin.google.common.GoogleDriveClient;
 
@@ -44,8 +44,13 @@ public abstract class GoogleSheetsClient<C extends GoogleAuthBaseConfig> extends
    */
   public GoogleSheetsClient(C config) throws IOException {
     super(config);
-    this.drive = getDriveClient();
-    this.service = getSheetsClient();
+    this.drive = super.service;
+    try {
+      this.service = GoogleApiClientPool.getInstance().getSheets(clientKey, this::getSheetsClient);
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
   }
 
   /**
@@ -54,21 +59,11 @@ public abstract class GoogleSheetsClient<C extends GoogleAuthBaseConfig> extends
    * @throws IOException on issues with service account file reading.
    */
   protected Sheets getSheetsClient() throws IOException {
-    Sheets sheets;
-    AuthType authType = config.getAuthType();
-    switch (authType) {
-      case OAUTH2:
-        sheets = new Sheets.Builder(httpTransport, JSON_FACTORY, getOAuth2Credential()).build();
-        break;
-      case SERVICE_ACCOUNT:
-        sheets =
-            new Sheets.Builder(httpTransport, JSON_FACTORY, getServiceAccountCredential()).build();
-        break;
-      default:
-        throw new IllegalStateException(
-            String.format("Untreated value '%s' for authentication type.", authType));
+    Sheets.Builder builder = new Sheets.Builder(httpTransport, JSON_FACTORY, getRequestInitializer());
+    if (clientKey.getRootUrl() != null) {
+      builder.setRootUrl(clientKey.getRootUrl());
     }
-    return sheets;
+    return builder.build();
   }
 
   protected abstract List<String> getRequiredScopes();
@@ -19,6 +19,7 @@ package io.cdap.plugin.google.sheets.sink;
 import com.github.rholder.retry.RetryException;
 import com.google.api.services.sheets.v4.model.SheetProperties;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
+import io.cdap.plugin.google.common.AdaptiveConcurrencyLimiter;
 import io.cdap.plugin.google.sheets.sink.threading.RecordsBatch;
 import io.cdap.plugin.google.sheets.sink.threading.RecordsBatchProcessor;
 import io.cdap.plugin.google.sheets.sink.utils.DimensionType;
@@ -55,7 +56,9 @@ import java.util.concurrent.TimeUnit;
  * {@link TasksFormer}.
  * Task former groups all retrieved records by spreadsheet file name, limits groups size with buffer size
  * ({@link GoogleSheetsSinkConfig#getMaxBufferSize()}) and spread out the biggest ones between records batch processors
- * {@link RecordsBatchProcessor} on free threads.
+ * {@link RecordsBatchProcessor} on free threads. The number of threads in use is adjusted by
+ * {@link AdaptiveConcurrencyLimiter}: it decreases when Sheets API throttles requests and grows back while requests
+ * succeed.
  * All remaining grouped records are placed back to records queue. This allows to wait till queue gathers full
  * records buffer for each spreadsheet file.
  */
@@ -80,8 +83,8 @@ public class GoogleSheetsRecordWriter extends RecordWriter<NullWritable, Flatter
   // queue for all received records
   private final Queue<FlatteredRowsRequest> recordsQueue = new ConcurrentLinkedQueue<>();
 
-  // semaphore for controlling to number of run message processors
-  private final Semaphore threadsSemaphore;
+  // limiter of the number of run message processors, shrinks on API throttling
+  private final AdaptiveConcurrencyLimiter threadsLimiter;
 
   // semaphore for blocking the records queue while tasks former works
   private final Semaphore queueSemaphore = new Semaphore(1);
@@ -117,7 +120,8 @@ public class GoogleSheetsRecordWriter extends RecordWriter<NullWritable, Flatter
     sheetsSinkClient = new GoogleSheetsSinkClient(googleSheetsSinkConfig);
 
     messageProcessorService = Executors.newFixedThreadPool(googleSheetsSinkConfig.getThreadsNumber());
-    threadsSemaphore = new Semaphore(googleSheetsSinkConfig.getThreadsNumber());
+    threadsLimiter = new AdaptiveConcurrencyLimiter(sheetsSinkClient.getThrottlingController(),
+                                                    googleSheetsSinkConfig.getThreadsNumber());
 
     flushTimeout = googleSheetsSinkConfig.getFlushExecutionTimeout();
     maxBufferSize = googleSheetsSinkConfig.getMaxBufferSize();
@@ -243,23 +247,28 @@ public class GoogleSheetsRecordWriter extends RecordWriter<NullWritable, Flatter
 
   @Override
   public void close(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-    stopSignal = true;
-    // wait for scheduled task formers will be completed
-    formerScheduledExecutorService.shutdown();
-    formerScheduledExecutorService.awaitTermination(googleSheetsSinkConfig.getMaxFlushInterval() * 2,
-      TimeUnit.SECONDS);
-
-    // we should guarantee that at least one task former was called finally
     try {
-      formerScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-      formerScheduledExecutorService.submit(new TasksFormer()).get();
-    } catch (ExecutionException e) {
-      throw new RuntimeException("Exception during final writing of records from record queue.", e);
-    }
+      stopSignal = true;
+      // wait for scheduled task formers will be completed
+      formerScheduledExecutorService.shutdown();
+      formerScheduledExecutorService.awaitTermination(googleSheetsSinkConfig.getMaxFlushInterval() * 2,
+        TimeUnit.SECONDS);
+
+      // we should guarantee that at least one task former was called finally
+      try {
+        formerScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        formerScheduledExecutorService.submit(new TasksFormer()).get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Exception during final writing of records from record queue.", e);
+      }
 
-    // wait for worker threads completion
-    messageProcessorService.shutdown();
-    messageProcessorService.awaitTermination(flushTimeout, TimeUnit.SECONDS);
+      // wait for worker threads completion
+      messageProcessorService.shutdown();
+      messageProcessorService.awaitTermination(flushTimeout, TimeUnit.SECONDS);
+    } finally {
+      // pooled clients are returned even if the final writing failed
+      sheetsSinkClient.close();
+    }
   }
 
   /**
@@ -287,20 +296,20 @@ public class GoogleSheetsRecordWriter extends RecordWriter<NullWritable, Flatter
         // send biggest groups to threads, else back to queue
         for (RecordsBatch recordsBatch : sortedBatches) {
           if (stopSignal) {
-            if (threadsSemaphore.tryAcquire(flushTimeout, TimeUnit.SECONDS)) {
+            if (threadsLimiter.tryAcquire(flushTimeout, TimeUnit.SECONDS)) {
               // create new thread
               messageProcessorService.submit(
-                new RecordsBatchProcessor(sheetsSinkClient, recordsBatch, threadsSemaphore));
+                new RecordsBatchProcessor(sheetsSinkClient, recordsBatch, threadsLimiter));
             } else {
               throw new RuntimeException(
                 String.format("Timeout '%d' exceeded when trying to schedule batch records for execution.",
                   flushTimeout));
             }
           } else {
-            if (threadsSemaphore.tryAcquire()) {
+            if (threadsLimiter.tryAcquire()) {
               // create new thread
               messageProcessorService.submit(
-                new RecordsBatchProcessor(sheetsSinkClient, recordsBatch, threadsSemaphore));
+                new RecordsBatchProcessor(sheetsSinkClient, recordsBatch, threadsLimiter));
             } else {
               recordsBatch.getGroup().stream().forEach(r -> {
                 recordsQueue.offer(r);
@@ -26,10 +26,12 @@ import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSink;
 import io.cdap.cdap.etl.api.batch.BatchSinkContext;
 import io.cdap.plugin.common.LineageRecorder;
+import io.cdap.plugin.google.common.ApiCallMetrics;
 import io.cdap.plugin.google.sheets.sink.utils.FlatteredRowsRecord;
 
 import java.io.IOException;
@@ -46,6 +48,9 @@ public class GoogleSheetsSink extends BatchSink<StructuredRecord, Void, Flattere
 
   private final GoogleSheetsSinkConfig config;
   private StructuredRecordToFlatteredRowsRecordTransformer transformer;
+  private StageMetrics metrics;
+  private ApiCallMetrics callMetrics;
+  private ApiCallMetrics runCallMetrics;
 
   public GoogleSheetsSink(GoogleSheetsSinkConfig config) {
     this.config = config;
@@ -62,28 +67,54 @@ public class GoogleSheetsSink extends BatchSink<StructuredRecord, Void, Flattere
 
   @Override
   public void prepareRun(BatchSinkContext batchSinkContext) {
-    Schema inputSchema = batchSinkContext.getInputSchema();
+    // released when the run is finished, or here if the run could not be prepared
+    runCallMetrics = ApiCallMetrics.acquire(config.getReferenceName(), batchSinkContext.getMetrics());
+    boolean prepared = false;
+    try {
+      Schema inputSchema = batchSinkContext.getInputSchema();
 
-    FailureCollector failureCollector = batchSinkContext.getFailureCollector();
-    config.validate(failureCollector, inputSchema);
-    failureCollector.getOrThrowException();
-
-    batchSinkContext.addOutput(Output.of(config.getReferenceName(), new GoogleSheetsOutputFormatProvider(config)));
-
-    LineageRecorder lineageRecorder = new LineageRecorder(batchSinkContext, config.getReferenceName());
-    lineageRecorder.createExternalDataset(inputSchema);
-    if (inputSchema.getFields() != null && !inputSchema.getFields().isEmpty()) {
-      String operationDescription = "Wrote sheet to Google Drive directory";
-      lineageRecorder.recordWrite("Write", operationDescription,
-        inputSchema.getFields().stream()
-          .map(Schema.Field::getName)
-          .collect(Collectors.toList()));
+      FailureCollector failureCollector = batchSinkContext.getFailureCollector();
+      config.validate(failureCollector, inputSchema);
+      failureCollector.getOrThrowException();
+
+      batchSinkContext.addOutput(Output.of(config.getReferenceName(), new GoogleSheetsOutputFormatProvider(config)));
+
+      LineageRecorder lineageRecorder = new LineageRecorder(batchSinkContext, config.getReferenceName());
+      lineageRecorder.createExternalDataset(inputSchema);
+      if (inputSchema.getFields() != null && !inputSchema.getFields().isEmpty()) {
+        String operationDescription = "Wrote sheet to Google Drive directory";
+        lineageRecorder.recordWrite("Write", operationDescription,
+          inputSchema.getFields().stream()
+            .map(Schema.Field::getName)
+            .collect(Collectors.toList()));
+      }
+      // calls made while the run was prepared, worker calls are flushed by each worker
+      runCallMetrics.flush(batchSinkContext.getMetrics());
+      prepared = true;
+    } finally {
+      if (!prepared) {
+        runCallMetrics.release();
+        runCallMetrics = null;
+      }
+    }
+  }
+
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSinkContext context) {
+    super.onRunFinish(succeeded, context);
+    // calls made while the output was committed
+    if (runCallMetrics != null) {
+      runCallMetrics.flush(context.getMetrics());
+      runCallMetrics.release();
+      runCallMetrics = null;
     }
   }
 
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
     super.initialize(context);
+    metrics = context.getMetrics();
+    callMetrics = ApiCallMetrics.acquire(config.getReferenceName(), metrics);
     transformer = new StructuredRecordToFlatteredRowsRecordTransformer(config.getSchemaSpreadsheetNameFieldName(),
       config.getSchemaSheetNameFieldName(),
       config.getSpreadsheetName(),
@@ -96,5 +127,17 @@ public class GoogleSheetsSink extends BatchSink<StructuredRecord, Void, Flattere
     throws IOException {
     FlatteredRowsRecord rowsRecord = transformer.transform(input);
     emitter.emit(new KeyValue<>(null, rowsRecord));
+    callMetrics.flushIfDue(metrics);
+  }
+
+  @Override
+  public void destroy() {
+    if (callMetrics != null) {
+      callMetrics.flush(metrics);
+      // calls of clients which are closed after the stage, such as record writers, are reported by the last of them
+      callMetrics.release();
+      callMetrics = null;
+    }
+    super.destroy();
   }
 }
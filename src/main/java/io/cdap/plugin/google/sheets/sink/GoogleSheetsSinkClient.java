@@ -36,7 +36,7 @@ import com.google.api.services.sheets.v4.model.SheetProperties;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.api.services.sheets.v4.model.SpreadsheetProperties;
 import com.google.api.services.sheets.v4.model.UpdateCellsRequest;
-import io.cdap.plugin.google.common.APIRequestRetryer;
+import io.cdap.plugin.google.common.ApiOperation;
 import io.cdap.plugin.google.sheets.common.GoogleSheetsClient;
 import io.cdap.plugin.google.sheets.sink.utils.ComplexHeader;
 import io.cdap.plugin.google.sheets.sink.utils.DimensionType;
@@ -74,7 +74,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
    */
   public Spreadsheet createEmptySpreadsheet(String spreadsheetName, String sheetTitle)
     throws ExecutionException, RetryException {
-    Retryer<Spreadsheet> createSpreadsheetRetryer = APIRequestRetryer.getRetryer(
+    Retryer<Spreadsheet> createSpreadsheetRetryer = getRetryer(
       String.format("Creation of empty spreadsheet, name: '%s', sheet title: '%s'.",
         spreadsheetName, sheetTitle));
     return createSpreadsheetRetryer.call(() -> {
@@ -88,7 +88,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
 
       spreadsheet.setProperties(spreadsheetProperties);
       spreadsheet.setSheets(Collections.singletonList(sheetToPast));
-      spreadsheet = service.spreadsheets().create(spreadsheet).execute();
+      spreadsheet = execute(ApiOperation.SPREADSHEETS_CREATE, service.spreadsheets().create(spreadsheet));
 
       return spreadsheet;
     });
@@ -106,7 +106,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
    */
   public SheetProperties createEmptySheet(String spreadsheetId, String spreadsheetName, String sheetTitle)
     throws ExecutionException, RetryException {
-    Retryer<SheetProperties> createSheetRetryer = APIRequestRetryer.getRetryer(
+    Retryer<SheetProperties> createSheetRetryer = getRetryer(
       String.format("Creation of empty sheet, spreadsheet name: '%s', sheet title: '%s'.",
         spreadsheetName, sheetTitle));
     return createSheetRetryer.call(() -> {
@@ -119,7 +119,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
       Sheets.Spreadsheets.BatchUpdate request =
         service.spreadsheets().batchUpdate(spreadsheetId, requestBody);
 
-      BatchUpdateSpreadsheetResponse response = request.execute();
+      BatchUpdateSpreadsheetResponse response = execute(ApiOperation.SPREADSHEETS_BATCH_UPDATE, request);
 
       return response.getReplies().get(0).getAddSheet().getProperties();
     });
@@ -149,7 +149,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
     appendDimensionRequest.setLength(rowsToAdd);
     Request appendRequest = new Request().setAppendDimension(appendDimensionRequest);
 
-    APIRequestRetryer.getRetryer(
+    getRetryer(
       String.format("Appending dimension of '%d' rows for spreadsheet '%s', sheet name '%s'.",
         rowsToAdd, spreadsheetsName, sheetTitle))
       .call(() -> {
@@ -159,7 +159,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
         Sheets.Spreadsheets.BatchUpdate request =
           service.spreadsheets().batchUpdate(spreadsheetsId, requestBody);
 
-        request.execute();
+        execute(ApiOperation.SPREADSHEETS_BATCH_UPDATE, request);
         return null;
       });
   }
@@ -180,7 +180,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
                             List<Request> contentRequests, List<Request> mergeRequests)
     throws ExecutionException, RetryException {
 
-    APIRequestRetryer.getRetryer(
+    getRetryer(
       String.format("Populating of spreadsheet '%s' with records, sheet title names '%s'.",
         spreadsheetName, sheetTitles.toString()))
       .call(() -> {
@@ -193,7 +193,7 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
         Sheets.Spreadsheets.BatchUpdate request =
           service.spreadsheets().batchUpdate(spreadsheetsId, requestBody);
 
-        request.execute();
+        execute(ApiOperation.SPREADSHEETS_BATCH_UPDATE, request);
         return null;
       });
   }
@@ -360,15 +360,14 @@ public class GoogleSheetsSinkClient extends GoogleSheetsClient<GoogleSheetsSinkC
    */
   public void moveSpreadsheetToDestinationFolder(String spreadsheetsId, String spreadsheetName)
     throws ExecutionException, RetryException {
-    APIRequestRetryer.getRetryer(
+    getRetryer(
       String.format("Moving the spreadsheet '%s' to destination folder.", spreadsheetName))
       .call(() -> {
-        drive.files().update(spreadsheetsId, null)
+        execute(ApiOperation.FILES_UPDATE, drive.files().update(spreadsheetsId, null)
           .setSupportsAllDrives(true)
           .setAddParents(config.getDirectoryIdentifier())
           .setRemoveParents("root")
-          .setFields("id, parents")
-          .execute();
+          .setFields("id, parents"));
         return null;
       });
   }
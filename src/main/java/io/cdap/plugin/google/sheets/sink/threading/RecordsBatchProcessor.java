@@ -16,35 +16,35 @@
 package io.cdap.plugin.google.sheets.sink.threading;
 
 import com.google.api.services.sheets.v4.model.Request;
+import io.cdap.plugin.google.common.AdaptiveConcurrencyLimiter;
 import io.cdap.plugin.google.sheets.sink.GoogleSheetsSinkClient;
 import io.cdap.plugin.google.sheets.sink.utils.FlatteredRowsRequest;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Semaphore;
 
 /**
  * Task that executes all requests from {@link RecordsBatch} by single Sheets API request.
- * Finally it releases threadsSemaphore semaphore as signal that another instance may be submitted.
+ * Finally it releases threadsLimiter permit as signal that another instance may be submitted.
  */
 public class RecordsBatchProcessor implements Callable {
 
   private final GoogleSheetsSinkClient sheetsSinkClient;
   private final RecordsBatch recordsBatch;
-  private final Semaphore threadsSemaphore;
+  private final AdaptiveConcurrencyLimiter threadsLimiter;
 
   /**
    * Constructor for RecordsBatchProcessor object.
    * @param sheetsSinkClient The sheets sink client
    * @param recordsBatch The records batch
-   * @param threadsSemaphore The threads semaphore
+   * @param threadsLimiter The threads limiter
    */
   public RecordsBatchProcessor(GoogleSheetsSinkClient sheetsSinkClient, RecordsBatch recordsBatch,
-                               Semaphore threadsSemaphore) {
+                               AdaptiveConcurrencyLimiter threadsLimiter) {
     this.sheetsSinkClient = sheetsSinkClient;
     this.recordsBatch = recordsBatch;
-    this.threadsSemaphore = threadsSemaphore;
+    this.threadsLimiter = threadsLimiter;
   }
 
   @Override
@@ -70,7 +70,7 @@ public class RecordsBatchProcessor implements Callable {
       sheetsSinkClient.populateCells(spreadsheetId, spreadsheetName, sheetTitles,
         contentRequests, mergeRequests);
     } finally {
-      threadsSemaphore.release();
+      threadsLimiter.release();
       return null;
     }
   }
@@ -18,10 +18,14 @@ package io.cdap.plugin.google.sheets.source;
 
 import com.github.rholder.retry.RetryException;
 import com.google.api.services.drive.model.File;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
 import com.google.gson.reflect.TypeToken;
 import io.cdap.plugin.google.common.GoogleDriveFilteringClient;
 import io.cdap.plugin.google.common.utils.ExportedType;
 import io.cdap.plugin.google.sheets.source.utils.MetadataKeyValueAddress;
+import io.cdap.plugin.google.sheets.source.utils.SheetsToPull;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -33,15 +37,18 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 /**
  * Input format class which generates splits for each query.
  */
 public class GoogleSheetsInputFormat extends InputFormat {
+  // rough size of a cell in the sheet, the estimate only orders splits
+  static final long ESTIMATED_CELL_SIZE = 16;
 
   @Override
   public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
@@ -57,18 +64,59 @@ public class GoogleSheetsInputFormat extends InputFormat {
         GoogleSheetsInputFormatProvider.GSON.fromJson(headersJson, headersType);
 
     // get all sheets files according to filter
-    GoogleDriveFilteringClient driveFilteringClient = new GoogleDriveFilteringClient(googleSheetsSourceConfig);
     List<File> spreadsheetsFiles;
-    try {
+    List<Long> estimatedLengths;
+    try (GoogleDriveFilteringClient driveFilteringClient = new GoogleDriveFilteringClient(googleSheetsSourceConfig);
+         GoogleSheetsSourceClient sheetsSourceClient = new GoogleSheetsSourceClient(googleSheetsSourceConfig)) {
       spreadsheetsFiles = driveFilteringClient.getFilesSummary(Collections.singletonList(ExportedType.SPREADSHEETS));
+      SheetsToPull sheetsToPull = googleSheetsSourceConfig.getSheetsToPull();
+      List<String> sheetsIdentifiers = SheetsToPull.ALL.equals(sheetsToPull) ?
+        Collections.emptyList() : googleSheetsSourceConfig.getSheetsIdentifiers();
+      List<Callable<Long>> estimations = new ArrayList<>();
+      for (File file : spreadsheetsFiles) {
+        estimations.add(() -> estimateSize(sheetsSourceClient.getSheets(file.getId()), sheetsToPull,
+                                           sheetsIdentifiers));
+      }
+      estimatedLengths = GoogleDriveFilteringClient.runInParallel(estimations);
     } catch (ExecutionException | RetryException e) {
       throw new RuntimeException("Failure of getting info about source spreadsheets.", e);
     }
-    return getSplitsFromFiles(googleSheetsSourceConfig, spreadsheetsFiles, resolvedHeaders);
+    return getSplitsFromFiles(googleSheetsSourceConfig, spreadsheetsFiles, estimatedLengths, resolvedHeaders);
+  }
+
+  /**
+   * Estimates the size of the pulled sheets by their grid dimensions.
+   * @param sheets the sheets of the spreadsheet are provided with
+   * @param sheetsToPull the sheets selection is provided with
+   * @param sheetsIdentifiers the titles or numbers of the selected sheets are provided with
+   * @return The estimated size in bytes
+   */
+  static long estimateSize(List<Sheet> sheets, SheetsToPull sheetsToPull, List<String> sheetsIdentifiers) {
+    long cells = 0L;
+    for (Sheet sheet : sheets) {
+      SheetProperties properties = sheet.getProperties();
+      boolean isPulled;
+      switch (sheetsToPull) {
+        case TITLES:
+          isPulled = sheetsIdentifiers.contains(properties.getTitle());
+          break;
+        case NUMBERS:
+          isPulled = sheetsIdentifiers.contains(String.valueOf(properties.getIndex()));
+          break;
+        default:
+          isPulled = true;
+      }
+      GridProperties gridProperties = properties.getGridProperties();
+      if (isPulled && gridProperties != null && gridProperties.getRowCount() != null
+        && gridProperties.getColumnCount() != null) {
+        cells += (long) gridProperties.getRowCount() * gridProperties.getColumnCount();
+      }
+    }
+    return cells * ESTIMATED_CELL_SIZE;
   }
 
   private List<InputSplit> getSplitsFromFiles(GoogleSheetsSourceConfig googleSheetsSourceConfig,
-                                              List<File> files,
+                                              List<File> files, List<Long> estimatedLengths,
                                               Map<Integer, Map<String, List<String>>> resolvedHeaders) {
     List<InputSplit> splits = new ArrayList<>();
     String resolvedHeadersJson =
@@ -78,9 +126,12 @@ public class GoogleSheetsInputFormat extends InputFormat {
     String metadataCoordinatesJson =
         GoogleSheetsInputFormatProvider.GSON.toJson(metadataCoordinates);
 
-    splits.addAll(files.stream().map(f ->
-        new GoogleSheetsSplit(f.getId(), resolvedHeadersJson, metadataCoordinatesJson))
-        .collect(Collectors.toList()));
+    for (int i = 0; i < files.size(); i++) {
+      splits.add(new GoogleSheetsSplit(files.get(i).getId(), resolvedHeadersJson, metadataCoordinatesJson,
+                                       estimatedLengths.get(i)));
+    }
+    // the largest spreadsheets start first, so they don't end up last on a single executor
+    splits.sort(Comparator.comparingLong(s -> ((GoogleSheetsSplit) s).getLength()).reversed());
     return splits;
   }
 
@@ -204,7 +204,9 @@ public class GoogleSheetsRecordReader extends RecordReader<NullWritable, Structu
 
   @Override
   public void close() {
-
+    if (googleSheetsSourceClient != null) {
+      googleSheetsSourceClient.close();
+    }
   }
 
   /**
@@ -27,9 +27,12 @@ import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.plugin.common.LineageRecorder;
+import io.cdap.plugin.google.common.ApiCallMetrics;
 import org.apache.hadoop.io.NullWritable;
 
 import java.util.stream.Collectors;
@@ -44,6 +47,9 @@ public class GoogleSheetsSource extends BatchSource<NullWritable, StructuredReco
   public static final String NAME = "GoogleSheets";
 
   private final GoogleSheetsSourceConfig config;
+  private StageMetrics metrics;
+  private ApiCallMetrics callMetrics;
+  private ApiCallMetrics runCallMetrics;
 
   public GoogleSheetsSource(GoogleSheetsSourceConfig config) {
     this.config = config;
@@ -60,20 +66,51 @@ public class GoogleSheetsSource extends BatchSource<NullWritable, StructuredReco
 
   @Override
   public void prepareRun(BatchSourceContext context) {
-    FailureCollector failureCollector = context.getFailureCollector();
-    config.validate(failureCollector);
-    failureCollector.getOrThrowException();
+    // released when the run is finished, or here if the run could not be prepared
+    runCallMetrics = ApiCallMetrics.acquire(config.getReferenceName(), context.getMetrics());
+    boolean prepared = false;
+    try {
+      FailureCollector failureCollector = context.getFailureCollector();
+      config.validate(failureCollector);
+      failureCollector.getOrThrowException();
 
-    Schema configSchema = config.getSchema(failureCollector);
-    LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
-    lineageRecorder.createExternalDataset(configSchema);
-    lineageRecorder.recordRead("Read", "Reading Google Sheets files",
-                               Preconditions.checkNotNull(configSchema.getFields()).stream()
-                                 .map(Schema.Field::getName)
-                                 .collect(Collectors.toList()));
+      Schema configSchema = config.getSchema(failureCollector);
+      LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
+      lineageRecorder.createExternalDataset(configSchema);
+      lineageRecorder.recordRead("Read", "Reading Google Sheets files",
+                                 Preconditions.checkNotNull(configSchema.getFields()).stream()
+                                   .map(Schema.Field::getName)
+                                   .collect(Collectors.toList()));
+
+      context.setInput(Input.of(config.getReferenceName(),
+                                new GoogleSheetsInputFormatProvider(config, configSchema.toString())));
+      // calls made while the run was prepared, worker calls are flushed by each worker
+      runCallMetrics.flush(context.getMetrics());
+      prepared = true;
+    } finally {
+      if (!prepared) {
+        runCallMetrics.release();
+        runCallMetrics = null;
+      }
+    }
+  }
+
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSourceContext context) {
+    super.onRunFinish(succeeded, context);
+    // calls made while splits were planned
+    if (runCallMetrics != null) {
+      runCallMetrics.flush(context.getMetrics());
+      runCallMetrics.release();
+      runCallMetrics = null;
+    }
+  }
 
-    context.setInput(Input.of(config.getReferenceName(),
-                              new GoogleSheetsInputFormatProvider(config, configSchema.toString())));
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    metrics = context.getMetrics();
+    callMetrics = ApiCallMetrics.acquire(config.getReferenceName(), metrics);
   }
 
   @Override
@@ -82,5 +119,17 @@ public class GoogleSheetsSource extends BatchSource<NullWritable, StructuredReco
     if (record != null) {
       emitter.emit(record);
     }
+    callMetrics.flushIfDue(metrics);
+  }
+
+  @Override
+  public void destroy() {
+    if (callMetrics != null) {
+      callMetrics.flush(metrics);
+      // calls of clients which are closed after the stage, such as record writers, are reported by the last of them
+      callMetrics.release();
+      callMetrics = null;
+    }
+    super.destroy();
   }
 }
@@ -26,7 +26,7 @@ import com.google.api.services.sheets.v4.model.GridRange;
 import com.google.api.services.sheets.v4.model.RowData;
 import com.google.api.services.sheets.v4.model.Sheet;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
-import io.cdap.plugin.google.common.APIRequestRetryer;
+import io.cdap.plugin.google.common.ApiOperation;
 import io.cdap.plugin.google.sheets.common.GoogleSheetsClient;
 import io.cdap.plugin.google.sheets.source.utils.CellCoordinate;
 import io.cdap.plugin.google.sheets.source.utils.ColumnAddressConverter;
@@ -54,6 +54,8 @@ import java.util.stream.Collectors;
  */
 public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSourceConfig> {
   private static final Logger LOG = LoggerFactory.getLogger(GoogleSheetsSourceClient.class);
+  // only sheet properties are read, so merges, charts, filters and other sheet content are not transferred
+  private static final String SHEET_PROPERTIES_FIELDS = "sheets(properties(sheetId,title,index,gridProperties))";
 
   public GoogleSheetsSourceClient(GoogleSheetsSourceConfig config) throws IOException {
     super(config);
@@ -65,7 +67,7 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
   }
 
   /**
-   * Returns the list of Sheet.
+   * Returns the list of Sheet, only sheet properties are set.
    *
    * @param spreadsheetId The spread sheet id is provided
    * @return The list of Sheet
@@ -74,10 +76,11 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
    */
   public List<com.google.api.services.sheets.v4.model.Sheet> getSheets(String spreadsheetId)
     throws ExecutionException, RetryException {
-    Retryer<List<com.google.api.services.sheets.v4.model.Sheet>> sheetsRetryer = APIRequestRetryer.getRetryer(
+    Retryer<List<com.google.api.services.sheets.v4.model.Sheet>> sheetsRetryer = getRetryer(
       String.format("Get spreadsheet, id: '%s'.", spreadsheetId));
     return sheetsRetryer.call(() -> {
-      Spreadsheet spreadsheet = service.spreadsheets().get(spreadsheetId).execute();
+      Spreadsheet spreadsheet = execute(ApiOperation.SPREADSHEETS_GET, service.spreadsheets().get(spreadsheetId)
+        .setFields(SHEET_PROPERTIES_FIELDS));
       return spreadsheet.getSheets();
     });
   }
@@ -93,10 +96,11 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
    */
   public List<String> getSheetsTitles(String spreadsheetId, List<Integer> indexes)
     throws ExecutionException, RetryException {
-    Retryer<List<String>> sheetTitlesRetryer = APIRequestRetryer.getRetryer(
+    Retryer<List<String>> sheetTitlesRetryer = getRetryer(
       String.format("Get sheet titles, spreadsheet id: '%s'.", spreadsheetId));
     return sheetTitlesRetryer.call(() -> {
-      Spreadsheet spreadsheet = service.spreadsheets().get(spreadsheetId).execute();
+      Spreadsheet spreadsheet = execute(ApiOperation.SPREADSHEETS_GET, service.spreadsheets().get(spreadsheetId)
+        .setFields(SHEET_PROPERTIES_FIELDS));
       return spreadsheet.getSheets().stream().filter(s -> indexes.contains(s.getProperties().getIndex()))
         .map(s -> s.getProperties().getTitle()).collect(Collectors.toList());
     });
@@ -111,10 +115,11 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
    * @throws RetryException if there was an error getting the column information for the retry
    */
   public List<String> getSheetsTitles(String spreadsheetId) throws ExecutionException, RetryException {
-    Retryer<List<String>> sheetsTitlesRetryer = APIRequestRetryer.getRetryer(
+    Retryer<List<String>> sheetsTitlesRetryer = getRetryer(
       String.format("Get sheet titles, spreadsheet id: '%s'.", spreadsheetId));
     return sheetsTitlesRetryer.call(() -> {
-      Spreadsheet spreadsheet = service.spreadsheets().get(spreadsheetId).execute();
+      Spreadsheet spreadsheet = execute(ApiOperation.SPREADSHEETS_GET, service.spreadsheets().get(spreadsheetId)
+        .setFields(SHEET_PROPERTIES_FIELDS));
       return spreadsheet.getSheets().stream().map(s -> s.getProperties().getTitle()).collect(Collectors.toList());
     });
   }
@@ -143,10 +148,10 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
     Sheets.Spreadsheets.Get contentRequest =
       prepareContentRequest(spreadsheetId, sheetTitle, rowNumber, length, metadataCoordinates);
 
-    Retryer<Spreadsheet> contentRetryer = APIRequestRetryer.getRetryer(
+    Retryer<Spreadsheet> contentRetryer = getRetryer(
       String.format("Get content, spreadsheet id: '%s', sheet title: '%s', row number: '%d'.",
         spreadsheetId, sheetTitle, rowNumber));
-    Spreadsheet spreadsheet = contentRetryer.call(() -> contentRequest.execute());
+    Spreadsheet spreadsheet = contentRetryer.call(() -> execute(ApiOperation.SPREADSHEETS_GET, contentRequest));
     checkSingleSheetRetrieved(spreadsheet);
 
     Sheet resultSheet = spreadsheet.getSheets().get(0);
@@ -277,8 +282,9 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
       Sheets.Spreadsheets.Get headCellsRequest = service.spreadsheets().get(spreadsheetId);
       headCellsRequest.setRanges(rangesToCall);
       headCellsRequest.setIncludeGridData(true);
-      Retryer<Spreadsheet> headCellsRetryer = APIRequestRetryer.getRetryer("Get additional cells for merge resolving.");
-      Spreadsheet headesSpreadsheet = headCellsRetryer.call(() -> headCellsRequest.execute());
+      Retryer<Spreadsheet> headCellsRetryer = getRetryer("Get additional cells for merge resolving.");
+      Spreadsheet headesSpreadsheet = headCellsRetryer.call(
+        () -> execute(ApiOperation.SPREADSHEETS_GET, headCellsRequest));
       checkSingleSheetRetrieved(headesSpreadsheet);
 
       Sheet headsSheet = headesSpreadsheet.getSheets().get(0);
@@ -496,7 +502,7 @@ public class GoogleSheetsSourceClient extends GoogleSheetsClient<GoogleSheetsSou
       .collect(Collectors.toList());
     request.setRanges(ranges);
     request.setIncludeGridData(true);
-    Spreadsheet response = request.execute();
+    Spreadsheet response = execute(ApiOperation.SPREADSHEETS_GET, request);
     checkSingleSheetRetrieved(response);
 
     List<GridData> grids = response.getSheets().get(0).getData();
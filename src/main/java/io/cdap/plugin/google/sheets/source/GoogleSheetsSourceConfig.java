@@ -315,44 +315,13 @@ public class GoogleSheetsSourceConfig extends GoogleFilteringSourceConfig {
     validateSpreadsheetAndSheetFieldNames(collector);
 
     if (collector.getValidationFailures().isEmpty() && validationResult.isDirectoryOrFileAccessible()) {
-      GoogleDriveFilteringClient driveClient;
-      GoogleSheetsSourceClient sheetsSourceClient;
-      try {
-        driveClient = new GoogleDriveFilteringClient(this);
-        sheetsSourceClient = new GoogleSheetsSourceClient(this);
+      try (GoogleDriveFilteringClient driveClient = new GoogleDriveFilteringClient(this);
+           GoogleSheetsSourceClient sheetsSourceClient = new GoogleSheetsSourceClient(this)) {
+        validateSpreadsheets(collector, driveClient, sheetsSourceClient);
       } catch (IOException e) {
         collector.addFailure("Exception during drive and sheets connections instantiating.", null);
         return validationResult;
       }
-      List<File> spreadsheetsFiles = null;
-      try {
-        spreadsheetsFiles = driveClient
-          .getFilesSummary(Collections.singletonList(ExportedType.SPREADSHEETS), 1);
-      } catch (ExecutionException | RetryException e) {
-        collector.addFailure(
-          String.format("Failed to get spreadsheet file summary due to reason : %s", e.getMessage()),
-                        null).withStacktrace(e.getStackTrace());
-        return validationResult;
-      }
-
-      // validate source folder is not empty
-      validateSourceFolder(collector, spreadsheetsFiles);
-
-      try {
-        // validate titles/numbers set
-        validateSheetIdentifiers(collector, sheetsSourceClient, spreadsheetsFiles);
-
-        // validate all sheets have the same schema
-        getAndValidateSheetSchema(collector, sheetsSourceClient, spreadsheetsFiles);
-      } catch (ExecutionException | RetryException e) {
-        String message = e.getMessage();
-        if (e.getCause() instanceof GoogleJsonResponseException) {
-          GoogleJsonResponseException cause = (GoogleJsonResponseException) e.getCause();
-          message = cause.getDetails().getMessage();
-        }
-        collector.addFailure(String.format(message), null)
-                .withStacktrace(e.getStackTrace());
-      }
     }
 
     // validate metadata
@@ -360,6 +329,39 @@ public class GoogleSheetsSourceConfig extends GoogleFilteringSourceConfig {
     return validationResult;
   }
 
+  private void validateSpreadsheets(FailureCollector collector, GoogleDriveFilteringClient driveClient,
+                                    GoogleSheetsSourceClient sheetsSourceClient) {
+    List<File> spreadsheetsFiles = null;
+    try {
+      spreadsheetsFiles = driveClient
+        .getFilesSummary(Collections.singletonList(ExportedType.SPREADSHEETS), 1);
+    } catch (ExecutionException | RetryException e) {
+      collector.addFailure(
+        String.format("Failed to get spreadsheet file summary due to reason : %s", e.getMessage()),
+                      null).withStacktrace(e.getStackTrace());
+      return;
+    }
+
+    // validate source folder is not empty
+    validateSourceFolder(collector, spreadsheetsFiles);
+
+    try {
+      // validate titles/numbers set
+      validateSheetIdentifiers(collector, sheetsSourceClient, spreadsheetsFiles);
+
+      // validate all sheets have the same schema
+      getAndValidateSheetSchema(collector, sheetsSourceClient, spreadsheetsFiles);
+    } catch (ExecutionException | RetryException e) {
+      String message = e.getMessage();
+      if (e.getCause() instanceof GoogleJsonResponseException) {
+        GoogleJsonResponseException cause = (GoogleJsonResponseException) e.getCause();
+        message = cause.getDetails().getMessage();
+      }
+      collector.addFailure(String.format(message), null)
+              .withStacktrace(e.getStackTrace());
+    }
+  }
+
   private void validateColumnNamesRow(FailureCollector collector) {
     if (!containsMacro(COLUMN_NAMES_SELECTION)) {
       try {
@@ -1110,6 +1112,14 @@ public class GoogleSheetsSourceConfig extends GoogleFilteringSourceConfig {
     this.filter = filter;
   }
 
+  public void setRecursive(Boolean recursive) {
+    this.recursive = recursive;
+  }
+
+  public void setMaxDepth(Integer maxDepth) {
+    this.maxDepth = maxDepth;
+  }
+
   public void setModificationDateRange(String modificationDateRange) {
     this.modificationDateRange = modificationDateRange;
   }
@@ -1231,6 +1241,16 @@ public class GoogleSheetsSourceConfig extends GoogleFilteringSourceConfig {
         properties.get(GoogleSheetsSourceConfig.FILTER).getAsString());
     }
 
+    if (properties.has(GoogleSheetsSourceConfig.RECURSIVE)) {
+      googleSheetsSourceConfig.setRecursive(
+        Boolean.valueOf(properties.get(GoogleSheetsSourceConfig.RECURSIVE).getAsString()));
+    }
+
+    if (properties.has(GoogleSheetsSourceConfig.MAX_DEPTH)) {
+      googleSheetsSourceConfig.setMaxDepth(
+        Integer.valueOf(properties.get(GoogleSheetsSourceConfig.MAX_DEPTH).getAsString()));
+    }
+
     if (properties.has(GoogleSheetsSourceConfig.MODIFICATION_DATE_RANGE)) {
       googleSheetsSourceConfig.setModificationDateRange(
         properties.get(GoogleSheetsSourceConfig.MODIFICATION_DATE_RANGE).getAsString());
@@ -1305,6 +1325,22 @@ public class GoogleSheetsSourceConfig extends GoogleFilteringSourceConfig {
         properties.get(GoogleSheetsSourceConfig.AUTO_DETECT_ROWS_AND_COLUMNS).getAsBoolean());
     }
 
+    if (properties.has(GoogleSheetsSourceConfig.USER_READ_REQUESTS_QUOTA)) {
+      googleSheetsSourceConfig.setUserReadRequestsQuota(
+        Integer.valueOf(properties.get(GoogleSheetsSourceConfig.USER_READ_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleSheetsSourceConfig.USER_WRITE_REQUESTS_QUOTA)) {
+      googleSheetsSourceConfig.setUserWriteRequestsQuota(
+        Integer.valueOf(properties.get(GoogleSheetsSourceConfig.USER_WRITE_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleSheetsSourceConfig.PROJECT_READ_REQUESTS_QUOTA)) {
+      googleSheetsSourceConfig.setProjectReadRequestsQuota(
+        Integer.valueOf(properties.get(GoogleSheetsSourceConfig.PROJECT_READ_REQUESTS_QUOTA).getAsString()));
+    }
+    if (properties.has(GoogleSheetsSourceConfig.PROJECT_WRITE_REQUESTS_QUOTA)) {
+      googleSheetsSourceConfig.setProjectWriteRequestsQuota(
+        Integer.valueOf(properties.get(GoogleSheetsSourceConfig.PROJECT_WRITE_REQUESTS_QUOTA).getAsString()));
+    }
     return googleSheetsSourceConfig;
   }
 }
@@ -30,6 +30,7 @@ public class GoogleSheetsSplit extends InputSplit implements Writable {
   private String fileId;
   private String headers;
   private String metadates;
+  private long estimatedLength;
 
   @SuppressWarnings("unused")
   public GoogleSheetsSplit() {
@@ -41,11 +42,13 @@ public class GoogleSheetsSplit extends InputSplit implements Writable {
    * @param fileId the file id
    * @param headers the headers
    * @param metadates the meta dates
+   * @param estimatedLength the estimated size of the pulled sheets in bytes
    */
-  public GoogleSheetsSplit(String fileId, String headers, String metadates) {
+  public GoogleSheetsSplit(String fileId, String headers, String metadates, long estimatedLength) {
     this.fileId = fileId;
     this.headers = headers;
     this.metadates = metadates;
+    this.estimatedLength = estimatedLength;
   }
 
   @Override
@@ -53,6 +56,7 @@ public class GoogleSheetsSplit extends InputSplit implements Writable {
     fileId = dataInput.readUTF();
     headers = dataInput.readUTF();
     metadates = dataInput.readUTF();
+    estimatedLength = dataInput.readLong();
   }
 
   @Override
@@ -60,11 +64,12 @@ public class GoogleSheetsSplit extends InputSplit implements Writable {
     dataOutput.writeUTF(fileId);
     dataOutput.writeUTF(headers);
     dataOutput.writeUTF(metadates);
+    dataOutput.writeLong(estimatedLength);
   }
 
   @Override
   public long getLength() {
-    return 0;
+    return estimatedLength;
   }
 
   @Override
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import io.cdap.cdap.api.metrics.Metrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ApiCallMetricsTest {
+
+  @Test
+  public void testRecordAndFlushDeltas() {
+    ApiCallMetrics callMetrics = ApiCallMetrics.newInstance();
+    ApiCallMetrics.OperationMetrics filesGet = callMetrics.get(ApiOperation.FILES_GET);
+    filesGet.record(30, 0, 512, false, false, false);
+    filesGet.record(300, 0, 0, true, true, false);
+    filesGet.record(40000, 0, 1024, false, false, true);
+
+    Assert.assertEquals(3, filesGet.getCalls());
+    Assert.assertEquals(1, filesGet.getFailures());
+    Assert.assertEquals(1, filesGet.getThrottles());
+    Assert.assertEquals(1, filesGet.getRetries());
+    Assert.assertEquals(1536, filesGet.getResponseBytes());
+    Assert.assertEquals(500, filesGet.getLatencyPercentileBound(0.5));
+    Assert.assertEquals(-1, filesGet.getLatencyPercentileBound(0.95));
+
+    RecordingMetrics metrics = new RecordingMetrics();
+    callMetrics.flush(metrics);
+    Assert.assertEquals(Integer.valueOf(3), metrics.counts.get("api.files.get.calls"));
+    Assert.assertEquals(Integer.valueOf(1), metrics.counts.get("api.files.get.latency.le.50ms"));
+    Assert.assertEquals(Integer.valueOf(1), metrics.counts.get("api.files.get.latency.le.500ms"));
+    Assert.assertEquals(Integer.valueOf(1), metrics.counts.get("api.files.get.latency.gt.30000ms"));
+    Assert.assertFalse(metrics.counts.containsKey("api.files.list.calls"));
+
+    filesGet.record(10, 0, 0, false, false, false);
+    metrics.counts.clear();
+    callMetrics.flush(metrics);
+    Assert.assertEquals(Integer.valueOf(1), metrics.counts.get("api.files.get.calls"));
+    Assert.assertFalse(metrics.counts.containsKey("api.files.get.failures"));
+  }
+
+  @Test
+  public void testInstancePerStage() {
+    ApiCallMetrics stage = ApiCallMetrics.acquire("stage");
+    ApiCallMetrics sameStage = ApiCallMetrics.acquire("stage");
+    ApiCallMetrics otherStage = ApiCallMetrics.acquire("otherStage");
+    try {
+      Assert.assertSame(stage, sameStage);
+      Assert.assertNotSame(stage, otherStage);
+      Assert.assertEquals("no API calls", stage.getSummary());
+    } finally {
+      stage.release();
+      sameStage.release();
+      otherStage.release();
+    }
+  }
+
+  @Test
+  public void testLastReleaseReportsCallsAndDropsStatistics() {
+    RecordingMetrics metrics = new RecordingMetrics();
+    ApiCallMetrics stage = ApiCallMetrics.acquire("writerStage", metrics);
+    ApiCallMetrics writer = ApiCallMetrics.acquire("writerStage");
+    Assert.assertSame(stage, writer);
+    writer.get(ApiOperation.SPREADSHEETS_BATCH_UPDATE).record(10, 0, 0, false, false, false);
+    stage.flush(metrics);
+    stage.release();
+
+    // the writer is closed after the stage was destroyed
+    writer.get(ApiOperation.SPREADSHEETS_BATCH_UPDATE).record(10, 0, 0, false, false, false);
+    writer.release();
+    Assert.assertEquals(Integer.valueOf(2), metrics.counts.get("api.spreadsheets.batchUpdate.calls"));
+
+    // the next run starts with new statistics
+    RecordingMetrics nextMetrics = new RecordingMetrics();
+    ApiCallMetrics nextStage = ApiCallMetrics.acquire("writerStage", nextMetrics);
+    try {
+      Assert.assertNotSame(stage, nextStage);
+      Assert.assertFalse(nextStage.hasCalls());
+      nextStage.get(ApiOperation.SPREADSHEETS_BATCH_UPDATE).record(10, 0, 0, false, false, false);
+      nextStage.flush(nextMetrics);
+      Assert.assertEquals(Integer.valueOf(1), nextMetrics.counts.get("api.spreadsheets.batchUpdate.calls"));
+    } finally {
+      nextStage.release();
+    }
+  }
+
+  @Test
+  public void testNewInstanceIsNotShared() {
+    ApiCallMetrics clientMetrics = ApiCallMetrics.newInstance();
+    Assert.assertNotSame(clientMetrics, ApiCallMetrics.newInstance());
+    Assert.assertFalse(clientMetrics.hasCalls());
+    clientMetrics.get(ApiOperation.FILES_LIST).record(10, 0, 0, false, false, false);
+    Assert.assertTrue(clientMetrics.hasCalls());
+    Assert.assertFalse(ApiCallMetrics.newInstance().hasCalls());
+  }
+
+  private static class RecordingMetrics implements Metrics {
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    @Override
+    public void count(String metricName, int delta) {
+      counts.merge(metricName, delta, Integer::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,1845 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.sheets.v4.model.AddSheetResponse;
+import com.google.api.services.sheets.v4.model.AppendDimensionRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetResponse;
+import com.google.api.services.sheets.v4.model.CellData;
+import com.google.api.services.sheets.v4.model.ExtendedValue;
+import com.google.api.services.sheets.v4.model.GridCoordinate;
+import com.google.api.services.sheets.v4.model.GridData;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.Response;
+import com.google.api.services.sheets.v4.model.RowData;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import com.google.api.services.sheets.v4.model.SpreadsheetProperties;
+import com.google.api.services.sheets.v4.model.UpdateCellsRequest;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Bytes;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.cdap.plugin.google.sheets.source.utils.ColumnAddressConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * In-process HTTP stand-in for the subset of Google Drive v3 and Google Sheets v4 APIs used by the plugins:
+ * files list/get/export/create/update with range media downloads and resumable/multipart uploads,
+ * spreadsheets get with ranges and grid data, spreadsheets create and batchUpdate.
+ * <p>
+ * Clients are pointed to the server with {@link #bindClients()}, which sets
+ * {@link GoogleApiClientPool#ROOT_URL_PROPERTY}; configs should use {@link OAuthMethod#ACCESS_TOKEN} with any token.
+ * Latency, request quota and errors can be configured for each test.
+ */
+public class FakeGoogleApiServer implements Closeable {
+  public static final String ACCESS_TOKEN = "fake-access-token";
+  public static final String ROOT_FOLDER_ID = "root";
+  public static final int DEFAULT_ROW_COUNT = 1000;
+  public static final int DEFAULT_COLUMN_COUNT = 26;
+
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+  private static final Gson GSON = new Gson();
+  private static final String FOLDER_MIME = "application/vnd.google-apps.folder";
+  private static final String SHORTCUT_MIME = "application/vnd.google-apps.shortcut";
+  private static final String SPREADSHEET_MIME = "application/vnd.google-apps.spreadsheet";
+  private static final String GOOGLE_FORMATS_PREFIX = "application/vnd.google-apps.";
+  private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+  private static final String DEFAULT_GET_FIELDS = "kind,id,name,mimeType";
+  private static final String DEFAULT_LIST_FIELDS = "kind,nextPageToken,incompleteSearch,files(kind,id,name,mimeType)";
+  private static final String DEFAULT_CHANGES_FIELDS =
+    "kind,nextPageToken,newStartPageToken,changes(kind,changeType,fileId,removed,file(kind,id,name,mimeType))";
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final Pattern FILE_PATH = Pattern.compile("/drive/v3/files/([^/]+)(/export)?");
+  private static final Pattern SPREADSHEET_PATH = Pattern.compile("/v4/spreadsheets/([^/:]+)(:batchUpdate)?");
+  private static final Pattern BYTES_RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+  private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+  private static final Pattern CELL_ADDRESS = Pattern.compile("([A-Za-z]*)(\\d*)");
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Object lock = new Object();
+  private final Map<String, StoredFile> files = new LinkedHashMap<>();
+  // ids of changed files in the order of changes, position + 1 is the page token of the change
+  private final List<String> changes = new ArrayList<>();
+  private final Map<String, StoredSpreadsheet> spreadsheets = new HashMap<>();
+  private final Map<String, UploadSession> uploads = new HashMap<>();
+  private final AtomicInteger idSequence = new AtomicInteger();
+  private final AtomicInteger sheetIdSequence = new AtomicInteger();
+
+  private final Map<ApiOperation, AtomicInteger> requestCounts = new EnumMap<>(ApiOperation.class);
+  private final Map<ApiOperation, InjectedErrors> injectedErrors = new EnumMap<>(ApiOperation.class);
+  private final AtomicLong responseBytes = new AtomicLong();
+  private final AtomicInteger throttledRequests = new AtomicInteger();
+  private volatile long latencyMillis;
+  private volatile int requestsPerSecondLimit;
+  private int droppedDownloads;
+  private int droppedDownloadBytes;
+  private int corruptedDownloads;
+  private final List<String> downloadRanges = new ArrayList<>();
+  private long quotaWindowStart;
+  private int quotaWindowRequests;
+  private String previousRootUrl;
+  private boolean clientsBound;
+
+  private FakeGoogleApiServer() throws IOException {
+    for (ApiOperation operation : ApiOperation.values()) {
+      requestCounts.put(operation, new AtomicInteger());
+    }
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "fake-google-api");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * Starts the server on a free port of the loopback interface.
+   *
+   * @return started server
+   * @throws IOException if the server can not be started
+   */
+  public static FakeGoogleApiServer start() throws IOException {
+    FakeGoogleApiServer fakeServer = new FakeGoogleApiServer();
+    fakeServer.server.start();
+    return fakeServer;
+  }
+
+  public String getRootUrl() {
+    return String.format("http://%s:%d/", server.getAddress().getAddress().getHostAddress(),
+                         server.getAddress().getPort());
+  }
+
+  /**
+   * Points all API clients created after the call to the server. The previous value is restored on {@link #close()}.
+   */
+  public void bindClients() {
+    if (!clientsBound) {
+      previousRootUrl = System.getProperty(GoogleApiClientPool.ROOT_URL_PROPERTY);
+      clientsBound = true;
+    }
+    System.setProperty(GoogleApiClientPool.ROOT_URL_PROPERTY, getRootUrl());
+  }
+
+  @Override
+  public void close() {
+    if (clientsBound) {
+      if (previousRootUrl == null) {
+        System.clearProperty(GoogleApiClientPool.ROOT_URL_PROPERTY);
+      } else {
+        System.setProperty(GoogleApiClientPool.ROOT_URL_PROPERTY, previousRootUrl);
+      }
+      clientsBound = false;
+    }
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  // ---------------------------------------------------------------------------------------------------------------
+  // Test data
+
+  /**
+   * Adds a folder.
+   *
+   * @param name name of the folder
+   * @param parentId id of the parent folder
+   * @return id of the folder
+   */
+  public String addFolder(String name, String parentId) {
+    return addFile(name, FOLDER_MIME, null, parentId, System.currentTimeMillis());
+  }
+
+  /**
+   * Adds a shortcut to a file or folder.
+   *
+   * @param name name of the shortcut
+   * @param targetId id of the file or folder the shortcut points to
+   * @param parentId id of the parent folder
+   * @return id of the shortcut
+   */
+  public String addShortcut(String name, String targetId, String parentId) {
+    synchronized (lock) {
+      String id = addFile(name, SHORTCUT_MIME, null, parentId);
+      Map<String, Object> shortcutDetails = new LinkedHashMap<>();
+      shortcutDetails.put("targetId", targetId);
+      shortcutDetails.put("targetMimeType", getExistingFile(targetId).file.getMimeType());
+      files.get(id).file.set("shortcutDetails", shortcutDetails);
+      return id;
+    }
+  }
+
+  /**
+   * Adds a file with content. Files in Google formats keep the content as their export result.
+   *
+   * @param name name of the file
+   * @param mimeType MIME type of the file
+   * @param content content of the file
+   * @param parentId id of the parent folder
+   * @return id of the file
+   */
+  public String addFile(String name, String mimeType, byte[] content, String parentId) {
+    return addFile(name, mimeType, content, parentId, System.currentTimeMillis());
+  }
+
+  /**
+   * Adds a file with content and the modification time.
+   *
+   * @param name name of the file
+   * @param mimeType MIME type of the file
+   * @param content content of the file
+   * @param parentId id of the parent folder
+   * @param modifiedTime modification time in milliseconds
+   * @return id of the file
+   */
+  public String addFile(String name, String mimeType, @Nullable byte[] content, String parentId, long modifiedTime) {
+    synchronized (lock) {
+      File file = new File()
+        .setKind("drive#file")
+        .setId(nextId("file"))
+        .setName(name)
+        .setMimeType(mimeType)
+        .setParents(new ArrayList<>(Collections.singletonList(parentId)))
+        .setTrashed(false)
+        .setCreatedTime(new DateTime(modifiedTime))
+        .setModifiedTime(new DateTime(modifiedTime));
+      byte[] fileContent = content == null ? new byte[0] : content;
+      if (!mimeType.startsWith(GOOGLE_FORMATS_PREFIX)) {
+        file.setSize((long) fileContent.length);
+        file.setMd5Checksum(Hashing.md5().hashBytes(fileContent).toString());
+      }
+      files.put(file.getId(), new StoredFile(file, fileContent));
+      changes.add(file.getId());
+      return file.getId();
+    }
+  }
+
+  /**
+   * Moves the file to another folder without changing its modification time.
+   *
+   * @param fileId id of the file
+   * @param parentId id of the new parent folder
+   */
+  public void moveFile(String fileId, String parentId) {
+    synchronized (lock) {
+      getExistingFile(fileId).file.setParents(new ArrayList<>(Collections.singletonList(parentId)));
+      changes.add(fileId);
+    }
+  }
+
+  /**
+   * Replaces content of the file and its modification time.
+   *
+   * @param fileId id of the file
+   * @param content new content of the file
+   * @param modifiedTime modification time in milliseconds
+   */
+  public void updateFile(String fileId, byte[] content, long modifiedTime) {
+    synchronized (lock) {
+      File file = getExistingFile(fileId).file;
+      file.setModifiedTime(new DateTime(modifiedTime));
+      if (!file.getMimeType().startsWith(GOOGLE_FORMATS_PREFIX)) {
+        file.setSize((long) content.length);
+        file.setMd5Checksum(Hashing.md5().hashBytes(content).toString());
+      }
+      files.put(fileId, new StoredFile(file, content.clone()));
+      changes.add(fileId);
+    }
+  }
+
+  /**
+   * Moves the file to trash.
+   *
+   * @param fileId id of the file
+   */
+  public void trashFile(String fileId) {
+    synchronized (lock) {
+      getExistingFile(fileId).file.setTrashed(true);
+      changes.add(fileId);
+    }
+  }
+
+  /**
+   * Adds a spreadsheet with single sheet filled with values.
+   *
+   * @param name name of the spreadsheet
+   * @param parentId id of the parent folder
+   * @param sheetTitle title of the sheet
+   * @param rows rows of values, supported types are String, Number and Boolean
+   * @return id of the spreadsheet
+   */
+  public String addSpreadsheet(String name, String parentId, String sheetTitle, List<List<Object>> rows) {
+    synchronized (lock) {
+      String id = addFile(name, SPREADSHEET_MIME, null, parentId);
+      StoredSpreadsheet spreadsheet = new StoredSpreadsheet(id, name);
+      StoredSheet sheet = spreadsheet.addSheet(sheetTitle, sheetIdSequence.getAndIncrement());
+      sheet.rowCount = Math.max(DEFAULT_ROW_COUNT, rows.size());
+      for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+        List<Object> values = rows.get(rowIndex);
+        for (int columnIndex = 0; columnIndex < values.size(); columnIndex++) {
+          sheet.setCell(rowIndex, columnIndex,
+                        new CellData().setUserEnteredValue(toExtendedValue(values.get(columnIndex))));
+        }
+      }
+      spreadsheets.put(id, spreadsheet);
+      return id;
+    }
+  }
+
+  /**
+   * Returns metadata of the file.
+   *
+   * @param fileId id of the file
+   * @return copy of the metadata or null if the file does not exist
+   */
+  @Nullable
+  public File getFile(String fileId) {
+    synchronized (lock) {
+      StoredFile storedFile = files.get(fileId);
+      return storedFile == null ? null : storedFile.file.clone();
+    }
+  }
+
+  @Nullable
+  public byte[] getFileContent(String fileId) {
+    synchronized (lock) {
+      StoredFile storedFile = files.get(fileId);
+      return storedFile == null ? null : storedFile.content.clone();
+    }
+  }
+
+  /**
+   * Returns files of the folder.
+   *
+   * @param folderId id of the folder
+   * @return copies of the metadata
+   */
+  public List<File> getChildren(String folderId) {
+    synchronized (lock) {
+      return files.values().stream()
+        .filter(f -> f.file.getParents() != null && f.file.getParents().contains(folderId))
+        .map(f -> f.file.clone())
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Returns formatted values of the sheet.
+   *
+   * @param spreadsheetId id of the spreadsheet
+   * @param sheetTitle title of the sheet
+   * @return rows of formatted values, empty cells are null
+   */
+  public List<List<String>> getSheetValues(String spreadsheetId, String sheetTitle) {
+    synchronized (lock) {
+      StoredSheet sheet = getExistingSheet(spreadsheetId, sheetTitle);
+      List<List<String>> values = new ArrayList<>();
+      for (List<CellData> row : sheet.rows) {
+        values.add(row.stream().map(c -> c == null ? null : c.getFormattedValue()).collect(Collectors.toList()));
+      }
+      return values;
+    }
+  }
+
+  public List<GridRange> getSheetMerges(String spreadsheetId, String sheetTitle) {
+    synchronized (lock) {
+      return new ArrayList<>(getExistingSheet(spreadsheetId, sheetTitle).merges);
+    }
+  }
+
+  public List<String> getSheetTitles(String spreadsheetId) {
+    synchronized (lock) {
+      StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+      if (spreadsheet == null) {
+        throw new IllegalArgumentException(String.format("Spreadsheet '%s' does not exist.", spreadsheetId));
+      }
+      return spreadsheet.sheets.stream().map(s -> s.title).collect(Collectors.toList());
+    }
+  }
+
+  private StoredSheet getExistingSheet(String spreadsheetId, String sheetTitle) {
+    StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+    StoredSheet sheet = spreadsheet == null ? null : spreadsheet.getSheet(sheetTitle);
+    if (sheet == null) {
+      throw new IllegalArgumentException(
+        String.format("Sheet '%s' of spreadsheet '%s' does not exist.", sheetTitle, spreadsheetId));
+    }
+    return sheet;
+  }
+
+  // ---------------------------------------------------------------------------------------------------------------
+  // Behaviour
+
+  /**
+   * Sets delay which is added to each response.
+   *
+   * @param latencyMillis delay in milliseconds
+   */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /**
+   * Limits the number of requests per second. Requests over the limit fail with 403 'Rate Limit Exceeded'.
+   *
+   * @param requestsPerSecondLimit maximal number of requests per second, 0 to disable the limit
+   */
+  public void setRequestsPerSecondLimit(int requestsPerSecondLimit) {
+    this.requestsPerSecondLimit = requestsPerSecondLimit;
+  }
+
+  /**
+   * Makes the next requests of the operation fail with the status code.
+   * 403 errors are returned as 'Rate Limit Exceeded', 500 as 'Backend Error', 503 as 'Service Unavailable'.
+   *
+   * @param operation failing operation
+   * @param statusCode HTTP status code of the error
+   * @param count number of requests to fail
+   */
+  public void injectErrors(ApiOperation operation, int statusCode, int count) {
+    injectErrors(operation, statusCode, count, 0);
+  }
+
+  /**
+   * Makes the requests of the operation fail with the status code after the number of successful requests.
+   *
+   * @param operation failing operation
+   * @param statusCode HTTP status code of the error
+   * @param count number of requests to fail
+   * @param skipped number of requests to succeed before the failures
+   */
+  public void injectErrors(ApiOperation operation, int statusCode, int count, int skipped) {
+    synchronized (lock) {
+      injectedErrors.put(operation, new InjectedErrors(statusCode, count, skipped));
+    }
+  }
+
+  /**
+   * Makes the next media downloads close the connection after sending a part of the content.
+   *
+   * @param count number of downloads to drop
+   * @param bytesSent number of content bytes sent before the connection is closed
+   */
+  public void dropDownloads(int count, int bytesSent) {
+    synchronized (lock) {
+      droppedDownloads = count;
+      droppedDownloadBytes = bytesSent;
+    }
+  }
+
+  /**
+   * Makes the next media downloads send content with the first byte changed.
+   *
+   * @param count number of downloads to corrupt
+   */
+  public void corruptDownloads(int count) {
+    synchronized (lock) {
+      corruptedDownloads = count;
+    }
+  }
+
+  /**
+   * Returns Range headers of media downloads in the order of requests, downloads without the header are
+   * returned as empty strings.
+   *
+   * @return list of ranges
+   */
+  public List<String> getDownloadRanges() {
+    synchronized (lock) {
+      return new ArrayList<>(downloadRanges);
+    }
+  }
+
+  public int getRequestCount(ApiOperation operation) {
+    return requestCounts.get(operation).get();
+  }
+
+  public int getRequestCount() {
+    return requestCounts.values().stream().mapToInt(AtomicInteger::get).sum();
+  }
+
+  public int getThrottledRequests() {
+    return throttledRequests.get();
+  }
+
+  public long getResponseBytes() {
+    return responseBytes.get();
+  }
+
+  /**
+   * Resets request statistics, injected errors and limits.
+   */
+  public void reset() {
+    synchronized (lock) {
+      requestCounts.values().forEach(c -> c.set(0));
+      injectedErrors.clear();
+      droppedDownloads = 0;
+      corruptedDownloads = 0;
+      downloadRanges.clear();
+      responseBytes.set(0);
+      throttledRequests.set(0);
+      latencyMillis = 0;
+      requestsPerSecondLimit = 0;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------------------------------------
+  // Request handling
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (latencyMillis > 0) {
+        TimeUnit.MILLISECONDS.sleep(latencyMillis);
+      }
+      dispatch(new Call(exchange));
+    } catch (ApiError e) {
+      sendError(exchange, e.statusCode, e.getMessage(), e.reason);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      sendError(exchange, 503, "Service Unavailable", "backendError");
+    } catch (RuntimeException e) {
+      sendError(exchange, 500, "Backend Error: " + e, "backendError");
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void dispatch(Call call) throws IOException {
+    String authorization = call.exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      throw new ApiError(401, "Request is missing required authentication credential.", "authError");
+    }
+
+    String path = call.path;
+    Matcher fileMatcher = FILE_PATH.matcher(path);
+    Matcher spreadsheetMatcher = SPREADSHEET_PATH.matcher(path);
+    if (path.equals("/drive/v3/files") && call.method.equals("GET")) {
+      checkRequest(call, ApiOperation.FILES_LIST);
+      listFiles(call);
+    } else if (path.equals("/drive/v3/changes/startPageToken") && call.method.equals("GET")) {
+      checkRequest(call, ApiOperation.CHANGES_GET_START_PAGE_TOKEN);
+      getStartPageToken(call);
+    } else if (path.equals("/drive/v3/changes") && call.method.equals("GET")) {
+      checkRequest(call, ApiOperation.CHANGES_LIST);
+      listChanges(call);
+    } else if ((path.equals("/drive/v3/files") || path.equals("/upload/drive/v3/files"))
+      && call.method.equals("POST")) {
+      checkRequest(call, ApiOperation.FILES_CREATE);
+      createFile(call);
+    } else if (path.equals("/upload/drive/v3/files") && call.method.equals("PUT")) {
+      checkRequest(call, ApiOperation.FILES_CREATE);
+      uploadChunk(call);
+    } else if (fileMatcher.matches() && fileMatcher.group(2) != null && call.method.equals("GET")) {
+      checkRequest(call, ApiOperation.FILES_EXPORT);
+      exportFile(call, fileMatcher.group(1));
+    } else if (fileMatcher.matches() && call.method.equals("GET")) {
+      boolean media = "media".equals(call.getParameter("alt"));
+      checkRequest(call, media ? ApiOperation.FILES_DOWNLOAD : ApiOperation.FILES_GET);
+      if (media) {
+        downloadFile(call, fileMatcher.group(1));
+      } else {
+        getFile(call, fileMatcher.group(1));
+      }
+    } else if (fileMatcher.matches() && call.method.equals("PATCH")) {
+      checkRequest(call, ApiOperation.FILES_UPDATE);
+      updateFile(call, fileMatcher.group(1));
+    } else if (path.equals("/v4/spreadsheets") && call.method.equals("POST")) {
+      checkRequest(call, ApiOperation.SPREADSHEETS_CREATE);
+      createSpreadsheet(call);
+    } else if (spreadsheetMatcher.matches() && spreadsheetMatcher.group(2) != null && call.method.equals("POST")) {
+      checkRequest(call, ApiOperation.SPREADSHEETS_BATCH_UPDATE);
+      batchUpdate(call, spreadsheetMatcher.group(1));
+    } else if (spreadsheetMatcher.matches() && call.method.equals("GET")) {
+      checkRequest(call, ApiOperation.SPREADSHEETS_GET);
+      getSpreadsheet(call, spreadsheetMatcher.group(1));
+    } else {
+      throw new ApiError(404, String.format("Unsupported request '%s %s'.", call.method, path), "notFound");
+    }
+  }
+
+  private void checkRequest(Call call, ApiOperation operation) {
+    requestCounts.get(operation).incrementAndGet();
+    synchronized (lock) {
+      if (requestsPerSecondLimit > 0) {
+        long now = System.currentTimeMillis();
+        if (now - quotaWindowStart >= TimeUnit.SECONDS.toMillis(1)) {
+          quotaWindowStart = now;
+          quotaWindowRequests = 0;
+        }
+        if (++quotaWindowRequests > requestsPerSecondLimit) {
+          throttledRequests.incrementAndGet();
+          throw new ApiError(403, "Rate Limit Exceeded", "rateLimitExceeded");
+        }
+      }
+      InjectedErrors errors = injectedErrors.get(operation);
+      if (errors != null && errors.skipped > 0) {
+        errors.skipped--;
+      } else if (errors != null && errors.remaining > 0) {
+        errors.remaining--;
+        switch (errors.statusCode) {
+          case 403:
+            throttledRequests.incrementAndGet();
+            throw new ApiError(403, "Rate Limit Exceeded", "rateLimitExceeded");
+          case 429:
+            throttledRequests.incrementAndGet();
+            throw new ApiError(429, "Too Many Requests", "rateLimitExceeded");
+          case 500:
+            throw new ApiError(500, "Backend Error", "backendError");
+          case 503:
+            throw new ApiError(503, "Service Unavailable", "backendError");
+          default:
+            throw new ApiError(errors.statusCode, "Injected error for " + call.path, "injected");
+        }
+      }
+    }
+  }
+
+  // Drive v3
+
+  private void listFiles(Call call) throws IOException {
+    String query = call.getParameter("q");
+    Predicate<File> filter = Strings.isNullOrEmpty(query) ? f -> true : DriveQuery.parse(query);
+    int pageSize = Math.min(MAX_PAGE_SIZE, call.getIntParameter("pageSize", DEFAULT_PAGE_SIZE));
+    int offset = call.getIntParameter("pageToken", 0);
+    List<File> matched;
+    synchronized (lock) {
+      matched = files.values().stream()
+        .map(f -> f.file)
+        .filter(f -> !Boolean.TRUE.equals(f.getTrashed()))
+        .filter(filter)
+        .map(File::clone)
+        .collect(Collectors.toList());
+    }
+    JsonObject response = new JsonObject();
+    response.addProperty("kind", "drive#fileList");
+    response.addProperty("incompleteSearch", false);
+    int end = Math.min(matched.size(), offset + pageSize);
+    if (end < matched.size()) {
+      response.addProperty("nextPageToken", Integer.toString(end));
+    }
+    JsonArray page = new JsonArray();
+    for (File file : matched.subList(Math.min(offset, matched.size()), end)) {
+      page.add(toJsonTree(file));
+    }
+    response.add("files", page);
+    sendJson(call, FieldMask.apply(response, call.getParameter("fields", DEFAULT_LIST_FIELDS)));
+  }
+
+  private void getStartPageToken(Call call) throws IOException {
+    JsonObject response = new JsonObject();
+    response.addProperty("kind", "drive#startPageToken");
+    synchronized (lock) {
+      response.addProperty("startPageToken", Integer.toString(changes.size() + 1));
+    }
+    sendJson(call, response);
+  }
+
+  private void listChanges(Call call) throws IOException {
+    int from = call.getIntParameter("pageToken", 0) - 1;
+    if (from < 0) {
+      throw new ApiError(400, "Invalid Value: pageToken", "invalid");
+    }
+    int pageSize = Math.min(MAX_PAGE_SIZE, call.getIntParameter("pageSize", DEFAULT_PAGE_SIZE));
+    JsonObject response = new JsonObject();
+    response.addProperty("kind", "drive#changeList");
+    JsonArray page = new JsonArray();
+    synchronized (lock) {
+      int end = Math.min(changes.size(), from + pageSize);
+      for (String fileId : changes.subList(Math.min(from, end), end)) {
+        JsonObject change = new JsonObject();
+        change.addProperty("kind", "drive#change");
+        change.addProperty("changeType", "file");
+        change.addProperty("fileId", fileId);
+        change.addProperty("removed", false);
+        change.add("file", toJsonTree(files.get(fileId).file));
+        page.add(change);
+      }
+      if (end < changes.size()) {
+        response.addProperty("nextPageToken", Integer.toString(end + 1));
+      } else {
+        response.addProperty("newStartPageToken", Integer.toString(changes.size() + 1));
+      }
+    }
+    response.add("changes", page);
+    sendJson(call, FieldMask.apply(response, call.getParameter("fields", DEFAULT_CHANGES_FIELDS)));
+  }
+
+  private void getFile(Call call, String fileId) throws IOException {
+    File file;
+    synchronized (lock) {
+      file = getExistingFile(fileId).file.clone();
+    }
+    sendJson(call, FieldMask.apply(toJsonTree(file), call.getParameter("fields", DEFAULT_GET_FIELDS)));
+  }
+
+  private void downloadFile(Call call, String fileId) throws IOException {
+    StoredFile storedFile;
+    synchronized (lock) {
+      storedFile = getExistingFile(fileId);
+    }
+    String mimeType = storedFile.file.getMimeType();
+    if (mimeType.startsWith(GOOGLE_FORMATS_PREFIX)) {
+      throw new ApiError(403, "Only files with binary content can be downloaded. Use Export with Docs Editors files.",
+                         "fileNotDownloadable");
+    }
+    byte[] content = storedFile.content;
+    String range = call.exchange.getRequestHeaders().getFirst("Range");
+    boolean isDropped;
+    synchronized (lock) {
+      downloadRanges.add(Strings.nullToEmpty(range));
+      isDropped = droppedDownloads > 0;
+      if (isDropped) {
+        droppedDownloads--;
+      }
+      if (corruptedDownloads > 0 && content.length > 0) {
+        corruptedDownloads--;
+        content = content.clone();
+        content[0]++;
+      }
+    }
+    Matcher rangeMatcher = range == null ? null : BYTES_RANGE.matcher(range);
+    if (rangeMatcher != null && rangeMatcher.matches() && content.length > 0) {
+      long first = Long.parseLong(rangeMatcher.group(1));
+      long last = rangeMatcher.group(2).isEmpty() ? content.length - 1 : Long.parseLong(rangeMatcher.group(2));
+      last = Math.min(last, content.length - 1);
+      if (first >= content.length || first > last) {
+        call.exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+        send(call, 416, null, null);
+        return;
+      }
+      call.exchange.getResponseHeaders().set("Content-Range",
+                                             String.format("bytes %d-%d/%d", first, last, content.length));
+      sendMedia(call, 206, mimeType, Arrays.copyOfRange(content, (int) first, (int) last + 1), isDropped);
+    } else {
+      sendMedia(call, 200, mimeType, content, isDropped);
+    }
+  }
+
+  private void sendMedia(Call call, int statusCode, String contentType, byte[] content, boolean isDropped)
+    throws IOException {
+    if (!isDropped || content.length == 0) {
+      send(call, statusCode, contentType, content);
+      return;
+    }
+    // the declared length isn't reached, so the client sees the connection closed prematurely
+    int sent = Math.min(droppedDownloadBytes, content.length - 1);
+    call.exchange.getResponseHeaders().set("Content-Type", contentType);
+    call.exchange.sendResponseHeaders(statusCode, content.length);
+    OutputStream body = call.exchange.getResponseBody();
+    body.write(content, 0, sent);
+    body.flush();
+    responseBytes.addAndGet(sent);
+  }
+
+  private void exportFile(Call call, String fileId) throws IOException {
+    String exportMimeType = call.getParameter("mimeType");
+    if (Strings.isNullOrEmpty(exportMimeType)) {
+      throw new ApiError(400, "Required parameter: mimeType", "required");
+    }
+    byte[] content;
+    synchronized (lock) {
+      StoredFile storedFile = getExistingFile(fileId);
+      if (!storedFile.file.getMimeType().startsWith(GOOGLE_FORMATS_PREFIX)) {
+        throw new ApiError(403, "Export only supports Docs Editors files.", "fileNotExportable");
+      }
+      StoredSpreadsheet spreadsheet = spreadsheets.get(fileId);
+      content = spreadsheet == null ? storedFile.content : spreadsheet.toCsv();
+    }
+    send(call, 200, exportMimeType, content);
+  }
+
+  private void createFile(Call call) throws IOException {
+    String uploadType = call.getParameter("uploadType");
+    File metadata;
+    byte[] content = null;
+    String contentType = null;
+    if ("resumable".equals(uploadType)) {
+      metadata = parseMetadata(call.body);
+      String sessionId = UUID.randomUUID().toString();
+      synchronized (lock) {
+        uploads.put(sessionId, new UploadSession(metadata,
+                                                 call.exchange.getRequestHeaders().getFirst("X-Upload-Content-Type")));
+      }
+      call.exchange.getResponseHeaders().set("Location", String.format(
+        "%supload/drive/v3/files?uploadType=resumable&upload_id=%s", getRootUrl(), sessionId));
+      send(call, 200, null, null);
+      return;
+    } else if ("multipart".equals(uploadType)) {
+      List<byte[]> parts = parseMultipart(call);
+      metadata = parseMetadata(parts.get(0));
+      if (parts.size() > 1) {
+        content = parts.get(1);
+      }
+    } else if ("media".equals(uploadType)) {
+      metadata = new File();
+      content = call.body;
+      contentType = call.exchange.getRequestHeaders().getFirst("Content-Type");
+    } else {
+      metadata = parseMetadata(call.body);
+    }
+    sendJson(call, FieldMask.apply(toJsonTree(storeFile(metadata, content, contentType)),
+                                   call.getParameter("fields", DEFAULT_GET_FIELDS)));
+  }
+
+  private void uploadChunk(Call call) throws IOException {
+    String sessionId = call.getParameter("upload_id");
+    UploadSession session;
+    synchronized (lock) {
+      session = uploads.get(sessionId);
+    }
+    if (session == null) {
+      throw new ApiError(404, "Upload session does not exist.", "notFound");
+    }
+    String contentRange = call.exchange.getRequestHeaders().getFirst("Content-Range");
+    long total = -1;
+    if (contentRange != null) {
+      Matcher rangeMatcher = CONTENT_RANGE.matcher(contentRange);
+      if (rangeMatcher.matches() && !rangeMatcher.group(3).equals("*")) {
+        total = Long.parseLong(rangeMatcher.group(3));
+      } else if (contentRange.endsWith("/0")) {
+        total = 0;
+      }
+    }
+    session.content.write(call.body);
+    int received = session.content.size();
+    if (total >= 0 && received < total) {
+      call.exchange.getResponseHeaders().set("Range", "bytes=0-" + (received - 1));
+      send(call, 308, null, null);
+      return;
+    }
+    synchronized (lock) {
+      uploads.remove(sessionId);
+    }
+    File file = storeFile(session.metadata, session.content.toByteArray(), session.contentType);
+    sendJson(call, FieldMask.apply(toJsonTree(file), call.getParameter("fields", DEFAULT_GET_FIELDS)));
+  }
+
+  private File storeFile(File metadata, @Nullable byte[] content, @Nullable String contentType) {
+    String mimeType = metadata.getMimeType() != null ? metadata.getMimeType() :
+      Strings.isNullOrEmpty(contentType) ? "application/octet-stream" : contentType;
+    String parent = metadata.getParents() == null || metadata.getParents().isEmpty() ?
+      ROOT_FOLDER_ID : metadata.getParents().get(0);
+    String name = metadata.getName() == null ? "Untitled" : metadata.getName();
+    String id = addFile(name, mimeType, content, parent);
+    synchronized (lock) {
+      return files.get(id).file.clone();
+    }
+  }
+
+  private void updateFile(Call call, String fileId) throws IOException {
+    File update = call.body.length == 0 ? new File() : parseMetadata(call.body);
+    File file;
+    synchronized (lock) {
+      StoredFile storedFile = getExistingFile(fileId);
+      if (update.getName() != null) {
+        storedFile.file.setName(update.getName());
+        StoredSpreadsheet spreadsheet = spreadsheets.get(fileId);
+        if (spreadsheet != null) {
+          spreadsheet.title = update.getName();
+        }
+      }
+      List<String> parents = new ArrayList<>(storedFile.file.getParents());
+      String removeParents = call.getParameter("removeParents");
+      if (!Strings.isNullOrEmpty(removeParents)) {
+        parents.removeAll(Arrays.asList(removeParents.split(",")));
+      }
+      String addParents = call.getParameter("addParents");
+      if (!Strings.isNullOrEmpty(addParents)) {
+        parents.addAll(Arrays.asList(addParents.split(",")));
+      }
+      storedFile.file.setParents(parents);
+      storedFile.file.setModifiedTime(new DateTime(System.currentTimeMillis()));
+      changes.add(fileId);
+      file = storedFile.file.clone();
+    }
+    sendJson(call, FieldMask.apply(toJsonTree(file), call.getParameter("fields", DEFAULT_GET_FIELDS)));
+  }
+
+  private StoredFile getExistingFile(String fileId) {
+    StoredFile storedFile = files.get(fileId);
+    if (storedFile == null) {
+      throw new ApiError(404, "File not found: " + fileId + ".", "notFound");
+    }
+    return storedFile;
+  }
+
+  private static File parseMetadata(byte[] body) throws IOException {
+    if (body.length == 0) {
+      return new File();
+    }
+    return JSON_FACTORY.fromString(new String(body, StandardCharsets.UTF_8), File.class);
+  }
+
+  private static List<byte[]> parseMultipart(Call call) {
+    String contentType = call.exchange.getRequestHeaders().getFirst("Content-Type");
+    int boundaryIndex = contentType == null ? -1 : contentType.indexOf("boundary=");
+    if (boundaryIndex < 0) {
+      throw new ApiError(400, "Multipart boundary is missing.", "badContent");
+    }
+    String boundary = contentType.substring(boundaryIndex + "boundary=".length()).replace("\"", "").trim();
+    byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.UTF_8);
+    byte[] headersEnd = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+    List<byte[]> parts = new ArrayList<>();
+    byte[] body = call.body;
+    int position = indexOf(body, delimiter, 0);
+    while (position >= 0) {
+      int partStart = position + delimiter.length;
+      if (partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-') {
+        break;
+      }
+      int next = indexOf(body, delimiter, partStart);
+      if (next < 0) {
+        break;
+      }
+      int contentStart = indexOf(body, headersEnd, partStart);
+      if (contentStart >= 0 && contentStart < next) {
+        // part content is followed by CRLF before the next delimiter
+        parts.add(Arrays.copyOfRange(body, contentStart + headersEnd.length, Math.max(contentStart + headersEnd.length,
+                                                                                      next - 2)));
+      }
+      position = next;
+    }
+    if (parts.isEmpty()) {
+      throw new ApiError(400, "Multipart body has no parts.", "badContent");
+    }
+    return parts;
+  }
+
+  private static int indexOf(byte[] array, byte[] target, int from) {
+    int index = Bytes.indexOf(Arrays.copyOfRange(array, from, array.length), target);
+    return index < 0 ? -1 : index + from;
+  }
+
+  // Sheets v4
+
+  private void createSpreadsheet(Call call) throws IOException {
+    Spreadsheet request = JSON_FACTORY.fromString(new String(call.body, StandardCharsets.UTF_8), Spreadsheet.class);
+    String title = request.getProperties() == null || request.getProperties().getTitle() == null ?
+      "Untitled spreadsheet" : request.getProperties().getTitle();
+    Spreadsheet response;
+    synchronized (lock) {
+      String id = addFile(title, SPREADSHEET_MIME, null, ROOT_FOLDER_ID);
+      StoredSpreadsheet spreadsheet = new StoredSpreadsheet(id, title);
+      if (request.getSheets() == null || request.getSheets().isEmpty()) {
+        spreadsheet.addSheet("Sheet1", sheetIdSequence.getAndIncrement());
+      } else {
+        for (Sheet sheet : request.getSheets()) {
+          SheetProperties properties = sheet.getProperties() == null ? new SheetProperties() : sheet.getProperties();
+          spreadsheet.addSheet(properties.getTitle() == null ? "Sheet" + (spreadsheet.sheets.size() + 1) :
+                                 properties.getTitle(), sheetIdSequence.getAndIncrement());
+        }
+      }
+      spreadsheets.put(id, spreadsheet);
+      response = spreadsheet.toModel(null, false);
+    }
+    sendJson(call, toJsonTree(response));
+  }
+
+  private void getSpreadsheet(Call call, String spreadsheetId) throws IOException {
+    boolean includeGridData = Boolean.parseBoolean(call.getParameter("includeGridData", "false"));
+    List<String> ranges = call.getParameters("ranges");
+    Spreadsheet response;
+    synchronized (lock) {
+      response = getExistingSpreadsheet(spreadsheetId).toModel(ranges, includeGridData);
+    }
+    JsonObject json = toJsonTree(response);
+    String fields = call.getParameter("fields");
+    sendJson(call, fields == null ? json : FieldMask.apply(json, fields));
+  }
+
+  private void batchUpdate(Call call, String spreadsheetId) throws IOException {
+    BatchUpdateSpreadsheetRequest request = JSON_FACTORY.fromString(new String(call.body, StandardCharsets.UTF_8),
+                                                                    BatchUpdateSpreadsheetRequest.class);
+    List<Response> replies = new ArrayList<>();
+    synchronized (lock) {
+      StoredSpreadsheet spreadsheet = getExistingSpreadsheet(spreadsheetId);
+      // requests are applied atomically: validate on a copy first
+      StoredSpreadsheet copy = spreadsheet.copy();
+      List<Request> requests = request.getRequests() == null ? Collections.emptyList() : request.getRequests();
+      for (int i = 0; i < requests.size(); i++) {
+        replies.add(applyRequest(copy, requests.get(i), i));
+      }
+      spreadsheets.put(spreadsheetId, copy);
+    }
+    sendJson(call, toJsonTree(new BatchUpdateSpreadsheetResponse().setSpreadsheetId(spreadsheetId)
+                                .setReplies(replies)));
+  }
+
+  private Response applyRequest(StoredSpreadsheet spreadsheet, Request request, int index) {
+    if (request.getAddSheet() != null) {
+      SheetProperties properties = request.getAddSheet().getProperties();
+      String title = properties == null ? null : properties.getTitle();
+      if (title == null) {
+        title = "Sheet" + (spreadsheet.sheets.size() + 1);
+      }
+      if (spreadsheet.getSheet(title) != null) {
+        throw new ApiError(400, String.format("Invalid requests[%d].addSheet: A sheet with the name \"%s\" " +
+                                                "already exists. Please enter another name.", index, title),
+                           "badRequest");
+      }
+      StoredSheet sheet = spreadsheet.addSheet(title, sheetIdSequence.getAndIncrement());
+      return new Response().setAddSheet(new AddSheetResponse().setProperties(sheet.toProperties()));
+    } else if (request.getAppendDimension() != null) {
+      AppendDimensionRequest append = request.getAppendDimension();
+      StoredSheet sheet = spreadsheet.getSheet(append.getSheetId(), index);
+      if ("ROWS".equals(append.getDimension())) {
+        sheet.rowCount += append.getLength();
+      } else {
+        sheet.columnCount += append.getLength();
+      }
+      return new Response();
+    } else if (request.getUpdateCells() != null) {
+      UpdateCellsRequest update = request.getUpdateCells();
+      int sheetId;
+      int startRow;
+      int startColumn;
+      if (update.getStart() != null) {
+        GridCoordinate start = update.getStart();
+        sheetId = nullToZero(start.getSheetId());
+        startRow = nullToZero(start.getRowIndex());
+        startColumn = nullToZero(start.getColumnIndex());
+      } else if (update.getRange() != null) {
+        sheetId = nullToZero(update.getRange().getSheetId());
+        startRow = nullToZero(update.getRange().getStartRowIndex());
+        startColumn = nullToZero(update.getRange().getStartColumnIndex());
+      } else {
+        throw new ApiError(400, String.format("Invalid requests[%d].updateCells: No area specified.", index),
+                           "badRequest");
+      }
+      StoredSheet sheet = spreadsheet.getSheet(sheetId, index);
+      List<RowData> rows = update.getRows() == null ? Collections.emptyList() : update.getRows();
+      for (int rowOffset = 0; rowOffset < rows.size(); rowOffset++) {
+        List<CellData> cells = rows.get(rowOffset).getValues();
+        if (cells == null) {
+          continue;
+        }
+        for (int columnOffset = 0; columnOffset < cells.size(); columnOffset++) {
+          int rowIndex = startRow + rowOffset;
+          int columnIndex = startColumn + columnOffset;
+          sheet.checkInGrid(rowIndex, columnIndex, index, "updateCells");
+          sheet.setCell(rowIndex, columnIndex, cells.get(columnOffset));
+        }
+      }
+      return new Response();
+    } else if (request.getMergeCells() != null) {
+      GridRange range = request.getMergeCells().getRange();
+      StoredSheet sheet = spreadsheet.getSheet(nullToZero(range.getSheetId()), index);
+      sheet.checkInGrid(range.getEndRowIndex() - 1, range.getEndColumnIndex() - 1, index, "mergeCells");
+      sheet.merges.add(range.clone());
+      return new Response();
+    }
+    throw new ApiError(400, String.format("Invalid requests[%d]: request kind is not supported by the fake server.",
+                                          index), "badRequest");
+  }
+
+  private StoredSpreadsheet getExistingSpreadsheet(String spreadsheetId) {
+    StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+    if (spreadsheet == null) {
+      throw new ApiError(404, "Requested entity was not found.", "notFound");
+    }
+    return spreadsheet;
+  }
+
+  // Responses
+
+  private void sendJson(Call call, JsonElement json) throws IOException {
+    send(call, 200, JSON_CONTENT_TYPE, GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void send(Call call, int statusCode, @Nullable String contentType, @Nullable byte[] content)
+    throws IOException {
+    HttpExchange exchange = call.exchange;
+    if (contentType != null) {
+      exchange.getResponseHeaders().set("Content-Type", contentType);
+    }
+    if (content == null || content.length == 0) {
+      exchange.sendResponseHeaders(statusCode, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(statusCode, content.length);
+    try (OutputStream body = exchange.getResponseBody()) {
+      body.write(content);
+    }
+    responseBytes.addAndGet(content.length);
+  }
+
+  private static void sendError(HttpExchange exchange, int statusCode, String message, String reason)
+    throws IOException {
+    JsonObject error = new JsonObject();
+    JsonObject details = new JsonObject();
+    details.addProperty("domain", "global");
+    details.addProperty("reason", reason);
+    details.addProperty("message", message);
+    JsonArray errors = new JsonArray();
+    errors.add(details);
+    error.add("errors", errors);
+    error.addProperty("code", statusCode);
+    error.addProperty("message", message);
+    JsonObject body = new JsonObject();
+    body.add("error", error);
+    byte[] content = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+    exchange.sendResponseHeaders(statusCode, content.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(content);
+    }
+  }
+
+  private static JsonObject toJsonTree(Object model) throws IOException {
+    return GSON.fromJson(JSON_FACTORY.toString(model), JsonObject.class);
+  }
+
+  private String nextId(String prefix) {
+    return String.format("%s%06d", prefix, idSequence.incrementAndGet());
+  }
+
+  private static int nullToZero(@Nullable Integer value) {
+    return value == null ? 0 : value;
+  }
+
+  private static ExtendedValue toExtendedValue(@Nullable Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number) {
+      return new ExtendedValue().setNumberValue(((Number) value).doubleValue());
+    }
+    if (value instanceof Boolean) {
+      return new ExtendedValue().setBoolValue((Boolean) value);
+    }
+    return new ExtendedValue().setStringValue(value.toString());
+  }
+
+  private static String format(@Nullable ExtendedValue value) {
+    if (value == null) {
+      return null;
+    }
+    if (value.getStringValue() != null) {
+      return value.getStringValue();
+    }
+    if (value.getNumberValue() != null) {
+      double number = value.getNumberValue();
+      return number == Math.rint(number) && !Double.isInfinite(number) ?
+        Long.toString((long) number) : Double.toString(number);
+    }
+    if (value.getBoolValue() != null) {
+      return value.getBoolValue() ? "TRUE" : "FALSE";
+    }
+    return value.getFormulaValue();
+  }
+
+  /**
+   * Parsed HTTP request.
+   */
+  private static final class Call {
+    private final HttpExchange exchange;
+    private final String method;
+    private final String path;
+    private final Map<String, List<String>> parameters = new HashMap<>();
+    private final byte[] body;
+
+    Call(HttpExchange exchange) throws IOException {
+      this.exchange = exchange;
+      String methodOverride = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+      this.method = methodOverride == null ? exchange.getRequestMethod() : methodOverride;
+      this.path = decode(exchange.getRequestURI().getRawPath());
+      String query = exchange.getRequestURI().getRawQuery();
+      if (query != null) {
+        for (String parameter : query.split("&")) {
+          int separator = parameter.indexOf('=');
+          String name = decode(separator < 0 ? parameter : parameter.substring(0, separator));
+          String value = separator < 0 ? "" : decode(parameter.substring(separator + 1));
+          parameters.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+      }
+      this.body = ByteStreams.toByteArray(exchange.getRequestBody());
+    }
+
+    @Nullable
+    String getParameter(String name) {
+      List<String> values = parameters.get(name);
+      return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    String getParameter(String name, String defaultValue) {
+      String value = getParameter(name);
+      return value == null ? defaultValue : value;
+    }
+
+    int getIntParameter(String name, int defaultValue) {
+      String value = getParameter(name);
+      return Strings.isNullOrEmpty(value) ? defaultValue : Integer.parseInt(value);
+    }
+
+    List<String> getParameters(String name) {
+      return parameters.getOrDefault(name, Collections.emptyList());
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+      return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+    }
+  }
+
+  /**
+   * Error returned in the format of Google APIs.
+   */
+  private static final class ApiError extends RuntimeException {
+    private final int statusCode;
+    private final String reason;
+
+    ApiError(int statusCode, String message, String reason) {
+      super(message);
+      this.statusCode = statusCode;
+      this.reason = reason;
+    }
+  }
+
+  /**
+   * Remaining injected errors of an operation.
+   */
+  private static final class InjectedErrors {
+    private final int statusCode;
+    private int remaining;
+    private int skipped;
+
+    InjectedErrors(int statusCode, int remaining, int skipped) {
+      this.statusCode = statusCode;
+      this.remaining = remaining;
+      this.skipped = skipped;
+    }
+  }
+
+  /**
+   * Drive file with content.
+   */
+  private static final class StoredFile {
+    private final File file;
+    private final byte[] content;
+
+    StoredFile(File file, byte[] content) {
+      this.file = file;
+      this.content = content;
+    }
+  }
+
+  /**
+   * State of resumable upload.
+   */
+  private static final class UploadSession {
+    private final File metadata;
+    private final String contentType;
+    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+    UploadSession(File metadata, @Nullable String contentType) {
+      this.metadata = metadata;
+      this.contentType = contentType;
+    }
+  }
+
+  /**
+   * Spreadsheet with sheets.
+   */
+  private static final class StoredSpreadsheet {
+    private final String id;
+    private String title;
+    private final List<StoredSheet> sheets = new ArrayList<>();
+
+    StoredSpreadsheet(String id, String title) {
+      this.id = id;
+      this.title = title;
+    }
+
+    StoredSheet addSheet(String sheetTitle, int sheetId) {
+      StoredSheet sheet = new StoredSheet(sheetId, sheetTitle, sheets.size());
+      sheets.add(sheet);
+      return sheet;
+    }
+
+    @Nullable
+    StoredSheet getSheet(String sheetTitle) {
+      return sheets.stream().filter(s -> s.title.equals(sheetTitle)).findFirst().orElse(null);
+    }
+
+    StoredSheet getSheet(@Nullable Integer sheetId, int requestIndex) {
+      int id = nullToZero(sheetId);
+      return sheets.stream().filter(s -> s.sheetId == id).findFirst().orElseThrow(() -> new ApiError(
+        400, String.format("Invalid requests[%d]: No grid with id: %d", requestIndex, id), "badRequest"));
+    }
+
+    StoredSpreadsheet copy() {
+      StoredSpreadsheet copy = new StoredSpreadsheet(id, title);
+      for (StoredSheet sheet : sheets) {
+        copy.sheets.add(sheet.copy());
+      }
+      return copy;
+    }
+
+    Spreadsheet toModel(@Nullable List<String> ranges, boolean includeGridData) {
+      List<Sheet> sheetModels = new ArrayList<>();
+      if (ranges == null || ranges.isEmpty()) {
+        for (StoredSheet sheet : sheets) {
+          List<SheetRange> sheetRanges = Collections.singletonList(SheetRange.whole(sheet.title));
+          sheetModels.add(sheet.toModel(sheetRanges, includeGridData));
+        }
+      } else {
+        Map<String, List<SheetRange>> rangesBySheet = new LinkedHashMap<>();
+        for (String range : ranges) {
+          SheetRange sheetRange = SheetRange.parse(range, sheets.get(0).title);
+          rangesBySheet.computeIfAbsent(sheetRange.sheetTitle, k -> new ArrayList<>()).add(sheetRange);
+        }
+        for (Map.Entry<String, List<SheetRange>> entry : rangesBySheet.entrySet()) {
+          StoredSheet sheet = getSheet(entry.getKey());
+          if (sheet == null) {
+            throw new ApiError(400, String.format("Unable to parse range: %s", entry.getKey()), "badRequest");
+          }
+          sheetModels.add(sheet.toModel(entry.getValue(), includeGridData));
+        }
+      }
+      return new Spreadsheet()
+        .setSpreadsheetId(id)
+        .setProperties(new SpreadsheetProperties().setTitle(title).setLocale("en_US"))
+        .setSheets(sheetModels)
+        .setSpreadsheetUrl(String.format("https://docs.google.com/spreadsheets/d/%s/edit", id));
+    }
+
+    byte[] toCsv() {
+      StringBuilder csv = new StringBuilder();
+      if (!sheets.isEmpty()) {
+        for (List<CellData> row : sheets.get(0).rows) {
+          csv.append(row.stream().map(c -> c == null || c.getFormattedValue() == null ? "" : c.getFormattedValue())
+                       .collect(Collectors.joining(","))).append("\r\n");
+        }
+      }
+      return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Sheet of spreadsheet. Rows are kept without trailing empty rows.
+   */
+  private static final class StoredSheet {
+    private final int sheetId;
+    private final String title;
+    private final int index;
+    private int rowCount = DEFAULT_ROW_COUNT;
+    private int columnCount = DEFAULT_COLUMN_COUNT;
+    private final List<List<CellData>> rows = new ArrayList<>();
+    private final List<GridRange> merges = new ArrayList<>();
+
+    StoredSheet(int sheetId, String title, int index) {
+      this.sheetId = sheetId;
+      this.title = title;
+      this.index = index;
+    }
+
+    void checkInGrid(int rowIndex, int columnIndex, int requestIndex, String requestName) {
+      if (rowIndex >= rowCount) {
+        throw new ApiError(400, String.format("Invalid requests[%d].%s: GridCoordinate.rowIndex[%d] is after last " +
+                                                "row in grid[%d]", requestIndex, requestName, rowIndex, rowCount - 1),
+                           "badRequest");
+      }
+      if (columnIndex >= columnCount) {
+        throw new ApiError(400, String.format("Invalid requests[%d].%s: GridCoordinate.columnIndex[%d] is after " +
+                                                "last col in grid[%d]", requestIndex, requestName, columnIndex,
+                                              columnCount - 1), "badRequest");
+      }
+    }
+
+    void setCell(int rowIndex, int columnIndex, CellData cell) {
+      while (rows.size() <= rowIndex) {
+        rows.add(new ArrayList<>());
+      }
+      List<CellData> row = rows.get(rowIndex);
+      while (row.size() <= columnIndex) {
+        row.add(null);
+      }
+      CellData stored = cell.clone();
+      ExtendedValue value = cell.getUserEnteredValue();
+      if (value != null && value.getFormulaValue() == null) {
+        stored.setEffectiveValue(value.clone());
+      }
+      stored.setFormattedValue(format(value));
+      row.set(columnIndex, stored);
+    }
+
+    SheetProperties toProperties() {
+      return new SheetProperties()
+        .setSheetId(sheetId)
+        .setTitle(title)
+        .setIndex(index)
+        .setSheetType("GRID")
+        .setGridProperties(new GridProperties().setRowCount(rowCount).setColumnCount(columnCount));
+    }
+
+    Sheet toModel(List<SheetRange> ranges, boolean includeGridData) {
+      Sheet sheet = new Sheet().setProperties(toProperties());
+      List<GridRange> intersectingMerges = merges.stream()
+        .filter(m -> ranges.stream().anyMatch(r -> r.intersects(m)))
+        .map(GridRange::clone)
+        .collect(Collectors.toList());
+      if (!intersectingMerges.isEmpty()) {
+        sheet.setMerges(intersectingMerges);
+      }
+      if (includeGridData) {
+        List<GridData> data = new ArrayList<>();
+        for (SheetRange range : ranges) {
+          data.add(toGridData(range));
+        }
+        sheet.setData(data);
+      }
+      return sheet;
+    }
+
+    private GridData toGridData(SheetRange range) {
+      GridData gridData = new GridData();
+      if (range.startRow > 0) {
+        gridData.setStartRow(range.startRow);
+      }
+      if (range.startColumn > 0) {
+        gridData.setStartColumn(range.startColumn);
+      }
+      List<RowData> rowData = new ArrayList<>();
+      int endRow = Math.min(Math.min(range.endRow, rowCount), rows.size());
+      for (int rowIndex = range.startRow; rowIndex < endRow; rowIndex++) {
+        List<CellData> row = rows.get(rowIndex);
+        int endColumn = Math.min(Math.min(range.endColumn, columnCount), row.size());
+        List<CellData> cells = new ArrayList<>();
+        for (int columnIndex = range.startColumn; columnIndex < endColumn; columnIndex++) {
+          CellData cell = row.get(columnIndex);
+          cells.add(cell == null ? new CellData() : cell.clone());
+        }
+        rowData.add(cells.isEmpty() ? new RowData() : new RowData().setValues(cells));
+      }
+      if (!rowData.isEmpty()) {
+        gridData.setRowData(rowData);
+      }
+      return gridData;
+    }
+
+    StoredSheet copy() {
+      StoredSheet copy = new StoredSheet(sheetId, title, index);
+      copy.rowCount = rowCount;
+      copy.columnCount = columnCount;
+      for (List<CellData> row : rows) {
+        copy.rows.add(new ArrayList<>(row));
+      }
+      copy.merges.addAll(merges);
+      return copy;
+    }
+  }
+
+  /**
+   * Range in A1 notation, e.g. 'Sheet1!2:5', 'Sheet1!A1:C3' or 'Sheet1'. End indexes are exclusive.
+   */
+  private static final class SheetRange {
+    private final String sheetTitle;
+    private final int startRow;
+    private final int endRow;
+    private final int startColumn;
+    private final int endColumn;
+
+    private SheetRange(String sheetTitle, int startRow, int endRow, int startColumn, int endColumn) {
+      this.sheetTitle = sheetTitle;
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.startColumn = startColumn;
+      this.endColumn = endColumn;
+    }
+
+    static SheetRange whole(String sheetTitle) {
+      return new SheetRange(sheetTitle, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    static SheetRange parse(String range, String defaultSheetTitle) {
+      int separator = range.lastIndexOf('!');
+      String sheetTitle = separator < 0 ? range : range.substring(0, separator);
+      if (sheetTitle.length() > 1 && sheetTitle.startsWith("'") && sheetTitle.endsWith("'")) {
+        sheetTitle = sheetTitle.substring(1, sheetTitle.length() - 1).replace("''", "'");
+      }
+      if (separator < 0) {
+        return whole(sheetTitle.isEmpty() ? defaultSheetTitle : sheetTitle);
+      }
+      String[] cells = range.substring(separator + 1).split(":");
+      int[] start = parseCell(cells[0], 0);
+      int[] end = cells.length > 1 ? parseCell(cells[1], Integer.MAX_VALUE) : parseCell(cells[0], Integer.MAX_VALUE);
+      if (cells.length == 1 && start[1] != 0) {
+        // single cell
+        end = new int[]{start[0] + 1, start[1] + 1};
+      }
+      return new SheetRange(sheetTitle, start[0], end[0], start[1], end[1]);
+    }
+
+    // returns [row, column] as start (inclusive) or end (exclusive) indexes
+    private static int[] parseCell(String cell, int unbounded) {
+      Matcher matcher = CELL_ADDRESS.matcher(cell.trim());
+      if (!matcher.matches()) {
+        throw new ApiError(400, String.format("Unable to parse range: %s", cell), "badRequest");
+      }
+      boolean isEnd = unbounded != 0;
+      String column = matcher.group(1);
+      String row = matcher.group(2);
+      int rowIndex = row.isEmpty() ? unbounded : Integer.parseInt(row) - (isEnd ? 0 : 1);
+      int columnIndex = column.isEmpty() ? unbounded :
+        ColumnAddressConverter.getNumberOfColumn(column.toUpperCase()) - (isEnd ? 0 : 1);
+      return new int[]{rowIndex, columnIndex};
+    }
+
+    boolean intersects(GridRange merge) {
+      return nullToZero(merge.getStartRowIndex()) < endRow && merge.getEndRowIndex() > startRow
+        && nullToZero(merge.getStartColumnIndex()) < endColumn && merge.getEndColumnIndex() > startColumn;
+    }
+  }
+
+  /**
+   * Evaluator of Drive search queries supported by the fake server: 'in parents', '=', '!=', '<', '<=', '>', '>='
+   * and 'contains' for name, mimeType, modifiedTime, createdTime and trashed combined with and/or/not.
+   */
+  static final class DriveQuery {
+    private final List<String> tokens;
+    private int position;
+
+    private DriveQuery(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    static Predicate<File> parse(String query) {
+      DriveQuery parser = new DriveQuery(tokenize(query));
+      Predicate<File> predicate = parser.parseOr();
+      if (parser.position != parser.tokens.size()) {
+        throw new ApiError(400, "Invalid Value: unexpected '" + parser.tokens.get(parser.position) + "'",
+                           "invalid");
+      }
+      return predicate;
+    }
+
+    private Predicate<File> parseOr() {
+      Predicate<File> predicate = parseAnd();
+      while (acceptKeyword("or")) {
+        predicate = predicate.or(parseAnd());
+      }
+      return predicate;
+    }
+
+    private Predicate<File> parseAnd() {
+      Predicate<File> predicate = parseUnary();
+      while (acceptKeyword("and")) {
+        predicate = predicate.and(parseUnary());
+      }
+      return predicate;
+    }
+
+    private Predicate<File> parseUnary() {
+      if (acceptKeyword("not")) {
+        return parseUnary().negate();
+      }
+      if (accept("(")) {
+        Predicate<File> predicate = parseOr();
+        expect(")");
+        return predicate;
+      }
+      String first = next();
+      if (isString(first)) {
+        String value = unquote(first);
+        if (!acceptKeyword("in")) {
+          throw new ApiError(400, "Invalid Value: expected 'in' after " + first, "invalid");
+        }
+        String field = next();
+        if (!field.equals("parents")) {
+          throw new ApiError(400, "Invalid Value: unsupported collection " + field, "invalid");
+        }
+        return f -> f.getParents() != null && f.getParents().contains(value);
+      }
+      String field = first;
+      String operator = next();
+      String rawValue = next();
+      return comparison(field, operator.toLowerCase(), rawValue);
+    }
+
+    private static Predicate<File> comparison(String field, String operator, String rawValue) {
+      if (field.equals("trashed") || field.equals("starred")) {
+        boolean expected = Boolean.parseBoolean(rawValue);
+        boolean equals = operator.equals("=");
+        return f -> (Boolean.TRUE.equals(field.equals("trashed") ? f.getTrashed() : f.getStarred()) == expected)
+          == equals;
+      }
+      String value = unquote(rawValue);
+      switch (field) {
+        case "name":
+          return stringComparison(File::getName, operator, value);
+        case "mimeType":
+          return stringComparison(File::getMimeType, operator, value);
+        case "modifiedTime":
+          return timeComparison(File::getModifiedTime, operator, value);
+        case "createdTime":
+          return timeComparison(File::getCreatedTime, operator, value);
+        default:
+          throw new ApiError(400, "Invalid Value: unsupported field " + field, "invalid");
+      }
+    }
+
+    private static Predicate<File> stringComparison(Function<File, String> getter, String operator,
+                                                    String value) {
+      switch (operator) {
+        case "=":
+          return f -> value.equals(getter.apply(f));
+        case "!=":
+          return f -> !value.equals(getter.apply(f));
+        case "contains":
+          return f -> getter.apply(f) != null && getter.apply(f).contains(value);
+        default:
+          throw new ApiError(400, "Invalid Value: unsupported operator " + operator, "invalid");
+      }
+    }
+
+    private static Predicate<File> timeComparison(Function<File, DateTime> getter, String operator,
+                                                  String value) {
+      long expected = DateTime.parseRfc3339(value).getValue();
+      Function<File, Long> time = f -> getter.apply(f) == null ? 0L : getter.apply(f).getValue();
+      switch (operator) {
+        case "=":
+          return f -> time.apply(f) == expected;
+        case "!=":
+          return f -> time.apply(f) != expected;
+        case "<":
+          return f -> time.apply(f) < expected;
+        case "<=":
+          return f -> time.apply(f) <= expected;
+        case ">":
+          return f -> time.apply(f) > expected;
+        case ">=":
+          return f -> time.apply(f) >= expected;
+        default:
+          throw new ApiError(400, "Invalid Value: unsupported operator " + operator, "invalid");
+      }
+    }
+
+    private boolean acceptKeyword(String keyword) {
+      if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean accept(String token) {
+      if (position < tokens.size() && tokens.get(position).equals(token)) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(String token) {
+      if (!accept(token)) {
+        throw new ApiError(400, "Invalid Value: expected '" + token + "'", "invalid");
+      }
+    }
+
+    private String next() {
+      if (position >= tokens.size()) {
+        throw new ApiError(400, "Invalid Value: unexpected end of query", "invalid");
+      }
+      return tokens.get(position++);
+    }
+
+    private static boolean isString(String token) {
+      return token.startsWith("'");
+    }
+
+    private static String unquote(String token) {
+      if (!isString(token)) {
+        return token;
+      }
+      StringBuilder value = new StringBuilder();
+      for (int i = 1; i < token.length() - 1; i++) {
+        char c = token.charAt(i);
+        if (c == '\\' && i + 1 < token.length() - 1) {
+          c = token.charAt(++i);
+        }
+        value.append(c);
+      }
+      return value.toString();
+    }
+
+    private static List<String> tokenize(String query) {
+      List<String> tokens = new ArrayList<>();
+      int i = 0;
+      while (i < query.length()) {
+        char c = query.charAt(i);
+        if (Character.isWhitespace(c)) {
+          i++;
+        } else if (c == '\'') {
+          int end = i + 1;
+          while (end < query.length() && query.charAt(end) != '\'') {
+            end += query.charAt(end) == '\\' ? 2 : 1;
+          }
+          tokens.add(query.substring(i, Math.min(end + 1, query.length())));
+          i = end + 1;
+        } else if (c == '(' || c == ')') {
+          tokens.add(String.valueOf(c));
+          i++;
+        } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+          int end = i + 1;
+          if (end < query.length() && query.charAt(end) == '=') {
+            end++;
+          }
+          tokens.add(query.substring(i, end));
+          i = end;
+        } else {
+          int end = i;
+          while (end < query.length() && !Character.isWhitespace(query.charAt(end))
+            && "()'=!<>".indexOf(query.charAt(end)) < 0) {
+            end++;
+          }
+          tokens.add(query.substring(i, end));
+          i = end;
+        }
+      }
+      return tokens;
+    }
+  }
+
+  /**
+   * Partial response support for the 'fields' parameter, e.g. 'nextPageToken, files(id, size)' or 'files/id'.
+   */
+  static final class FieldMask {
+
+    private FieldMask() {
+    }
+
+    static JsonElement apply(JsonElement element, String mask) {
+      if (Strings.isNullOrEmpty(mask) || element == null || element.isJsonNull()) {
+        return element;
+      }
+      if (element.isJsonArray()) {
+        JsonArray result = new JsonArray();
+        for (JsonElement item : element.getAsJsonArray()) {
+          result.add(apply(item, mask));
+        }
+        return result;
+      }
+      if (!element.isJsonObject()) {
+        return element;
+      }
+      JsonObject source = element.getAsJsonObject();
+      JsonObject result = new JsonObject();
+      for (String field : splitTopLevel(mask)) {
+        String name = field;
+        String subMask = null;
+        int parenthesis = field.indexOf('(');
+        int slash = field.indexOf('/');
+        if (parenthesis >= 0 && (slash < 0 || parenthesis < slash)) {
+          name = field.substring(0, parenthesis).trim();
+          subMask = field.substring(parenthesis + 1, field.lastIndexOf(')'));
+        } else if (slash >= 0) {
+          name = field.substring(0, slash).trim();
+          subMask = field.substring(slash + 1);
+        }
+        if (name.equals("*")) {
+          for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
+            result.add(entry.getKey(), entry.getValue());
+          }
+        } else if (source.has(name)) {
+          JsonElement value = subMask == null ? source.get(name) : apply(source.get(name), subMask);
+          JsonElement merged = result.has(name) && result.get(name).isJsonObject() && value.isJsonObject() ?
+            merge(result.get(name).getAsJsonObject(), value.getAsJsonObject()) : value;
+          result.add(name, merged);
+        }
+      }
+      return result;
+    }
+
+    private static JsonObject merge(JsonObject first, JsonObject second) {
+      JsonObject merged = new JsonObject();
+      first.entrySet().forEach(e -> merged.add(e.getKey(), e.getValue()));
+      second.entrySet().forEach(e -> merged.add(e.getKey(), e.getValue()));
+      return merged;
+    }
+
+    private static List<String> splitTopLevel(String mask) {
+      List<String> fields = new ArrayList<>();
+      int depth = 0;
+      int start = 0;
+      for (int i = 0; i < mask.length(); i++) {
+        char c = mask.charAt(i);
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == ',' && depth == 0) {
+          addField(fields, mask.substring(start, i));
+          start = i + 1;
+        }
+      }
+      addField(fields, mask.substring(start));
+      return fields;
+    }
+
+    private static void addField(List<String> fields, String field) {
+      String trimmed = field.trim();
+      if (!trimmed.isEmpty()) {
+        fields.add(trimmed);
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.DriveScopes;
+import io.cdap.plugin.google.drive.source.GoogleDriveSourceConfig;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GoogleApiClientPoolTest {
+  private static final List<String> READ_SCOPES = Collections.singletonList(DriveScopes.DRIVE_READONLY);
+
+  @Test
+  public void testKeyDependsOnIdentityAndScopes() {
+    GoogleDriveSourceConfig config = getConfig("token-1");
+    GoogleDriveSourceConfig sameConfig = getConfig("token-1");
+    GoogleDriveSourceConfig otherConfig = getConfig("token-2");
+
+    GoogleApiClientPool.ClientKey key = GoogleApiClientPool.ClientKey.of(config, READ_SCOPES);
+    Assert.assertEquals(key, GoogleApiClientPool.ClientKey.of(sameConfig, READ_SCOPES));
+    Assert.assertNotEquals(key, GoogleApiClientPool.ClientKey.of(otherConfig, READ_SCOPES));
+    Assert.assertNotEquals(key, GoogleApiClientPool.ClientKey.of(config,
+                                                                 Collections.singletonList(DriveScopes.DRIVE)));
+    Assert.assertEquals(GoogleApiClientPool.ClientKey.of(config, Arrays.asList(DriveScopes.DRIVE, "a")),
+                        GoogleApiClientPool.ClientKey.of(config, Arrays.asList("a", DriveScopes.DRIVE)));
+    Assert.assertFalse(key.toString().contains("token-1"));
+  }
+
+  @Test
+  public void testClientIsReused() throws IOException {
+    GoogleApiClientPool pool = GoogleApiClientPool.getInstance();
+    GoogleApiClientPool.ClientKey key = GoogleApiClientPool.ClientKey.of(getConfig("reused-token"), READ_SCOPES);
+    AtomicInteger factoryCalls = new AtomicInteger();
+    GoogleApiClientPool.ClientFactory<Drive> factory = () -> {
+      factoryCalls.incrementAndGet();
+      return new Drive.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null).build();
+    };
+
+    GoogleApiClientPool.PoolStats before = pool.getStats();
+    Drive first = pool.acquireDrive(key, factory);
+    Drive second = pool.acquireDrive(key, factory);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, factoryCalls.get());
+    Assert.assertEquals(before.getActiveReferences() + 2, pool.getStats().getActiveReferences());
+
+    pool.release(key);
+    pool.release(key);
+    GoogleApiClientPool.PoolStats after = pool.getStats();
+    Assert.assertEquals(before.getActiveReferences(), after.getActiveReferences());
+    Assert.assertEquals(before.getReusedClients() + 1, after.getReusedClients());
+
+    // idle client is reused by the next acquirer
+    Assert.assertSame(first, pool.acquireDrive(key, factory));
+    Assert.assertEquals(1, factoryCalls.get());
+    pool.release(key);
+  }
+
+  @Test
+  public void testClientIsBuiltOutsideOfPoolLock() throws Exception {
+    GoogleApiClientPool pool = GoogleApiClientPool.getInstance();
+    GoogleApiClientPool.ClientKey slowKey = GoogleApiClientPool.ClientKey.of(getConfig("slow-token"), READ_SCOPES);
+    GoogleApiClientPool.ClientKey fastKey = GoogleApiClientPool.ClientKey.of(getConfig("fast-token"), READ_SCOPES);
+    CountDownLatch building = new CountDownLatch(1);
+    CountDownLatch built = new CountDownLatch(1);
+    GoogleApiClientPool.ClientFactory<Drive> slowFactory = () -> {
+      building.countDown();
+      try {
+        built.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return new Drive.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null).build();
+    };
+    GoogleApiClientPool.ClientFactory<Drive> fastFactory =
+      () -> new Drive.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null).build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Drive> slowDrive = executor.submit(() -> pool.acquireDrive(slowKey, slowFactory));
+      Assert.assertTrue(building.await(10, TimeUnit.SECONDS));
+      // other keys are served while the slow client is built
+      Future<Drive> fastDrive = executor.submit(() -> pool.acquireDrive(fastKey, fastFactory));
+      Assert.assertNotNull(fastDrive.get(10, TimeUnit.SECONDS));
+      Assert.assertFalse(slowDrive.isDone());
+
+      built.countDown();
+      Drive drive = slowDrive.get(10, TimeUnit.SECONDS);
+      Assert.assertSame(drive, pool.acquireDrive(slowKey, slowFactory));
+      pool.release(slowKey);
+      pool.release(slowKey);
+      pool.release(fastKey);
+    } finally {
+      built.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedClientIsNotAcquired() throws IOException {
+    GoogleApiClientPool pool = GoogleApiClientPool.getInstance();
+    GoogleApiClientPool.ClientKey key = GoogleApiClientPool.ClientKey.of(getConfig("failing-token"), READ_SCOPES);
+    GoogleApiClientPool.PoolStats before = pool.getStats();
+    try {
+      pool.acquireDrive(key, () -> {
+        throw new IOException("Failed to read credentials.");
+      });
+      Assert.fail("Exception is expected.");
+    } catch (IOException e) {
+      Assert.assertEquals("Failed to read credentials.", e.getMessage());
+    }
+    Assert.assertEquals(before.getActiveReferences(), pool.getStats().getActiveReferences());
+
+    // the next caller builds the client again
+    Drive drive = pool.acquireDrive(key, () -> new Drive.Builder(new NetHttpTransport(),
+                                                                 JacksonFactory.getDefaultInstance(), null).build());
+    Assert.assertNotNull(drive);
+    pool.release(key);
+  }
+
+  @Test
+  public void testSharedTransport() {
+    GoogleApiClientPool pool = GoogleApiClientPool.getInstance();
+    Assert.assertSame(pool.getHttpTransport(), pool.getHttpTransport());
+  }
+
+  private GoogleDriveSourceConfig getConfig(String refreshToken) {
+    GoogleDriveSourceConfig config = EasyMock.createMock(GoogleDriveSourceConfig.class);
+    EasyMock.expect(config.getAuthType()).andReturn(AuthType.OAUTH2).anyTimes();
+    EasyMock.expect(config.getOAuthMethod()).andReturn(OAuthMethod.REFRESH_TOKEN).anyTimes();
+    EasyMock.expect(config.getClientId()).andReturn("client-id").anyTimes();
+    EasyMock.expect(config.getClientSecret()).andReturn("client-secret").anyTimes();
+    EasyMock.expect(config.getRefreshToken()).andReturn(refreshToken).anyTimes();
+    EasyMock.replay(config);
+    return config;
+  }
+}
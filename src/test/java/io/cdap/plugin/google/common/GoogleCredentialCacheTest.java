@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.services.drive.DriveScopes;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.auth.oauth2.GoogleCredentials;
+import io.cdap.plugin.google.drive.source.GoogleDriveSourceConfig;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GoogleCredentialCacheTest {
+
+  @Test
+  public void testCredentialIsShared() throws IOException {
+    GoogleCredentialCache cache = GoogleCredentialCache.getInstance();
+    GoogleApiClientPool.ClientKey key = getKey("shared-account");
+    AtomicInteger factoryCalls = new AtomicInteger();
+    GoogleCredentialCache.CredentialFactory<GoogleCredentials> factory = () -> {
+      factoryCalls.incrementAndGet();
+      return new TestCredentials(TimeUnit.HOURS.toMillis(1));
+    };
+
+    GoogleCredentialCache.CacheStats before = cache.getStats();
+    GoogleCredentials first = cache.getServiceAccountCredential(key, factory);
+    GoogleCredentials second = cache.getServiceAccountCredential(key, factory);
+    GoogleCredentialCache.CacheStats after = cache.getStats();
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, factoryCalls.get());
+    Assert.assertEquals(before.getCacheMisses() + 1, after.getCacheMisses());
+    Assert.assertEquals(before.getCacheHits() + 1, after.getCacheHits());
+  }
+
+  @Test
+  public void testExpiringTokenIsRefreshed() throws IOException {
+    GoogleCredentialCache cache = GoogleCredentialCache.getInstance();
+    TestCredentials expiring = (TestCredentials) cache.getServiceAccountCredential(
+      getKey("expiring-account"), () -> new TestCredentials(TimeUnit.MINUTES.toMillis(1)));
+    TestCredentials valid = (TestCredentials) cache.getServiceAccountCredential(
+      getKey("valid-account"), () -> new TestCredentials(TimeUnit.HOURS.toMillis(1)));
+
+    GoogleCredentialCache.CacheStats before = cache.getStats();
+    cache.refreshExpiringCredentials();
+    GoogleCredentialCache.CacheStats after = cache.getStats();
+
+    Assert.assertEquals(1, expiring.refreshes);
+    Assert.assertEquals(0, valid.refreshes);
+    Assert.assertTrue(after.getProactiveRefreshes() >= before.getProactiveRefreshes() + 1);
+    Assert.assertTrue(after.getTokenRefreshes() >= before.getTokenRefreshes() + 1);
+  }
+
+  @Test
+  public void testCredentialInUseIsCachedAgain() throws IOException {
+    GoogleCredentialCache cache = GoogleCredentialCache.getInstance();
+    GoogleApiClientPool.ClientKey key = getKey("long-lived-account");
+    GoogleCredentials credentials = cache.getServiceAccountCredential(
+      key, () -> new TestCredentials(TimeUnit.HOURS.toMillis(1)));
+    HttpRequestFactory requestFactory = new MockHttpTransport()
+      .createRequestFactory(cache.trackAccess(key, new HttpCredentialsAdapter(credentials)));
+    HttpRequest request = requestFactory.buildGetRequest(new GenericUrl("http://localhost/drive/v3/files"));
+
+    // the client was idle for longer than the timeout
+    cache.refreshExpiringCredentials(System.currentTimeMillis() + GoogleCredentialCache.UNUSED_TIMEOUT_MILLIS + 1);
+    request.getInterceptor().intercept(request);
+
+    Assert.assertSame(credentials, cache.getServiceAccountCredential(
+      key, () -> new TestCredentials(TimeUnit.HOURS.toMillis(1))));
+  }
+
+  private GoogleApiClientPool.ClientKey getKey(String accountJson) {
+    GoogleDriveSourceConfig config = EasyMock.createMock(GoogleDriveSourceConfig.class);
+    EasyMock.expect(config.getAuthType()).andReturn(AuthType.SERVICE_ACCOUNT).anyTimes();
+    EasyMock.expect(config.isServiceAccountJson()).andReturn(true).anyTimes();
+    EasyMock.expect(config.getServiceAccountJson()).andReturn(accountJson).anyTimes();
+    EasyMock.replay(config);
+    return GoogleApiClientPool.ClientKey.of(config, Collections.singletonList(DriveScopes.DRIVE_READONLY));
+  }
+
+  private static class TestCredentials extends GoogleCredentials {
+    private int refreshes;
+
+    TestCredentials(long expiresInMillis) {
+      super(new AccessToken("token", new Date(System.currentTimeMillis() + expiresInMillis)));
+    }
+
+    @Override
+    public AccessToken refreshAccessToken() {
+      refreshes++;
+      return new AccessToken("refreshed-token", new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+    }
+  }
+}
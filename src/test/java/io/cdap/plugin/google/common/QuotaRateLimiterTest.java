@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.services.drive.DriveScopes;
+import io.cdap.plugin.google.drive.source.GoogleDriveSourceConfig;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class QuotaRateLimiterTest {
+  private static final GenericUrl URL = new GenericUrl("http://localhost/drive/v3/files");
+
+  @Test
+  public void testReadRequestsAreLimited() throws IOException {
+    QuotaRateLimiter limiter = QuotaRateLimiter.getInstance();
+    GoogleDriveSourceConfig config = getConfig("limited-user", 1000, null);
+    GoogleApiClientPool.ClientKey key =
+      GoogleApiClientPool.ClientKey.of(config, Collections.singletonList(DriveScopes.DRIVE_READONLY));
+    limiter.addQuotas(key, config);
+    HttpRequestFactory requestFactory = new MockHttpTransport().createRequestFactory(limiter.wrap(key, r -> { }));
+
+    long writesBefore = limiter.getLimitedRequests();
+    for (int i = 0; i < 3; i++) {
+      intercept(requestFactory.buildPostRequest(URL, new JsonHttpContent(JacksonFactory.getDefaultInstance(),
+                                                                         Collections.emptyMap())));
+    }
+    Assert.assertEquals(writesBefore, limiter.getLimitedRequests());
+
+    long readsBefore = limiter.getLimitedRequests();
+    for (int i = 0; i < 3; i++) {
+      intercept(requestFactory.buildGetRequest(URL));
+    }
+    Assert.assertTrue(limiter.getLimitedRequests() >= readsBefore + 2);
+    limiter.removeQuotas(key, config);
+  }
+
+  @Test
+  public void testCredentialInterceptorIsKept() throws IOException {
+    QuotaRateLimiter limiter = QuotaRateLimiter.getInstance();
+    GoogleDriveSourceConfig config = getConfig("unlimited-user", null, null);
+    GoogleApiClientPool.ClientKey key =
+      GoogleApiClientPool.ClientKey.of(config, Collections.singletonList(DriveScopes.DRIVE_READONLY));
+    limiter.addQuotas(key, config);
+    boolean[] intercepted = new boolean[1];
+    HttpRequestInitializer credential = r -> r.setInterceptor(request -> intercepted[0] = true);
+
+    intercept(new MockHttpTransport().createRequestFactory(limiter.wrap(key, credential)).buildGetRequest(URL));
+    Assert.assertTrue(intercepted[0]);
+    limiter.removeQuotas(key, config);
+  }
+
+  @Test
+  public void testStagesWithDifferentQuotasShareTheLowest() {
+    QuotaRateLimiter limiter = QuotaRateLimiter.getInstance();
+    GoogleDriveSourceConfig firstStage = getConfig("shared-user", 1000, null);
+    GoogleDriveSourceConfig secondStage = getConfig("shared-user", null, null);
+    GoogleDriveSourceConfig thirdStage = getConfig("shared-user", 100_000, null);
+    GoogleDriveSourceConfig fourthStage = getConfig("shared-user", 500, null);
+    GoogleApiClientPool.ClientKey key =
+      GoogleApiClientPool.ClientKey.of(firstStage, Collections.singletonList(DriveScopes.DRIVE_READONLY));
+
+    limiter.addQuotas(key, firstStage);
+    Assert.assertEquals(10.0, limiter.getUserReadRate(key), 0.001);
+    // the stage without quota doesn't remove the bucket used by the first stage
+    limiter.addQuotas(key, secondStage);
+    Assert.assertEquals(10.0, limiter.getUserReadRate(key), 0.001);
+    // the higher quota doesn't replace the lower one
+    limiter.addQuotas(key, thirdStage);
+    Assert.assertEquals(10.0, limiter.getUserReadRate(key), 0.001);
+    limiter.addQuotas(key, fourthStage);
+    Assert.assertEquals(5.0, limiter.getUserReadRate(key), 0.001);
+
+    // the lowest quota of the stages with open clients applies
+    limiter.removeQuotas(key, fourthStage);
+    Assert.assertEquals(10.0, limiter.getUserReadRate(key), 0.001);
+    limiter.removeQuotas(key, firstStage);
+    Assert.assertEquals(1000.0, limiter.getUserReadRate(key), 0.001);
+    limiter.removeQuotas(key, secondStage);
+    limiter.removeQuotas(key, thirdStage);
+    // the bucket is removed with the last client which has a quota for it
+    Assert.assertEquals(0.0, limiter.getUserReadRate(key), 0.001);
+  }
+
+  @Test
+  public void testQuotasWhichAreNotPositiveAreNotApplied() {
+    QuotaRateLimiter limiter = QuotaRateLimiter.getInstance();
+    GoogleDriveSourceConfig config = getConfig("invalid-quota-user", 0, -1);
+    GoogleApiClientPool.ClientKey key =
+      GoogleApiClientPool.ClientKey.of(config, Collections.singletonList(DriveScopes.DRIVE_READONLY));
+
+    // invalid quotas are reported by config validation
+    limiter.addQuotas(key, config);
+    Assert.assertEquals(0.0, limiter.getUserReadRate(key), 0.001);
+    limiter.removeQuotas(key, config);
+  }
+
+  private static void intercept(HttpRequest request) throws IOException {
+    request.getInterceptor().intercept(request);
+  }
+
+  private GoogleDriveSourceConfig getConfig(String refreshToken, Integer userReadQuota, Integer userWriteQuota) {
+    GoogleDriveSourceConfig config = EasyMock.createMock(GoogleDriveSourceConfig.class);
+    EasyMock.expect(config.getAuthType()).andReturn(AuthType.OAUTH2).anyTimes();
+    EasyMock.expect(config.getOAuthMethod()).andReturn(OAuthMethod.REFRESH_TOKEN).anyTimes();
+    EasyMock.expect(config.getClientId()).andReturn("client-id").anyTimes();
+    EasyMock.expect(config.getClientSecret()).andReturn("client-secret").anyTimes();
+    EasyMock.expect(config.getRefreshToken()).andReturn(refreshToken).anyTimes();
+    EasyMock.expect(config.getUserReadRequestsQuota()).andReturn(userReadQuota).anyTimes();
+    EasyMock.expect(config.getUserWriteRequestsQuota()).andReturn(userWriteQuota).anyTimes();
+    EasyMock.expect(config.getProjectReadRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.expect(config.getProjectWriteRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.replay(config);
+    return config;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.common;
+
+import com.github.rholder.retry.RetryException;
+import com.github.rholder.retry.Retryer;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThrottlingControllerTest {
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() {
+    ThrottlingController controller = new ThrottlingController();
+    Assert.assertEquals(10, controller.getConcurrencyLimit(10));
+
+    controller.onThrottle(getRateLimitException(null));
+    Assert.assertEquals(5, controller.getConcurrencyLimit(10));
+
+    // throttling of other in-flight calls within the same window does not decrease concurrency again
+    controller.onThrottle(getRateLimitException(null));
+    Assert.assertEquals(5, controller.getConcurrencyLimit(10));
+
+    for (int i = 0; i < 10; i++) {
+      controller.onSuccess();
+    }
+    Assert.assertEquals(7, controller.getConcurrencyLimit(10));
+    Assert.assertEquals(1, controller.getConcurrencyLimit(1));
+  }
+
+  @Test
+  public void testRetryAfterIsHonoured() {
+    ThrottlingController controller = new ThrottlingController();
+    controller.onThrottle(getRateLimitException("3"));
+    long remaining = controller.getRemainingBackoffMillis();
+    Assert.assertTrue(remaining > TimeUnit.SECONDS.toMillis(2));
+    Assert.assertTrue(remaining <= TimeUnit.SECONDS.toMillis(3));
+  }
+
+  @Test
+  public void testLimiterFollowsController() throws InterruptedException {
+    ThrottlingController controller = new ThrottlingController();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(controller, 2);
+    controller.onThrottle(getRateLimitException(null));
+
+    Assert.assertTrue(limiter.tryAcquire());
+    Assert.assertFalse(limiter.tryAcquire(10, TimeUnit.MILLISECONDS));
+    limiter.release();
+    Assert.assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  public void testRetryerReportsToController() throws ExecutionException, RetryException {
+    ThrottlingController controller = new ThrottlingController();
+    AtomicInteger attempts = new AtomicInteger();
+    Retryer<Integer> retryer = APIRequestRetryer.getRetryer("Test request", controller);
+
+    int result = retryer.call(() -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw getRateLimitException("0");
+      }
+      return attempts.get();
+    });
+
+    Assert.assertEquals(2, result);
+    Assert.assertEquals(1, controller.getThrottleSignals());
+    Assert.assertTrue(controller.getConcurrencyFactor() > ThrottlingController.FACTOR_DECREASE);
+  }
+
+  private static HttpResponseException getRateLimitException(String retryAfter) {
+    HttpHeaders headers = new HttpHeaders();
+    if (retryAfter != null) {
+      headers.setRetryAfter(retryAfter);
+    }
+    return new HttpResponseException.Builder(APIRequestRetryer.LIMIT_RATE_EXCEEDED_CODE,
+                                             APIRequestRetryer.FORBIDDEN_STATUS_MESSAGE, headers)
+      .setContent(APIRequestRetryer.LIMIT_RATE_EXCEEDED_MESSAGE)
+      .build();
+  }
+}
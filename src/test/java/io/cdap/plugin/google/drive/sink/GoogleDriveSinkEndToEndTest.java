@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.sink;
+
+import com.google.api.services.drive.model.File;
+import com.google.gson.JsonObject;
+import io.cdap.plugin.google.common.ApiOperation;
+import io.cdap.plugin.google.common.FakeGoogleApiServer;
+import io.cdap.plugin.google.common.GoogleAuthBaseConfig;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class GoogleDriveSinkEndToEndTest {
+
+  private static FakeGoogleApiServer server;
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = FakeGoogleApiServer.start();
+    server.bindClients();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.close();
+  }
+
+  @Test
+  public void testWriteFiles() throws Exception {
+    String folderId = server.addFolder("sink", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    JsonObject config = new JsonObject();
+    config.addProperty(GoogleAuthBaseConfig.REFERENCE_NAME, "driveSinkEndToEnd");
+    config.addProperty(GoogleAuthBaseConfig.AUTH_TYPE, "oAuth2");
+    config.addProperty(GoogleAuthBaseConfig.OAUTH_METHOD, "ACCESS_TOKEN");
+    config.addProperty(GoogleAuthBaseConfig.ACCESS_TOKEN, FakeGoogleApiServer.ACCESS_TOKEN);
+    config.addProperty(GoogleAuthBaseConfig.DIRECTORY_IDENTIFIER, folderId);
+    Configuration conf = new Configuration(false);
+    conf.set(GoogleDriveOutputFormatProvider.PROPERTY_CONFIG_JSON, config.toString());
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    GoogleDriveRecordWriter writer = new GoogleDriveRecordWriter(context);
+    for (int i = 0; i < 3; i++) {
+      File file = new File().setName("file" + i + ".txt").setMimeType("text/plain");
+      writer.write(null, new FileFromFolder(("content " + i).getBytes(StandardCharsets.UTF_8), file));
+    }
+    writer.close(context);
+
+    List<File> files = server.getChildren(folderId);
+    Assert.assertEquals(3, files.size());
+    // resumable upload takes a session initiation and a content request for each file
+    Assert.assertEquals(6, server.getRequestCount(ApiOperation.FILES_CREATE));
+    for (File file : files) {
+      String index = file.getName().substring("file".length(), "file".length() + 1);
+      Assert.assertEquals("text/plain", file.getMimeType());
+      Assert.assertEquals("content " + index,
+                          new String(server.getFileContent(file.getId()), StandardCharsets.UTF_8));
+    }
+  }
+}
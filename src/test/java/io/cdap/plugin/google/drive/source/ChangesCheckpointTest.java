@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class ChangesCheckpointTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testReadWrite() throws Exception {
+    File location = new File(temporaryFolder.getRoot(), "checkpoint");
+    ChangesCheckpoint checkpoint = new ChangesCheckpoint(location.toURI().toString(), new Configuration());
+
+    Assert.assertNull(checkpoint.read());
+
+    checkpoint.write("12345");
+    Assert.assertEquals("12345", checkpoint.read());
+
+    checkpoint.write("12400");
+    Assert.assertEquals("12400", new ChangesCheckpoint(location.getPath(), new Configuration()).read());
+  }
+}
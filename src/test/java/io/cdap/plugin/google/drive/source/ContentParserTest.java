@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.drive.source.utils.ContentFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ContentParserTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "content",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("score", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("active", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))));
+
+  @Test
+  public void testCsvQuotedValuesAndMissingColumns() throws Exception {
+    String csv = "id,name,extra\r\n" +
+      "1,\"Smith, John\",x\r\n" +
+      "\n" +
+      "2,\"multi\nline \"\"quoted\"\"\",y\n" +
+      "3,,z\n" +
+      "4,\"\"";
+    List<Map<String, Object>> records = parseAll(ContentFormat.CSV, csv);
+
+    Assert.assertEquals(4, records.size());
+    Assert.assertEquals(1L, records.get(0).get("id"));
+    Assert.assertEquals("Smith, John", records.get(0).get("name"));
+    Assert.assertEquals("multi\nline \"quoted\"", records.get(1).get("name"));
+    // empty unquoted value is absent, empty quoted value is an empty string
+    Assert.assertNull(records.get(2).get("name"));
+    Assert.assertEquals("", records.get(3).get("name"));
+    // columns missing in the header are absent
+    Assert.assertNull(records.get(0).get("score"));
+    Assert.assertFalse(records.get(0).containsKey("extra"));
+  }
+
+  @Test
+  public void testCsvByteOrderMarkIsSkipped() throws Exception {
+    String csv = "\uFEFFid,name\n1,a\n";
+    List<Map<String, Object>> records = parseAll(ContentFormat.CSV, csv);
+
+    Assert.assertEquals(1, records.size());
+    Assert.assertEquals(1L, records.get(0).get("id"));
+    Assert.assertEquals("a", records.get(0).get("name"));
+    Assert.assertEquals("id", ContentParser.inferSchema(ContentFormat.CSV, stream(csv)).getFields().get(0).getName());
+  }
+
+  @Test
+  public void testJsonLinesValuesAreConverted() throws Exception {
+    String jsonLines = "{\"id\": 1, \"name\": \"a\", \"score\": 1.5, \"active\": true, \"tags\": [1, 2]}\n" +
+      "\n" +
+      "{\"id\": 2, \"name\": null, \"score\": 3}\n";
+    List<Map<String, Object>> records = parseAll(ContentFormat.JSON_LINES, jsonLines);
+
+    Assert.assertEquals(2, records.size());
+    Assert.assertEquals(1L, records.get(0).get("id"));
+    Assert.assertEquals("a", records.get(0).get("name"));
+    Assert.assertEquals(1.5, records.get(0).get("score"));
+    Assert.assertEquals(true, records.get(0).get("active"));
+    Assert.assertNull(records.get(1).get("name"));
+    Assert.assertEquals(3.0, records.get(1).get("score"));
+    Assert.assertNull(records.get(1).get("active"));
+  }
+
+  @Test
+  public void testInvalidValueIsReportedWithRecordNumber() throws Exception {
+    ContentParser parser = ContentParser.create(ContentFormat.CSV, stream("id\n1\nabc\n"), SCHEMA);
+    Assert.assertNotNull(parser.next());
+    try {
+      parser.next();
+      Assert.fail("Value 'abc' must not be converted to long.");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("record 2"));
+    }
+
+    // non-nullable field without value
+    parser = ContentParser.create(ContentFormat.JSON_LINES, stream("{\"name\": \"a\"}"), SCHEMA);
+    try {
+      parser.next();
+      Assert.fail("Non-nullable field 'id' must have a value.");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("'id'"));
+    }
+  }
+
+  @Test
+  public void testSchemaIsInferredFromSampledRecords() throws Exception {
+    Schema csvSchema = ContentParser.inferSchema(ContentFormat.CSV, stream(
+      "id,Score,active,comment,1st,id\n" +
+        "1,2,true,,a,x\n" +
+        "2,2.5,false,,b,y\n"));
+    Assert.assertEquals(Schema.recordOf(
+      "content",
+      Schema.Field.of("id", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+      Schema.Field.of("Score", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+      Schema.Field.of("active", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+      Schema.Field.of("comment", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("_1st", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("id_2", Schema.nullableOf(Schema.of(Schema.Type.STRING)))), csvSchema);
+
+    Schema jsonSchema = ContentParser.inferSchema(ContentFormat.JSON_LINES, stream(
+      "{\"id\": 1, \"first name\": \"a\", \"nested\": {\"b\": 1}}\n" +
+        "{\"id\": \"x\", \"value\": 1}\n" +
+        "{\"value\": 1.5}\n"));
+    Assert.assertEquals(Schema.recordOf(
+      "content",
+      Schema.Field.of("id", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("first_name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("nested", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("value", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE)))), jsonSchema);
+  }
+
+  private static List<Map<String, Object>> parseAll(ContentFormat contentFormat, String content) throws IOException {
+    ContentParser parser = ContentParser.create(contentFormat, stream(content), SCHEMA);
+    List<Map<String, Object>> records = new ArrayList<>();
+    for (Map<String, Object> values = parser.next(); values != null; values = parser.next()) {
+      records.add(values);
+    }
+    return records;
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+public class ExportCacheTest {
+  private static final String TEXT_FORMAT = "text/plain";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testExportIsKeyedByModificationTimeAndFormat() throws Exception {
+    ExportCache cache = new ExportCache(temporaryFolder.getRoot().getPath(), 1024L);
+    Assert.assertNull(cache.read(documentFile("a", 1L), TEXT_FORMAT));
+
+    cache.write(documentFile("a", 1L), TEXT_FORMAT, bytes("text"));
+    Assert.assertArrayEquals(bytes("text"), cache.read(documentFile("a", 1L), TEXT_FORMAT));
+    // the file was modified or is exported to another format
+    Assert.assertNull(cache.read(documentFile("a", 2L), TEXT_FORMAT));
+    Assert.assertNull(cache.read(documentFile("a", 1L), "application/pdf"));
+    Assert.assertNull(cache.read(documentFile("b", 1L), TEXT_FORMAT));
+
+    // another cache instance shares the directory
+    ExportCache otherCache = new ExportCache(temporaryFolder.getRoot().getPath(), 1024L);
+    Assert.assertArrayEquals(bytes("text"), otherCache.read(documentFile("a", 1L), TEXT_FORMAT));
+  }
+
+  @Test
+  public void testCacheIsAccessibleOnlyByOwner() throws Exception {
+    Path directory = temporaryFolder.getRoot().toPath().resolve("exports");
+    Assume.assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    ExportCache cache = new ExportCache(directory.toString(), 1024L);
+
+    cache.write(documentFile("a", 1L), TEXT_FORMAT, bytes("text"));
+    Assert.assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      for (Path entry : entries) {
+        Assert.assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(entry));
+      }
+    }
+  }
+
+  @Test
+  public void testFilesWithoutModificationTimeAreNotCached() throws Exception {
+    ExportCache cache = new ExportCache(temporaryFolder.getRoot().getPath(), 1024L);
+    File file = new File().setId("a").setMimeType("application/vnd.google-apps.document");
+
+    cache.write(file, TEXT_FORMAT, bytes("text"));
+    Assert.assertNull(cache.read(file, TEXT_FORMAT));
+    Assert.assertEquals(0L, cache.getSize());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedExportsAreEvicted() throws Exception {
+    ExportCache cache = new ExportCache(temporaryFolder.getRoot().getPath(), 25L);
+    cache.write(documentFile("a", 1L), TEXT_FORMAT, new byte[10]);
+    Thread.sleep(10);
+    cache.write(documentFile("b", 1L), TEXT_FORMAT, new byte[10]);
+    Thread.sleep(10);
+    // 'a' becomes the most recently used export
+    Assert.assertNotNull(cache.read(documentFile("a", 1L), TEXT_FORMAT));
+    Thread.sleep(10);
+
+    cache.write(documentFile("c", 1L), TEXT_FORMAT, new byte[10]);
+    Assert.assertEquals(20L, cache.getSize());
+    Assert.assertNotNull(cache.read(documentFile("a", 1L), TEXT_FORMAT));
+    Assert.assertNull(cache.read(documentFile("b", 1L), TEXT_FORMAT));
+    Assert.assertNotNull(cache.read(documentFile("c", 1L), TEXT_FORMAT));
+
+    // exports bigger than the cache are not stored
+    cache.write(documentFile("d", 1L), TEXT_FORMAT, new byte[30]);
+    Assert.assertNull(cache.read(documentFile("d", 1L), TEXT_FORMAT));
+    Assert.assertEquals(20L, cache.getSize());
+  }
+
+  private static File documentFile(String id, long modifiedTime) {
+    return new File().setId(id).setMimeType("application/vnd.google-apps.document")
+      .setModifiedTime(new DateTime(modifiedTime));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
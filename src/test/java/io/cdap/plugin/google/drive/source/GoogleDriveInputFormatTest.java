@@ -16,13 +16,19 @@
 
 package io.cdap.plugin.google.drive.source;
 
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.drive.model.File;
+import org.apache.hadoop.mapreduce.InputSplit;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,6 +38,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class GoogleDriveInputFormatTest {
+  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
 
   private static final String FILE_NAME_1 = "a";
   private static final String FILE_NAME_2 = "b";
@@ -102,7 +109,75 @@ public class GoogleDriveInputFormatTest {
     assertFalse(splitsById.get(FILE_NAME_3).get(0).isPartitioned());
   }
 
-  private List<File> getTestFiles() {
+  @Test
+  public void testCombineSmallFileSplits() throws InvocationTargetException, IllegalAccessException {
+    List<InputSplit> splits = GoogleDriveInputFormat.combineSmallFileSplits(
+      (List<InputSplit>) getSplitsFromFiles.invoke(googleDriveInputFormat, getTestFiles(), 0L), 110L, 1000);
+    assertEquals(2, splits.size());
+
+    GoogleDriveCombinedSplit combinedSplit = (GoogleDriveCombinedSplit) splits.get(0);
+    assertEquals(Arrays.asList(FILE_NAME_1, FILE_NAME_2),
+                 combinedSplit.getFiles().stream().map(File::getId).collect(Collectors.toList()));
+    assertEquals(101L, combinedSplit.getLength());
+
+    // export of Google format file is estimated larger than the target, so it isn't combined
+    assertEquals(FILE_NAME_3, ((GoogleDriveSplit) splits.get(1)).getFileId());
+  }
+
+  @Test
+  public void testCombineSmallFileSplitsRespectsTargetSize() throws InvocationTargetException, IllegalAccessException {
+    List<InputSplit> splits = GoogleDriveInputFormat.combineSmallFileSplits(
+      (List<InputSplit>) getSplitsFromFiles.invoke(googleDriveInputFormat, getTestFiles(), 0L), 60L, 1000);
+
+    // no two files fit together in the target size, so none are combined
+    assertEquals(3, splits.size());
+    for (InputSplit split : splits) {
+      assertTrue(split instanceof GoogleDriveSplit);
+    }
+  }
+
+  @Test
+  public void testCombineSmallFileSplitsLimitedByFilesNumber()
+    throws InvocationTargetException, IllegalAccessException {
+    List<InputSplit> splits = GoogleDriveInputFormat.combineSmallFileSplits(
+      (List<InputSplit>) getSplitsFromFiles.invoke(googleDriveInputFormat, getTestFiles(), 0L), 1000L, 2);
+    assertEquals(2, splits.size());
+
+    GoogleDriveCombinedSplit combinedSplit = (GoogleDriveCombinedSplit) splits.get(0);
+    assertEquals(Arrays.asList(FILE_NAME_1, FILE_NAME_2),
+                 combinedSplit.getFiles().stream().map(File::getId).collect(Collectors.toList()));
+    assertEquals(FILE_NAME_3, ((GoogleDriveSplit) splits.get(1)).getFileId());
+  }
+
+  @Test
+  public void testCombineSmallFileSplitsKeepsPartitions() throws InvocationTargetException, IllegalAccessException {
+    List<InputSplit> splits = GoogleDriveInputFormat.combineSmallFileSplits(
+      (List<InputSplit>) getSplitsFromFiles.invoke(googleDriveInputFormat, getTestFiles(), 50L), 50L, 1000);
+    assertEquals(4, splits.size());
+    for (InputSplit split : splits) {
+      assertTrue(split instanceof GoogleDriveSplit);
+    }
+  }
+
+  @Test
+  public void testSortBySizeDescending() throws InvocationTargetException, IllegalAccessException {
+    List<InputSplit> splits =
+      (List<InputSplit>) getSplitsFromFiles.invoke(googleDriveInputFormat, getTestFiles(), 30L);
+    GoogleDriveInputFormat.sortBySizeDescending(splits);
+
+    // Google format file is estimated, partitions of a file keep their order
+    assertEquals(FILE_NAME_3, ((GoogleDriveSplit) splits.get(0)).getFileId());
+    assertEquals(FILE_NAME_1, ((GoogleDriveSplit) splits.get(1)).getFileId());
+    assertEquals(0L, ((GoogleDriveSplit) splits.get(1)).getBytesFrom());
+    assertEquals(FILE_NAME_2, ((GoogleDriveSplit) splits.get(2)).getFileId());
+    assertEquals(0L, ((GoogleDriveSplit) splits.get(2)).getBytesFrom());
+    assertEquals(FILE_NAME_1, ((GoogleDriveSplit) splits.get(3)).getFileId());
+    assertEquals(30L, ((GoogleDriveSplit) splits.get(3)).getBytesFrom());
+    assertEquals(FILE_NAME_2, ((GoogleDriveSplit) splits.get(4)).getFileId());
+    assertEquals(30L, ((GoogleDriveSplit) splits.get(4)).getBytesFrom());
+  }
+
+  private List<PlannedFile> getTestFiles() {
     File file0 = new File();
     file0.setSize(51L);
     file0.setId(FILE_NAME_1);
@@ -114,10 +189,14 @@ public class GoogleDriveInputFormatTest {
     File file2 = new File();
     file2.setSize(null);
     file2.setId(FILE_NAME_3);
-    return new ArrayList<File>() {{
-      add(file0);
-      add(file1);
-      add(file2);
-    }};
+    List<PlannedFile> files = new ArrayList<>();
+    for (File file : Arrays.asList(file0, file1, file2)) {
+      try {
+        files.add(new PlannedFile(file, JSON_FACTORY.toString(file).getBytes(StandardCharsets.UTF_8)));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return files;
   }
 }
@@ -0,0 +1,879 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.services.drive.model.File;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.common.ApiOperation;
+import io.cdap.plugin.google.common.FakeGoogleApiServer;
+import io.cdap.plugin.google.common.GoogleAuthBaseConfig;
+import io.cdap.plugin.google.drive.common.FileFromFolder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class GoogleDriveSourceEndToEndTest {
+  private static final String BINARY_MIME = "application/octet-stream";
+
+  private static FakeGoogleApiServer server;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = FakeGoogleApiServer.start();
+    server.bindClients();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.close();
+  }
+
+  @Before
+  public void resetServer() {
+    server.reset();
+  }
+
+  @Test
+  public void testReadPartitionedBinaryFiles() throws Exception {
+    String folderId = server.addFolder("partitioned", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    String smallFileId = server.addFile("small.txt", "text/plain", "small".getBytes(StandardCharsets.UTF_8),
+                                        folderId);
+    server.addFile("document", "application/vnd.google-apps.document", "text".getBytes(StandardCharsets.UTF_8),
+                   folderId);
+    server.addFolder("nested", folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "40");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(2, contents.size());
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals("small", new String(contents.get(smallFileId).toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.FILES_LIST));
+    // file metadata is carried by splits
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_GET));
+    // 3 partitions of the big file and the small file
+    Assert.assertEquals(4, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testSplitsOfSpilledFilesAreReadWithMetadata() throws Exception {
+    String folderId = server.addFolder("spilled", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    Map<String, String> expectedContents = new HashMap<>();
+    for (int i = 0; i < 5; i++) {
+      String content = String.format("content of file %d", i);
+      expectedContents.put(server.addFile("file" + i + ".txt", "text/plain",
+                                          content.getBytes(StandardCharsets.UTF_8), folderId), content);
+    }
+
+    Configuration conf = getConfiguration(folderId, "binary", "10");
+    setProperty(conf, GoogleDriveSourceConfig.SPLIT_PLANNING_SPILL_THRESHOLD, "2");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(5, contents.size());
+    for (Map.Entry<String, String> expected : expectedContents.entrySet()) {
+      Assert.assertEquals(expected.getValue(),
+                          new String(contents.get(expected.getKey()).toByteArray(), StandardCharsets.UTF_8));
+    }
+    // metadata of spilled files is carried by splits as well
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_GET));
+  }
+
+  @Test
+  public void testCombinedSplitsReadSmallFilesTogether() throws Exception {
+    String folderId = server.addFolder("combined", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    Map<String, String> expectedContents = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      String content = String.format("content%03d", i);
+      expectedContents.put(server.addFile("file" + i + ".txt", "text/plain",
+                                          content.getBytes(StandardCharsets.UTF_8), folderId), content);
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, new byte[100], folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.COMBINED_SPLIT_SIZE, "50");
+    // the split of the big file goes first, then 4 splits of 5 small files
+    List<InputSplit> splits = new GoogleDriveInputFormat().getSplits(new JobContextImpl(conf, new JobID()));
+    Assert.assertEquals(5, splits.size());
+    Assert.assertEquals(100L, splits.get(0).getLength());
+    for (InputSplit split : splits.subList(1, splits.size())) {
+      Assert.assertEquals(50L, split.getLength());
+    }
+
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+    Assert.assertEquals(21, contents.size());
+    for (Map.Entry<String, String> expected : expectedContents.entrySet()) {
+      Assert.assertEquals(expected.getValue(),
+                          new String(contents.get(expected.getKey()).toByteArray(), StandardCharsets.UTF_8));
+    }
+    Assert.assertEquals(100, contents.get(bigFileId).size());
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_GET));
+    Assert.assertEquals(21, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testThrottledDownloadsAreRetried() throws Exception {
+    String folderId = server.addFolder("throttled", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    Map<String, String> expectedContents = new HashMap<>();
+    for (int i = 0; i < 8; i++) {
+      String content = "content" + i;
+      expectedContents.put(server.addFile("file" + i + ".txt", "text/plain",
+                                          content.getBytes(StandardCharsets.UTF_8), folderId), content);
+    }
+    server.setLatencyMillis(20);
+    server.setRequestsPerSecondLimit(4);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.COMBINED_SPLIT_SIZE, "1000");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(8, contents.size());
+    for (Map.Entry<String, String> expected : expectedContents.entrySet()) {
+      Assert.assertEquals(expected.getValue(),
+                          new String(contents.get(expected.getKey()).toByteArray(), StandardCharsets.UTF_8));
+    }
+    // one listing and eight downloads don't fit into the per second limit, rejected requests are retried
+    Assert.assertTrue(server.getThrottledRequests() > 0);
+    Assert.assertEquals(9, server.getRequestCount() - server.getThrottledRequests());
+  }
+
+  @Test
+  public void testExportGoogleFormatsAndRetryBackendErrors() throws Exception {
+    String folderId = server.addFolder("export", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String documentId = server.addFile("document", "application/vnd.google-apps.document",
+                                       "exported text".getBytes(StandardCharsets.UTF_8), folderId);
+    server.addFile("binary.bin", BINARY_MIME, new byte[]{1, 2, 3}, folderId);
+    server.injectErrors(ApiOperation.FILES_EXPORT, 500, 1);
+
+    Configuration conf = getConfiguration(folderId, "documents", "0");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(1, contents.size());
+    Assert.assertEquals("exported text",
+                        new String(contents.get(documentId).toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertEquals(2, server.getRequestCount(ApiOperation.FILES_EXPORT));
+  }
+
+  @Test
+  public void testExportCacheIsReusedUntilFileIsModified() throws Exception {
+    String folderId = server.addFolder("cached", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String documentId = server.addFile("document", "application/vnd.google-apps.document",
+                                       "exported text".getBytes(StandardCharsets.UTF_8), folderId, 1000L);
+
+    Configuration conf = getConfiguration(folderId, "documents", "0");
+    setProperty(conf, GoogleDriveSourceConfig.EXPORT_CACHE_DIRECTORY, temporaryFolder.getRoot().getPath());
+    Assert.assertEquals("exported text",
+                        new String(readAll(conf).get(documentId).toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.FILES_EXPORT));
+
+    // streamed content is served from the same cache
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    Assert.assertEquals("exported text",
+                        new String(readAll(conf).get(documentId).toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.FILES_EXPORT));
+
+    // the modified document is exported again
+    server.updateFile(documentId, "modified text".getBytes(StandardCharsets.UTF_8), 2000L);
+    Assert.assertEquals("modified text",
+                        new String(readAll(conf).get(documentId).toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertEquals(2, server.getRequestCount(ApiOperation.FILES_EXPORT));
+  }
+
+  @Test
+  public void testMetadataOnlyModeSkipsContent() throws Exception {
+    String folderId = server.addFolder("inventory", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    for (int i = 0; i < 1500; i++) {
+      server.addFile("file" + i + ".bin", BINARY_MIME, new byte[]{(byte) i}, folderId);
+    }
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "none");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name,size");
+
+    GoogleDriveSourceConfig config = GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
+    Schema schema = config.getSchema();
+    Assert.assertNull(schema.getField(SchemaBuilder.BODY_FIELD_NAME));
+
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    Assert.assertEquals(2, splits.size());
+
+    int records = 0;
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      while (reader.nextKeyValue()) {
+        StructuredRecord record = FilesFromFolderTransformer.transform(reader.getCurrentValue(), schema);
+        Assert.assertTrue(record.<String>get(SchemaBuilder.NAME_FIELD_NAME).startsWith("file"));
+        Assert.assertEquals(Long.valueOf(1L), record.<Long>get(SchemaBuilder.SIZE_FIELD_NAME));
+        records++;
+      }
+      reader.close();
+    }
+
+    Assert.assertEquals(1500, records);
+    Assert.assertEquals(2, server.getRequestCount(ApiOperation.FILES_LIST));
+    Assert.assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  public void testListingRetriesFailedPageOnly() throws Exception {
+    String folderId = server.addFolder("pages", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    for (int i = 0; i < 2500; i++) {
+      server.addFile("file" + i + ".bin", BINARY_MIME, new byte[]{(byte) i}, folderId);
+    }
+    server.addFile("document", "application/vnd.google-apps.document",
+                   "text".getBytes(StandardCharsets.UTF_8), folderId);
+    // one of the pages after the first two fails once
+    server.injectErrors(ApiOperation.FILES_LIST, 500, 1, 2);
+
+    Configuration conf = getConfiguration(folderId, "binary,documents", "0");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "none");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+
+    Assert.assertEquals(2501, readNames(conf).size());
+    // 3 pages of binary files, 1 page of documents and a single retried page
+    Assert.assertEquals(5, server.getRequestCount(ApiOperation.FILES_LIST));
+  }
+
+  @Test
+  public void testChangesReadOnlyChangedFilesOfDirectory() throws Exception {
+    String folderId = server.addFolder("incremental", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String otherFolderId = server.addFolder("other", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    server.addFile("old.bin", BINARY_MIME, new byte[]{1}, folderId);
+    String trashedId = server.addFile("trashed.bin", BINARY_MIME, new byte[]{2}, folderId);
+    String movedId = server.addFile("moved.bin", BINARY_MIME, new byte[]{3}, otherFolderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "none");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+    String pageToken;
+    try (GoogleDriveSourceClient client =
+           new GoogleDriveSourceClient(GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf))) {
+      pageToken = client.getChangesStartPageToken();
+    }
+
+    server.addFile("new.bin", BINARY_MIME, new byte[]{4}, folderId);
+    server.addFile("elsewhere.bin", BINARY_MIME, new byte[]{5}, otherFolderId);
+    server.addFile("document", "application/vnd.google-apps.document", new byte[0], folderId);
+    // modification time of the moved file doesn't change
+    server.moveFile(movedId, folderId);
+    server.trashFile(trashedId);
+    server.reset();
+
+    conf.set(GoogleDriveInputFormatProvider.PROPERTY_CHANGES_PAGE_TOKEN, pageToken);
+    Assert.assertEquals(Arrays.asList("moved.bin", "new.bin"), readNames(conf));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.CHANGES_LIST));
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_LIST));
+  }
+
+  @Test
+  public void testChangesAreFilteredByModificationDateRange() throws Exception {
+    String folderId = server.addFolder("incremental-range", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "none");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+    setProperty(conf, GoogleDriveSourceConfig.MODIFICATION_DATE_RANGE, "custom");
+    setProperty(conf, GoogleDriveSourceConfig.START_DATE, "2000-01-01T00:00:00Z");
+    setProperty(conf, GoogleDriveSourceConfig.END_DATE, "2001-01-01T00:00:00Z");
+    String pageToken;
+    try (GoogleDriveSourceClient client =
+           new GoogleDriveSourceClient(GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf))) {
+      pageToken = client.getChangesStartPageToken();
+    }
+
+    // the file is modified now, out of the range
+    server.addFile("new.bin", BINARY_MIME, new byte[]{1}, folderId);
+
+    conf.set(GoogleDriveInputFormatProvider.PROPERTY_CHANGES_PAGE_TOKEN, pageToken);
+    Assert.assertEquals(Collections.emptyList(), readNames(conf));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.CHANGES_LIST));
+  }
+
+  @Test
+  public void testChunksReadMode() throws Exception {
+    String folderId = server.addFolder("chunks", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    String emptyFileId = server.addFile("empty.bin", BINARY_MIME, new byte[0], folderId);
+    String documentId = server.addFile("document", "application/vnd.google-apps.document",
+                                       "exported text".getBytes(StandardCharsets.UTF_8), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary,documents", "60");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "25");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(3, contents.size());
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals(0, contents.get(emptyFileId).size());
+    Assert.assertEquals("exported text",
+                        new String(contents.get(documentId).toByteArray(), StandardCharsets.UTF_8));
+    // 2 partitions of the big file and the empty file
+    Assert.assertEquals(3, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.FILES_EXPORT));
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_GET));
+  }
+
+  @Test
+  public void testParallelRangeDownloadInFileMode() throws Exception {
+    String folderId = server.addFolder("ranges", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    String smallFileId = server.addFile("small.txt", "text/plain", "small".getBytes(StandardCharsets.UTF_8),
+                                        folderId);
+    server.injectErrors(ApiOperation.FILES_DOWNLOAD, 500, 1);
+
+    Configuration conf = getConfiguration(folderId, "binary", "60");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "16");
+    setProperty(conf, GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER, "4");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(2, contents.size());
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals("small", new String(contents.get(smallFileId).toByteArray(), StandardCharsets.UTF_8));
+    // 4 ranges of the first partition, 3 ranges of the second one, the small file and the retried range
+    Assert.assertEquals(9, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testFileModeReportsProgressAndDownloadCounters() throws Exception {
+    String folderId = server.addFolder("progress", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    server.addFile("big.bin", BINARY_MIME, new byte[100], folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "16");
+    setProperty(conf, GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER, "4");
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    Assert.assertEquals(1, splits.size());
+
+    Counters counters = new Counters();
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID(), new StatusReporter() {
+      @Override
+      public Counter getCounter(Enum<?> name) {
+        return counters.findCounter(name);
+      }
+
+      @Override
+      public Counter getCounter(String group, String name) {
+        return counters.findCounter(group, name);
+      }
+
+      @Override
+      public void progress() {
+      }
+
+      @Override
+      public float getProgress() {
+        return 0;
+      }
+
+      @Override
+      public void setStatus(String status) {
+      }
+    });
+    RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(splits.get(0), context);
+    reader.initialize(splits.get(0), context);
+    try {
+      Assert.assertEquals(0.0f, reader.getProgress(), 0.0f);
+      Assert.assertTrue(reader.nextKeyValue());
+      Assert.assertEquals(100, reader.getCurrentValue().getContent().length);
+      Assert.assertEquals(1.0f, reader.getProgress(), 0.0f);
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(1L, counters.findCounter(DownloadProgress.Counters.DOWNLOADS).getValue());
+    Assert.assertEquals(100L, counters.findCounter(DownloadProgress.Counters.BYTES_RECEIVED).getValue());
+    long downloadNanos = counters.findCounter(DownloadProgress.Counters.DOWNLOAD_NANOS).getValue();
+    Assert.assertTrue(downloadNanos > 0);
+    Assert.assertTrue(counters.findCounter(DownloadProgress.Counters.TIME_TO_FIRST_BYTE_NANOS).getValue()
+                        <= downloadNanos);
+  }
+
+  @Test
+  public void testParallelRangeDownloadInChunksMode() throws Exception {
+    String folderId = server.addFolder("rangeChunks", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    String emptyFileId = server.addFile("empty.bin", BINARY_MIME, new byte[0], folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "25");
+    setProperty(conf, GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER, "3");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertEquals(2, contents.size());
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals(0, contents.get(emptyFileId).size());
+    // 4 ranges of the big file and the empty file
+    Assert.assertEquals(5, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testStringChunksDoNotSplitCharacters() throws Exception {
+    String folderId = server.addFolder("stringChunks", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    // characters of 1, 2, 3 and 4 bytes in UTF-8
+    String text = "a\u00e9\u20ac\ud834\udd1e b\u00e9\u20ac\ud834\udd1e";
+    server.addFile("text.txt", "text/plain", text.getBytes(StandardCharsets.UTF_8), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "4");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "string");
+    setProperty(conf, GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER, "3");
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    StringBuilder content = new StringBuilder();
+    RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(splits.get(0), context);
+    reader.initialize(splits.get(0), context);
+    try {
+      while (reader.nextKeyValue()) {
+        String chunk = new String(reader.getCurrentValue().getContent(), StandardCharsets.UTF_8);
+        Assert.assertEquals(-1, chunk.indexOf('\ufffd'));
+        content.append(chunk);
+      }
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(text, content.toString());
+    // content of String body is streamed by a single request
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testFileBiggerThanRecordBodyFailsClearly() throws Exception {
+    String folderId = server.addFolder("tooBig", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.DOWNLOAD_THREADS_NUMBER, "3");
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    // only the metadata of the split is used, the content is never requested
+    File bigFile = new File().setId("big").setName("big.bin").setMimeType(BINARY_MIME).setSize(3L << 30);
+    GoogleDriveSplit split = new GoogleDriveSplit(bigFile);
+
+    GoogleDriveRecordReader reader = new GoogleDriveRecordReader();
+    reader.initialize(split, context);
+    try {
+      Assert.assertTrue(reader.nextKeyValue());
+      reader.getCurrentValue();
+      Assert.fail("File bigger than a record body must not be read.");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("Maximum Partition Size"));
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(0, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testDownloadResumesFromLastReceivedByte() throws Exception {
+    String folderId = server.addFolder("resume", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    server.dropDownloads(1, 40);
+
+    Map<String, ByteArrayOutputStream> contents = readAll(getConfiguration(folderId, "binary", "0"));
+
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals(2, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+    Assert.assertEquals("bytes=40-", server.getDownloadRanges().get(1));
+  }
+
+  @Test
+  public void testStreamedDownloadResumesFromLastReceivedByte() throws Exception {
+    String folderId = server.addFolder("resumeChunks", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] bigContent = new byte[100];
+    for (int i = 0; i < bigContent.length; i++) {
+      bigContent[i] = (byte) i;
+    }
+    String bigFileId = server.addFile("big.bin", BINARY_MIME, bigContent, folderId);
+    server.dropDownloads(1, 40);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "30");
+    Map<String, ByteArrayOutputStream> contents = readAll(conf);
+
+    Assert.assertArrayEquals(bigContent, contents.get(bigFileId).toByteArray());
+    Assert.assertEquals(Arrays.asList("", "bytes=40-"), server.getDownloadRanges());
+  }
+
+  @Test
+  public void testDownloadWithMismatchingChecksumIsRepeated() throws Exception {
+    String folderId = server.addFolder("checksum", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    byte[] content = "checked content".getBytes(StandardCharsets.UTF_8);
+    String fileId = server.addFile("checked.txt", "text/plain", content, folderId);
+    server.corruptDownloads(1);
+
+    Map<String, ByteArrayOutputStream> contents = readAll(getConfiguration(folderId, "binary", "0"));
+
+    Assert.assertArrayEquals(content, contents.get(fileId).toByteArray());
+    Assert.assertEquals(2, server.getRequestCount(ApiOperation.FILES_DOWNLOAD));
+  }
+
+  @Test
+  public void testLinesReadModeAlignsPartitionsToLines() throws Exception {
+    String folderId = server.addFolder("lines", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String text = "alpha\nbravo charlie\r\ndelta\n\necho foxtrot golf india\nhotel";
+    server.addFile("log.txt", "text/plain", text.getBytes(StandardCharsets.UTF_8), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "10");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "lines");
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    Assert.assertEquals(6, splits.size());
+
+    List<String> lines = new ArrayList<>();
+    List<Long> offsets = new ArrayList<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      try {
+        while (reader.nextKeyValue()) {
+          lines.add(new String(reader.getCurrentValue().getContent(), StandardCharsets.UTF_8));
+          offsets.add(reader.getCurrentValue().getOffset());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+
+    Assert.assertEquals(Arrays.asList("alpha", "bravo charlie", "delta", "", "echo foxtrot golf india", "hotel"),
+                        lines);
+    Assert.assertEquals(Arrays.asList(0L, 6L, 21L, 27L, 28L, 52L), offsets);
+  }
+
+  @Test
+  public void testLinesOfCompressedFilesAreDecompressed() throws Exception {
+    String folderId = server.addFolder("gzipLines", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+      gzipStream.write("alpha\nbravo\r\ncharlie".getBytes(StandardCharsets.UTF_8));
+    }
+    server.addFile("log.txt.gz", "application/gzip", compressed.toByteArray(), folderId);
+    server.addFile("plain.txt", "text/plain", "delta\necho".getBytes(StandardCharsets.UTF_8), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "10");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "lines");
+    setProperty(conf, GoogleDriveSourceConfig.DECOMPRESSION, "auto");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+
+    // compressed file is not partitioned, content without compression is read as is
+    Assert.assertEquals(Arrays.asList("log.txt.gz/null@0:alpha", "log.txt.gz/null@13:charlie",
+                                      "log.txt.gz/null@6:bravo", "plain.txt/null@0:delta",
+                                      "plain.txt/null@6:echo"),
+                        readRecords(conf));
+  }
+
+  @Test
+  public void testChunksOfZipEntriesAreReadSeparately() throws Exception {
+    String folderId = server.addFolder("zipChunks", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (ZipOutputStream zipStream = new ZipOutputStream(compressed)) {
+      zipStream.putNextEntry(new ZipEntry("first.txt"));
+      zipStream.write("0123456789ab".getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("nested/"));
+      zipStream.putNextEntry(new ZipEntry("nested/empty.txt"));
+      zipStream.putNextEntry(new ZipEntry("nested/second.txt"));
+      zipStream.write("xyz".getBytes(StandardCharsets.UTF_8));
+    }
+    server.addFile("archive.zip", "application/zip", compressed.toByteArray(), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.READ_MODE, "chunks");
+    setProperty(conf, GoogleDriveSourceConfig.CHUNK_SIZE, "5");
+    setProperty(conf, GoogleDriveSourceConfig.DECOMPRESSION, "zip");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+
+    Assert.assertEquals(Arrays.asList("archive.zip/first.txt@0:01234", "archive.zip/first.txt@10:ab",
+                                      "archive.zip/first.txt@5:56789", "archive.zip/nested/empty.txt@0:",
+                                      "archive.zip/nested/second.txt@0:xyz"),
+                        readRecords(conf));
+  }
+
+  @Test
+  public void testCsvContentIsParsedIntoRecords() throws Exception {
+    String folderId = server.addFolder("csvContent", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+      gzipStream.write("id,city\n1,\"Paris, FR\"\n2,Oslo\n".getBytes(StandardCharsets.UTF_8));
+    }
+    server.addFile("a.csv.gz", "application/gzip", compressed.toByteArray(), folderId);
+    server.addFile("b.csv", "text/csv", "city,id\r\nRome,3\r\n".getBytes(StandardCharsets.UTF_8), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "5");
+    setProperty(conf, GoogleDriveSourceConfig.CONTENT_FORMAT, "csv");
+    setProperty(conf, GoogleDriveSourceConfig.DECOMPRESSION, "auto");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+    setProperty(conf, GoogleDriveSourceConfig.CONTENT_SCHEMA, Schema.recordOf(
+      "content",
+      Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("city", Schema.nullableOf(Schema.of(Schema.Type.STRING)))).toString());
+
+    // parsed files are not partitioned
+    Assert.assertEquals(Arrays.asList("a.csv.gz/null:1,Paris, FR", "a.csv.gz/null:2,Oslo", "b.csv/null:3,Rome"),
+                        readParsedRecords(conf, "id", "city"));
+  }
+
+  @Test
+  public void testJsonLinesOfZipEntriesAreParsedWithResolvedSchema() throws Exception {
+    String folderId = server.addFolder("jsonContent", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (ZipOutputStream zipStream = new ZipOutputStream(compressed)) {
+      zipStream.putNextEntry(new ZipEntry("first.jsonl"));
+      zipStream.write("{\"event\": \"open\", \"count\": 1}\n".getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("second.jsonl"));
+      zipStream.write("{\"event\": \"close\"}\n{\"count\": 2.5}".getBytes(StandardCharsets.UTF_8));
+    }
+    server.addFile("events.zip", "application/zip", compressed.toByteArray(), folderId);
+
+    Configuration conf = getConfiguration(folderId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.CONTENT_FORMAT, "jsonl");
+    setProperty(conf, GoogleDriveSourceConfig.DECOMPRESSION, "zip");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+    // the schema resolved by the source overrides the configured one
+    conf.set(GoogleDriveInputFormatProvider.PROPERTY_CONTENT_SCHEMA, Schema.recordOf(
+      "content",
+      Schema.Field.of("event", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("count", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE)))).toString());
+
+    Assert.assertEquals(Arrays.asList("events.zip/first.jsonl:open,1.0", "events.zip/second.jsonl:close,null",
+                                      "events.zip/second.jsonl:null,2.5"),
+                        readParsedRecords(conf, "event", "count"));
+  }
+
+  @Test
+  public void testRecursiveListingFollowsShortcutsOnce() throws Exception {
+    String treeId = server.addFolder("tree", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String outsideId = server.addFolder("outside", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    String level1Id = server.addFolder("level1", treeId);
+    String level2Id = server.addFolder("level2", level1Id);
+    server.addFile("a.bin", BINARY_MIME, new byte[]{1}, treeId);
+    server.addFile("b.bin", BINARY_MIME, new byte[]{2}, level1Id);
+    server.addFile("c.bin", BINARY_MIME, new byte[]{3}, level2Id);
+    server.addFile("d.bin", BINARY_MIME, new byte[]{4}, outsideId);
+    server.addShortcut("level2 shortcut", level2Id, treeId);
+    server.addShortcut("outside shortcut", outsideId, level1Id);
+    server.addShortcut("cycle", treeId, level2Id);
+
+    Configuration conf = getConfiguration(treeId, "binary", "0");
+    setProperty(conf, GoogleDriveSourceConfig.BODY_FORMAT, "none");
+    setProperty(conf, GoogleDriveSourceConfig.FILE_METADATA_PROPERTIES, "name");
+    setProperty(conf, GoogleDriveSourceConfig.RECURSIVE, "true");
+
+    Assert.assertEquals(Arrays.asList("a.bin", "b.bin", "c.bin", "d.bin"), readNames(conf));
+    // files and subfolders of each of 4 folders
+    Assert.assertEquals(8, server.getRequestCount(ApiOperation.FILES_LIST));
+
+    server.reset();
+    setProperty(conf, GoogleDriveSourceConfig.MAX_DEPTH, "1");
+
+    // level2 is reachable from the directory via shortcut, so it is on the first level as well
+    Assert.assertEquals(Arrays.asList("a.bin", "b.bin", "c.bin"), readNames(conf));
+    // subfolders are not listed on the last level
+    Assert.assertEquals(4, server.getRequestCount(ApiOperation.FILES_LIST));
+
+    server.reset();
+    setProperty(conf, GoogleDriveSourceConfig.RECURSIVE, "false");
+
+    Assert.assertEquals(Collections.singletonList("a.bin"), readNames(conf));
+  }
+
+  private static List<String> readNames(Configuration conf) throws Exception {
+    GoogleDriveSourceConfig config = GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    List<String> names = new ArrayList<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      while (reader.nextKeyValue()) {
+        StructuredRecord record = FilesFromFolderTransformer.transform(reader.getCurrentValue(), config.getSchema());
+        names.add(record.get(SchemaBuilder.NAME_FIELD_NAME));
+      }
+      reader.close();
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  // returns sorted records formatted as "name/entryName@offset:body"
+  private static List<String> readRecords(Configuration conf) throws Exception {
+    GoogleDriveSourceConfig config = GoogleDriveInputFormatProvider.extractPropertiesFromConfig(conf);
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    List<String> records = new ArrayList<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      try {
+        while (reader.nextKeyValue()) {
+          StructuredRecord record = FilesFromFolderTransformer.transform(reader.getCurrentValue(),
+                                                                         config.getSchema());
+          byte[] body = record.get(SchemaBuilder.BODY_FIELD_NAME);
+          records.add(String.format("%s/%s@%d:%s", record.<String>get(SchemaBuilder.NAME_FIELD_NAME),
+                                    record.<String>get(SchemaBuilder.ENTRY_NAME_FIELD_NAME),
+                                    record.<Long>get(SchemaBuilder.OFFSET_FIELD_NAME),
+                                    new String(body, StandardCharsets.UTF_8)));
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    Collections.sort(records);
+    return records;
+  }
+
+  // returns sorted records formatted as "name/entryName:value,value"
+  private static List<String> readParsedRecords(Configuration conf, String... fields) throws Exception {
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    List<String> records = new ArrayList<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      try {
+        while (reader.nextKeyValue()) {
+          StructuredRecord record = ((ParsedFileFromFolder) reader.getCurrentValue()).getRecord();
+          List<String> values = new ArrayList<>();
+          for (String field : fields) {
+            values.add(String.valueOf((Object) record.get(field)));
+          }
+          records.add(String.format("%s/%s:%s", record.<String>get(SchemaBuilder.NAME_FIELD_NAME),
+                                    record.<String>get(SchemaBuilder.ENTRY_NAME_FIELD_NAME),
+                                    String.join(",", values)));
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    Collections.sort(records);
+    return records;
+  }
+
+  private static Map<String, ByteArrayOutputStream> readAll(Configuration conf) throws Exception {
+    GoogleDriveInputFormat inputFormat = new GoogleDriveInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    Map<String, ByteArrayOutputStream> contents = new HashMap<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, FileFromFolder> reader = inputFormat.createRecordReader(split, context);
+      reader.initialize(split, context);
+      try {
+        while (reader.nextKeyValue()) {
+          FileFromFolder fileFromFolder = reader.getCurrentValue();
+          ByteArrayOutputStream content = contents.computeIfAbsent(fileFromFolder.getFile().getId(),
+                                                                   id -> new ByteArrayOutputStream());
+          Assert.assertEquals(content.size(), fileFromFolder.getOffset());
+          content.write(fileFromFolder.getContent());
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    return contents;
+  }
+
+  private static void setProperty(Configuration conf, String name, String value) {
+    JsonObject configJson = new JsonParser()
+      .parse(conf.get(GoogleDriveInputFormatProvider.PROPERTY_CONFIG_JSON)).getAsJsonObject();
+    configJson.getAsJsonObject(GoogleDriveSourceConfig.CONFIGURATION_PARSE_PROPERTY_NAME).addProperty(name, value);
+    conf.set(GoogleDriveInputFormatProvider.PROPERTY_CONFIG_JSON, configJson.toString());
+  }
+
+  private static Configuration getConfiguration(String folderId, String fileTypesToPull, String maxPartitionSize) {
+    JsonObject properties = new JsonObject();
+    properties.addProperty(GoogleAuthBaseConfig.REFERENCE_NAME, "driveSourceEndToEnd");
+    properties.addProperty(GoogleAuthBaseConfig.AUTH_TYPE, "oAuth2");
+    properties.addProperty(GoogleAuthBaseConfig.OAUTH_METHOD, "ACCESS_TOKEN");
+    properties.addProperty(GoogleAuthBaseConfig.ACCESS_TOKEN, FakeGoogleApiServer.ACCESS_TOKEN);
+    properties.addProperty(GoogleAuthBaseConfig.DIRECTORY_IDENTIFIER, folderId);
+    properties.addProperty(GoogleDriveSourceConfig.FILE_TYPES_TO_PULL, fileTypesToPull);
+    properties.addProperty(GoogleDriveSourceConfig.MAX_PARTITION_SIZE, maxPartitionSize);
+    properties.addProperty(GoogleDriveSourceConfig.BODY_FORMAT, "bytes");
+    properties.addProperty(GoogleDriveSourceConfig.DOCS_EXPORTING_FORMAT, "text/plain");
+    properties.addProperty(GoogleDriveSourceConfig.MODIFICATION_DATE_RANGE, "lifetime");
+    JsonObject configJson = new JsonObject();
+    configJson.add(GoogleDriveSourceConfig.CONFIGURATION_PARSE_PROPERTY_NAME, properties);
+
+    Configuration conf = new Configuration(false);
+    conf.set(GoogleDriveInputFormatProvider.PROPERTY_CONFIG_JSON, configJson.toString());
+    return conf;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GoogleDriveSplitTest {
+
+  @Test
+  public void testSerializationWithFileMetadata() throws IOException {
+    File file = new File()
+      .setId("fileId")
+      .setName("name.txt")
+      .setMimeType("text/plain")
+      .setSize(100L)
+      .setModifiedTime(new DateTime(1_580_000_000_000L))
+      .setProperties(Collections.singletonMap("key", "value"))
+      .setImageMediaMetadata(new File.ImageMediaMetadata().setWidth(10));
+
+    GoogleDriveSplit split = copy(new GoogleDriveSplit(file, 10L, 49L));
+
+    assertEquals("fileId", split.getFileId());
+    assertEquals(10L, split.getBytesFrom());
+    assertEquals(49L, split.getBytesTo());
+    assertTrue(split.isPartitioned());
+    assertEquals("name.txt", split.getFile().getName());
+    assertEquals("text/plain", split.getFile().getMimeType());
+    assertEquals(Long.valueOf(100L), split.getFile().getSize());
+    assertEquals(1_580_000_000_000L, split.getFile().getModifiedTime().getValue());
+    assertEquals("value", split.getFile().getProperties().get("key"));
+    assertEquals(Integer.valueOf(10), split.getFile().getImageMediaMetadata().getWidth());
+  }
+
+  @Test
+  public void testSerializationWithoutFileMetadata() throws IOException {
+    GoogleDriveSplit split = copy(new GoogleDriveSplit("fileId"));
+
+    assertEquals("fileId", split.getFileId());
+    assertFalse(split.isPartitioned());
+    assertNull(split.getFile());
+  }
+
+  @Test
+  public void testLength() {
+    File binaryFile = new File().setId("binary").setSize(100L);
+    assertEquals(100L, new GoogleDriveSplit(binaryFile).getLength());
+    assertEquals(40L, new GoogleDriveSplit(binaryFile, 10L, 49L).getLength());
+    assertEquals(0L, new GoogleDriveSplit("fileId").getLength());
+
+    File document = new File().setId("document").setQuotaBytesUsed(2048L);
+    assertEquals(2048L, new GoogleDriveSplit(document).getLength());
+    File documentWithoutQuota = new File().setId("document").setQuotaBytesUsed(0L);
+    assertEquals(GoogleDriveSplit.DEFAULT_EXPORT_SIZE_ESTIMATE, new GoogleDriveSplit(documentWithoutQuota).getLength());
+  }
+
+  private static GoogleDriveSplit copy(GoogleDriveSplit split) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    split.write(new DataOutputStream(outputStream));
+    GoogleDriveSplit copy = new GoogleDriveSplit();
+    copy.readFields(new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray())));
+    return copy;
+  }
+}
@@ -145,6 +145,37 @@ public class SchemaBuilderTest {
     testField(schema, Schema.Type.LONG, SchemaBuilder.OFFSET_FIELD_NAME, false);
   }
 
+  @Test
+  public void testNoneBodyFormat() {
+    List<String> fields = new ArrayList<>();
+    fields.add(SchemaBuilder.NAME_FIELD_NAME);
+
+    Schema schema = SchemaBuilder.buildSchema(fields, BodyFormat.NONE);
+
+    assertEquals(1, schema.getFields().size());
+    testField(schema, Schema.Type.STRING, SchemaBuilder.NAME_FIELD_NAME, false);
+  }
+
+  @Test
+  public void testFieldsMask() {
+    List<String> fields = new ArrayList<>();
+    fields.add(SchemaBuilder.NAME_FIELD_NAME);
+    fields.add(SchemaBuilder.ID_FIELD_NAME);
+    fields.add(getFullImageName(SchemaBuilder.IMAGE_WIDTH_FIELD_NAME));
+    fields.add(getFullImageLocationName(SchemaBuilder.IMAGE_LATITUDE_FIELD_NAME));
+    fields.add(getFullImageLocationName(SchemaBuilder.IMAGE_LONGITUDE_FIELD_NAME));
+    fields.add(getFullVideoName(SchemaBuilder.VIDEO_DURATION_MILLIS_FIELD_NAME));
+
+    assertEquals("id,mimeType,name,imageMediaMetadata(width,location(latitude,longitude))," +
+                   "videoMediaMetadata(durationMillis)",
+                 SchemaBuilder.buildFieldsMask(fields));
+  }
+
+  @Test
+  public void testFieldsMaskForEmptyFields() {
+    assertEquals("id,mimeType", SchemaBuilder.buildFieldsMask(new ArrayList<>()));
+  }
+
   private void testField(Schema schema, Schema.Type requiredType, String fieldName, boolean isNullable) {
     Schema.Field field = schema.getField(fieldName);
     assertNotNull(field);
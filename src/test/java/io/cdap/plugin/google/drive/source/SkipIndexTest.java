@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import io.cdap.cdap.api.metrics.Metrics;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class SkipIndexTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testSkipUnchangedFiles() throws Exception {
+    String location = new java.io.File(temporaryFolder.getRoot(), "index").getPath();
+    Configuration conf = new Configuration();
+
+    SkipIndex skipIndex = new SkipIndex(location, conf).load();
+    List<File> files = Arrays.asList(binaryFile("a", "md5a", 10L, 1L), binaryFile("b", "md5b", 20L, 1L),
+                                     documentFile("c", 1L));
+    Assert.assertEquals(files, skipIndex.removeUnchanged(files));
+    skipIndex.writePending();
+    skipIndex.commit();
+
+    skipIndex = new SkipIndex(location, conf).load();
+    Assert.assertEquals(3, skipIndex.size());
+    // 'a' is re-saved with the same content, 'b' and 'c' are changed, 'd' is new
+    List<File> changed = skipIndex.removeUnchanged(
+      Arrays.asList(binaryFile("a", "md5a", 10L, 2L), binaryFile("b", "md5b2", 20L, 2L), documentFile("c", 2L),
+                    binaryFile("d", "md5d", 5L, 2L)));
+    Assert.assertEquals(Arrays.asList("b", "c", "d"), changed.stream().map(File::getId).collect(Collectors.toList()));
+    skipIndex.writePending();
+    skipIndex.abort();
+
+    // the failed run doesn't update the index
+    skipIndex = new SkipIndex(location, conf).load();
+    Assert.assertEquals(3, skipIndex.size());
+    Assert.assertEquals(Collections.emptyList(),
+                        skipIndex.removeUnchanged(Collections.singletonList(documentFile("c", 1L))));
+  }
+
+  @Test
+  public void testUnlistedFilesAreRemovedAndSkippedAreReported() throws Exception {
+    String location = new java.io.File(temporaryFolder.getRoot(), "index").getPath();
+    Configuration conf = new Configuration();
+
+    SkipIndex skipIndex = new SkipIndex(location, conf).load();
+    skipIndex.removeUnchanged(Arrays.asList(binaryFile("a", "md5a", 10L, 1L), binaryFile("b", "md5b", 20L, 1L)));
+    skipIndex.writePending();
+    skipIndex.commit();
+
+    // 'b' was deleted from the folder, 'a' is unchanged
+    skipIndex = new SkipIndex(location, conf).load();
+    Assert.assertEquals(Collections.emptyList(),
+                        skipIndex.removeUnchanged(Collections.singletonList(binaryFile("a", "md5a", 10L, 1L))));
+    skipIndex.removeUnlisted();
+    Assert.assertEquals(1, skipIndex.size());
+    skipIndex.writePending();
+
+    RecordingMetrics metrics = new RecordingMetrics();
+    skipIndex.reportPendingSkipped(metrics);
+    Assert.assertEquals(Integer.valueOf(1), metrics.counts.get(SkipIndex.SKIPPED_FILES_METRIC));
+    Assert.assertEquals(Integer.valueOf(10), metrics.counts.get(SkipIndex.SKIPPED_BYTES_METRIC));
+    skipIndex.commit();
+
+    Assert.assertEquals(1, new SkipIndex(location, conf).load().size());
+  }
+
+  private static File binaryFile(String id, String md5Checksum, long size, long modifiedTime) {
+    return new File().setId(id).setMimeType("application/octet-stream").setMd5Checksum(md5Checksum).setSize(size)
+      .setModifiedTime(new DateTime(modifiedTime));
+  }
+
+  private static File documentFile(String id, long modifiedTime) {
+    return new File().setId(id).setMimeType("application/vnd.google-apps.document")
+      .setModifiedTime(new DateTime(modifiedTime));
+  }
+
+  private static class RecordingMetrics implements Metrics {
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    @Override
+    public void count(String metricName, int delta) {
+      counts.merge(metricName, delta, Integer::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.drive.source;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SplitPlannerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testFilesBeyondThresholdAreSpilled() throws Exception {
+    SplitPlanner planner = new SplitPlanner(1);
+    planner.accept(Arrays.asList(binaryFile("a", 10L), binaryFile("b", 20L)));
+    planner.accept(Collections.singletonList(new File().setId("c").setName("c")
+                                               .setMimeType("application/vnd.google-apps.document")
+                                               .setQuotaBytesUsed(30L)));
+
+    List<PlannedFile> files = planner.getFiles();
+    Assert.assertEquals(3, files.size());
+    Assert.assertEquals("a", files.get(0).getId());
+    Assert.assertEquals(Long.valueOf(20L), files.get(1).getSize());
+    Assert.assertNull(files.get(2).getSize());
+    Assert.assertEquals(30L, files.get(2).getEstimatedSize());
+    // metadata of spilled files is read back from the spill file
+    for (PlannedFile file : files) {
+      Assert.assertEquals(file.getId(), file.getFile().getName());
+    }
+    Assert.assertEquals(1_580_000_000_000L, files.get(1).getFile().getModifiedTime().getValue());
+  }
+
+  @Test
+  public void testSplitOfSpilledFileIsSerializedWithMetadata() throws Exception {
+    SplitPlanner planner = new SplitPlanner(0);
+    planner.accept(Collections.singletonList(binaryFile("a", 100L)));
+    GoogleDriveSplit split = new GoogleDriveSplit(planner.getFiles().get(0), 10L, 49L);
+    Assert.assertEquals(40L, split.getLength());
+    Assert.assertEquals(Long.valueOf(100L), split.getFileSize());
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    split.write(new DataOutputStream(outputStream));
+    GoogleDriveSplit copy = new GoogleDriveSplit();
+    copy.readFields(new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray())));
+
+    Assert.assertEquals("a", copy.getFileId());
+    Assert.assertEquals(10L, copy.getBytesFrom());
+    Assert.assertEquals(49L, copy.getBytesTo());
+    Assert.assertEquals("a", copy.getFile().getName());
+    Assert.assertEquals(Long.valueOf(100L), copy.getFile().getSize());
+  }
+
+  @Test
+  public void testSpillFileIsRemovedWithSpillDirectory() throws Exception {
+    Path spillDirectory = temporaryFolder.getRoot().toPath().resolve("spill");
+    SplitPlanner planner = new SplitPlanner(1, spillDirectory);
+    planner.accept(Arrays.asList(binaryFile("a", 10L), binaryFile("b", 20L)));
+    Path spillPath = planner.getSpillPath();
+    Assert.assertNotNull(spillPath);
+    Assert.assertEquals(spillDirectory, spillPath.getParent());
+
+    List<PlannedFile> files = planner.getFiles();
+    planner.close();
+
+    // spilled metadata is read from the spill file after the planner is closed
+    Assert.assertTrue(Files.exists(spillPath));
+    Assert.assertEquals("b", files.get(1).getFile().getName());
+
+    SplitPlanner.removeSpillDirectory(spillDirectory);
+    Assert.assertFalse(Files.exists(spillDirectory));
+  }
+
+  @Test
+  public void testSpilledMetadataIsNotHeldInMemory() throws Exception {
+    int filesNumber = 10_000;
+    int spillThreshold = 10;
+    // a description makes the metadata of each file bigger than its planned descriptor
+    String description = new String(new char[1024]).replace('\0', 'd');
+    SplitPlanner planner = new SplitPlanner(spillThreshold, temporaryFolder.getRoot().toPath());
+    for (int page = 0; page < filesNumber / 1000; page++) {
+      List<File> files = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        files.add(binaryFile("file" + (page * 1000 + i), 10L).setDescription(description));
+      }
+      planner.accept(files);
+    }
+    List<PlannedFile> files = planner.getFiles();
+    List<InputSplit> splits = new ArrayList<>();
+    for (PlannedFile file : files) {
+      splits.add(new GoogleDriveSplit(file));
+    }
+    splits = GoogleDriveInputFormat.combineSmallFileSplits(splits, 1000L, 1000);
+    planner.close();
+
+    Assert.assertEquals(filesNumber, files.size());
+    // only the metadata of files below the threshold is held, also once the listing is finished
+    Assert.assertTrue(planner.getInMemoryMetadataBytes() < spillThreshold * 2 * description.length());
+
+    // spilled metadata is read when the splits are serialized
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (InputSplit split : splits) {
+      ((Writable) split).write(new DataOutputStream(outputStream));
+    }
+    DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+    int filesRead = 0;
+    for (int i = 0; i < splits.size(); i++) {
+      GoogleDriveCombinedSplit copy = new GoogleDriveCombinedSplit();
+      copy.readFields(inputStream);
+      for (File file : copy.getFiles()) {
+        Assert.assertEquals("file" + filesRead++, file.getName());
+        Assert.assertEquals(description, file.getDescription());
+      }
+    }
+    Assert.assertEquals(filesNumber, filesRead);
+  }
+
+  private static File binaryFile(String id, long size) {
+    return new File().setId(id).setName(id).setMimeType("application/octet-stream").setSize(size)
+      .setModifiedTime(new DateTime(1_580_000_000_000L));
+  }
+}
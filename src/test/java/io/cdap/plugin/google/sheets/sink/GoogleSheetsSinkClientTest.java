@@ -51,6 +51,11 @@ public class GoogleSheetsSinkClientTest {
     EasyMock.expect(sinkConfig.getClientSecret()).andReturn("dsfdsfdsfdsf").anyTimes();
     EasyMock.expect(sinkConfig.getClientId()).andReturn("dsdsrfegvrb").anyTimes();
     EasyMock.expect(sinkConfig.getOAuthMethod()).andReturn(OAuthMethod.REFRESH_TOKEN).anyTimes();
+    EasyMock.expect(sinkConfig.getUserReadRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.expect(sinkConfig.getUserWriteRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.expect(sinkConfig.getProjectReadRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.expect(sinkConfig.getProjectWriteRequestsQuota()).andReturn(null).anyTimes();
+    EasyMock.expect(sinkConfig.getReferenceName()).andReturn("sheetsSink").anyTimes();
     EasyMock.replay(sinkConfig);
     sinkClient = new GoogleSheetsSinkClient(sinkConfig);
 
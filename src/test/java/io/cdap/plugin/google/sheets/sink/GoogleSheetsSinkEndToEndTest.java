@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.sheets.sink;
+
+import com.google.api.services.drive.model.File;
+import com.google.gson.JsonObject;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.google.common.ApiOperation;
+import io.cdap.plugin.google.common.FakeGoogleApiServer;
+import io.cdap.plugin.google.common.GoogleAuthBaseConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class GoogleSheetsSinkEndToEndTest {
+  private static final String SPREADSHEET_NAME = "report";
+  private static final String SHEET_TITLE = "data";
+  private static final Schema SCHEMA = Schema.recordOf("record",
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("count", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+
+  private static FakeGoogleApiServer server;
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = FakeGoogleApiServer.start();
+    server.bindClients();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.close();
+  }
+
+  @Before
+  public void resetServer() {
+    server.reset();
+  }
+
+  @Test
+  public void testWriteRecords() throws Exception {
+    String folderId = server.addFolder("sink", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    TaskAttemptContext context = new TaskAttemptContextImpl(getConfiguration(folderId), new TaskAttemptID());
+    StructuredRecordToFlatteredRowsRecordTransformer transformer =
+      new StructuredRecordToFlatteredRowsRecordTransformer("", "", SPREADSHEET_NAME, SHEET_TITLE, false);
+    // a single throttled batch update is retried by the writer
+    server.injectErrors(ApiOperation.SPREADSHEETS_BATCH_UPDATE, 403, 1);
+
+    GoogleSheetsRecordWriter writer = new GoogleSheetsRecordWriter(context);
+    for (int i = 0; i < 10; i++) {
+      StructuredRecord record = StructuredRecord.builder(SCHEMA)
+        .set("name", "name" + i)
+        .set("count", i)
+        .set("tags", Arrays.asList("a" + i, "b" + i))
+        .build();
+      writer.write(null, transformer.transform(record));
+    }
+    writer.close(context);
+
+    List<File> files = server.getChildren(folderId);
+    Assert.assertEquals(1, files.size());
+    Assert.assertEquals(SPREADSHEET_NAME, files.get(0).getName());
+    Assert.assertEquals(1, server.getRequestCount(ApiOperation.SPREADSHEETS_CREATE));
+
+    String spreadsheetId = files.get(0).getId();
+    Assert.assertEquals(Arrays.asList(SHEET_TITLE), server.getSheetTitles(spreadsheetId));
+    List<List<String>> values = server.getSheetValues(spreadsheetId, SHEET_TITLE);
+    // each record takes two rows, one for each array element
+    Assert.assertEquals(20, values.size());
+    Assert.assertEquals(Arrays.asList("name0", "0", "a0"), values.get(0));
+    Assert.assertEquals("b0", values.get(1).get(2));
+    Assert.assertEquals(Arrays.asList("name9", "9", "a9"), values.get(18));
+    Assert.assertFalse(server.getSheetMerges(spreadsheetId, SHEET_TITLE).isEmpty());
+  }
+
+  private static Configuration getConfiguration(String folderId) {
+    JsonObject config = new JsonObject();
+    config.addProperty(GoogleAuthBaseConfig.REFERENCE_NAME, "sheetsSinkEndToEnd");
+    config.addProperty(GoogleAuthBaseConfig.AUTH_TYPE, "oAuth2");
+    config.addProperty(GoogleAuthBaseConfig.OAUTH_METHOD, "ACCESS_TOKEN");
+    config.addProperty(GoogleAuthBaseConfig.ACCESS_TOKEN, FakeGoogleApiServer.ACCESS_TOKEN);
+    config.addProperty(GoogleAuthBaseConfig.DIRECTORY_IDENTIFIER, folderId);
+    config.addProperty(GoogleSheetsSinkConfig.SPREADSHEET_NAME_FIELD_NAME, SPREADSHEET_NAME);
+    config.addProperty(GoogleSheetsSinkConfig.SHEET_NAME_FIELD_NAME, SHEET_TITLE);
+    config.addProperty(GoogleSheetsSinkConfig.WRITE_SCHEMA_FIELD_NAME, false);
+    config.addProperty(GoogleSheetsSinkConfig.MERGE_DATA_CELLS_FIELD_NAME, true);
+    config.addProperty(GoogleSheetsSinkConfig.MIN_PAGE_EXTENSION_PAGE_FIELD_NAME, 100);
+    config.addProperty(GoogleSheetsSinkConfig.THREADS_NUMBER_FIELD_NAME, 2);
+    config.addProperty(GoogleSheetsSinkConfig.MAX_BUFFER_SIZE_FIELD_NAME, 4);
+    config.addProperty(GoogleSheetsSinkConfig.RECORDS_QUEUE_LENGTH_FIELD_NAME, 100);
+    config.addProperty(GoogleSheetsSinkConfig.MAX_FLUSH_INTERVAL_FIELD_NAME, 1);
+    config.addProperty(GoogleSheetsSinkConfig.FLUSH_EXECUTION_TIMEOUT_FIELD_NAME, 10);
+    config.addProperty(GoogleSheetsSinkConfig.SKIP_NAME_FIELDS_FIELD_NAME, false);
+
+    Configuration conf = new Configuration(false);
+    conf.set(GoogleSheetsOutputFormatProvider.PROPERTY_CONFIG_JSON, config.toString());
+    return conf;
+  }
+}
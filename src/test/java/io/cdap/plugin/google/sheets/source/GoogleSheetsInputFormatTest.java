@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.sheets.source;
+
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import io.cdap.plugin.google.sheets.source.utils.SheetsToPull;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GoogleSheetsInputFormatTest {
+
+  @Test
+  public void testEstimateSizeOfPulledSheets() {
+    List<Sheet> sheets = Arrays.asList(getSheet("first", 0, 1000, 26), getSheet("second", 1, 10, 5));
+
+    assertEquals((1000 * 26 + 10 * 5) * GoogleSheetsInputFormat.ESTIMATED_CELL_SIZE,
+                 GoogleSheetsInputFormat.estimateSize(sheets, SheetsToPull.ALL, Collections.emptyList()));
+    assertEquals(10 * 5 * GoogleSheetsInputFormat.ESTIMATED_CELL_SIZE,
+                 GoogleSheetsInputFormat.estimateSize(sheets, SheetsToPull.TITLES,
+                                                      Collections.singletonList("second")));
+    assertEquals(1000 * 26 * GoogleSheetsInputFormat.ESTIMATED_CELL_SIZE,
+                 GoogleSheetsInputFormat.estimateSize(sheets, SheetsToPull.NUMBERS, Collections.singletonList("0")));
+  }
+
+  @Test
+  public void testEstimateSizeWithoutGridProperties() {
+    Sheet sheet = new Sheet().setProperties(new SheetProperties().setTitle("chart").setIndex(0));
+
+    assertEquals(0L, GoogleSheetsInputFormat.estimateSize(Collections.singletonList(sheet), SheetsToPull.ALL,
+                                                          Collections.emptyList()));
+  }
+
+  private static Sheet getSheet(String title, int index, int rowCount, int columnCount) {
+    return new Sheet().setProperties(new SheetProperties()
+                                       .setTitle(title)
+                                       .setIndex(index)
+                                       .setGridProperties(new GridProperties()
+                                                            .setRowCount(rowCount)
+                                                            .setColumnCount(columnCount)));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.google.sheets.source;
+
+import com.google.gson.JsonObject;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.validation.DefaultFailureCollector;
+import io.cdap.plugin.google.common.ApiOperation;
+import io.cdap.plugin.google.common.FakeGoogleApiServer;
+import io.cdap.plugin.google.common.GoogleAuthBaseConfig;
+import io.cdap.plugin.google.common.GoogleFilteringSourceConfig;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class GoogleSheetsSourceEndToEndTest {
+  private static final String SHEET_TITLE = "data";
+
+  private static FakeGoogleApiServer server;
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = FakeGoogleApiServer.start();
+    server.bindClients();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.close();
+  }
+
+  @Before
+  public void resetServer() {
+    server.reset();
+  }
+
+  @Test
+  public void testReadSpreadsheets() throws Exception {
+    String folderId = server.addFolder("source", FakeGoogleApiServer.ROOT_FOLDER_ID);
+    server.addSpreadsheet("cities", folderId, SHEET_TITLE, Arrays.asList(
+      Arrays.<Object>asList("name", "country"),
+      Arrays.<Object>asList("Kyiv", "Ukraine"),
+      Arrays.<Object>asList("Lisbon", "Portugal")));
+    server.addSpreadsheet("rivers", folderId, SHEET_TITLE, Arrays.asList(
+      Arrays.<Object>asList("name", "country"),
+      Arrays.<Object>asList("Dnipro", "Ukraine")));
+    // a single throttled sheets request is retried by the reader
+    server.injectErrors(ApiOperation.SPREADSHEETS_GET, 403, 1, 2);
+
+    JsonObject properties = getProperties(folderId);
+    GoogleSheetsSourceConfig config = GoogleSheetsSourceConfig.of(properties);
+    FailureCollector collector = new DefaultFailureCollector("stageConfig", Collections.EMPTY_MAP);
+    config.validate(collector);
+    Assert.assertEquals(0, collector.getValidationFailures().size());
+    Schema schema = config.getSchema(collector);
+    Assert.assertNotNull(schema.getField("name"));
+    Assert.assertNotNull(schema.getField("country"));
+
+    JsonObject wrapper = new JsonObject();
+    wrapper.add(GoogleSheetsSourceConfig.CONFIGURATION_PARSE_PROPERTY_NAME, properties);
+    Configuration conf = new Configuration(false);
+    conf.set(GoogleSheetsInputFormatProvider.PROPERTY_CONFIG_JSON, wrapper.toString());
+    conf.set(GoogleSheetsInputFormatProvider.PROPERTY_CONFIG_SCHEMA, schema.toString());
+    conf.set(GoogleSheetsInputFormatProvider.PROPERTY_HEADERS_JSON,
+             GoogleSheetsInputFormatProvider.GSON.toJson(config.getHeaderTitlesRow()));
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+    GoogleSheetsInputFormat inputFormat = new GoogleSheetsInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(context);
+    Assert.assertEquals(2, splits.size());
+
+    List<String> records = new ArrayList<>();
+    for (InputSplit split : splits) {
+      RecordReader<?, ?> reader = inputFormat.createRecordReader(split, context);
+      try {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          StructuredRecord record = (StructuredRecord) reader.getCurrentValue();
+          // empty rows of the sheet grid are skipped
+          if (record != null) {
+            records.add(record.get("name") + "," + record.get("country"));
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+    Collections.sort(records);
+    Assert.assertEquals(Arrays.asList("Dnipro,Ukraine", "Kyiv,Ukraine", "Lisbon,Portugal"), records);
+    Assert.assertEquals(1, server.getThrottledRequests());
+  }
+
+  private static JsonObject getProperties(String folderId) {
+    JsonObject properties = new JsonObject();
+    properties.addProperty(GoogleAuthBaseConfig.REFERENCE_NAME, "sheetsSourceEndToEnd");
+    properties.addProperty(GoogleAuthBaseConfig.AUTH_TYPE, "oAuth2");
+    properties.addProperty(GoogleAuthBaseConfig.OAUTH_METHOD, "ACCESS_TOKEN");
+    properties.addProperty(GoogleAuthBaseConfig.ACCESS_TOKEN, FakeGoogleApiServer.ACCESS_TOKEN);
+    properties.addProperty(GoogleAuthBaseConfig.IDENTIFIER_TYPE, "DIRECTORY_IDENTIFIER");
+    properties.addProperty(GoogleAuthBaseConfig.DIRECTORY_IDENTIFIER, folderId);
+    properties.addProperty(GoogleFilteringSourceConfig.MODIFICATION_DATE_RANGE, "lifetime");
+    properties.addProperty(GoogleSheetsSourceConfig.SHEETS_TO_PULL, "all");
+    properties.addProperty(GoogleSheetsSourceConfig.FORMATTING, "valuesOnly");
+    properties.addProperty(GoogleSheetsSourceConfig.SKIP_EMPTY_DATA, "true");
+    properties.addProperty(GoogleSheetsSourceConfig.COLUMN_NAMES_SELECTION, "firstRowAsColumns");
+    properties.addProperty(GoogleSheetsSourceConfig.CUSTOM_COLUMN_NAMES_ROW, "1");
+    properties.addProperty(GoogleSheetsSourceConfig.EXTRACT_METADATA, "false");
+    properties.addProperty(GoogleSheetsSourceConfig.METADATA_FIELD_NAME, "metadata");
+    properties.addProperty(GoogleSheetsSourceConfig.AUTO_DETECT_ROWS_AND_COLUMNS, true);
+    properties.addProperty(GoogleSheetsSourceConfig.LAST_DATA_COLUMN, "26");
+    properties.addProperty(GoogleSheetsSourceConfig.LAST_DATA_ROW, "1000");
+    properties.addProperty(GoogleSheetsSourceConfig.READ_BUFFER_SIZE, "100");
+    properties.addProperty(GoogleSheetsSourceConfig.ADD_NAME_FIELDS, "false");
+    properties.addProperty(GoogleSheetsSourceConfig.SPREADSHEET_FIELD_NAME, "spreadsheetName");
+    properties.addProperty(GoogleSheetsSourceConfig.SHEET_FIELD_NAME, "sheetName");
+    return properties;
+  }
+}